@@ -324,6 +324,7 @@ public class Res
   public static final ResourceKey MSG_TEMPLATE_INVALID_PARAMS = new ResourceKey("MSG_TEMPLATE_INVALID_PARAMS");
   public static final ResourceKey MSG_TEMPLATE_MULTIPLE_PARAMS = new ResourceKey("MSG_TEMPLATE_MULTIPLE_PARAMS");
   public static final ResourceKey MSG_TEMPLATE_UNKNOWN_DIRECTIVE = new ResourceKey("MSG_TEMPLATE_UNKNOWN_DIRECTIVE");
+  public static final ResourceKey MSG_TEMPLATE_UNBALANCED_CACHE_DIRECTIVE = new ResourceKey("MSG_TEMPLATE_UNBALANCED_CACHE_DIRECTIVE");
   public static final ResourceKey MSG_EQUALS_FOR_INITIALIZER_EXPR = new ResourceKey( "MSG_EQUALS_FOR_INITIALIZER_EXPR" );
   public static final ResourceKey MSG_EXPECTING_NAME_VALUE_PAIR = new ResourceKey( "MSG_EXPECTING_NAME_VALUE_PAIR" );
   public static final ResourceKey MSG_REDUNTANT_INITIALIZERS = new ResourceKey( "MSG_REDUNTANT_INITIALIZERS" );
@@ -339,7 +339,7 @@ public class Strings extends ListResourceBundle
        {Res.MSG_JAVA_STYLE_VARIABLE_DECLARATION.getKey(), "This is a java-style variable declaration.  Please use the \"var\" keyword instead."},
        {Res.MSG_NUMERIC_TYPE_EXPECTED.getKey(), "Numeric expression expected."},
        {Res.MSG_GETTER_CANNOT_HAVE_PARAMETERS.getKey(), "A property get definition cannot have parameters."},
-       {Res.MSG_BAD_TEMPLATE_DIRECTIVE.getKey(), "Invalid template directive.  Valid directives are \"extends\" and \"params\"."},
+       {Res.MSG_BAD_TEMPLATE_DIRECTIVE.getKey(), "Invalid template directive.  Valid directives are \"extends\", \"params\", \"cache\", \"endcache\" and \"flush\"."},
        {Res.MSG_CLASSPATH_STATEMENT_EXPECTS_A_STRING.getKey(), "The classpath statement requires a string for the path"},
        {Res.MSG_COMMA_IS_THE_CLASSPATH_SEPARATOR.getKey(), "The classpath statement uses commas as a platform-independent path separator"},
        {Res.MSG_BITSHIFT_LHS_MUST_BE_INT_OR_LONG.getKey(), "The left-hand side operand must be an int or a long."},
@@ -353,7 +353,8 @@ public class Strings extends ListResourceBundle
        {Res.MSG_TEMPLATE_MISSING_END_TAG_EXPRESSION_ALT.getKey(), "Missing '}' end tag for expression."},
        {Res.MSG_TEMPLATE_MULTIPLE_PARAMS.getKey(), "Multiple \"params\" directives found."},
        {Res.MSG_TEMPLATE_INVALID_PARAMS.getKey(), "Invalid parameters: {0}"},
-       {Res.MSG_TEMPLATE_UNKNOWN_DIRECTIVE.getKey(), "Unknown directive {0}.  Valid directives are \"params\" and \"extends\"."},
+       {Res.MSG_TEMPLATE_UNKNOWN_DIRECTIVE.getKey(), "Unknown directive {0}.  Valid directives are \"params\", \"extends\", \"cache\", \"endcache\" and \"flush\"."},
+       {Res.MSG_TEMPLATE_UNBALANCED_CACHE_DIRECTIVE.getKey(), "Missing \"{0}\" directive for a cached section."},
        {Res.WSDL_DUPLICATE_METHOD.getKey(), "Duplicate web service functions.  Overloaded functions must have a different number of parameters, even if the parameter types are different.\n"+
                                             "{0} conflicts with {1}."},
        {Res.MSG_PRIMITIVE_TYPE_PARAM.getKey(), "Primitive type {0} is not allowed here. Type {0} is implicitly transformed to {1} as a type parameter, please use {1} directly."},
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.lang.reflect;
+
+import gw.lang.reflect.gs.ICompilableType;
+
+/**
+ * A class loading observer that is also told when the Gosu class loader defines a class.
+ */
+public interface IGosuClassDefinitionObserver extends IGosuClassLoadingObserver {
+
+  /**
+   * Called after the Gosu class loader compiles and defines a class. Not called for
+   * classes the JVM loads from precompiled class files.
+   *
+   * @param gsClass - the class that was defined
+   */
+  void classDefined(ICompilableType gsClass);
+
+}
@@ -23,6 +23,8 @@ import gw.lang.reflect.gs.IGenericTypeVariable;
 import gw.lang.reflect.gs.IGosuArrayClass;
 import gw.lang.reflect.gs.IGosuClass;
 import gw.lang.reflect.gs.IGosuClassLoader;
+import gw.lang.reflect.gs.TypeWarmUpReport;
+import gw.lang.reflect.gs.TypeWarmer;
 import gw.lang.reflect.java.IJavaArrayType;
 import gw.lang.reflect.java.IJavaBackedType;
 import gw.lang.reflect.java.IJavaClassInfo;
@@ -981,6 +983,27 @@ public class TypeSystem
     return getExecutionEnvironment().getJreModule();
   }
 
+  /**
+   * Parses, compiles and defines the named Gosu classes on a pool of worker threads,
+   * respecting supertype and enhancement ordering. Call this before admitting traffic
+   * to avoid paying compilation costs on first touch.
+   *
+   * @param typeNames fully qualified type names e.g., a list recorded in a previous run
+   * @param iThreads the number of worker threads
+   * @return per-type timings
+   */
+  public static TypeWarmUpReport warmUp( Collection<? extends CharSequence> typeNames, int iThreads )
+  {
+    return new TypeWarmer( getCurrentModule(), iThreads ).warmUp( typeNames );
+  }
+
+  /**
+   * Same as {@link #warmUp(Collection, int)} for every type in the given packages.
+   */
+  public static TypeWarmUpReport warmUpPackages( Collection<String> packages, int iThreads )
+  {
+    return new TypeWarmer( getCurrentModule(), iThreads ).warmUpPackages( packages );
+  }
 
 }
 
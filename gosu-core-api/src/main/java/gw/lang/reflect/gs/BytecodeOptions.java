@@ -6,6 +6,7 @@ package gw.lang.reflect.gs;
 
 import gw.util.concurrent.LocklessLazyVar;
 
+import java.io.File;
 import java.util.List;
 
 public class BytecodeOptions
@@ -16,8 +17,22 @@ public class BytecodeOptions
   private static boolean COLLECT_COMPILATION_STATISTICS = false;
   private static boolean GENERATE_ANNOTATIONS_TO_CLASS_FILES = true;
   private static boolean TREE_VERIFICATION_ENABLED = false;
+  private static File BYTECODE_CACHE_DIR = determineBytecodeCacheDir();
 
   public static final String RELOAD_CLASSES_SYSTEM_PROP = "gosu.can.reload.classes";
+  public static final String BYTECODE_CACHE_DIR_SYSTEM_PROP = "gosu.bytecode.cache.dir";
+  public static final String TARGET_SYSTEM_PROP = "gosu.bytecode.target";
+  public static final String FRAMES_SYSTEM_PROP = "gosu.bytecode.frames";
+  public static final String IR_OPTIMIZER_SYSTEM_PROP = "gosu.ir.optimizer";
+
+  // Major class file versions of the supported targets
+  public static final int JAVA_6 = 50;
+  public static final int JAVA_7 = 51;
+  public static final int JAVA_8 = 52;
+
+  private static int CLASS_FILE_VERSION = determineClassFileVersion();
+  private static boolean COMPUTE_FRAMES = Boolean.getBoolean( FRAMES_SYSTEM_PROP );
+  private static boolean IR_OPTIMIZER_ENABLED = Boolean.getBoolean( IR_OPTIMIZER_SYSTEM_PROP );
 
   public static LocklessLazyVar<Boolean> JDWP_ENABLED =
     new LocklessLazyVar<Boolean>() {
@@ -109,4 +124,92 @@ public class BytecodeOptions
   {
     TREE_VERIFICATION_ENABLED = b;
   }
+
+  /**
+   * @return the directory where bytecode compiled from Gosu source is cached across
+   *   JVM runs, or null if the cache is disabled
+   */
+  public static File getBytecodeCacheDir()
+  {
+    return BYTECODE_CACHE_DIR;
+  }
+
+  public static void setBytecodeCacheDir( File dir )
+  {
+    BYTECODE_CACHE_DIR = dir;
+  }
+
+  /**
+   * @return the major class file version of classes compiled from Gosu source, {@link #JAVA_6}
+   *   unless set with {@link #TARGET_SYSTEM_PROP} ("1.6", "1.7" or "1.8")
+   */
+  public static int getClassFileVersion()
+  {
+    return CLASS_FILE_VERSION;
+  }
+
+  public static void setClassFileVersion( int version )
+  {
+    if( version < JAVA_6 || version > JAVA_8 )
+    {
+      throw new IllegalArgumentException( "Unsupported class file version: " + version );
+    }
+    CLASS_FILE_VERSION = version;
+  }
+
+  /**
+   * Stack map frames let the JVM verify a class in one pass instead of inferring types.
+   * Java 6 class files may have them, and fall back to inference if they don't check out.
+   * Later class files must have them, so they are always computed for those.
+   *
+   * @return true if compiled classes get stack map frames
+   */
+  public static boolean isComputeFrames()
+  {
+    return COMPUTE_FRAMES || CLASS_FILE_VERSION > JAVA_6;
+  }
+
+  public static void setComputeFrames( boolean bComputeFrames )
+  {
+    COMPUTE_FRAMES = bComputeFrames;
+  }
+
+  /**
+   * @return true if IR trees are optimized before they are compiled to bytecode, off unless
+   *   set with {@link #IR_OPTIMIZER_SYSTEM_PROP}
+   */
+  public static boolean isIROptimizerEnabled()
+  {
+    return IR_OPTIMIZER_ENABLED;
+  }
+
+  public static void setIROptimizerEnabled( boolean bEnabled )
+  {
+    IR_OPTIMIZER_ENABLED = bEnabled;
+  }
+
+  private static int determineClassFileVersion()
+  {
+    String target = System.getProperty( TARGET_SYSTEM_PROP );
+    if( target == null || target.length() == 0 || target.equals( "1.6" ) )
+    {
+      return JAVA_6;
+    }
+    else if( target.equals( "1.7" ) )
+    {
+      return JAVA_7;
+    }
+    else if( target.equals( "1.8" ) )
+    {
+      return JAVA_8;
+    }
+    System.out.println( "WARNING: unrecognized value " + target + " found for system property " + TARGET_SYSTEM_PROP + ".  The value must be 1.6, 1.7 or 1.8." );
+    return JAVA_6;
+  }
+
+  private static File determineBytecodeCacheDir()
+  {
+    String dir = System.getProperty( BYTECODE_CACHE_DIR_SYSTEM_PROP );
+    return dir == null || dir.length() == 0 ? null : new File( dir );
+  }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.lang.reflect.gs;
+
+import gw.config.CommonServices;
+import gw.lang.reflect.IGosuClassDefinitionObserver;
+import gw.lang.reflect.IGosuClassLoadingObserver;
+import gw.lang.reflect.ITypeLoaderListener;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.RefreshKind;
+import gw.lang.reflect.RefreshRequest;
+import gw.lang.reflect.TypeSystem;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * Records the order in which Gosu classes are compiled and defined during a run
+ * and replays that order in a later run, much like a CDS class list but for Gosu
+ * types.
+ * <p/>
+ * Record:
+ * <pre>
+ *   ClassLoadingProfile.Recorder recorder = ClassLoadingProfile.startRecording();
+ *   ...
+ *   recorder.writeOnShutdown( new File( "app.gsprofile" ) );
+ * </pre>
+ * Replay, before or while the rest of the application initializes:
+ * <pre>
+ *   Future&lt;TypeWarmUpReport&gt; warmUp = ClassLoadingProfile.replay( new File( "app.gsprofile" ), 4 );
+ * </pre>
+ * The profile is a plain text file with one top-level type name per line in first
+ * definition order; lines starting with '#' are comments.
+ */
+public class ClassLoadingProfile {
+  private static final String HEADER = "# Gosu class-loading profile";
+
+  private ClassLoadingProfile() {
+  }
+
+  /**
+   * Starts recording classes as the Gosu class loader defines them.
+   */
+  public static Recorder startRecording() {
+    Recorder recorder = new Recorder();
+    CommonServices.getEntityAccess().getGosuClassLoadingObservers().add( recorder );
+    TypeSystem.addTypeLoaderListenerAsWeakRef( recorder );
+    return recorder;
+  }
+
+  /**
+   * Reads a profile and pre-compiles its types on background threads.
+   *
+   * @return a future for the per-type timings
+   */
+  public static Future<TypeWarmUpReport> replay( File profile, int iThreads ) throws IOException {
+    return new TypeWarmer( TypeSystem.getCurrentModule(), iThreads ).warmUpInBackground( TypeWarmer.readTypeNames( profile ) );
+  }
+
+  public static class Recorder implements IGosuClassDefinitionObserver, ITypeLoaderListener {
+    private final Set<String> _typeNames = new LinkedHashSet<String>();
+    private volatile boolean _bRecording = true;
+
+    private Recorder() {
+    }
+
+    @Override
+    public boolean shouldUseSingleServingLoader( ICompilableType gsClass ) {
+      return false;
+    }
+
+    @Override
+    public void classDefined( ICompilableType gsClass ) {
+      if( !_bRecording || gsClass instanceof IGosuProgram || gsClass instanceof IGosuFragment ) {
+        // Programs and fragments are compiled on demand and can't be resolved by name in another run
+        return;
+      }
+      IType type = gsClass;
+      while( type.getEnclosingType() != null ) {
+        type = type.getEnclosingType();
+      }
+      synchronized( _typeNames ) {
+        _typeNames.add( type.getName() );
+      }
+    }
+
+    @Override
+    public void refreshedTypes( RefreshRequest request ) {
+      if( request.kind == RefreshKind.DELETION ) {
+        synchronized( _typeNames ) {
+          for( String type : request.types ) {
+            _typeNames.remove( type );
+          }
+        }
+      }
+    }
+
+    @Override
+    public void refreshed() {
+    }
+
+    /**
+     * Stops recording. The names recorded so far are kept.
+     */
+    public void stop() {
+      _bRecording = false;
+      List<IGosuClassLoadingObserver> observers = CommonServices.getEntityAccess().getGosuClassLoadingObservers();
+      observers.remove( this );
+      TypeSystem.removeTypeLoaderListener( this );
+    }
+
+    /**
+     * @return top-level type names in first definition order
+     */
+    public List<String> getTypeNames() {
+      synchronized( _typeNames ) {
+        return new ArrayList<String>( _typeNames );
+      }
+    }
+
+    public void write( File profile ) throws IOException {
+      List<String> typeNames = getTypeNames();
+      File parent = profile.getAbsoluteFile().getParentFile();
+      if( parent != null ) {
+        parent.mkdirs();
+      }
+      // Write to a sibling file and rename so a concurrent replay never sees a partial profile
+      File temp = new File( profile.getPath() + ".tmp" );
+      Writer writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( temp ), "UTF-8" ) );
+      try {
+        writer.write( HEADER );
+        writer.write( '\n' );
+        for( String typeName : typeNames ) {
+          writer.write( typeName );
+          writer.write( '\n' );
+        }
+      }
+      finally {
+        writer.close();
+      }
+      if( !temp.renameTo( profile ) ) {
+        profile.delete();
+        if( !temp.renameTo( profile ) ) {
+          throw new IOException( "Could not write profile " + profile );
+        }
+      }
+    }
+
+    /**
+     * Writes the profile when the JVM exits.
+     */
+    public void writeOnShutdown( final File profile ) {
+      Runtime.getRuntime().addShutdownHook( new Thread( "Gosu Class-Loading Profile Writer" ) {
+        public void run() {
+          _bRecording = false;
+          try {
+            write( profile );
+          }
+          catch( IOException e ) {
+            CommonServices.getEntityAccess().getLogger().warn( "Could not write Gosu class-loading profile " + profile, e );
+          }
+        }
+      } );
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.lang.reflect.gs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Per-type timings collected by a {@link TypeWarmer} run.
+ */
+public class TypeWarmUpReport {
+
+  public static class Timing {
+    private final String _typeName;
+    private final long _lNanos;
+    private final Throwable _error;
+
+    Timing( String typeName, long lNanos, Throwable error ) {
+      _typeName = typeName;
+      _lNanos = lNanos;
+      _error = error;
+    }
+
+    public String getTypeName() {
+      return _typeName;
+    }
+
+    /**
+     * @return the time spent parsing, compiling and defining the type, in nanoseconds
+     */
+    public long getNanos() {
+      return _lNanos;
+    }
+
+    /**
+     * @return the failure raised while warming the type, or null if it warmed cleanly
+     */
+    public Throwable getError() {
+      return _error;
+    }
+
+    public String toString() {
+      return _typeName + ": " + (_lNanos / 1000000) + "ms" + (_error == null ? "" : " (" + _error + ")");
+    }
+  }
+
+  private final List<Timing> _timings;
+  private final List<String> _unresolved;
+  private long _lElapsedNanos;
+
+  TypeWarmUpReport() {
+    _timings = Collections.synchronizedList( new ArrayList<Timing>() );
+    _unresolved = Collections.synchronizedList( new ArrayList<String>() );
+  }
+
+  void addTiming( String typeName, long lNanos, Throwable error ) {
+    _timings.add( new Timing( typeName, lNanos, error ) );
+  }
+
+  void addUnresolved( String typeName ) {
+    _unresolved.add( typeName );
+  }
+
+  void setElapsedNanos( long lElapsedNanos ) {
+    _lElapsedNanos = lElapsedNanos;
+  }
+
+  /**
+   * @return timings in completion order
+   */
+  public List<Timing> getTimings() {
+    synchronized( _timings ) {
+      return new ArrayList<Timing>( _timings );
+    }
+  }
+
+  /**
+   * @return timings ordered from slowest to fastest
+   */
+  public List<Timing> getSlowest() {
+    List<Timing> timings = getTimings();
+    Collections.sort( timings, new Comparator<Timing>() {
+      public int compare( Timing t1, Timing t2 ) {
+        return t1._lNanos < t2._lNanos ? 1 : t1._lNanos == t2._lNanos ? 0 : -1;
+      }
+    } );
+    return timings;
+  }
+
+  public List<Timing> getFailures() {
+    List<Timing> failures = new ArrayList<Timing>();
+    for( Timing timing : getTimings() ) {
+      if( timing._error != null ) {
+        failures.add( timing );
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * @return names that did not resolve to a compilable Gosu type
+   */
+  public List<String> getUnresolved() {
+    synchronized( _unresolved ) {
+      return new ArrayList<String>( _unresolved );
+    }
+  }
+
+  /**
+   * @return wall-clock time of the whole warm-up, in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return _lElapsedNanos;
+  }
+
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append( "Warmed " ).append( _timings.size() ).append( " types in " ).append( _lElapsedNanos / 1000000 ).append( "ms" );
+    int iFailures = getFailures().size();
+    if( iFailures > 0 ) {
+      sb.append( ", " ).append( iFailures ).append( " failed" );
+    }
+    if( !_unresolved.isEmpty() ) {
+      sb.append( ", " ).append( _unresolved.size() ).append( " unresolved" );
+    }
+    sb.append( '\n' );
+    for( Timing timing : getSlowest() ) {
+      sb.append( "  " ).append( timing ).append( '\n' );
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.lang.reflect.gs;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.module.IModule;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Eagerly parses, compiles and defines a set of Gosu classes so the cost is paid
+ * before an application starts taking traffic instead of on first touch.
+ * <p/>
+ * Headers are resolved on the calling thread to discover the supertype, interface
+ * and enhanced-type dependencies among the requested classes. Classes are then
+ * compiled on a pool of worker threads, and a class is only scheduled after the
+ * requested classes it depends on have finished. The parser still serializes on
+ * the global type-system lock, so the gain comes from overlapping bytecode
+ * generation, class definition and verification with parsing.
+ * <p/>
+ * Usage:
+ * <pre>
+ *   TypeWarmUpReport report = TypeSystem.warmUp( TypeWarmer.readTypeNames( file ), 4 );
+ * </pre>
+ */
+public class TypeWarmer {
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private final IModule _module;
+  private final int _iThreads;
+
+  public TypeWarmer() {
+    this( TypeSystem.getCurrentModule(), Runtime.getRuntime().availableProcessors() );
+  }
+
+  public TypeWarmer( IModule module, int iThreads ) {
+    if( iThreads < 1 ) {
+      throw new IllegalArgumentException( "Thread count must be positive: " + iThreads );
+    }
+    _module = module;
+    _iThreads = iThreads;
+  }
+
+  /**
+   * Warms the named types and blocks until all of them are compiled and defined.
+   *
+   * @param typeNames fully qualified type names, inner classes are warmed with their top-level class
+   * @return per-type timings
+   */
+  public TypeWarmUpReport warmUp( Collection<? extends CharSequence> typeNames ) {
+    long lStart = System.nanoTime();
+    TypeWarmUpReport report = new TypeWarmUpReport();
+    Collection<Node> nodes = resolve( typeNames, report );
+    if( !nodes.isEmpty() ) {
+      compile( nodes, report );
+    }
+    report.setElapsedNanos( System.nanoTime() - lStart );
+    return report;
+  }
+
+  /**
+   * Warms the named types on a background thread so the caller can continue
+   * initializing the application while compilation proceeds.
+   *
+   * @return a future for the per-type timings
+   */
+  public Future<TypeWarmUpReport> warmUpInBackground( final Collection<? extends CharSequence> typeNames ) {
+    FutureTask<TypeWarmUpReport> task = new FutureTask<TypeWarmUpReport>( new Callable<TypeWarmUpReport>() {
+      public TypeWarmUpReport call() {
+        return warmUp( typeNames );
+      }
+    } );
+    Thread thread = new Thread( task, "Gosu Type Warmer " + THREAD_COUNT.incrementAndGet() );
+    thread.setDaemon( true );
+    thread.start();
+    return task;
+  }
+
+  /**
+   * Warms every type in the given packages, sub-packages included.
+   */
+  public TypeWarmUpReport warmUpPackages( Collection<String> packages ) {
+    return warmUp( typeNamesInPackages( packages ) );
+  }
+
+  public static List<String> typeNamesInPackages( Collection<String> packages ) {
+    List<String> names = new ArrayList<String>();
+    for( CharSequence typeName : TypeSystem.getAllTypeNames() ) {
+      String strName = typeName.toString();
+      for( String strPackage : packages ) {
+        if( strName.startsWith( strPackage ) &&
+            strName.length() > strPackage.length() &&
+            strName.charAt( strPackage.length() ) == '.' ) {
+          names.add( strName );
+          break;
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Reads a type list with one fully qualified name per line. Blank lines and
+   * lines starting with '#' are ignored.
+   */
+  public static List<String> readTypeNames( File file ) throws IOException {
+    List<String> names = new ArrayList<String>();
+    BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+    try {
+      String line;
+      while( (line = reader.readLine()) != null ) {
+        line = line.trim();
+        if( line.length() > 0 && line.charAt( 0 ) != '#' ) {
+          names.add( line );
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+    return names;
+  }
+
+  private Collection<Node> resolve( Collection<? extends CharSequence> typeNames, TypeWarmUpReport report ) {
+    Map<String, Node> nodes = new LinkedHashMap<String, Node>();
+    TypeSystem.pushModule( _module );
+    try {
+      for( CharSequence typeName : typeNames ) {
+        IGosuClass gsClass = getTopLevelClass( TypeSystem.getByFullNameIfValid( typeName.toString() ) );
+        if( gsClass == null || !gsClass.isCompilable() ) {
+          report.addUnresolved( typeName.toString() );
+        }
+        else if( !nodes.containsKey( gsClass.getName() ) ) {
+          nodes.put( gsClass.getName(), new Node( gsClass ) );
+        }
+      }
+      for( Node node : nodes.values() ) {
+        for( IType dep : getDependencies( node._gsClass ) ) {
+          Node depNode = nodes.get( dep.getName() );
+          if( depNode != null && depNode != node ) {
+            node._deps.add( depNode );
+          }
+        }
+      }
+    }
+    finally {
+      TypeSystem.popModule( _module );
+    }
+    breakCycles( nodes.values() );
+    return nodes.values();
+  }
+
+  private static IGosuClass getTopLevelClass( IType type ) {
+    if( !(type instanceof IGosuClass) ) {
+      return null;
+    }
+    type = TypeSystem.getPureGenericType( type );
+    while( type.getEnclosingType() instanceof IGosuClass ) {
+      type = type.getEnclosingType();
+    }
+    return (IGosuClass)type;
+  }
+
+  private static Set<IType> getDependencies( IGosuClass gsClass ) {
+    Set<IType> deps = new LinkedHashSet<IType>();
+    addDependency( deps, gsClass.getSupertype() );
+    for( IType iface : gsClass.getInterfaces() ) {
+      addDependency( deps, iface );
+    }
+    if( gsClass instanceof IGosuEnhancement ) {
+      addDependency( deps, ((IGosuEnhancement)gsClass).getEnhancedType() );
+    }
+    return deps;
+  }
+
+  private static void addDependency( Set<IType> deps, IType type ) {
+    IGosuClass gsClass = getTopLevelClass( type );
+    if( gsClass != null ) {
+      deps.add( gsClass );
+    }
+  }
+
+  /**
+   * Ordering is only an optimization, a class compiles its dependencies on demand
+   * regardless, so nodes caught in a dependency cycle simply lose their ordering
+   * constraints among each other.
+   */
+  static void breakCycles( Collection<Node> nodes ) {
+    Map<Node, Integer> pending = new LinkedHashMap<Node, Integer>();
+    Map<Node, List<Node>> dependents = new LinkedHashMap<Node, List<Node>>();
+    List<Node> ready = new ArrayList<Node>();
+    for( Node node : nodes ) {
+      pending.put( node, node._deps.size() );
+      if( node._deps.isEmpty() ) {
+        ready.add( node );
+      }
+      for( Node dep : node._deps ) {
+        List<Node> list = dependents.get( dep );
+        if( list == null ) {
+          dependents.put( dep, list = new ArrayList<Node>() );
+        }
+        list.add( node );
+      }
+    }
+    while( !ready.isEmpty() ) {
+      Node node = ready.remove( ready.size() - 1 );
+      pending.remove( node );
+      List<Node> list = dependents.get( node );
+      if( list != null ) {
+        for( Node dependent : list ) {
+          int iPending = pending.get( dependent ) - 1;
+          pending.put( dependent, iPending );
+          if( iPending == 0 ) {
+            ready.add( dependent );
+          }
+        }
+      }
+    }
+    // What is left is the cycles plus everything downstream of them, peel the
+    // downstream nodes off from the other end so they keep their ordering
+    Map<Node, Integer> dependentCount = new LinkedHashMap<Node, Integer>();
+    for( Node node : pending.keySet() ) {
+      dependentCount.put( node, 0 );
+    }
+    for( Node node : pending.keySet() ) {
+      for( Node dep : node._deps ) {
+        if( dependentCount.containsKey( dep ) ) {
+          dependentCount.put( dep, dependentCount.get( dep ) + 1 );
+        }
+      }
+    }
+    for( Node node : pending.keySet() ) {
+      if( dependentCount.get( node ) == 0 ) {
+        ready.add( node );
+      }
+    }
+    while( !ready.isEmpty() ) {
+      Node node = ready.remove( ready.size() - 1 );
+      pending.remove( node );
+      for( Node dep : node._deps ) {
+        Integer iCount = dependentCount.get( dep );
+        if( iCount != null && pending.containsKey( dep ) ) {
+          dependentCount.put( dep, iCount - 1 );
+          if( iCount == 1 ) {
+            ready.add( dep );
+          }
+        }
+      }
+    }
+    Set<Node> cyclic = pending.keySet();
+    for( Node node : cyclic ) {
+      node._deps.removeAll( cyclic );
+    }
+  }
+
+  private void compile( Collection<Node> nodes, final TypeWarmUpReport report ) {
+    for( Node node : nodes ) {
+      node._pending.set( node._deps.size() );
+      for( Node dep : node._deps ) {
+        dep._dependents.add( node );
+      }
+    }
+
+    final CountDownLatch latch = new CountDownLatch( nodes.size() );
+    final ExecutorService executor = Executors.newFixedThreadPool( Math.min( _iThreads, nodes.size() ), new ThreadFactory() {
+      public Thread newThread( Runnable r ) {
+        Thread thread = new Thread( r, "Gosu Type Warmer " + THREAD_COUNT.incrementAndGet() );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+    try {
+      for( Node node : nodes ) {
+        if( node._deps.isEmpty() ) {
+          submit( executor, node, report, latch );
+        }
+      }
+      latch.await();
+    }
+    catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void submit( final ExecutorService executor, final Node node, final TypeWarmUpReport report, final CountDownLatch latch ) {
+    if( executor.isShutdown() ) {
+      // The caller was interrupted and abandoned the warm-up, leave the rest to on-demand compilation
+      return;
+    }
+    try {
+      executor.execute( new Runnable() {
+        public void run() {
+          try {
+            warm( node._gsClass, report );
+          }
+          finally {
+            for( Node dependent : node._dependents ) {
+              if( dependent._pending.decrementAndGet() == 0 ) {
+                submit( executor, dependent, report, latch );
+              }
+            }
+            latch.countDown();
+          }
+        }
+      } );
+    }
+    catch( RejectedExecutionException e ) {
+      // shutdownNow() raced the isShutdown() check
+    }
+  }
+
+  private void warm( IGosuClass gsClass, TypeWarmUpReport report ) {
+    long lStart = System.nanoTime();
+    Throwable error = null;
+    TypeSystem.pushModule( _module );
+    try {
+      if( gsClass.isValid() ) {
+        define( gsClass );
+      }
+      else {
+        error = gsClass.getParseResultsException();
+      }
+    }
+    catch( Throwable t ) {
+      error = t;
+    }
+    finally {
+      TypeSystem.popModule( _module );
+    }
+    report.addTiming( gsClass.getName(), System.nanoTime() - lStart, error );
+  }
+
+  private static void define( IGosuClass gsClass ) {
+    gsClass.getBackingClass();
+    for( IGosuClass innerClass : gsClass.getInnerClasses() ) {
+      define( innerClass );
+    }
+  }
+
+  static class Node {
+    final IGosuClass _gsClass;
+    final Set<Node> _deps = new LinkedHashSet<Node>();
+    final List<Node> _dependents = new ArrayList<Node>();
+    final AtomicInteger _pending = new AtomicInteger();
+
+    Node( IGosuClass gsClass ) {
+      _gsClass = gsClass;
+    }
+  }
+}
@@ -22,31 +22,17 @@ public class Base64Util
 
   public static String encode( byte[] bytes )
   {
-    try
-    {
-      return new String( Base64.encodeBase64( bytes ), ENCODING );
-    }
-    catch( UnsupportedEncodingException e )
-    {
-      throw new RuntimeException( "Could not convert bytes to a String using the " + ENCODING + " encoding", e );
-    }
+    return ByteCodec.BASE64.encodeToString( bytes );
   }
 
   public static byte[] encodeAsBytes( byte[] bytes )
   {
-    return Base64.encodeBase64( bytes );
+    return bytes == null ? null : ByteCodec.BASE64.encode( bytes );
   }
 
   public static byte[] decode( String encodedString )
   {
-    try
-    {
-      return Base64.decodeBase64( encodedString.getBytes( ENCODING ) );
-    }
-    catch( UnsupportedEncodingException e )
-    {
-      throw new RuntimeException( "Could not convert String to bytes using the " + ENCODING + " encoding", e );
-    }
+    return ByteCodec.BASE64.decode( encodedString );
   }
 
   public static boolean isBase64( String s )
@@ -0,0 +1,691 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Base64 and hex encoding that works on byte arrays, byte buffers and streams
+ * without going through Strings.  Work is done a whole group at a time with
+ * lookup tables, on the backing arrays of heap buffers directly and in batches
+ * for direct buffers.
+ * <p/>
+ * The ByteBuffer methods are meant to be called repeatedly as more input arrives:
+ * they transform as much input as both buffers allow and leave the rest of the input,
+ * such as a trailing partial group, in place until <code>endOfInput</code> is true.
+ * <p/>
+ * {@link #BASE64} encodes with the standard alphabet and padding and decodes like
+ * {@link Base64Util}: characters outside the alphabet are skipped, decoding stops
+ * at the first pad character and a partial final group is only decoded when padded.
+ * {@link #HEX} encodes lower case, decodes either case, skips whitespace and rejects
+ * anything else.
+ */
+public abstract class ByteCodec
+{
+  public static final ByteCodec BASE64 = new Base64Codec();
+  public static final ByteCodec HEX = new HexCodec();
+
+  private static final Charset US_ASCII = Charset.forName( "US-ASCII" );
+  private static final int BATCH_SIZE = 8192;
+  // Set in a result once the encoded data has ended and the rest of the input is to be ignored
+  private static final long FINISHED = 1L << 63;
+
+  private ByteCodec()
+  {
+  }
+
+  /**
+   * @return the largest number of bytes <code>length</code> bytes can encode to
+   */
+  public abstract int getMaxEncodedLength( int length );
+
+  /**
+   * @return the largest number of bytes <code>length</code> encoded bytes can decode to
+   */
+  public abstract int getMaxDecodedLength( int length );
+
+  /**
+   * Encodes whole groups from <code>in[inPos, inLimit)</code> into <code>out[outPos, outLimit)</code>,
+   * and the trailing partial group too at end of input.
+   *
+   * @return the bytes consumed in the high half, the bytes produced in the low half
+   */
+  abstract long encode( byte[] in, int inPos, int inLimit, byte[] out, int outPos, int outLimit, boolean endOfInput );
+
+  /**
+   * Decodes whole groups from <code>in[inPos, inLimit)</code> into <code>out[outPos, outLimit)</code>,
+   * and the trailing partial group too at end of input.
+   *
+   * @return the bytes consumed in the high half, the bytes produced in the low half, and
+   *   {@link #FINISHED} once the encoded data has ended
+   */
+  abstract long decode( byte[] in, int inPos, int inLimit, byte[] out, int outPos, int outLimit, boolean endOfInput );
+
+  public byte[] encode( byte[] bytes )
+  {
+    byte[] out = new byte[getMaxEncodedLength( bytes.length )];
+    int produced = produced( encode( bytes, 0, bytes.length, out, 0, out.length, true ) );
+    return produced == out.length ? out : Arrays.copyOf( out, produced );
+  }
+
+  public String encodeToString( byte[] bytes )
+  {
+    return new String( encode( bytes ), US_ASCII );
+  }
+
+  public byte[] decode( byte[] bytes )
+  {
+    byte[] out = new byte[getMaxDecodedLength( bytes.length )];
+    int produced = produced( decode( bytes, 0, bytes.length, out, 0, out.length, true ) );
+    return produced == out.length ? out : Arrays.copyOf( out, produced );
+  }
+
+  public byte[] decode( CharSequence chars )
+  {
+    int length = chars.length();
+    byte[] bytes = new byte[length];
+    for( int i = 0; i < length; i++ )
+    {
+      char c = chars.charAt( i );
+      // Anything outside ASCII is invalid input either way, keep it invalid rather than letting it wrap into the alphabet
+      bytes[i] = c < 0x80 ? (byte)c : (byte)0x80;
+    }
+    return decode( bytes );
+  }
+
+  /**
+   * Encodes from the source buffer's position into the destination buffer's position,
+   * advancing both.
+   */
+  public void encode( ByteBuffer src, ByteBuffer dst, boolean endOfInput )
+  {
+    transform( true, src, dst, endOfInput );
+  }
+
+  /**
+   * Decodes from the source buffer's position into the destination buffer's position,
+   * advancing both.
+   *
+   * @return true once the encoded data has ended, at base64 padding for instance.  The
+   *   rest of the source is consumed and ignored and further input need not be supplied.
+   */
+  public boolean decode( ByteBuffer src, ByteBuffer dst, boolean endOfInput )
+  {
+    return transform( false, src, dst, endOfInput );
+  }
+
+  /**
+   * @return a stream that encodes what is written to it into <code>out</code>.  Closing
+   *   it writes the final partial group and closes <code>out</code>.
+   */
+  public OutputStream encodingStream( OutputStream out )
+  {
+    return new TransformingOutputStream( this, true, out );
+  }
+
+  /**
+   * @return a stream that decodes what is written to it into <code>out</code>.  Closing
+   *   it writes the final partial group and closes <code>out</code>.
+   */
+  public OutputStream decodingStream( OutputStream out )
+  {
+    return new TransformingOutputStream( this, false, out );
+  }
+
+  /**
+   * @return a stream of the encoded bytes of <code>in</code>
+   */
+  public InputStream encodingStream( InputStream in )
+  {
+    return new TransformingInputStream( this, true, in );
+  }
+
+  /**
+   * @return a stream of the decoded bytes of <code>in</code>
+   */
+  public InputStream decodingStream( InputStream in )
+  {
+    return new TransformingInputStream( this, false, in );
+  }
+
+  private long transform( boolean encode, byte[] in, int inPos, int inLimit, byte[] out, int outPos, int outLimit, boolean endOfInput )
+  {
+    return encode
+           ? encode( in, inPos, inLimit, out, outPos, outLimit, endOfInput )
+           : decode( in, inPos, inLimit, out, outPos, outLimit, endOfInput );
+  }
+
+  private boolean transform( boolean encode, ByteBuffer src, ByteBuffer dst, boolean endOfInput )
+  {
+    if( src.hasArray() && dst.hasArray() )
+    {
+      int inPos = src.arrayOffset() + src.position();
+      int outPos = dst.arrayOffset() + dst.position();
+      long result = transform( encode, src.array(), inPos, inPos + src.remaining(),
+                               dst.array(), outPos, outPos + dst.remaining(), endOfInput );
+      src.position( src.position() + consumed( result ) );
+      dst.position( dst.position() + produced( result ) );
+      return isFinished( result );
+    }
+
+    // Direct or read-only buffers, go through heap arrays a batch at a time
+    byte[] in = new byte[Math.min( src.remaining(), BATCH_SIZE )];
+    byte[] out = new byte[Math.min( dst.remaining(), BATCH_SIZE )];
+    while( src.hasRemaining() && dst.hasRemaining() )
+    {
+      int start = src.position();
+      int length = Math.min( src.remaining(), in.length );
+      src.get( in, 0, length );
+      int outLength = Math.min( dst.remaining(), out.length );
+      long result = transform( encode, in, 0, length, out, 0, outLength, endOfInput && !src.hasRemaining() );
+      src.position( start + consumed( result ) );
+      dst.put( out, 0, produced( result ) );
+      if( isFinished( result ) )
+      {
+        src.position( src.limit() );
+        return true;
+      }
+      if( consumed( result ) == 0 && produced( result ) == 0 )
+      {
+        break;
+      }
+    }
+    return false;
+  }
+
+  static long result( int consumed, int produced )
+  {
+    return ((long)consumed << 32) | produced;
+  }
+
+  static int consumed( long result )
+  {
+    return (int)((result & ~FINISHED) >>> 32);
+  }
+
+  static boolean isFinished( long result )
+  {
+    return (result & FINISHED) != 0;
+  }
+
+  static int produced( long result )
+  {
+    return (int)result;
+  }
+
+  private static final class Base64Codec extends ByteCodec
+  {
+    private static final byte PAD = '=';
+    private static final byte[] ALPHABET = {
+      'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
+      'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
+      'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm',
+      'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
+      '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '+', '/'
+    };
+    private static final byte[] DECODE_TABLE = new byte[256];
+    static
+    {
+      Arrays.fill( DECODE_TABLE, (byte)-1 );
+      for( int i = 0; i < ALPHABET.length; i++ )
+      {
+        DECODE_TABLE[ALPHABET[i]] = (byte)i;
+      }
+    }
+
+    @Override
+    public int getMaxEncodedLength( int length )
+    {
+      return (int)(((long)length + 2) / 3 * 4);
+    }
+
+    @Override
+    public int getMaxDecodedLength( int length )
+    {
+      return (int)((long)length * 3 / 4);
+    }
+
+    @Override
+    long encode( byte[] in, int inPos, int inLimit, byte[] out, int outPos, int outLimit, boolean endOfInput )
+    {
+      int ip = inPos;
+      int op = outPos;
+      int groups = Math.min( (inLimit - ip) / 3, (outLimit - op) / 4 );
+      for( int i = 0; i < groups; i++ )
+      {
+        int bits = (in[ip] & 0xff) << 16 | (in[ip + 1] & 0xff) << 8 | (in[ip + 2] & 0xff);
+        ip += 3;
+        out[op] = ALPHABET[bits >>> 18];
+        out[op + 1] = ALPHABET[(bits >>> 12) & 0x3f];
+        out[op + 2] = ALPHABET[(bits >>> 6) & 0x3f];
+        out[op + 3] = ALPHABET[bits & 0x3f];
+        op += 4;
+      }
+      int remaining = inLimit - ip;
+      if( endOfInput && remaining > 0 && remaining < 3 && outLimit - op >= 4 )
+      {
+        int bits = (in[ip] & 0xff) << 16 | (remaining == 2 ? (in[ip + 1] & 0xff) << 8 : 0);
+        ip += remaining;
+        out[op] = ALPHABET[bits >>> 18];
+        out[op + 1] = ALPHABET[(bits >>> 12) & 0x3f];
+        out[op + 2] = remaining == 2 ? ALPHABET[(bits >>> 6) & 0x3f] : PAD;
+        out[op + 3] = PAD;
+        op += 4;
+      }
+      return result( ip - inPos, op - outPos );
+    }
+
+    @Override
+    long decode( byte[] in, int inPos, int inLimit, byte[] out, int outPos, int outLimit, boolean endOfInput )
+    {
+      int ip = inPos;
+      int op = outPos;
+      while( true )
+      {
+        int start = ip;
+        int bits = 0;
+        int count = 0;
+        boolean bPad = false;
+        while( count < 4 && ip < inLimit )
+        {
+          byte b = in[ip];
+          if( b == PAD )
+          {
+            bPad = true;
+            break;
+          }
+          ip++;
+          int value = DECODE_TABLE[b & 0xff];
+          if( value >= 0 )
+          {
+            bits = bits << 6 | value;
+            count++;
+          }
+          else if( count == 0 )
+          {
+            // Skipped characters before a group count as consumed
+            start = ip;
+          }
+        }
+        if( count == 4 )
+        {
+          if( outLimit - op < 3 )
+          {
+            return result( start - inPos, op - outPos );
+          }
+          out[op] = (byte)(bits >>> 16);
+          out[op + 1] = (byte)(bits >>> 8);
+          out[op + 2] = (byte)bits;
+          op += 3;
+          continue;
+        }
+        if( !bPad )
+        {
+          // Wait for the rest of the group, an unpadded partial group at the end decodes to nothing
+          return result( (endOfInput ? ip : start) - inPos, op - outPos );
+        }
+        // The padded final group, a lone character decodes to nothing
+        int length = count == 3 ? 2 : count == 2 ? 1 : 0;
+        if( outLimit - op < length )
+        {
+          return result( start - inPos, op - outPos );
+        }
+        if( length > 0 )
+        {
+          bits <<= 6 * (4 - count);
+          out[op++] = (byte)(bits >>> 16);
+          if( length == 2 )
+          {
+            out[op++] = (byte)(bits >>> 8);
+          }
+        }
+        // Everything from the pad on is ignored
+        return result( inLimit - inPos, op - outPos ) | FINISHED;
+      }
+    }
+  }
+
+  private static final class HexCodec extends ByteCodec
+  {
+    private static final byte[] DIGITS = {
+      '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+    private static final byte[] DECODE_TABLE = new byte[256];
+    private static final byte WHITESPACE = -2;
+    static
+    {
+      Arrays.fill( DECODE_TABLE, (byte)-1 );
+      for( int i = 0; i < 10; i++ )
+      {
+        DECODE_TABLE['0' + i] = (byte)i;
+      }
+      for( int i = 0; i < 6; i++ )
+      {
+        DECODE_TABLE['a' + i] = (byte)(10 + i);
+        DECODE_TABLE['A' + i] = (byte)(10 + i);
+      }
+      DECODE_TABLE[' '] = WHITESPACE;
+      DECODE_TABLE['\t'] = WHITESPACE;
+      DECODE_TABLE['\r'] = WHITESPACE;
+      DECODE_TABLE['\n'] = WHITESPACE;
+    }
+
+    @Override
+    public int getMaxEncodedLength( int length )
+    {
+      return length * 2;
+    }
+
+    @Override
+    public int getMaxDecodedLength( int length )
+    {
+      // Rounded up so an odd digit at the end is reported rather than left unread
+      return (length + 1) / 2;
+    }
+
+    @Override
+    long encode( byte[] in, int inPos, int inLimit, byte[] out, int outPos, int outLimit, boolean endOfInput )
+    {
+      int length = Math.min( inLimit - inPos, (outLimit - outPos) / 2 );
+      int op = outPos;
+      for( int ip = inPos; ip < inPos + length; ip++ )
+      {
+        int b = in[ip];
+        out[op] = DIGITS[(b >>> 4) & 0xf];
+        out[op + 1] = DIGITS[b & 0xf];
+        op += 2;
+      }
+      return result( length, op - outPos );
+    }
+
+    @Override
+    long decode( byte[] in, int inPos, int inLimit, byte[] out, int outPos, int outLimit, boolean endOfInput )
+    {
+      int ip = inPos;
+      int op = outPos;
+      int start = ip;
+      int high = -1;
+      while( ip < inLimit )
+      {
+        int value = DECODE_TABLE[in[ip] & 0xff];
+        if( value == WHITESPACE )
+        {
+          ip++;
+          continue;
+        }
+        if( value < 0 )
+        {
+          throw new IllegalArgumentException( "Invalid hex character 0x" + Integer.toHexString( in[ip] & 0xff ) );
+        }
+        if( high < 0 )
+        {
+          if( op == outLimit )
+          {
+            break;
+          }
+          start = ip;
+          high = value;
+        }
+        else
+        {
+          out[op++] = (byte)(high << 4 | value);
+          high = -1;
+        }
+        ip++;
+      }
+      if( high >= 0 )
+      {
+        if( endOfInput && ip == inLimit )
+        {
+          throw new IllegalArgumentException( "Odd number of hex digits" );
+        }
+        // Leave the first digit of the pair for next time
+        ip = start;
+      }
+      return result( ip - inPos, op - outPos );
+    }
+  }
+
+  private static final class TransformingOutputStream extends FilterOutputStream
+  {
+    private final ByteCodec _codec;
+    private final boolean _encode;
+    private final byte[] _in = new byte[BATCH_SIZE];
+    private final byte[] _out;
+    private int _inLength;
+    private boolean _finished;
+    private boolean _closed;
+
+    TransformingOutputStream( ByteCodec codec, boolean encode, OutputStream out )
+    {
+      super( out );
+      _codec = codec;
+      _encode = encode;
+      _out = new byte[encode ? codec.getMaxEncodedLength( BATCH_SIZE ) : codec.getMaxDecodedLength( BATCH_SIZE ) + 3];
+    }
+
+    @Override
+    public void write( int b ) throws IOException
+    {
+      if( _finished )
+      {
+        return;
+      }
+      if( _inLength == _in.length )
+      {
+        drain( false );
+        if( _finished )
+        {
+          return;
+        }
+      }
+      _in[_inLength++] = (byte)b;
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException
+    {
+      while( len > 0 && !_finished )
+      {
+        if( _inLength == _in.length )
+        {
+          drain( false );
+          continue;
+        }
+        int n = Math.min( len, _in.length - _inLength );
+        System.arraycopy( b, off, _in, _inLength, n );
+        _inLength += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    /**
+     * Writes out what has been transformed so far.  A trailing partial group is
+     * held back until close.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+      drain( false );
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      if( !_closed )
+      {
+        _closed = true;
+        try
+        {
+          drain( true );
+          out.flush();
+        }
+        finally
+        {
+          out.close();
+        }
+      }
+    }
+
+    private void drain( boolean endOfInput ) throws IOException
+    {
+      long result = _codec.transform( _encode, _in, 0, _inLength, _out, 0, _out.length, endOfInput );
+      if( result == 0 && _inLength == _in.length )
+      {
+        throw new IOException( "No complete group in " + _inLength + " bytes of input" );
+      }
+      out.write( _out, 0, produced( result ) );
+      int consumed = consumed( result );
+      System.arraycopy( _in, consumed, _in, 0, _inLength - consumed );
+      _inLength -= consumed;
+      if( isFinished( result ) )
+      {
+        // Anything written from now on comes after the end of the encoded data
+        _finished = true;
+        _inLength = 0;
+      }
+    }
+  }
+
+  private static final class TransformingInputStream extends FilterInputStream
+  {
+    private final ByteCodec _codec;
+    private final boolean _encode;
+    private final byte[] _in = new byte[BATCH_SIZE];
+    private final byte[] _out;
+    private int _inLength;
+    private int _outPos;
+    private int _outLength;
+    private boolean _eof;
+
+    TransformingInputStream( ByteCodec codec, boolean encode, InputStream in )
+    {
+      super( in );
+      _codec = codec;
+      _encode = encode;
+      _out = new byte[encode ? codec.getMaxEncodedLength( BATCH_SIZE ) : codec.getMaxDecodedLength( BATCH_SIZE ) + 3];
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+      if( !fill() )
+      {
+        return -1;
+      }
+      return _out[_outPos++] & 0xff;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+      if( len == 0 )
+      {
+        return 0;
+      }
+      if( !fill() )
+      {
+        return -1;
+      }
+      int n = Math.min( len, _outLength - _outPos );
+      System.arraycopy( _out, _outPos, b, off, n );
+      _outPos += n;
+      return n;
+    }
+
+    @Override
+    public long skip( long n ) throws IOException
+    {
+      long skipped = 0;
+      while( skipped < n && fill() )
+      {
+        int step = (int)Math.min( n - skipped, _outLength - _outPos );
+        _outPos += step;
+        skipped += step;
+      }
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+      return _outLength - _outPos;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+      return false;
+    }
+
+    @Override
+    public synchronized void mark( int readlimit )
+    {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+      throw new IOException( "mark/reset not supported" );
+    }
+
+    /**
+     * @return false at end of stream
+     */
+    private boolean fill() throws IOException
+    {
+      while( _outPos == _outLength )
+      {
+        if( _eof && _inLength == 0 )
+        {
+          return false;
+        }
+        if( !_eof && _inLength < _in.length )
+        {
+          int n = in.read( _in, _inLength, _in.length - _inLength );
+          if( n < 0 )
+          {
+            _eof = true;
+          }
+          else
+          {
+            _inLength += n;
+          }
+        }
+        long result = _codec.transform( _encode, _in, 0, _inLength, _out, 0, _out.length, _eof );
+        if( result == 0 && _inLength == _in.length )
+        {
+          throw new IOException( "No complete group in " + _inLength + " bytes of input" );
+        }
+        int consumed = consumed( result );
+        System.arraycopy( _in, consumed, _in, 0, _inLength - consumed );
+        _inLength -= consumed;
+        _outPos = 0;
+        _outLength = produced( result );
+        if( isFinished( result ) )
+        {
+          // Don't read past the end of the encoded data
+          _eof = true;
+          _inLength = 0;
+        }
+        else if( _eof && _outLength == 0 )
+        {
+          // Whatever is left can't be transformed, e.g. a lone base64 character
+          _inLength = 0;
+        }
+      }
+      return true;
+    }
+  }
+}
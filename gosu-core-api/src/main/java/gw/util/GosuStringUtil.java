@@ -137,6 +137,9 @@ public class GosuStringUtil
    */
   private static final int PAD_LIMIT = 8192;
 
+  private static final Pattern HEX_PATTERN = Pattern.compile("[0-9a-fA-F]*");
+  private static final Pattern HEX_SPACE_PATTERN = Pattern.compile("[0-9a-fA-F ]*");
+
   // Empty checks
   //-----------------------------------------------------------------------
   /**
@@ -4893,7 +4896,7 @@ public class GosuStringUtil
     if (isEmpty(str) || isEmpty(regexp)) {
         return 0;
     }
-    Pattern pattern = Pattern.compile(regexp);
+    Pattern pattern = PatternCache.get(regexp);
     Matcher matcher = pattern.matcher(str);
     int i = 0;
     while (matcher.find()) {
@@ -5132,7 +5135,7 @@ public class GosuStringUtil
       if (str == null) {
           return false;
       }
-      return Pattern.compile("[0-9a-fA-F]*").matcher(str).matches();
+      return HEX_PATTERN.matcher(str).matches();
   }
 
   /**
@@ -5163,7 +5166,7 @@ public class GosuStringUtil
       if (str == null) {
           return false;
       }
-      return Pattern.compile("[0-9a-fA-F ]*").matcher(str).matches();
+      return HEX_SPACE_PATTERN.matcher(str).matches();
   }
 
   /**
@@ -5946,7 +5949,7 @@ public class GosuStringUtil
   }
 
   public static RegExpMatch match( String str, String regExp ) {
-    Pattern pattern = Pattern.compile( regExp );
+    Pattern pattern = PatternCache.get( regExp );
     Matcher matcher = pattern.matcher( str );
     if( matcher.matches() )
     {
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util;
+
+import gw.util.concurrent.Cache;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compiled regular expressions shared by the String enhancements and GosuStringUtil,
+ * so code that matches against the same few expressions in a loop compiles each one
+ * once.  Patterns are immutable and safe to share between threads.  The number of
+ * expressions kept is set with the gosu.regex.cache.size system property.
+ */
+public class PatternCache
+{
+  public static final String SIZE_PROPERTY = "gosu.regex.cache.size";
+  private static final int DEFAULT_SIZE = 500;
+
+  private static final Cache<String, Pattern> CACHE =
+    new Cache<String, Pattern>( "Regular Expression Cache", Integer.getInteger( SIZE_PROPERTY, DEFAULT_SIZE ),
+                                new Cache.MissHandler<String, Pattern>()
+                                {
+                                  public Pattern load( String regExp )
+                                  {
+                                    return Pattern.compile( regExp );
+                                  }
+                                } );
+
+  private PatternCache()
+  {
+  }
+
+  /**
+   * @param regExp a regular expression
+   * @return the compiled expression
+   * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+   */
+  public static Pattern get( String regExp )
+  {
+    return CACHE.get( regExp );
+  }
+
+  /**
+   * @return the underlying cache, for its hit and miss statistics
+   */
+  public static Cache<String, Pattern> getCache()
+  {
+    return CACHE;
+  }
+}
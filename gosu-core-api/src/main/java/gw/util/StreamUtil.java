@@ -7,25 +7,59 @@ package gw.util;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class StreamUtil
 {
+  private static final int BUFFER_SIZE = 8192;
+  // Largest region transferred or mapped at once
+  private static final long MAX_REGION_SIZE = 64L * 1024 * 1024;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  // One copy buffer per thread.  A buffer is taken out while in use, so a copy nested in another
+  // on the same thread (from inside a stream it writes to, say) allocates its own.
+  private static final ThreadLocal<byte[]> BYTE_BUFFERS = new ThreadLocal<byte[]>();
+  private static final ThreadLocal<char[]> CHAR_BUFFERS = new ThreadLocal<char[]>();
+
+  /**
+   * Receives lines from {@link #eachLineInParallel}.
+   */
+  public interface LineHandler {
+    void handle(String line);
+  }
 
   private StreamUtil() {
     /* disable construction */
@@ -149,7 +183,10 @@ public class StreamUtil
    */
   public static byte[] getContent(InputStream in) throws IOException {
     try {
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      if (in instanceof FileInputStream) {
+        return getContent(((FileInputStream) in).getChannel());
+      }
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(in.available(), 32));
       copy(in, baos);
       return baos.toByteArray();
     }
@@ -182,15 +219,234 @@ public class StreamUtil
    * @throws java.io.IOException if an I/O error occurs
    */
   public static void copy(InputStream in, OutputStream out) throws IOException {
-    byte[] buf = new byte[1024];
+    if (in instanceof FileInputStream && out instanceof FileOutputStream) {
+      transferTo(((FileInputStream) in).getChannel(), ((FileOutputStream) out).getChannel());
+      out.flush();
+      return;
+    }
+    byte[] buf = takeByteBuffer();
+    try {
+      while (true) {
+        int count = in.read(buf);
+        if (count < 0) {
+          break;
+        }
+        out.write(buf, 0, count);
+      }
+    }
+    finally {
+      BYTE_BUFFERS.set(buf);
+    }
+    out.flush();
+  }
+
+  /**
+   * Copies the content of a file to another file, replacing its content.  The bytes are
+   * moved by the operating system where it can, without passing through the JVM.
+   * @param from the file to read
+   * @param to the file to write
+   * @throws java.io.IOException if an I/O error occurs
+   */
+  public static void copy(File from, File to) throws IOException {
+    FileInputStream in = new FileInputStream(from);
+    try {
+      FileOutputStream out = new FileOutputStream(to, false);
+      try {
+        transferTo(in.getChannel(), out.getChannel());
+      }
+      finally {
+        out.close();
+      }
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Transfers a file from its current position to its end into a channel, such as another
+   * file or a socket, and leaves the file positioned at its end.  The bytes are moved by the
+   * operating system where it can, without passing through the JVM.
+   * @param from the file to read
+   * @param to the channel to write, in blocking mode if it is a selectable channel
+   * @throws java.io.IOException if an I/O error occurs
+   * @throws java.nio.channels.IllegalBlockingModeException if the channel is in non-blocking mode
+   */
+  public static void transferTo(FileChannel from, WritableByteChannel to) throws IOException {
+    checkBlocking(to);
+    long position = from.position();
+    long size = from.size();
+    while (position < size) {
+      long count = from.transferTo(position, Math.min(size - position, MAX_REGION_SIZE), to);
+      if (count <= 0) {
+        // The file shrank since its size was read, or the target takes no more this way; copy the rest normally
+        from.position(position);
+        copy(from, to);
+        return;
+      }
+      position += count;
+    }
+    from.position(position);
+  }
+
+  /**
+   * Transfers everything a channel, such as a socket, has to read into a file at the file's
+   * current position, and leaves the file positioned after the transferred bytes.
+   * @param from the channel to read, in blocking mode if it is a selectable channel
+   * @param to the file to write
+   * @throws java.io.IOException if an I/O error occurs
+   * @throws java.nio.channels.IllegalBlockingModeException if the channel is in non-blocking mode
+   */
+  public static void transferFrom(ReadableByteChannel from, FileChannel to) throws IOException {
+    checkBlocking(from);
+    long position = to.position();
     while (true) {
-      int count = in.read(buf);
-      if (count < 0) {
+      long count = to.transferFrom(from, position, MAX_REGION_SIZE);
+      if (count <= 0) {
         break;
       }
-      out.write(buf, 0, count);
+      position += count;
+    }
+    to.position(position);
+  }
+
+  /**
+   * Maps a file into memory for reading.  Reads from the returned buffer are served from
+   * the operating system's file cache without copying the file into the heap.
+   * @param file the file to map, at most 2GB long
+   * @return the mapped content of the file
+   * @throws java.io.IOException if an I/O error occurs or the file is too large to map at once
+   */
+  public static MappedByteBuffer mapReadOnly(File file) throws IOException {
+    long length = file.length();
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException(file + " is too large to map at once, map it a region at a time");
+    }
+    return mapReadOnly(file, 0, length);
+  }
+
+  /**
+   * Maps a region of a file into memory for reading.
+   * @param file the file to map
+   * @param position the offset in the file of the region
+   * @param size the size of the region, at most 2GB
+   * @return the mapped region
+   * @throws java.io.IOException if an I/O error occurs
+   */
+  public static MappedByteBuffer mapReadOnly(File file, long position, long size) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      // The mapping stays valid after the file is closed
+      return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+    finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Compares the content of two files through memory mapped regions.
+   * @param file1 a file
+   * @param file2 another file
+   * @return true if both files have the same bytes
+   * @throws java.io.IOException if an I/O error occurs
+   */
+  public static boolean contentEquals(File file1, File file2) throws IOException {
+    RandomAccessFile raf1 = new RandomAccessFile(file1, "r");
+    try {
+      RandomAccessFile raf2 = new RandomAccessFile(file2, "r");
+      try {
+        FileChannel channel1 = raf1.getChannel();
+        FileChannel channel2 = raf2.getChannel();
+        long size = channel1.size();
+        if (size != channel2.size()) {
+          return false;
+        }
+        for (long position = 0; position < size; position += MAX_REGION_SIZE) {
+          long regionSize = Math.min(MAX_REGION_SIZE, size - position);
+          if (!channel1.map(FileChannel.MapMode.READ_ONLY, position, regionSize)
+                  .equals(channel2.map(FileChannel.MapMode.READ_ONLY, position, regionSize))) {
+            return false;
+          }
+        }
+        return true;
+      }
+      finally {
+        raf2.close();
+      }
+    }
+    finally {
+      raf1.close();
+    }
+  }
+
+  /**
+   * Passes each line of a UTF-8 file to a handler, processing regions of the file in parallel.
+   * Lines end with \n or \r\n.  The file is read through memory mapped regions, so
+   * files many times larger than the heap can be processed.
+   * <p/>
+   * Lines are handled concurrently and in no particular order, so the handler must be
+   * thread-safe.  If the handler throws, no further regions are started and the exception is
+   * rethrown once the regions in progress finish.
+   * @param file the file to read
+   * @param parallelism the most threads handling lines at once, including the calling thread
+   * @param handler the handler to pass each line to
+   * @throws java.io.IOException if an I/O error occurs
+   */
+  public static void eachLineInParallel(File file, int parallelism, final LineHandler handler) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      final FileChannel channel = raf.getChannel();
+      final List<long[]> regions = splitAtLines(channel);
+      final AtomicInteger next = new AtomicInteger();
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      Runnable worker = new Runnable() {
+        public void run() {
+          int i;
+          while (failure.get() == null && (i = next.getAndIncrement()) < regions.size()) {
+            try {
+              eachLine(channel, regions.get(i)[0], regions.get(i)[1], handler);
+            }
+            catch (Throwable t) {
+              failure.compareAndSet(null, t);
+            }
+          }
+        }
+      };
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int i = 1; i < Math.min(parallelism, regions.size()); i++) {
+        Thread thread = new Thread(worker, "Line reader " + i + " for " + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+      }
+      worker.run();
+      for (Thread thread : threads) {
+        try {
+          thread.join();
+        }
+        catch (InterruptedException e) {
+          failure.compareAndSet(null, e);
+          Thread.currentThread().interrupt();
+        }
+      }
+      Throwable t = failure.get();
+      if (t instanceof IOException) {
+        throw (IOException) t;
+      }
+      else if (t instanceof RuntimeException) {
+        throw (RuntimeException) t;
+      }
+      else if (t instanceof Error) {
+        throw (Error) t;
+      }
+      else if (t != null) {
+        throw new RuntimeException(t);
+      }
+    }
+    finally {
+      raf.close();
     }
-    out.flush();
   }
 
   /**
@@ -222,17 +478,172 @@ public class StreamUtil
    * @throws java.io.IOException if an I/O error occurs
    */
   public static void copy(Reader in, Writer out) throws IOException {
-    char[] buf = new char[1024];
-    while (true) {
-      int count = in.read(buf);
-      if (count < 0) {
-        break;
+    char[] buf = CHAR_BUFFERS.get();
+    if (buf == null) {
+      buf = new char[BUFFER_SIZE];
+    }
+    CHAR_BUFFERS.set(null);
+    try {
+      while (true) {
+        int count = in.read(buf);
+        if (count < 0) {
+          break;
+        }
+        out.write(buf, 0, count);
       }
-      out.write(buf, 0, count);
+    }
+    finally {
+      CHAR_BUFFERS.set(buf);
     }
     out.flush();
   }
 
+  private static byte[] takeByteBuffer() {
+    byte[] buf = BYTE_BUFFERS.get();
+    if (buf == null) {
+      return new byte[BUFFER_SIZE];
+    }
+    BYTE_BUFFERS.set(null);
+    return buf;
+  }
+
+  private static byte[] getContent(FileChannel channel) throws IOException {
+    long remaining = channel.size() - channel.position();
+    if (remaining > Integer.MAX_VALUE) {
+      throw new IOException("Content is too large for an array: " + remaining + " bytes");
+    }
+    ByteBuffer content = ByteBuffer.allocate((int) remaining);
+    while (content.hasRemaining()) {
+      if (channel.read(content) < 0) {
+        // The file shrank since its size was read
+        return Arrays.copyOf(content.array(), content.position());
+      }
+    }
+    ByteBuffer more = ByteBuffer.allocate(1);
+    if (channel.read(more) <= 0) {
+      return content.array();
+    }
+    // The file grew since its size was read, take the rest the slow way
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(content.capacity() + BUFFER_SIZE);
+    baos.write(content.array());
+    baos.write(more.get(0));
+    copy(channel, Channels.newChannel(baos));
+    return baos.toByteArray();
+  }
+
+  private static void copy(ReadableByteChannel from, WritableByteChannel to) throws IOException {
+    ByteBuffer buf = ByteBuffer.wrap(takeByteBuffer());
+    try {
+      while (from.read(buf) >= 0) {
+        buf.flip();
+        to.write(buf);
+        buf.compact();
+      }
+      buf.flip();
+      while (buf.hasRemaining()) {
+        to.write(buf);
+      }
+    }
+    finally {
+      BYTE_BUFFERS.set(buf.array());
+    }
+  }
+
+  /*
+   * A non-blocking channel reads or writes nothing whenever it isn't ready, and the loops
+   * here would spin on it instead of waiting
+   */
+  private static void checkBlocking(Channel channel) {
+    if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+      throw new IllegalBlockingModeException();
+    }
+  }
+
+  /*
+   * Splits a file into regions of about MAX_REGION_SIZE that start at the beginning of a line
+   */
+  private static List<long[]> splitAtLines(FileChannel channel) throws IOException {
+    List<long[]> regions = new ArrayList<long[]>();
+    long size = channel.size();
+    ByteBuffer probe = ByteBuffer.allocate(BUFFER_SIZE);
+    long start = 0;
+    while (start < size) {
+      long end = Math.min(start + MAX_REGION_SIZE, size);
+      // Move the end past the next line break
+      scan:
+      while (end < size) {
+        probe.clear();
+        int count = channel.read(probe, end);
+        if (count <= 0) {
+          end = size;
+          break;
+        }
+        for (int i = 0; i < count; i++) {
+          if (probe.get(i) == '\n') {
+            end += i + 1;
+            break scan;
+          }
+        }
+        end += count;
+      }
+      regions.add(new long[] {start, end});
+      start = end;
+    }
+    return regions;
+  }
+
+  private static void eachLine(FileChannel channel, long start, long end, LineHandler handler) throws IOException {
+    MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    byte[] batch = takeByteBuffer();
+    try {
+      byte[] line = new byte[256];
+      int lineLength = 0;
+      while (region.hasRemaining()) {
+        int count = Math.min(batch.length, region.remaining());
+        region.get(batch, 0, count);
+        int lineStart = 0;
+        for (int i = 0; i < count; i++) {
+          if (batch[i] == '\n') {
+            int length = i - lineStart;
+            if (lineLength == 0) {
+              handleLine(batch, lineStart, length, handler);
+            }
+            else {
+              line = append(line, lineLength, batch, lineStart, length);
+              handleLine(line, 0, lineLength + length, handler);
+              lineLength = 0;
+            }
+            lineStart = i + 1;
+          }
+        }
+        // Carry the unfinished line over to the next batch
+        line = append(line, lineLength, batch, lineStart, count - lineStart);
+        lineLength += count - lineStart;
+      }
+      if (lineLength > 0) {
+        handleLine(line, 0, lineLength, handler);
+      }
+    }
+    finally {
+      BYTE_BUFFERS.set(batch);
+    }
+  }
+
+  private static byte[] append(byte[] line, int lineLength, byte[] bytes, int offset, int length) {
+    if (lineLength + length > line.length) {
+      line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+    }
+    System.arraycopy(bytes, offset, line, lineLength, length);
+    return line;
+  }
+
+  private static void handleLine(byte[] bytes, int offset, int length, LineHandler handler) {
+    if (length > 0 && bytes[offset + length - 1] == '\r') {
+      length--;
+    }
+    handler.handle(new String(bytes, offset, length, UTF_8));
+  }
+
   /**
    * Close and swallow exception the exception.  For use in finally blocks
    * where the other io exceptions is what is wanted to be thrown.
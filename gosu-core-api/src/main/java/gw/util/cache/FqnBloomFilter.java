@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.cache;
+
+import java.util.Collection;
+
+/**
+ * An immutable bloom filter over fully qualified names. A negative answer is
+ * definite, a positive answer may be wrong about one time in a hundred.
+ * <p/>
+ * Names hash case-insensitively, so a filter built from "com.foo.Bar" also
+ * answers maybe for "com.foo.bar". Queries take a range of a CharSequence and
+ * never allocate or lock, which makes the filter cheap enough to sit in front of
+ * every lookup of a name that may not exist.
+ */
+public final class FqnBloomFilter {
+  private static final int BITS_PER_NAME = 10;
+  private static final int HASH_COUNT = 7;
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final long[] _bits;
+  private final int _iMask;
+  private final int _iSize;
+
+  private FqnBloomFilter( long[] bits, int iSize ) {
+    _bits = bits;
+    _iMask = (bits.length << 6) - 1;
+    _iSize = iSize;
+  }
+
+  public static FqnBloomFilter build( Collection<? extends CharSequence> fqns ) {
+    FqnBloomFilter filter = new FqnBloomFilter( new long[getWordCount( fqns.size() )], fqns.size() );
+    for( CharSequence fqn : fqns ) {
+      filter.add( fqn );
+    }
+    return filter;
+  }
+
+  /**
+   * Returns a filter that also contains the given names. The filter is resized
+   * when the total number of names outgrows it, otherwise the bits are copied.
+   * Either way this filter is left untouched.
+   *
+   * @param allFqns every name, used to rebuild the filter when it has to be
+   *   resized, may be null to keep the current size regardless
+   */
+  public FqnBloomFilter with( Collection<? extends CharSequence> fqns, Collection<? extends CharSequence> allFqns ) {
+    int iSize = _iSize + fqns.size();
+    if( allFqns != null && getWordCount( iSize ) > _bits.length ) {
+      return build( allFqns );
+    }
+    FqnBloomFilter filter = new FqnBloomFilter( _bits.clone(), iSize );
+    for( CharSequence fqn : fqns ) {
+      filter.add( fqn );
+    }
+    return filter;
+  }
+
+  public boolean mightContain( CharSequence fqn ) {
+    return mightContain( fqn, fqn.length() );
+  }
+
+  /**
+   * @return false if the first <code>iEnd</code> characters of <code>fqn</code> are definitely not in this filter
+   */
+  public boolean mightContain( CharSequence fqn, int iEnd ) {
+    long lHash = hash( fqn, iEnd );
+    int iHash1 = (int)lHash;
+    int iHash2 = (int)(lHash >>> 32);
+    for( int i = 0; i < HASH_COUNT; i++ ) {
+      int iBit = (iHash1 + i * iHash2) & _iMask;
+      if( (_bits[iBit >>> 6] & (1L << iBit)) == 0 ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks the name and each of its dot-separated prefixes, so a name for an
+   * inner class answers maybe whenever its enclosing class does.
+   *
+   * @return false if neither the name nor any enclosing name is in this filter
+   */
+  public boolean mightContainNameOrEnclosingName( CharSequence fqn ) {
+    int iLength = fqn.length();
+    for( int i = 0; i < iLength; i++ ) {
+      if( fqn.charAt( i ) == '.' && mightContain( fqn, i ) ) {
+        return true;
+      }
+    }
+    return mightContain( fqn, iLength );
+  }
+
+  /**
+   * @return the number of names added, duplicates included
+   */
+  public int size() {
+    return _iSize;
+  }
+
+  private void add( CharSequence fqn ) {
+    long lHash = hash( fqn, fqn.length() );
+    int iHash1 = (int)lHash;
+    int iHash2 = (int)(lHash >>> 32);
+    for( int i = 0; i < HASH_COUNT; i++ ) {
+      int iBit = (iHash1 + i * iHash2) & _iMask;
+      _bits[iBit >>> 6] |= 1L << iBit;
+    }
+  }
+
+  private static long hash( CharSequence fqn, int iEnd ) {
+    long lHash = FNV_OFFSET;
+    for( int i = 0; i < iEnd; i++ ) {
+      lHash ^= Character.toLowerCase( fqn.charAt( i ) );
+      lHash *= FNV_PRIME;
+    }
+    // FNV leaves the high bits poorly mixed for short inputs, finish with a murmur-style avalanche
+    lHash ^= lHash >>> 33;
+    lHash *= 0xff51afd7ed558ccdL;
+    lHash ^= lHash >>> 33;
+    // The upper half is the probe stride, keep it odd so probes never repeat
+    return lHash | 1L << 32;
+  }
+
+  private static int getWordCount( int iNames ) {
+    long lBits = Math.max( 64L, (long)iNames * BITS_PER_NAME );
+    // Round up to a power of two so a bit index is a mask, not a modulo
+    long lWords = Long.highestOneBit( (lBits + 63) >>> 6 );
+    if( lWords << 6 < lBits ) {
+      lWords <<= 1;
+    }
+    return (int)Math.min( lWords, 1 << 25 );
+  }
+}
@@ -13,12 +13,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * A node in an {@link FqnCache} trie. Reads never lock: the children map and user
+ * data are published through volatile fields and children live in a concurrent map.
+ * Structural changes synchronize on the node being changed so a concurrent add
+ * can't be lost when a sibling delete prunes an empty children map.
+ */
 public class FqnCacheNode<K> {
   private final String name;
   private final FqnCacheNode<K> parent;
-  private K userData;
-  private Map<String, FqnCacheNode<K>> children;
+  private volatile K userData;
+  private volatile ConcurrentMap<String, FqnCacheNode<K>> children;
 
   public FqnCacheNode( String text, FqnCacheNode<K> parent ) {
     this.name = text;
@@ -26,6 +33,7 @@ public class FqnCacheNode<K> {
   }
 
   public final FqnCacheNode<K> getChild( String segment ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       return children.get(segment);
     } else {
@@ -33,26 +41,38 @@ public class FqnCacheNode<K> {
     }
   }
 
-  public final void clear() {
+  public final synchronized void clear() {
     children = null;
   }
 
   public FqnCacheNode<K> getOrCreateChild( String segment ) {
-    if (children == null) {
-      children = new ConcurrentHashMap<String, FqnCacheNode<K>>(2);
+    FqnCacheNode<K> node = getChild(segment);
+    if (node != null) {
+      return node;
     }
-    FqnCacheNode<K> node = children.get(segment);
-    if (node == null) {
-      node = new FqnCacheNode<K>(segment, this);
-      children.put(segment, node);
+    synchronized (this) {
+      ConcurrentMap<String, FqnCacheNode<K>> children = this.children;
+      if (children == null) {
+        this.children = children = new ConcurrentHashMap<String, FqnCacheNode<K>>(2);
+      }
+      node = children.get(segment);
+      if (node == null) {
+        node = new FqnCacheNode<K>(segment, this);
+        children.put(segment, node);
+      }
+      return node;
     }
-    return node;
   }
 
   public final void delete() {
-    parent.children.remove(this.name);
-    if (parent.children.isEmpty()) {
-      parent.children = null;
+    synchronized (parent) {
+      Map<String, FqnCacheNode<K>> siblings = parent.children;
+      if (siblings != null) {
+        siblings.remove(this.name);
+        if (siblings.isEmpty()) {
+          parent.children = null;
+        }
+      }
     }
   }
 
@@ -65,10 +85,12 @@ public class FqnCacheNode<K> {
   }
 
   public final boolean isLeaf() {
+    Map<String, FqnCacheNode<K>> children = this.children;
     return children == null || children.isEmpty();
   }
 
   public void collectNames( Set<String> names, String s ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       for (FqnCacheNode<K> child : children.values()) {
         String path = s.length() == 0
@@ -84,6 +106,7 @@ public class FqnCacheNode<K> {
   }
 
   public final Collection<FqnCacheNode<K>> getChildren() {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       return children.values();
     } else {
@@ -92,6 +115,7 @@ public class FqnCacheNode<K> {
   }
 
   public final boolean visitDepthFirst( Predicate<K> visitor ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       List<FqnCacheNode<K>> copy = new ArrayList<FqnCacheNode<K>>( children.values() );
       for( FqnCacheNode<K> child: copy ) {
@@ -104,6 +128,7 @@ public class FqnCacheNode<K> {
   }
 
   public final boolean visitNodeDepthFirst( Predicate<FqnCacheNode> visitor ) {
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       List<FqnCacheNode<K>> copy = new ArrayList<FqnCacheNode<K>>( children.values() );
       for( FqnCacheNode<K> child: copy ) {
@@ -119,6 +144,7 @@ public class FqnCacheNode<K> {
     if( !visitor.evaluate( getUserData() ) ) {
       return false;
     }
+    Map<String, FqnCacheNode<K>> children = this.children;
     if (children != null) {
       List<FqnCacheNode<K>> copy = new ArrayList<FqnCacheNode<K>>( children.values() );
       for( FqnCacheNode<K> child: copy ) {
@@ -132,6 +158,7 @@ public class FqnCacheNode<K> {
     if( !visitor.evaluate( this ) ) {
       return false;
     }
+    Map<String, FqnCacheNode<K>> children = this.children;
     if( children != null ) {
       List<FqnCacheNode<K>> copy = new ArrayList<FqnCacheNode<K>>( children.values() );
       for( FqnCacheNode<K> child: copy ) {
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.concurrent;
+
+import gw.lang.parser.CaseInsensitiveCharSequence;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe counterpart to {@link gw.util.CaseInsensitiveHashMap}. Keys compare
+ * with {@link CaseInsensitiveCharSequence#equalsIgnoreCase}. Reads never lock.
+ * <p/>
+ * Unlike CaseInsensitiveHashMap, replacing the value of an existing key keeps the
+ * case of the key as it was first put. Null keys and values are not supported.
+ */
+public class ConcurrentCaseInsensitiveHashMap<K extends CharSequence, V> extends AbstractMap<K, V> {
+  private final ConcurrentHashMap<Key<K>, V> _map;
+
+  public ConcurrentCaseInsensitiveHashMap() {
+    _map = new ConcurrentHashMap<Key<K>, V>();
+  }
+
+  public ConcurrentCaseInsensitiveHashMap( int initialCapacity ) {
+    _map = new ConcurrentHashMap<Key<K>, V>( initialCapacity );
+  }
+
+  @Override
+  public int size() {
+    return _map.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _map.isEmpty();
+  }
+
+  @Override
+  public V get( Object key ) {
+    return key instanceof CharSequence ? _map.get( new Key<CharSequence>( (CharSequence)key ) ) : null;
+  }
+
+  @Override
+  public boolean containsKey( Object key ) {
+    return key instanceof CharSequence && _map.containsKey( new Key<CharSequence>( (CharSequence)key ) );
+  }
+
+  @Override
+  public boolean containsValue( Object value ) {
+    return _map.containsValue( value );
+  }
+
+  @Override
+  public V put( K key, V value ) {
+    return _map.put( new Key<K>( key ), value );
+  }
+
+  public V putIfAbsent( K key, V value ) {
+    return _map.putIfAbsent( new Key<K>( key ), value );
+  }
+
+  @Override
+  public V remove( Object key ) {
+    return key instanceof CharSequence ? _map.remove( new Key<CharSequence>( (CharSequence)key ) ) : null;
+  }
+
+  @Override
+  public void clear() {
+    _map.clear();
+  }
+
+  @Override
+  public Collection<V> values() {
+    return _map.values();
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<Entry<K, V>>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        final Iterator<Entry<Key<K>, V>> iterator = _map.entrySet().iterator();
+        return new Iterator<Entry<K, V>>() {
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          public Entry<K, V> next() {
+            final Entry<Key<K>, V> entry = iterator.next();
+            return new Entry<K, V>() {
+              public K getKey() {
+                return entry.getKey()._key;
+              }
+
+              public V getValue() {
+                return entry.getValue();
+              }
+
+              public V setValue( V value ) {
+                return entry.setValue( value );
+              }
+            };
+          }
+
+          public void remove() {
+            iterator.remove();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return _map.size();
+      }
+    };
+  }
+
+  private static final class Key<K extends CharSequence> {
+    private final K _key;
+    private final int _iHash;
+
+    Key( K key ) {
+      if( key == null ) {
+        throw new NullPointerException();
+      }
+      _key = key;
+      _iHash = key instanceof CaseInsensitiveCharSequence
+               ? key.hashCode()
+               : CaseInsensitiveCharSequence.getLowerCaseHashCode( key );
+    }
+
+    @Override
+    public int hashCode() {
+      return _iHash;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+      if( this == o ) {
+        return true;
+      }
+      if( !(o instanceof Key) ) {
+        return false;
+      }
+      Key that = (Key)o;
+      return _iHash == that._iHash && CaseInsensitiveCharSequence.equalsIgnoreCase( _key, that._key );
+    }
+  }
+}
@@ -9,7 +9,9 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public class SimpleXmlNode {
 
@@ -61,6 +63,33 @@ public class SimpleXmlNode {
     return SimpleXmlParser.parseInputStream(is);
   }
 
+  /**
+   * Stream the elements of the given File that match a path, one SimpleXmlNode at a time, without
+   * building the whole document.  The path is either an element name, matching at any depth, or
+   * slash-separated element names starting at the root, such as "feed/entry".
+   *
+   * @param f the File containing XML content to be parsed
+   * @param path the element name or path of the elements to return
+   * @return the matching nodes, in document order
+   * @see SimpleXmlNodeStream
+   */
+  public static SimpleXmlNodeStream stream(File f, String path) {
+    return SimpleXmlParser.streamFile(f, path);
+  }
+
+  /**
+   * Stream the elements of the given InputStream that match a path, one SimpleXmlNode at a time,
+   * without building the whole document.  The InputStream is not closed.
+   *
+   * @param is the InputStream containing XML content to be parsed
+   * @param path the element name or path of the elements to return
+   * @return the matching nodes, in document order
+   * @see SimpleXmlNodeStream
+   */
+  public static SimpleXmlNodeStream stream(InputStream is, String path) {
+    return SimpleXmlParser.streamInputStream(is, path);
+  }
+
   /**
    * Returns the immediate children of this node.  Adding or removing to this list
    * will automatically set or null out the Parent on the node being added or removed.
@@ -190,4 +219,14 @@ public class SimpleXmlNode {
   public String toXmlString() {
     return SimpleXmlNodeWriter.writeToString(this);
   }
+
+  /**
+   * Writes the XML {@link #toXmlString()} returns to the given OutputStream as UTF-8, without
+   * building it in memory first.  The OutputStream is flushed but not closed.
+   *
+   * @param os the OutputStream to write to
+   */
+  public void writeTo(OutputStream os) throws IOException {
+    SimpleXmlNodeWriter.write(this, os);
+  }
 }
@@ -78,7 +78,7 @@ class SimpleXmlNodeHandler extends DefaultHandler {
     }
   }
 
-  private boolean isBlank(StringBuilder sb) {
+  static boolean isBlank(StringBuilder sb) {
     for (int i = 0; i < sb.length(); i++) {
       if (!Character.isWhitespace(sb.charAt(i))) {
         return false;
@@ -93,7 +93,7 @@ class SimpleXmlNodeHandler extends DefaultHandler {
     // For now, do nothing
   }
 
-  private String removePrefix(String localName) {
+  static String removePrefix(String localName) {
     int lastIndex = localName.lastIndexOf(':');
     if (lastIndex != -1) {
       return localName.substring(lastIndex + 1);
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.xml.simple;
+
+import gw.util.Stack;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Pulls the elements matching a path out of an XML document one at a time.  Each
+ * match is returned as a SimpleXmlNode tree with no parent, built the same way
+ * {@link SimpleXmlNode#parse} builds it, but nothing outside the current match is
+ * kept, so memory use is bounded by the largest match rather than the document.
+ * <p/>
+ * The path is either an element name, which matches elements with that name at any
+ * depth, or a slash-separated list of names starting at the root element, such as
+ * "feed/entry".  Matches nested inside another match are part of the outer match
+ * and are not returned separately.
+ * <p/>
+ * The stream closes itself once the document is exhausted; close it explicitly
+ * when stopping early.
+ */
+public class SimpleXmlNodeStream implements Iterable<SimpleXmlNode>, Iterator<SimpleXmlNode>, Closeable {
+
+  private final XMLStreamReader _reader;
+  private final Closeable _source;
+  private final String[] _path;
+  private final List<String> _currentPath = new ArrayList<String>();
+  private SimpleXmlNode _next;
+  private boolean _closed;
+
+  SimpleXmlNodeStream(XMLStreamReader reader, Closeable source, String path) {
+    if (path == null || path.length() == 0) {
+      throw new IllegalArgumentException("A path is required to stream SimpleXmlNodes");
+    }
+    _reader = reader;
+    _source = source;
+    if (path.startsWith("/")) {
+      path = path.substring(1);
+    }
+    _path = path.split("/");
+  }
+
+  @Override
+  public Iterator<SimpleXmlNode> iterator() {
+    return this;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (_next == null && !_closed) {
+      try {
+        _next = advance();
+      } catch (XMLStreamException e) {
+        closeQuietly();
+        throw new RuntimeException(e);
+      }
+    }
+    return _next != null;
+  }
+
+  @Override
+  public SimpleXmlNode next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    SimpleXmlNode result = _next;
+    _next = null;
+    return result;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!_closed) {
+      _closed = true;
+      try {
+        _reader.close();
+      } catch (XMLStreamException e) {
+        throw new IOException(e.getMessage());
+      } finally {
+        if (_source != null) {
+          _source.close();
+        }
+      }
+    }
+  }
+
+  private SimpleXmlNode advance() throws XMLStreamException {
+    while (_reader.hasNext()) {
+      switch (_reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          String name = SimpleXmlNodeHandler.removePrefix(_reader.getLocalName());
+          _currentPath.add(name);
+          if (matches()) {
+            SimpleXmlNode node = readSubtree();
+            _currentPath.remove(_currentPath.size() - 1);
+            return node;
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          _currentPath.remove(_currentPath.size() - 1);
+          break;
+      }
+    }
+    closeQuietly();
+    return null;
+  }
+
+  private boolean matches() {
+    if (_path.length == 1) {
+      return _currentPath.get(_currentPath.size() - 1).equals(_path[0]);
+    }
+    if (_currentPath.size() != _path.length) {
+      return false;
+    }
+    for (int i = _path.length - 1; i >= 0; i--) {
+      if (!_currentPath.get(i).equals(_path[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Reads the element the reader is positioned on through its end tag
+   */
+  private SimpleXmlNode readSubtree() throws XMLStreamException {
+    Stack<SimpleXmlNode> elementStack = new Stack<SimpleXmlNode>();
+    Stack<StringBuilder> textStack = new Stack<StringBuilder>();
+    SimpleXmlNode root = startNode(null);
+    elementStack.push(root);
+    StringBuilder currentText = null;
+    while (true) {
+      switch (_reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          elementStack.push(startNode(elementStack.peek()));
+          textStack.push(currentText);
+          currentText = null;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          SimpleXmlNode ended = elementStack.pop();
+          ended.setText(currentText != null && !SimpleXmlNodeHandler.isBlank(currentText) ? currentText.toString() : null);
+          if (elementStack.isEmpty()) {
+            return root;
+          }
+          currentText = textStack.pop();
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          if (currentText == null) {
+            currentText = new StringBuilder();
+          }
+          currentText.append(_reader.getTextCharacters(), _reader.getTextStart(), _reader.getTextLength());
+          break;
+        case XMLStreamConstants.ENTITY_REFERENCE:
+          // Only reported for entities the reader couldn't replace
+          if (currentText == null) {
+            currentText = new StringBuilder();
+          }
+          currentText.append(_reader.getText());
+          break;
+      }
+    }
+  }
+
+  private SimpleXmlNode startNode(SimpleXmlNode parent) {
+    SimpleXmlNode element = new SimpleXmlNode(SimpleXmlNodeHandler.removePrefix(_reader.getLocalName()));
+    for (int i = 0; i < _reader.getAttributeCount(); i++) {
+      String attributeLocalName = SimpleXmlNodeHandler.removePrefix(_reader.getAttributeLocalName(i));
+      if (element.getAttributes().containsKey(attributeLocalName)) {
+        throw new IllegalStateException("Duplicate attributes were found with identical local names of " + attributeLocalName);
+      }
+      element.getAttributes().put(attributeLocalName, _reader.getAttributeValue(i));
+    }
+    if (parent != null) {
+      parent.getChildren().add(element);
+    }
+    return element;
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (IOException e) {
+      // Nothing left to read, so nothing lost
+    }
+  }
+}
@@ -4,66 +4,123 @@
 
 package gw.xml.simple;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
 
 class SimpleXmlNodeWriter {
-  private StringBuilder _sb = new StringBuilder();
+  private final Writer _out;
   private int _indent = 0;
+  // Line breaks are written lazily so the last one, which nothing follows, never is
+  private boolean _newlinePending;
 
   public static String writeToString(SimpleXmlNode node) {
-    SimpleXmlNodeWriter writer = new SimpleXmlNodeWriter();
-    return writer.createXml(node);
+    StringWriter out = new StringWriter();
+    try {
+      new SimpleXmlNodeWriter(out).writeNode(node);
+    } catch (IOException e) {
+      // StringWriter doesn't throw
+      throw new RuntimeException(e);
+    }
+    return out.toString();
   }
 
-  private SimpleXmlNodeWriter() { }
+  /**
+   * Writes the same XML as {@link #writeToString} as UTF-8, without holding it in memory.
+   */
+  public static void write(SimpleXmlNode node, OutputStream out) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+    new SimpleXmlNodeWriter(writer).writeNode(node);
+    writer.flush();
+  }
 
-  private String createXml(SimpleXmlNode node) {
-    appendNode(node);
-    // appendNode will result in a trailing \n character, so we want to delete that.  It's simpler than
-    // trying to track when to add \n and when not to . . .
-    _sb.deleteCharAt(_sb.length() - 1);
-    return _sb.toString();
+  SimpleXmlNodeWriter(Writer out) {
+    _out = out;
   }
 
-  private void appendNode(SimpleXmlNode node) {
-    appendIndent();
-    _sb.append("<").append(node.getName());
-    appendAttributes(node);
+  void writeNode(SimpleXmlNode node) throws IOException {
+    appendOpenTag(node);
     if (node.getChildren().isEmpty()) {
       if (node.getText() == null) {
-        _sb.append("/>\n");
+        append("/>").newline();
       } else {
-        _sb.append(">");
-        _sb.append(xmlEncode(node.getText(), false));
-        _sb.append("</").append(node.getName()).append(">\n");
+        append(">");
+        append(xmlEncode(node.getText(), false));
+        append("</").append(node.getName()).append(">").newline();
       }
     } else {
-      _sb.append(">\n");
-      pushIndent();
-      if (node.getText() != null) {
-        appendIndent();
-        _sb.append(xmlEncode(node.getText(), false)).append("\n");
-      }
+      finishStartTag(node);
       appendChildren(node);
-      popIndent();
+      writeEndTag(node.getName());
+    }
+  }
+
+  /**
+   * Writes the start tag and text of a node, but not its children, as if it had
+   * children.  Children written next are nested until {@link #writeEndTag}.
+   */
+  void writeStartTag(SimpleXmlNode node) throws IOException {
+    appendOpenTag(node);
+    finishStartTag(node);
+  }
+
+  void writeEndTag(String name) throws IOException {
+    popIndent();
+    appendIndent();
+    append("</").append(name).append(">").newline();
+  }
+
+  void flush() throws IOException {
+    _out.flush();
+  }
+
+  private SimpleXmlNodeWriter append(String s) throws IOException {
+    if (_newlinePending) {
+      _newlinePending = false;
+      _out.write('\n');
+    }
+    if (s != null) {
+      _out.write(s);
+    }
+    return this;
+  }
+
+  private void newline() {
+    _newlinePending = true;
+  }
+
+  private void appendOpenTag(SimpleXmlNode node) throws IOException {
+    appendIndent();
+    append("<").append(node.getName());
+    appendAttributes(node);
+  }
+
+  private void finishStartTag(SimpleXmlNode node) throws IOException {
+    append(">").newline();
+    pushIndent();
+    if (node.getText() != null) {
       appendIndent();
-      _sb.append("</").append(node.getName()).append(">\n");
+      append(xmlEncode(node.getText(), false)).newline();
     }
   }
 
-  private void appendAttributes(SimpleXmlNode node) {
+  private void appendAttributes(SimpleXmlNode node) throws IOException {
     List<String> orderedKeys = new ArrayList<String>(node.getAttributes().keySet());
     Collections.sort(orderedKeys);
     for (String attribute : orderedKeys) {
-      _sb.append(" ").append(attribute).append("=").append(xmlEncode(node.getAttributes().get(attribute), true)).append("");
+      append(" ").append(attribute).append("=").append(xmlEncode(node.getAttributes().get(attribute), true));
     }
   }
 
-  private void appendChildren(SimpleXmlNode node) {
+  private void appendChildren(SimpleXmlNode node) throws IOException {
     for (SimpleXmlNode child : node.getChildren()) {
-      appendNode(child);
+      writeNode(child);
     }
   }
 
@@ -75,9 +132,9 @@ class SimpleXmlNodeWriter {
     _indent-=2;
   }
 
-  private void appendIndent() {
+  private void appendIndent() throws IOException {
     for (int i = 0; i < _indent; i++) {
-      _sb.append(" ");
+      append(" ");
     }
   }
 
@@ -10,13 +10,18 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 
 class SimpleXmlParser {
 
   private static ThreadLocal<SAXParser> _saxParser = new ThreadLocal<SAXParser>();
+  private static ThreadLocal<XMLInputFactory> _xmlInputFactory = new ThreadLocal<XMLInputFactory>();
 
   // Disable construction of new instances
   private SimpleXmlParser() { }
@@ -54,6 +59,31 @@ class SimpleXmlParser {
     }
   }
 
+  public static SimpleXmlNodeStream streamFile(File file, String path) {
+    InputStream stream = null;
+    try {
+      stream = new BufferedInputStream(new FileInputStream(file));
+      return new SimpleXmlNodeStream(makeXMLInputFactory().createXMLStreamReader(stream), stream, path);
+    } catch (Exception e) {
+      if (stream != null) {
+        try {
+          stream.close();
+        } catch (IOException ioe) {
+          // Report the original failure
+        }
+      }
+      throw maybeWrapException( e );
+    }
+  }
+
+  public static SimpleXmlNodeStream streamInputStream(InputStream stream, String path) {
+    try {
+      return new SimpleXmlNodeStream(makeXMLInputFactory().createXMLStreamReader(stream), null, path);
+    } catch (Exception e) {
+      throw maybeWrapException( e );
+    }
+  }
+
   private static RuntimeException maybeWrapException(Exception e) {
     if (e instanceof RuntimeException) {
       return (RuntimeException) e;
@@ -82,4 +112,17 @@ class SimpleXmlParser {
     return parser;
   }
 
+  /*
+   * Builds and returns the XMLInputFactory, configured to report names the way the SAXParser above does
+   */
+  private static XMLInputFactory makeXMLInputFactory() {
+    XMLInputFactory factory = _xmlInputFactory.get();
+    if (factory == null) {
+      factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+      _xmlInputFactory.set( factory );
+    }
+    return factory;
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.xml.simple;
+
+import gw.util.Stack;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+/**
+ * Writes XML to a stream one node at a time, so a document never has to be held
+ * in memory as a whole.  The output is UTF-8 and is the same XML
+ * {@link SimpleXmlNode#toXmlString()} produces for the equivalent tree.
+ * <pre>
+ *   SimpleXmlStreamWriter out = new SimpleXmlStreamWriter( stream );
+ *   out.startElement( "feed" );
+ *   for( SimpleXmlNode entry : SimpleXmlNode.stream( file, "feed/entry" ) ) {
+ *     out.writeNode( entry );
+ *   }
+ *   out.close();
+ * </pre>
+ */
+public class SimpleXmlStreamWriter implements Closeable {
+
+  private final OutputStream _stream;
+  private final SimpleXmlNodeWriter _writer;
+  private final Stack<String> _openElements = new Stack<String>();
+  // The last started element, held back until it gets content so an empty element is written as <name/>
+  private SimpleXmlNode _pendingElement;
+  private boolean _closed;
+
+  public SimpleXmlStreamWriter(OutputStream stream) throws IOException {
+    _stream = stream;
+    _writer = new SimpleXmlNodeWriter(new BufferedWriter(new OutputStreamWriter(stream, "UTF-8")));
+  }
+
+  /**
+   * Starts an element.  Nodes written until the matching {@link #endElement()}
+   * are its children.
+   *
+   * @param name the name of the element
+   * @return this writer
+   */
+  public SimpleXmlStreamWriter startElement(String name) throws IOException {
+    return startElement(new SimpleXmlNode(name));
+  }
+
+  /**
+   * Starts an element with the name, attributes and text of the given node.  The
+   * node's own children, if any, come before nodes written after this call.
+   *
+   * @param node the node to start
+   * @return this writer
+   */
+  public SimpleXmlStreamWriter startElement(SimpleXmlNode node) throws IOException {
+    writePendingElement();
+    _pendingElement = node;
+    _openElements.push(node.getName());
+    return this;
+  }
+
+  /**
+   * Writes a node and all of its children.
+   *
+   * @param node the node to write
+   * @return this writer
+   */
+  public SimpleXmlStreamWriter writeNode(SimpleXmlNode node) throws IOException {
+    writePendingElement();
+    _writer.writeNode(node);
+    return this;
+  }
+
+  /**
+   * Ends the most recently started element.
+   *
+   * @return this writer
+   */
+  public SimpleXmlStreamWriter endElement() throws IOException {
+    if (_openElements.isEmpty()) {
+      throw new IllegalStateException("No element to end");
+    }
+    String name = _openElements.pop();
+    if (_pendingElement != null) {
+      _writer.writeNode(_pendingElement);
+      _pendingElement = null;
+    } else {
+      _writer.writeEndTag(name);
+    }
+    return this;
+  }
+
+  public void flush() throws IOException {
+    _writer.flush();
+  }
+
+  /**
+   * Ends any elements still open, then flushes and closes the stream.
+   */
+  public void close() throws IOException {
+    if (!_closed) {
+      _closed = true;
+      try {
+        while (!_openElements.isEmpty()) {
+          endElement();
+        }
+        _writer.flush();
+      } finally {
+        _stream.close();
+      }
+    }
+  }
+
+  private void writePendingElement() throws IOException {
+    if (_pendingElement != null) {
+      SimpleXmlNode node = _pendingElement;
+      _pendingElement = null;
+      _writer.writeStartTag(node);
+      for (SimpleXmlNode child : node.getChildren()) {
+        _writer.writeNode(child);
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+public class ByteCodecTest extends Assert {
+
+  @Test
+  public void base64MatchesBase64Util() {
+    Random random = new Random(42);
+    for (int length = 0; length < 100; length++) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      String encoded = ByteCodec.BASE64.encodeToString(bytes);
+      assertEquals(Base64Util.encode(bytes), encoded);
+      assertTrue(Arrays.equals(bytes, ByteCodec.BASE64.decode(encoded)));
+    }
+  }
+
+  @Test
+  public void base64DecodeSkipsForeignCharactersAndStopsAtPadding() {
+    assertEquals("hello", new String(ByteCodec.BASE64.decode("aGVs\r\nbG8=ignored")));
+  }
+
+  @Test
+  public void hexEncodesLowerCaseAndDecodesEitherCase() {
+    byte[] bytes = {0, 1, (byte) 0xab, (byte) 0xff};
+    assertEquals("0001abff", ByteCodec.HEX.encodeToString(bytes));
+    assertTrue(Arrays.equals(bytes, ByteCodec.HEX.decode("00 01 AB ff")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void hexRejectsInvalidCharacter() {
+    ByteCodec.HEX.decode("0g");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void hexRejectsOddNumberOfDigits() {
+    ByteCodec.HEX.decode("abc");
+  }
+
+  @Test
+  public void buffersTransformAcrossCalls() {
+    byte[] bytes = "the quick brown fox".getBytes();
+    ByteBuffer encoded = ByteBuffer.allocate(ByteCodec.BASE64.getMaxEncodedLength(bytes.length));
+    // Feed the input a few bytes at a time, a trailing partial group waits for the next call
+    ByteBuffer src = ByteBuffer.allocate(bytes.length);
+    for (int i = 0; i < bytes.length; i += 5) {
+      src.put(bytes, i, Math.min(5, bytes.length - i));
+      src.flip();
+      boolean endOfInput = i + 5 >= bytes.length;
+      ByteCodec.BASE64.encode(src, encoded, endOfInput);
+      assertTrue(endOfInput ? src.remaining() == 0 : src.remaining() < 3);
+      src.compact();
+    }
+    encoded.flip();
+    assertEquals(Base64Util.encode(bytes), new String(encoded.array(), 0, encoded.limit()));
+  }
+
+  @Test
+  public void directBuffersTransformLikeHeapBuffers() {
+    byte[] bytes = new byte[20000];
+    new Random(7).nextBytes(bytes);
+    ByteBuffer src = ByteBuffer.allocateDirect(bytes.length);
+    src.put(bytes).flip();
+    ByteBuffer encoded = ByteBuffer.allocateDirect(ByteCodec.HEX.getMaxEncodedLength(bytes.length));
+    ByteCodec.HEX.encode(src, encoded, true);
+    assertFalse(src.hasRemaining());
+    encoded.flip();
+    ByteBuffer decoded = ByteBuffer.allocateDirect(ByteCodec.HEX.getMaxDecodedLength(encoded.remaining()));
+    ByteCodec.HEX.decode(encoded, decoded, true);
+    decoded.flip();
+    byte[] result = new byte[decoded.remaining()];
+    decoded.get(result);
+    assertTrue(Arrays.equals(bytes, result));
+  }
+
+  @Test
+  public void base64DecodeReportsEndOfData() {
+    ByteBuffer src = ByteBuffer.wrap("aGk=bW9yZQ==".getBytes());
+    ByteBuffer dst = ByteBuffer.allocate(16);
+    assertTrue(ByteCodec.BASE64.decode(src, dst, false));
+    assertFalse(src.hasRemaining());
+    assertEquals(2, dst.position());
+  }
+
+  @Test
+  public void outputStreamsRoundTrip() throws IOException {
+    byte[] bytes = new byte[10000];
+    new Random(3).nextBytes(bytes);
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    OutputStream out = ByteCodec.BASE64.encodingStream(encoded);
+    for (int i = 0; i < bytes.length; i += 7) {
+      out.write(bytes, i, Math.min(7, bytes.length - i));
+    }
+    out.close();
+    assertEquals(Base64Util.encode(bytes), encoded.toString("US-ASCII"));
+
+    ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+    out = ByteCodec.BASE64.decodingStream(decoded);
+    for (byte b : encoded.toByteArray()) {
+      out.write(b);
+    }
+    out.close();
+    assertTrue(Arrays.equals(bytes, decoded.toByteArray()));
+  }
+
+  @Test
+  public void inputStreamsRoundTrip() throws IOException {
+    byte[] bytes = new byte[10000];
+    new Random(5).nextBytes(bytes);
+    InputStream in = ByteCodec.HEX.decodingStream(ByteCodec.HEX.encodingStream(new ByteArrayInputStream(bytes)));
+    assertTrue(Arrays.equals(bytes, StreamUtil.getContent(in)));
+  }
+}
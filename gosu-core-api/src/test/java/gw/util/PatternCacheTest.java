@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class PatternCacheTest extends Assert {
+
+  @Test
+  public void returnsTheSamePatternForTheSameExpression() {
+    Pattern pattern = PatternCache.get("PatternCacheTest[0-9]+");
+    assertSame(pattern, PatternCache.get("PatternCacheTest[0-9]+"));
+    assertTrue(pattern.matcher("PatternCacheTest42").matches());
+  }
+
+  @Test
+  public void countsHitsAndMisses() {
+    int misses = PatternCache.getCache().getMisses();
+    int hits = PatternCache.getCache().getHits();
+    PatternCache.get("PatternCacheTest counts");
+    PatternCache.get("PatternCacheTest counts");
+    assertEquals(misses + 1, PatternCache.getCache().getMisses());
+    assertEquals(hits + 1, PatternCache.getCache().getHits());
+  }
+
+  @Test(expected = PatternSyntaxException.class)
+  public void rejectsInvalidExpression() {
+    PatternCache.get("PatternCacheTest(");
+  }
+
+  @Test
+  public void stringHelpersShareTheCache() {
+    PatternCache.get("PatternCacheTest,");
+    int misses = PatternCache.getCache().getMisses();
+    assertEquals(2, GosuStringUtil.countRegexpMatches("aPatternCacheTest,bPatternCacheTest,c", "PatternCacheTest,"));
+    assertEquals(misses, PatternCache.getCache().getMisses());
+  }
+}
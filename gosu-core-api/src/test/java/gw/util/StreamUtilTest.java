@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class StreamUtilTest extends Assert {
+
+  @Test
+  public void getContentReadsWholeFile() throws IOException {
+    byte[] content = makeContent(100000);
+    File file = makeFile(content);
+    assertTrue(Arrays.equals(content, StreamUtil.getContent(new FileInputStream(file))));
+  }
+
+  @Test
+  public void getContentReadsFromCurrentPosition() throws IOException {
+    byte[] content = makeContent(1000);
+    FileInputStream in = new FileInputStream(makeFile(content));
+    assertEquals(10, in.skip(10));
+    assertTrue(Arrays.equals(Arrays.copyOfRange(content, 10, content.length), StreamUtil.getContent(in)));
+  }
+
+  @Test
+  public void copyFileReplacesContent() throws IOException {
+    byte[] content = makeContent(70000);
+    File from = makeFile(content);
+    File to = makeFile(makeContent(100000));
+    StreamUtil.copy(from, to);
+    assertTrue(StreamUtil.contentEquals(from, to));
+  }
+
+  @Test
+  public void contentEqualsComparesBytes() throws IOException {
+    byte[] content = makeContent(5000);
+    File file1 = makeFile(content);
+    File file2 = makeFile(content);
+    assertTrue(StreamUtil.contentEquals(file1, file2));
+    content[4999]++;
+    assertFalse(StreamUtil.contentEquals(file1, makeFile(content)));
+    assertFalse(StreamUtil.contentEquals(file1, makeFile(Arrays.copyOf(content, 4999))));
+  }
+
+  @Test
+  public void transferToWritesFromPositionToEnd() throws IOException {
+    byte[] content = makeContent(50000);
+    RandomAccessFile raf = new RandomAccessFile(makeFile(content), "r");
+    try {
+      raf.getChannel().position(100);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      StreamUtil.transferTo(raf.getChannel(), Channels.newChannel(out));
+      assertTrue(Arrays.equals(Arrays.copyOfRange(content, 100, content.length), out.toByteArray()));
+      assertEquals(content.length, raf.getChannel().position());
+    }
+    finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void transferFromReadsEverything() throws IOException {
+    byte[] content = makeContent(50000);
+    RandomAccessFile raf = new RandomAccessFile(makeFile(new byte[0]), "rw");
+    try {
+      StreamUtil.transferFrom(Channels.newChannel(new ByteArrayInputStream(content)), raf.getChannel());
+      assertEquals(content.length, raf.getChannel().position());
+      ByteBuffer read = ByteBuffer.allocate(content.length);
+      raf.getChannel().read(read, 0);
+      assertTrue(Arrays.equals(content, read.array()));
+    }
+    finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void transferToRejectsNonBlockingChannel() throws IOException {
+    Pipe pipe = Pipe.open();
+    pipe.sink().configureBlocking(false);
+    RandomAccessFile raf = new RandomAccessFile(makeFile(makeContent(10)), "r");
+    try {
+      StreamUtil.transferTo(raf.getChannel(), pipe.sink());
+      fail("Expected IllegalBlockingModeException");
+    }
+    catch (IllegalBlockingModeException e) {
+      // expected
+    }
+    finally {
+      raf.close();
+      pipe.sink().close();
+      pipe.source().close();
+    }
+  }
+
+  @Test
+  public void transferFromRejectsNonBlockingChannel() throws IOException {
+    Pipe pipe = Pipe.open();
+    pipe.source().configureBlocking(false);
+    RandomAccessFile raf = new RandomAccessFile(makeFile(new byte[0]), "rw");
+    try {
+      StreamUtil.transferFrom(pipe.source(), raf.getChannel());
+      fail("Expected IllegalBlockingModeException");
+    }
+    catch (IllegalBlockingModeException e) {
+      // expected
+    }
+    finally {
+      raf.close();
+      pipe.sink().close();
+      pipe.source().close();
+    }
+  }
+
+  @Test
+  public void eachLineInParallelHandlesEveryLine() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    List<String> expected = new ArrayList<String>();
+    for (int i = 0; i < 10000; i++) {
+      String line = "line " + i + (i % 3 == 0 ? " é" : "");
+      expected.add(line);
+      sb.append(line).append(i % 2 == 0 ? "\n" : "\r\n");
+    }
+    final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+    StreamUtil.eachLineInParallel(makeFile(sb.toString().getBytes("UTF-8")), 4, new StreamUtil.LineHandler() {
+      public void handle(String line) {
+        lines.add(line);
+      }
+    });
+    Collections.sort(expected);
+    Collections.sort(lines);
+    assertEquals(expected, lines);
+  }
+
+  private static byte[] makeContent(int length) {
+    byte[] content = new byte[length];
+    for (int i = 0; i < length; i++) {
+      content[i] = (byte) (i * 31);
+    }
+    return content;
+  }
+
+  private static File makeFile(byte[] content) throws IOException {
+    File file = File.createTempFile("StreamUtilTest", ".bin");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    }
+    finally {
+      out.close();
+    }
+    return file;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.cache;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FqnBloomFilterTest extends Assert {
+
+  @Test
+  public void noFalseNegativesAfterBuild() {
+    List<String> names = names("com.example.Type", 0, 20000);
+    FqnBloomFilter filter = FqnBloomFilter.build(names);
+    assertEquals(names.size(), filter.size());
+    for (String name : names) {
+      assertTrue(name, filter.mightContain(name));
+    }
+  }
+
+  @Test
+  public void noFalseNegativesAfterAddingWithoutResize() {
+    FqnBloomFilter filter = FqnBloomFilter.build(names("com.example.Type", 0, 1000));
+    FqnBloomFilter bigger = filter.with(names("com.example.Added", 0, 10), null);
+    assertEquals(1010, bigger.size());
+    for (String name : names("com.example.Added", 0, 10)) {
+      assertTrue(name, bigger.mightContain(name));
+    }
+    for (String name : names("com.example.Type", 0, 1000)) {
+      assertTrue(name, bigger.mightContain(name));
+    }
+  }
+
+  @Test
+  public void noFalseNegativesAfterResize() {
+    List<String> all = names("com.example.Type", 0, 100);
+    FqnBloomFilter filter = FqnBloomFilter.build(all);
+    List<String> added = names("com.example.Added", 0, 5000);
+    all.addAll(added);
+    FqnBloomFilter bigger = filter.with(added, all);
+    assertEquals(all.size(), bigger.size());
+    for (String name : all) {
+      assertTrue(name, bigger.mightContain(name));
+    }
+  }
+
+  @Test
+  public void withLeavesTheOriginalUntouched() {
+    FqnBloomFilter filter = FqnBloomFilter.build(Collections.singletonList("com.example.Only"));
+    filter.with(names("com.example.Added", 0, 1000), null);
+    assertEquals(1, filter.size());
+    // A copy with a thousand more names would answer maybe for all of them
+    assertTrue(countFalsePositives(filter, names("com.example.Added", 0, 1000)) < 100);
+  }
+
+  @Test
+  public void falsePositivesAreRare() {
+    FqnBloomFilter filter = FqnBloomFilter.build(names("com.example.Type", 0, 10000));
+    int iFalsePositives = countFalsePositives(filter, names("com.example.Missing", 0, 10000));
+    // One in a hundred is expected, allow some slack
+    assertTrue(String.valueOf(iFalsePositives), iFalsePositives < 300);
+  }
+
+  @Test
+  public void namesIgnoreCase() {
+    FqnBloomFilter filter = FqnBloomFilter.build(Collections.singletonList("com.foo.Bar"));
+    assertTrue(filter.mightContain("com.foo.bar"));
+    assertTrue(filter.mightContain("COM.FOO.BAR"));
+  }
+
+  @Test
+  public void prefixRangeIsHashedLikeTheWholeName() {
+    FqnBloomFilter filter = FqnBloomFilter.build(Collections.singletonList("com.foo.Bar"));
+    assertTrue(filter.mightContain("com.foo.Bar.Inner", "com.foo.Bar".length()));
+    assertTrue(filter.mightContainNameOrEnclosingName("com.foo.Bar.Inner.Deeper"));
+    assertTrue(filter.mightContainNameOrEnclosingName("com.foo.Bar"));
+  }
+
+  @Test
+  public void emptyFilterContainsNothing() {
+    FqnBloomFilter filter = FqnBloomFilter.build(Collections.<String>emptyList());
+    assertEquals(0, countFalsePositives(filter, Arrays.asList("a", "a.b", "com.foo.Bar")));
+  }
+
+  private static int countFalsePositives(FqnBloomFilter filter, List<String> absent) {
+    int iCount = 0;
+    for (String name : absent) {
+      if (filter.mightContainNameOrEnclosingName(name)) {
+        iCount++;
+      }
+    }
+    return iCount;
+  }
+
+  private static List<String> names(String strPrefix, int iStart, int iEnd) {
+    List<String> names = new ArrayList<String>();
+    for (int i = iStart; i < iEnd; i++) {
+      names.add(strPrefix + i);
+    }
+    return names;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.cache;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class FqnCacheTest extends Assert {
+
+  @Test
+  public void addGetAndRemove() {
+    FqnCache<String> cache = new FqnCache<String>();
+    cache.add("gw.lang.Foo", "foo");
+    cache.add("gw.lang.Foo.Inner", "inner");
+    assertEquals("foo", cache.get("gw.lang.Foo"));
+    assertEquals("inner", cache.get("gw.lang.Foo.Inner"));
+    assertTrue(cache.contains("gw.lang"));
+    assertNull(cache.get("gw.lang"));
+    assertNull(cache.get("gw.lang.Bar"));
+
+    assertTrue(cache.remove("gw.lang.Foo.Inner"));
+    assertFalse(cache.contains("gw.lang.Foo.Inner"));
+    assertEquals("foo", cache.get("gw.lang.Foo"));
+    assertFalse(cache.remove("gw.lang.Bar"));
+  }
+
+  @Test
+  public void concurrentAddsAreAllVisible() throws InterruptedException {
+    final FqnCache<Integer> cache = new FqnCache<Integer>();
+    final int iNames = 500;
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      final int iThread = i;
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            start.await();
+            for (int j = 0; j < iNames; j++) {
+              // The threads share packages, so they race to create the same nodes
+              String fqn = "pkg" + (j % 10) + ".sub" + (j % 3) + ".Type" + j + "_" + iThread;
+              cache.add(fqn, j);
+              if (!Integer.valueOf(j).equals(cache.get(fqn))) {
+                throw new AssertionError("Lost " + fqn);
+              }
+            }
+          } catch (Throwable t) {
+            errors.add(t);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.emptyList(), errors);
+    assertEquals(iNames * threads.length, cache.getFqns().size());
+  }
+
+  @Test
+  public void deleteDoesNotLoseAConcurrentSiblingAdd() throws InterruptedException {
+    final FqnCache<String> cache = new FqnCache<String>();
+    final int iNames = 2000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final boolean[] bDone = {false};
+    Thread remover = new Thread() {
+      public void run() {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        // Keep emptying and pruning the children map of gw.pkg
+        while (!isDone()) {
+          cache.add("gw.pkg.Transient", "transient");
+          cache.remove("gw.pkg.Transient");
+        }
+      }
+
+      private boolean isDone() {
+        synchronized (bDone) {
+          return bDone[0];
+        }
+      }
+    };
+    remover.start();
+    start.countDown();
+    for (int i = 0; i < iNames; i++) {
+      cache.add("gw.pkg.Type" + i, "type" + i);
+    }
+    synchronized (bDone) {
+      bDone[0] = true;
+    }
+    remover.join();
+    for (int i = 0; i < iNames; i++) {
+      assertEquals("type" + i, cache.get("gw.pkg.Type" + i));
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.xml.simple;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class SimpleXmlNodeStreamTest extends Assert {
+
+  private static final String FEED =
+    "<feed>" +
+    "<entry id=\"1\"><title>a &amp; b</title><entry id=\"inner\"/></entry>" +
+    "<other><entry id=\"2\"/></other>" +
+    "<entry id=\"3\">  </entry>" +
+    "</feed>";
+
+  @Test
+  public void nameMatchesAtAnyDepthButNotInsideAMatch() {
+    List<SimpleXmlNode> entries = readAll(SimpleXmlNode.stream(toStream(FEED), "entry"));
+    assertEquals(3, entries.size());
+    assertEquals("1", entries.get(0).getAttributes().get("id"));
+    assertEquals("2", entries.get(1).getAttributes().get("id"));
+    assertEquals("3", entries.get(2).getAttributes().get("id"));
+
+    SimpleXmlNode first = entries.get(0);
+    assertNull(first.getParent());
+    assertEquals(2, first.getChildren().size());
+    assertEquals("a & b", first.getChildren().get(0).getText());
+    assertEquals("inner", first.getChildren().get(1).getAttributes().get("id"));
+  }
+
+  @Test
+  public void pathMatchesFromTheRoot() {
+    List<SimpleXmlNode> entries = readAll(SimpleXmlNode.stream(toStream(FEED), "/feed/entry"));
+    assertEquals(2, entries.size());
+    assertEquals("1", entries.get(0).getAttributes().get("id"));
+    assertEquals("3", entries.get(1).getAttributes().get("id"));
+  }
+
+  @Test
+  public void streamsEmptyAndAttributeOnlyNodes() {
+    List<SimpleXmlNode> nodes = readAll(SimpleXmlNode.stream(toStream("<r><e/><e k=\"v\"/><e>t</e><e>  </e></r>"), "r/e"));
+    assertEquals(4, nodes.size());
+    assertEquals("<e/>", nodes.get(0).toXmlString());
+    assertEquals("<e k=\"v\"/>", nodes.get(1).toXmlString());
+    assertEquals("<e>t</e>", nodes.get(2).toXmlString());
+    assertNull(nodes.get(3).getText());
+  }
+
+  @Test
+  public void matchesAreBuiltLikeParse() {
+    SimpleXmlNode parsed = SimpleXmlNode.parse(FEED);
+    List<SimpleXmlNode> streamed = readAll(SimpleXmlNode.stream(toStream(FEED), "feed/entry"));
+    assertEquals(parsed.getChildren().get(0).toXmlString(), streamed.get(0).toXmlString());
+    assertEquals(parsed.getChildren().get(2).toXmlString(), streamed.get(1).toXmlString());
+  }
+
+  @Test
+  public void streamsFromAFile() throws IOException {
+    File file = File.createTempFile("stream", ".xml");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      SimpleXmlNodeWriterTest.makeTree().writeTo(out);
+    } finally {
+      out.close();
+    }
+    List<SimpleXmlNode> nodes = readAll(SimpleXmlNode.stream(file, "n"));
+    assertEquals(1, nodes.size());
+    assertEquals("<n>\n  <m/>\n</n>", nodes.get(0).toXmlString());
+  }
+
+  @Test
+  public void exhaustingTheStreamClosesIt() throws Exception {
+    CountingCloseable source = new CountingCloseable();
+    SimpleXmlNodeStream stream = makeStream(FEED, source, "feed/entry");
+    assertEquals(2, readAll(stream).size());
+    assertEquals(1, source._iCloses);
+    assertFalse(stream.hasNext());
+  }
+
+  @Test
+  public void closePartWayStopsTheStream() throws Exception {
+    CountingCloseable source = new CountingCloseable();
+    SimpleXmlNodeStream stream = makeStream(FEED, source, "entry");
+    assertEquals("1", stream.next().getAttributes().get("id"));
+    stream.close();
+    assertEquals(1, source._iCloses);
+    assertFalse(stream.hasNext());
+    try {
+      stream.next();
+      fail("Expected a NoSuchElementException");
+    } catch (NoSuchElementException e) {
+      // expected
+    }
+    stream.close();
+    assertEquals(1, source._iCloses);
+  }
+
+  @Test
+  public void closeBetweenHasNextAndNextDropsTheMatch() throws Exception {
+    SimpleXmlNodeStream stream = makeStream(FEED, null, "entry");
+    assertTrue(stream.hasNext());
+    stream.close();
+    // The match was read before the close, so it is still returned
+    assertEquals("1", stream.next().getAttributes().get("id"));
+    assertFalse(stream.hasNext());
+  }
+
+  @Test
+  public void malformedDocumentFailsAndCloses() throws Exception {
+    CountingCloseable source = new CountingCloseable();
+    SimpleXmlNodeStream stream = makeStream("<feed><entry></feed>", source, "entry");
+    try {
+      stream.hasNext();
+      fail("Expected a RuntimeException");
+    } catch (RuntimeException e) {
+      // expected
+    }
+    assertEquals(1, source._iCloses);
+  }
+
+  private static SimpleXmlNodeStream makeStream(String xml, Closeable source, String path) throws Exception {
+    return new SimpleXmlNodeStream(XMLInputFactory.newInstance().createXMLStreamReader(toStream(xml)), source, path);
+  }
+
+  private static InputStream toStream(String xml) {
+    try {
+      return new ByteArrayInputStream(xml.getBytes("UTF-8"));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static List<SimpleXmlNode> readAll(SimpleXmlNodeStream stream) {
+    List<SimpleXmlNode> nodes = new ArrayList<SimpleXmlNode>();
+    for (SimpleXmlNode node : stream) {
+      nodes.add(node);
+    }
+    return nodes;
+  }
+
+  private static class CountingCloseable implements Closeable {
+    int _iCloses;
+
+    public void close() {
+      _iCloses++;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.xml.simple;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class SimpleXmlNodeWriterTest extends Assert {
+
+  @Test
+  public void writesIndentedTreeWithoutTrailingNewline() {
+    assertEquals(
+      "<root a=\"1\" b=\"2\">\n" +
+      "  hi &amp; bye\n" +
+      "  <e/>\n" +
+      "  <t>x &lt; y</t>\n" +
+      "  <a k=\"v\"/>\n" +
+      "  <n>\n" +
+      "    <m/>\n" +
+      "  </n>\n" +
+      "</root>",
+      makeTree().toXmlString());
+  }
+
+  @Test
+  public void writesSingleNodes() {
+    assertEquals("<e/>", new SimpleXmlNode("e").toXmlString());
+    SimpleXmlNode text = new SimpleXmlNode("t");
+    text.setText("x");
+    assertEquals("<t>x</t>", text.toXmlString());
+    SimpleXmlNode attributes = new SimpleXmlNode("a");
+    attributes.getAttributes().put("k", "v");
+    assertEquals("<a k=\"v\"/>", attributes.toXmlString());
+  }
+
+  @Test
+  public void quotesAttributes() {
+    SimpleXmlNode node = new SimpleXmlNode("q");
+    node.getAttributes().put("double", "say \"hi\"");
+    node.getAttributes().put("empty", "");
+    node.getAttributes().put("mixed", "'a' \"b\"");
+    node.getAttributes().put("tab", "a\tb");
+    assertEquals("<q double='say \"hi\"' empty=\"\" mixed=\"'a' &quot;b&quot;\" tab=\"a&#9;b\"/>", node.toXmlString());
+  }
+
+  @Test
+  public void rejectsInvalidCharacters() {
+    SimpleXmlNode node = new SimpleXmlNode("e");
+    node.setText("\u0001");
+    try {
+      node.toXmlString();
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void writeToMatchesToXmlString() throws IOException {
+    SimpleXmlNode root = makeTree();
+    root.getChildren().get(1).setText("café 😀");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    root.writeTo(out);
+    assertEquals(root.toXmlString(), new String(out.toByteArray(), "UTF-8"));
+  }
+
+  @Test
+  public void writtenXmlParsesBack() {
+    SimpleXmlNode root = makeTree();
+    assertEquals(root.toXmlString(), SimpleXmlNode.parse(root.toXmlString()).toXmlString());
+  }
+
+  static SimpleXmlNode makeTree() {
+    SimpleXmlNode root = new SimpleXmlNode("root");
+    root.getAttributes().put("b", "2");
+    root.getAttributes().put("a", "1");
+    root.setText("hi & bye");
+    root.getChildren().add(new SimpleXmlNode("e"));
+    SimpleXmlNode text = new SimpleXmlNode("t");
+    text.setText("x < y");
+    root.getChildren().add(text);
+    SimpleXmlNode attributes = new SimpleXmlNode("a");
+    attributes.getAttributes().put("k", "v");
+    root.getChildren().add(attributes);
+    SimpleXmlNode nested = new SimpleXmlNode("n");
+    nested.getChildren().add(new SimpleXmlNode("m"));
+    root.getChildren().add(nested);
+    return root;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.xml.simple;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class SimpleXmlStreamWriterTest extends Assert {
+
+  @Test
+  public void writesSameXmlAsTree() throws IOException {
+    SimpleXmlNode tree = SimpleXmlNodeWriterTest.makeTree();
+    SimpleXmlNode root = tree.shallowCopy();
+
+    ClosingStream out = new ClosingStream();
+    SimpleXmlStreamWriter writer = new SimpleXmlStreamWriter(out);
+    writer.startElement(root);
+    writer.writeNode(tree.getChildren().get(0));
+    writer.writeNode(tree.getChildren().get(1));
+    writer.startElement(tree.getChildren().get(2).shallowCopy()).endElement();
+    writer.startElement("n").startElement("m").endElement().endElement();
+    writer.endElement();
+    writer.close();
+    assertEquals(tree.toXmlString(), out.getString());
+  }
+
+  @Test
+  public void emptyElementIsSelfClosing() throws IOException {
+    ClosingStream out = new ClosingStream();
+    new SimpleXmlStreamWriter(out).startElement("e").endElement().close();
+    assertEquals("<e/>", out.getString());
+  }
+
+  @Test
+  public void attributeOnlyElementIsSelfClosing() throws IOException {
+    SimpleXmlNode node = new SimpleXmlNode("a");
+    node.getAttributes().put("k", "v");
+    ClosingStream out = new ClosingStream();
+    new SimpleXmlStreamWriter(out).startElement("r").startElement(node).endElement().endElement().close();
+    assertEquals("<r>\n  <a k=\"v\"/>\n</r>", out.getString());
+  }
+
+  @Test
+  public void startedNodeKeepsItsTextAndChildren() throws IOException {
+    SimpleXmlNode node = new SimpleXmlNode("r");
+    node.setText("t");
+    node.getChildren().add(new SimpleXmlNode("first"));
+    ClosingStream out = new ClosingStream();
+    SimpleXmlStreamWriter writer = new SimpleXmlStreamWriter(out);
+    writer.startElement(node).writeNode(new SimpleXmlNode("second")).endElement().close();
+    assertEquals("<r>\n  t\n  <first/>\n  <second/>\n</r>", out.getString());
+  }
+
+  @Test
+  public void closeEndsOpenElements() throws IOException {
+    ClosingStream out = new ClosingStream();
+    SimpleXmlStreamWriter writer = new SimpleXmlStreamWriter(out);
+    writer.startElement("feed").writeNode(new SimpleXmlNode("entry")).startElement("group");
+    writer.close();
+    assertEquals("<feed>\n  <entry/>\n  <group/>\n</feed>", out.getString());
+    assertEquals(1, out._iCloses);
+
+    writer.close();
+    assertEquals(1, out._iCloses);
+  }
+
+  @Test
+  public void flushWritesWhatIsComplete() throws IOException {
+    ClosingStream out = new ClosingStream();
+    SimpleXmlStreamWriter writer = new SimpleXmlStreamWriter(out);
+    writer.startElement("feed").writeNode(new SimpleXmlNode("entry"));
+    writer.flush();
+    assertEquals("<feed>\n  <entry/>", out.getString());
+    writer.close();
+    assertEquals("<feed>\n  <entry/>\n</feed>", out.getString());
+  }
+
+  @Test
+  public void endElementWithoutStartFails() throws IOException {
+    SimpleXmlStreamWriter writer = new SimpleXmlStreamWriter(new ClosingStream());
+    try {
+      writer.endElement();
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private static class ClosingStream extends ByteArrayOutputStream {
+    int _iCloses;
+
+    @Override
+    public void close() throws IOException {
+      _iCloses++;
+      super.close();
+    }
+
+    String getString() throws IOException {
+      return new String(toByteArray(), "UTF-8");
+    }
+  }
+}
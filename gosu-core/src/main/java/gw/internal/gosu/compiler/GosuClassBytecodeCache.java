@@ -0,0 +1,719 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.config.CommonServices;
+import gw.internal.gosu.ir.optimizer.IROptimizer;
+import gw.lang.GosuVersion;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.ICompilableType;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.gs.IGosuFragment;
+import gw.lang.reflect.gs.IGosuProgram;
+import gw.lang.reflect.gs.ISourceFileHandle;
+import gw.lang.reflect.java.IJavaType;
+import gw.util.StreamUtil;
+import gw.util.concurrent.LocklessLazyVar;
+import gw.util.fingerprint.FP64;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Persists bytecode compiled from Gosu source so later JVM runs can define unchanged
+ * classes without transforming IR and emitting bytecode. The definitions are still
+ * parsed, the type info needs them regardless. Enabled by setting
+ * {@link BytecodeOptions#BYTECODE_CACHE_DIR_SYSTEM_PROP}.
+ * <p/>
+ * An entry is keyed by the class name, the Gosu version and a fingerprint of the
+ * compiler's own jars, the class file target and the FP64 fingerprint of the class's
+ * source. It also records every non-JDK class the bytecode references, found by
+ * scanning the constant pool, and the supertypes of each, since a change to a
+ * supertype can change what a subclass compiles to. Types the bytecode looks up by
+ * name, e.g. <code>TypeSystem.getByFullName( "a.B" )</code>, count as references too.
+ * Each dependency is stored with a fingerprint: the source fingerprint for Gosu classes
+ * and the class-file bytes for Java classes. The entry is used only if all of those
+ * still match.
+ * <p/>
+ * Annotation values written to the class file are evaluated at compile time and may
+ * copy constants from classes the bytecode never references, so classes carrying
+ * them are not cached. Neither are classes that look up types by name from a type
+ * loader other than Gosu's or Java's, since those types have no fingerprint.
+ * <p/>
+ * Several JVMs may share a cache directory. Entries are written to a temp file and
+ * renamed into place, so readers see either a whole entry or none. Any entry that
+ * fails to read or validate is ignored and the class compiles normally.
+ */
+public class GosuClassBytecodeCache
+{
+  private static final int MAGIC = 0x47534243; // GSBC
+  private static final int FORMAT_VERSION = 3;
+  private static final String EXTENSION = ".gsbc";
+  private static final byte DEP_GOSU = 0;
+  private static final byte DEP_JAVA = 1;
+
+  // Bytecode calling these passes them ids of state registered during compilation in this JVM
+  private static final String[] UNCACHEABLE_METHODS = {
+    "gw/internal/gosu/ir/transform/AbstractElementTransformer.getCustomRuntime",
+    "gw/internal/gosu/ir/transform/expression/EvalExpressionTransformer.compileAndRunEvalSource",
+    "gw/internal/gosu/ir/transform/expression/QueryExpressionTransformer.compileAndRunQuery",
+  };
+
+  // A string constant that may be a type name pushed by AbstractElementTransformer.pushType()
+  private static final Pattern TYPE_NAME = Pattern.compile( "[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*(\\.[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*)+(\\[\\])*" );
+
+  private static final LocklessLazyVar<String> GOSU_VERSION =
+    new LocklessLazyVar<String>() {
+      protected String init() {
+        InputStream in = GosuClassBytecodeCache.class.getClassLoader().getResourceAsStream( GosuVersion.RESOURCE_PATH );
+        if( in == null ) {
+          return "unknown";
+        }
+        return GosuVersion.parse( StreamUtil.getInputStreamReader( in ) ).toString();
+      }
+    };
+
+  /*
+   * Builds of the same version may still compile differently
+   */
+  private static final LocklessLazyVar<String> COMPILER_FINGERPRINT =
+    new LocklessLazyVar<String>() {
+      protected String init() {
+        FP64 fp = new FP64();
+        for( Class cls : new Class[] {GosuClassBytecodeCache.class, IGosuClass.class} ) {
+          CodeSource source = cls.getProtectionDomain().getCodeSource();
+          if( source == null || source.getLocation() == null ) {
+            return "unknown";
+          }
+          try {
+            extendWithLocation( fp, new File( source.getLocation().toURI() ) );
+          }
+          catch( Exception e ) {
+            return "unknown";
+          }
+        }
+        return Long.toHexString( fp.getRawFingerprint() );
+      }
+    };
+
+  private static volatile GosuClassBytecodeCache g_instance;
+
+  /*
+   * The same source compiles to different bytecode per target and set of optimizations
+   */
+  private static String getCompilerSignature()
+  {
+    // Literals concatenated with strings are converted by the coercion manager at compile time
+    return GOSU_VERSION.get() + " " + COMPILER_FINGERPRINT.get() + " " + BytecodeOptions.getClassFileVersion() + (BytecodeOptions.isComputeFrames() ? " frames" : "") +
+           (BytecodeOptions.isIROptimizerEnabled() ? " optimized " + IROptimizer.getSignature() : "") +
+           " " + CommonServices.getCoercionManager().getClass().getName();
+  }
+
+  /**
+   * Fingerprints a jar by its bytes. A class directory, as in a development build, is
+   * fingerprinted by the names, sizes and modification times of its files.
+   */
+  private static void extendWithLocation( FP64 fp, File location ) throws IOException
+  {
+    if( location.isFile() )
+    {
+      InputStream in = new FileInputStream( location );
+      try
+      {
+        fp.extend( in );
+      }
+      finally
+      {
+        in.close();
+      }
+    }
+    else
+    {
+      File[] files = location.listFiles();
+      if( files == null )
+      {
+        return;
+      }
+      Arrays.sort( files );
+      for( File file : files )
+      {
+        if( file.isDirectory() )
+        {
+          extendWithLocation( fp, file );
+        }
+        else
+        {
+          fp.extend( file.getPath() );
+          fp.extend( file.length() );
+          fp.extend( file.lastModified() );
+        }
+      }
+    }
+  }
+
+  private final File _dir;
+
+  /**
+   * @return the cache for the configured directory or null if caching is disabled
+   */
+  public static GosuClassBytecodeCache instance()
+  {
+    File dir = BytecodeOptions.getBytecodeCacheDir();
+    if( dir == null )
+    {
+      return null;
+    }
+    GosuClassBytecodeCache cache = g_instance;
+    if( cache == null || !cache._dir.equals( dir ) )
+    {
+      g_instance = cache = new GosuClassBytecodeCache( dir );
+    }
+    return cache;
+  }
+
+  GosuClassBytecodeCache( File dir )
+  {
+    _dir = dir;
+  }
+
+  public static boolean isCacheable( ICompilableType type )
+  {
+    if( !(type instanceof IGosuClass) || type instanceof IGosuProgram || type instanceof IGosuFragment ||
+        type.isParameterizedType() )
+    {
+      return false;
+    }
+    IGosuClass topLevel = getTopLevelClass( type );
+    ISourceFileHandle sfh = topLevel.getSourceFileHandle();
+    return sfh != null && sfh.getFile() != null;
+  }
+
+  /**
+   * @param type the type to load bytes for
+   * @param strSuffix distinguishes several class files compiled from the same type, may be empty
+   * @return the cached bytes or null if there is no valid entry
+   */
+  public byte[] load( ICompilableType type, String strSuffix )
+  {
+    File file = getFile( type, strSuffix );
+    if( !file.isFile() )
+    {
+      return null;
+    }
+    try
+    {
+      DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+      try
+      {
+        if( in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION ||
+            !in.readUTF().equals( getCompilerSignature() ) ||
+            !in.readUTF().equals( getCacheName( type, strSuffix ) ) ||
+            in.readLong() != getSourceFingerprint( type ) )
+        {
+          return null;
+        }
+        int iDeps = in.readInt();
+        for( int i = 0; i < iDeps; i++ )
+        {
+          byte kind = in.readByte();
+          String strDep = in.readUTF();
+          long lFingerprint = in.readLong();
+          if( getDependencyFingerprint( kind, strDep ) != lFingerprint )
+          {
+            return null;
+          }
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully( bytes );
+        if( in.readLong() != new FP64( bytes ).getRawFingerprint() )
+        {
+          return null;
+        }
+        return bytes;
+      }
+      finally
+      {
+        in.close();
+      }
+    }
+    catch( EOFException e )
+    {
+      // Truncated entry, recompile and overwrite
+      return null;
+    }
+    catch( IOException e )
+    {
+      return null;
+    }
+    catch( RuntimeException e )
+    {
+      // e.g., a dependency no longer resolves
+      CommonServices.getEntityAccess().getLogger().debug( "Ignoring bytecode cache entry " + file, e );
+      return null;
+    }
+  }
+
+  public void store( ICompilableType type, String strSuffix, byte[] bytes )
+  {
+    Map<String, Byte> deps = findDependencies( bytes );
+    if( deps == null )
+    {
+      return;
+    }
+    File file = getFile( type, strSuffix );
+    File temp = null;
+    try
+    {
+      file.getParentFile().mkdirs();
+      temp = File.createTempFile( file.getName(), ".tmp", file.getParentFile() );
+      DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ) ) );
+      try
+      {
+        out.writeInt( MAGIC );
+        out.writeInt( FORMAT_VERSION );
+        out.writeUTF( getCompilerSignature() );
+        out.writeUTF( getCacheName( type, strSuffix ) );
+        out.writeLong( getSourceFingerprint( type ) );
+        out.writeInt( deps.size() );
+        for( Map.Entry<String, Byte> entry : deps.entrySet() )
+        {
+          out.writeByte( entry.getValue() );
+          out.writeUTF( entry.getKey() );
+          out.writeLong( getDependencyFingerprint( entry.getValue(), entry.getKey() ) );
+        }
+        out.writeInt( bytes.length );
+        out.write( bytes );
+        out.writeLong( new FP64( bytes ).getRawFingerprint() );
+      }
+      finally
+      {
+        out.close();
+      }
+      if( !temp.renameTo( file ) )
+      {
+        // Some platforms won't rename over an existing file; another JVM likely wrote the same entry
+        file.delete();
+        temp.renameTo( file );
+      }
+    }
+    catch( IOException e )
+    {
+      // The cache is an optimization, never fail compilation over it
+      CommonServices.getEntityAccess().getLogger().debug( "Could not write bytecode cache entry " + file, e );
+    }
+    catch( RuntimeException e )
+    {
+      CommonServices.getEntityAccess().getLogger().warn( "Could not write bytecode cache entry " + file, e );
+    }
+    finally
+    {
+      if( temp != null && temp.exists() )
+      {
+        temp.delete();
+      }
+    }
+  }
+
+  File getFile( ICompilableType type, String strSuffix )
+  {
+    return new File( _dir, getCacheName( type, strSuffix ).replace( '.', File.separatorChar ) + EXTENSION );
+  }
+
+  private static String getCacheName( ICompilableType type, String strSuffix )
+  {
+    return GosuClassLoader.getJavaName( (IType)type ) + strSuffix;
+  }
+
+  private static IGosuClass getTopLevelClass( IType type )
+  {
+    while( type.getEnclosingType() != null )
+    {
+      type = type.getEnclosingType();
+    }
+    return (IGosuClass)type;
+  }
+
+  private static long getSourceFingerprint( IType type )
+  {
+    IGosuClass topLevel = getTopLevelClass( type );
+    long lFingerprint = topLevel.getSourceFingerprint();
+    if( lFingerprint == 0 )
+    {
+      lFingerprint = new FP64( topLevel.getSourceFileHandle().getSource().getSource() ).getRawFingerprint();
+    }
+    return lFingerprint;
+  }
+
+  private static long getDependencyFingerprint( byte kind, String strInternalName ) throws IOException
+  {
+    String strName = strInternalName.replace( '/', '.' ).replace( '$', '.' );
+    IType type = TypeSystem.getByFullNameIfValid( strName );
+    if( kind == DEP_GOSU )
+    {
+      if( !(type instanceof IGosuClass) )
+      {
+        throw new IOException( "Not a Gosu class: " + strName );
+      }
+      return getSourceFingerprint( type );
+    }
+    if( !(type instanceof IJavaType) )
+    {
+      throw new IOException( "Not a Java class: " + strName );
+    }
+    URL url = GosuClassLoader.instance().getLoader().getResource( strInternalName + ".class" );
+    if( url == null )
+    {
+      return 0;
+    }
+    InputStream in = url.openStream();
+    try
+    {
+      return new FP64( in ).getRawFingerprint();
+    }
+    finally
+    {
+      in.close();
+    }
+  }
+
+  /**
+   * @return the non-JDK classes referenced by the bytecode, or null if the bytecode
+   *   is not cacheable
+   */
+  static Map<String, Byte> findDependencies( byte[] bytes )
+  {
+    Set<String> names = new LinkedHashSet<String>();
+    Set<String> methods = new LinkedHashSet<String>();
+    Set<String> strings = new LinkedHashSet<String>();
+    try
+    {
+      if( readReferences( bytes, names, methods, strings ) )
+      {
+        return null;
+      }
+    }
+    catch( IOException e )
+    {
+      return null;
+    }
+    for( String strUncacheable : UNCACHEABLE_METHODS )
+    {
+      if( methods.contains( strUncacheable ) )
+      {
+        return null;
+      }
+    }
+    Map<String, Byte> deps = new LinkedHashMap<String, Byte>();
+    for( String strName : names )
+    {
+      addDependency( strName, TypeSystem.getByFullNameIfValid( strName.replace( '/', '.' ).replace( '$', '.' ) ), deps );
+    }
+    for( String strConstant : strings )
+    {
+      if( !TYPE_NAME.matcher( strConstant ).matches() )
+      {
+        continue;
+      }
+      IType type = TypeSystem.getByFullNameIfValid( strConstant );
+      if( type == null )
+      {
+        continue;
+      }
+      while( type.isArray() )
+      {
+        type = type.getComponentType();
+      }
+      type = TypeSystem.getPureGenericType( type );
+      if( !(type instanceof IGosuClass) && !(type instanceof IJavaType) )
+      {
+        return null;
+      }
+      addDependency( getInternalName( type ), type, deps );
+    }
+    return deps;
+  }
+
+  /**
+   * Adds the type and, unless it is already a dependency, its supertypes and interfaces
+   */
+  private static void addDependency( String strInternalName, IType type, Map<String, Byte> deps )
+  {
+    if( strInternalName.startsWith( "java/" ) || strInternalName.startsWith( "javax/" ) ||
+        deps.containsKey( strInternalName ) )
+    {
+      return;
+    }
+    if( type instanceof IGosuClass )
+    {
+      deps.put( strInternalName, DEP_GOSU );
+    }
+    else if( type instanceof IJavaType )
+    {
+      deps.put( strInternalName, DEP_JAVA );
+    }
+    else
+    {
+      return;
+    }
+    IType supertype = type.getSupertype();
+    if( supertype != null )
+    {
+      addDependency( getInternalName( supertype ), supertype, deps );
+    }
+    for( IType iface : type.getInterfaces() )
+    {
+      addDependency( getInternalName( iface ), iface, deps );
+    }
+  }
+
+  private static String getInternalName( IType type )
+  {
+    return GosuClassLoader.getJavaName( type ).replace( '.', '/' );
+  }
+
+  /**
+   * Collects class names from CONSTANT_Class entries, from the descriptors of
+   * CONSTANT_NameAndType entries and from annotations, the methods of CONSTANT_Methodref
+   * and CONSTANT_InterfaceMethodref entries as <code>owner.name</code>, and the values
+   * of CONSTANT_String entries.
+   *
+   * @return true if an annotation in the class file has a constant element value
+   */
+  static boolean readReferences( byte[] bytes, Set<String> names, Set<String> methods, Set<String> strings ) throws IOException
+  {
+    DataInputStream in = new DataInputStream( new ByteArrayInputStream( bytes ) );
+    if( in.readInt() != 0xCAFEBABE )
+    {
+      throw new IOException( "Not a class file" );
+    }
+    in.readUnsignedShort(); // minor
+    in.readUnsignedShort(); // major
+    int iCount = in.readUnsignedShort();
+    String[] utf8 = new String[iCount];
+    int[] classNameIndexes = new int[iCount];
+    int[] nameAndTypeNameIndexes = new int[iCount];
+    int[] classIndexes = new int[iCount];
+    int[] descriptorIndexes = new int[iCount];
+    int[] methodClassIndexes = new int[iCount];
+    int[] methodNameAndTypeIndexes = new int[iCount];
+    int[] stringIndexes = new int[iCount];
+    int iClasses = 0;
+    int iStrings = 0;
+    int iDescriptors = 0;
+    int iMethods = 0;
+    for( int i = 1; i < iCount; i++ )
+    {
+      int tag = in.readUnsignedByte();
+      switch( tag )
+      {
+        case 1: // Utf8
+          utf8[i] = in.readUTF();
+          break;
+        case 7: // Class
+          classNameIndexes[i] = in.readUnsignedShort();
+          classIndexes[iClasses++] = classNameIndexes[i];
+          break;
+        case 12: // NameAndType
+          nameAndTypeNameIndexes[i] = in.readUnsignedShort();
+          descriptorIndexes[iDescriptors++] = in.readUnsignedShort();
+          break;
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+          methodClassIndexes[iMethods] = in.readUnsignedShort();
+          methodNameAndTypeIndexes[iMethods++] = in.readUnsignedShort();
+          break;
+        case 8: // String
+          stringIndexes[iStrings++] = in.readUnsignedShort();
+          break;
+        case 16: // MethodType
+          in.readUnsignedShort();
+          break;
+        case 15: // MethodHandle
+          in.readUnsignedByte();
+          in.readUnsignedShort();
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 18: // InvokeDynamic
+          in.readInt();
+          break;
+        case 5: // Long
+        case 6: // Double
+          in.readLong();
+          i++;
+          break;
+        default:
+          throw new IOException( "Unknown constant pool tag: " + tag );
+      }
+    }
+    for( int i = 0; i < iClasses; i++ )
+    {
+      String strName = utf8[classIndexes[i]];
+      if( strName.startsWith( "[" ) )
+      {
+        addDescriptorNames( strName, names );
+      }
+      else
+      {
+        names.add( strName );
+      }
+    }
+    for( int i = 0; i < iDescriptors; i++ )
+    {
+      addDescriptorNames( utf8[descriptorIndexes[i]], names );
+    }
+    for( int i = 0; i < iMethods; i++ )
+    {
+      // Entries may refer forward, so resolve only once the whole pool is read
+      methods.add( utf8[classNameIndexes[methodClassIndexes[i]]] + '.' + utf8[nameAndTypeNameIndexes[methodNameAndTypeIndexes[i]]] );
+    }
+    for( int i = 0; i < iStrings; i++ )
+    {
+      strings.add( utf8[stringIndexes[i]] );
+    }
+
+    in.readUnsignedShort(); // access
+    in.readUnsignedShort(); // this
+    in.readUnsignedShort(); // super
+    skip( in, 2 * in.readUnsignedShort() ); // interfaces
+    boolean bConstants = false;
+    for( int iMembers = 0; iMembers < 2; iMembers++ ) // fields, then methods
+    {
+      int iMemberCount = in.readUnsignedShort();
+      for( int i = 0; i < iMemberCount; i++ )
+      {
+        skip( in, 6 ); // access, name, descriptor
+        bConstants |= readAttributes( in, utf8, names );
+      }
+    }
+    bConstants |= readAttributes( in, utf8, names );
+    return bConstants;
+  }
+
+  private static boolean readAttributes( DataInputStream in, String[] utf8, Set<String> names ) throws IOException
+  {
+    boolean bConstants = false;
+    int iCount = in.readUnsignedShort();
+    for( int i = 0; i < iCount; i++ )
+    {
+      String strName = utf8[in.readUnsignedShort()];
+      int iLength = in.readInt();
+      if( "RuntimeVisibleAnnotations".equals( strName ) || "RuntimeInvisibleAnnotations".equals( strName ) )
+      {
+        bConstants |= readAnnotations( in, utf8, names );
+      }
+      else if( "RuntimeVisibleParameterAnnotations".equals( strName ) || "RuntimeInvisibleParameterAnnotations".equals( strName ) )
+      {
+        int iParams = in.readUnsignedByte();
+        for( int iParam = 0; iParam < iParams; iParam++ )
+        {
+          bConstants |= readAnnotations( in, utf8, names );
+        }
+      }
+      else if( "AnnotationDefault".equals( strName ) )
+      {
+        bConstants |= readElementValue( in, utf8, names );
+      }
+      else
+      {
+        skip( in, iLength );
+      }
+    }
+    return bConstants;
+  }
+
+  private static boolean readAnnotations( DataInputStream in, String[] utf8, Set<String> names ) throws IOException
+  {
+    boolean bConstants = false;
+    int iCount = in.readUnsignedShort();
+    for( int i = 0; i < iCount; i++ )
+    {
+      bConstants |= readAnnotation( in, utf8, names );
+    }
+    return bConstants;
+  }
+
+  private static boolean readAnnotation( DataInputStream in, String[] utf8, Set<String> names ) throws IOException
+  {
+    addDescriptorNames( utf8[in.readUnsignedShort()], names );
+    boolean bConstants = false;
+    int iPairs = in.readUnsignedShort();
+    for( int i = 0; i < iPairs; i++ )
+    {
+      in.readUnsignedShort(); // element name
+      bConstants |= readElementValue( in, utf8, names );
+    }
+    return bConstants;
+  }
+
+  private static boolean readElementValue( DataInputStream in, String[] utf8, Set<String> names ) throws IOException
+  {
+    int tag = in.readUnsignedByte();
+    switch( tag )
+    {
+      case 'e':
+        addDescriptorNames( utf8[in.readUnsignedShort()], names );
+        in.readUnsignedShort(); // constant name
+        return false;
+      case 'c':
+        addDescriptorNames( utf8[in.readUnsignedShort()], names );
+        return false;
+      case '@':
+        return readAnnotation( in, utf8, names );
+      case '[':
+        boolean bConstants = false;
+        int iCount = in.readUnsignedShort();
+        for( int i = 0; i < iCount; i++ )
+        {
+          bConstants |= readElementValue( in, utf8, names );
+        }
+        return bConstants;
+      default:
+        // B, C, D, F, I, J, S, Z or s, possibly copied from another class's constant
+        in.readUnsignedShort();
+        return true;
+    }
+  }
+
+  private static void skip( DataInputStream in, int iBytes ) throws IOException
+  {
+    in.readFully( new byte[iBytes] );
+  }
+
+  private static void addDescriptorNames( String strDescriptor, Set<String> names )
+  {
+    int iStart = strDescriptor.indexOf( 'L' );
+    while( iStart >= 0 )
+    {
+      int iEnd = strDescriptor.indexOf( ';', iStart );
+      if( iEnd < 0 )
+      {
+        break;
+      }
+      names.add( strDescriptor.substring( iStart + 1, iEnd ) );
+      iStart = strDescriptor.indexOf( 'L', iEnd );
+    }
+  }
+}
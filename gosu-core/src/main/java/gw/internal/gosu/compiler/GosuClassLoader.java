@@ -14,6 +14,7 @@ import gw.internal.gosu.ir.TransformingCompiler;
 import gw.internal.gosu.ir.transform.expression.QueryExpressionTransformer;
 import gw.internal.gosu.ir.transform.expression.EvalExpressionTransformer;
 import gw.internal.gosu.ir.transform.AbstractElementTransformer;
+import gw.lang.reflect.IGosuClassDefinitionObserver;
 import gw.lang.reflect.IGosuClassLoadingObserver;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
@@ -54,11 +55,27 @@ public class GosuClassLoader implements IGosuClassLoader
   @Override
   public byte[] getBytes( ICompilableType gsClass, boolean compiledToUberModule )
   {
+    GosuClassBytecodeCache cache = compiledToUberModule && GosuClassBytecodeCache.isCacheable( gsClass )
+                                   ? GosuClassBytecodeCache.instance()
+                                   : null;
+    if( cache != null )
+    {
+      byte[] bytes = cache.load( gsClass, "" );
+      if( bytes != null )
+      {
+        return bytes;
+      }
+    }
     boolean bPrevValue = ((IGosuClassInternal)gsClass).isCompiledToUberModule();
     ((IGosuClassInternal)gsClass).setCompiledToUberModule( compiledToUberModule );
     try
     {
-      return compileClass( gsClass, false );
+      byte[] bytes = compileClass( gsClass, false );
+      if( cache != null )
+      {
+        cache.store( gsClass, "", bytes );
+      }
+      return bytes;
     }
     catch( Exception pre )
     {
@@ -163,7 +180,7 @@ public class GosuClassLoader implements IGosuClassLoader
         // These classes are "fire and forget"; they need to be disposable after they run,
         // so we load them in a separate class loader so we can unload them -- it's the only
         // way to unload a class in java.
-        return defineClassInLoader( gsClass, true );
+        return notifyClassDefined( gsClass, defineClassInLoader( gsClass, true ) );
       }
 
       return findOrDefineClass( gsClass );
@@ -201,6 +218,8 @@ public class GosuClassLoader implements IGosuClassLoader
       {
         TypeSystem.unlock();
       }
+      // Only a class we define here is news to observers, one the loader found was precompiled
+      notifyClassDefined( gsClass, cls );
     }
     return cls;
   }
@@ -229,6 +248,18 @@ public class GosuClassLoader implements IGosuClassLoader
     return false;
   }
 
+  private Class notifyClassDefined( ICompilableTypeInternal gsClass, Class cls ) {
+    List<IGosuClassLoadingObserver> observers = CommonServices.getEntityAccess().getGosuClassLoadingObservers();
+    if( cls != null && observers != null && !observers.isEmpty() ) {
+      for( IGosuClassLoadingObserver observer : observers.toArray( new IGosuClassLoadingObserver[0] ) ) {
+        if( observer instanceof IGosuClassDefinitionObserver ) {
+          ((IGosuClassDefinitionObserver)observer).classDefined( gsClass );
+        }
+      }
+    }
+    return cls;
+  }
+
   public byte[] maybeDefineInterfaceMethodsClass( ICompilableType gsClass )
   {
     return maybeDefineInterfaceMethodsClass( gsClass, false );
@@ -237,7 +268,18 @@ public class GosuClassLoader implements IGosuClassLoader
   {
     if( gsClass.isInterface() && gsClass instanceof IGosuClassInternal )
     {
-      return TransformingCompiler.compileInterfaceMethodsClass( (IGosuClassInternal)gsClass, shouldDebugClass( gsClass ) );
+      String strSuffix = "$" + IGosuClassInternal.ANNOTATION_METHODS_FOR_INTERFACE_INNER_CLASS;
+      GosuClassBytecodeCache cache = GosuClassBytecodeCache.isCacheable( gsClass ) ? GosuClassBytecodeCache.instance() : null;
+      byte[] bytes = cache == null ? null : cache.load( gsClass, strSuffix );
+      if( bytes == null )
+      {
+        bytes = TransformingCompiler.compileInterfaceMethodsClass( (IGosuClassInternal)gsClass, shouldDebugClass( gsClass ) );
+        if( cache != null )
+        {
+          cache.store( gsClass, strSuffix, bytes );
+        }
+      }
+      return bytes;
     }
     return null;
   }
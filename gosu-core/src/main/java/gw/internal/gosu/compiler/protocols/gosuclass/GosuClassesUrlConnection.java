@@ -5,9 +5,7 @@
 package gw.internal.gosu.compiler.protocols.gosuclass;
 
 import gw.internal.gosu.compiler.GosuClassLoader;
-import gw.internal.gosu.ir.TransformingCompiler;
 import gw.internal.gosu.parser.GosuClass;
-import gw.internal.gosu.parser.IGosuClassInternal;
 import gw.lang.reflect.IType;
 import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.gs.ICompilableType;
@@ -127,7 +125,7 @@ public class GosuClassesUrlConnection extends URLConnection {
         TypeSystemLockHelper.getTypeSystemLockWithMonitor( loader );
         try {
           if( _bInterfaceAnnotationMethods ) {
-            _buf = TransformingCompiler.compileInterfaceMethodsClass( (IGosuClassInternal)_type, false );
+            _buf = GosuClassLoader.instance().maybeDefineInterfaceMethodsClass( _type );
           }
           else {
             //System.out.println( "Compiling: " + _type.getName() );
@@ -8,6 +8,7 @@ import gw.internal.gosu.compiler.DebugFlag;
 import gw.internal.gosu.ir.compiler.bytecode.IRClassCompiler;
 import gw.internal.gosu.ir.compiler.java.IRJavaCompiler;
 import gw.internal.gosu.ir.compiler.verifier.IRTreeVerifier;
+import gw.internal.gosu.ir.optimizer.IROptimizer;
 import gw.internal.gosu.ir.transform.GosuClassTransformer;
 import gw.internal.gosu.ir.transform.GosuFragmentTransformer;
 import gw.internal.gosu.parser.IGosuClassInternal;
@@ -42,6 +43,11 @@ public class TransformingCompiler
       }
     }
 
+    if( BytecodeOptions.isIROptimizerEnabled() )
+    {
+      IROptimizer.optimize( irClass );
+    }
+
     if( debug || DebugFlag.getDebugFlags().contains( DebugFlag.TRACE ) ||
         BytecodeOptions.shouldDebug( gsClass.getName() ) )
     {
@@ -30,7 +30,7 @@ import java.util.List;
 
 public class IRClassCompiler extends AbstractBytecodeCompiler {
 
-  //## todo: this s/b configurable
+  // For hand-written classes without frames; classes compiled from IR target BytecodeOptions.getClassFileVersion()
   public static final int JAVA_VER = Opcodes.V1_6;
 
   private ClassVisitor _cv;
@@ -63,7 +63,9 @@ public class IRClassCompiler extends AbstractBytecodeCompiler {
 
   private byte[] compile( )
   {
-    ClassWriter writer = new ClassWriter( ClassWriter.COMPUTE_MAXS );
+    ClassWriter writer = BytecodeOptions.isComputeFrames()
+                         ? new IRClassWriter( _irClass )
+                         : new ClassWriter( ClassWriter.COMPUTE_MAXS );
     StringWriter trace = configClassVisitor( writer );
 
     try
@@ -143,8 +145,8 @@ public class IRClassCompiler extends AbstractBytecodeCompiler {
   private void compileClassHeader()
   {
     int modifiers = _irClass.getModifiers();
-    _cv.visit( JAVA_VER,
-            modifiers,
+    _cv.visit( BytecodeOptions.getClassFileVersion(),
+               modifiers,
                _irClass.getThisType().getSlashName(),
                getClassSignature(),
                _irClass.getSuperType().getSlashName(),
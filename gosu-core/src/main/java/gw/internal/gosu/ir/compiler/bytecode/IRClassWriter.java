@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.compiler.bytecode;
+
+import gw.internal.ext.org.objectweb.asm.ClassWriter;
+import gw.internal.ext.org.objectweb.asm.Opcodes;
+import gw.internal.gosu.ir.transform.util.IRTypeResolver;
+import gw.lang.ir.IRClass;
+import gw.lang.ir.IRType;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes stack map frames for a class compiled from IR.  ASM merges the types on
+ * the stack where control flow joins by asking for their common superclass, which it
+ * normally finds by loading both classes.  Gosu classes, the one being compiled among
+ * them, can't be loaded at this point, so the IR class being compiled and the type
+ * system answer instead.  A type neither of them knows fails the compilation, since
+ * guessing a common superclass produces frames the verifier rejects.
+ */
+class IRClassWriter extends ClassWriter
+{
+  private static final String OBJECT = "java/lang/Object";
+
+  private final IRClass _irClass;
+  private final Map<String, TypeInfo> _types = new HashMap<String, TypeInfo>();
+
+  IRClassWriter( IRClass irClass )
+  {
+    super( COMPUTE_FRAMES );
+    _irClass = irClass;
+  }
+
+  @Override
+  protected String getCommonSuperClass( String type1, String type2 )
+  {
+    if( isAssignableFrom( type1, type2 ) )
+    {
+      return type1;
+    }
+    if( isAssignableFrom( type2, type1 ) )
+    {
+      return type2;
+    }
+    if( getTypeInfo( type1 )._bInterface || getTypeInfo( type2 )._bInterface )
+    {
+      return OBJECT;
+    }
+    for( String supertype = getTypeInfo( type1 )._strSuperName; supertype != null; supertype = getTypeInfo( supertype )._strSuperName )
+    {
+      if( isAssignableFrom( supertype, type2 ) )
+      {
+        return supertype;
+      }
+    }
+    return OBJECT;
+  }
+
+  private boolean isAssignableFrom( String to, String from )
+  {
+    if( to.equals( from ) || to.equals( OBJECT ) )
+    {
+      return true;
+    }
+    TypeInfo info = getTypeInfo( from );
+    if( info._strSuperName != null && isAssignableFrom( to, info._strSuperName ) )
+    {
+      return true;
+    }
+    for( String iface : info._interfaces )
+    {
+      if( isAssignableFrom( to, iface ) )
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private TypeInfo getTypeInfo( String internalName )
+  {
+    TypeInfo info = _types.get( internalName );
+    if( info == null )
+    {
+      info = internalName.equals( _irClass.getThisType().getSlashName() )
+             ? makeTypeInfo( _irClass )
+             : makeTypeInfo( internalName );
+      _types.put( internalName, info );
+    }
+    return info;
+  }
+
+  private static TypeInfo makeTypeInfo( IRClass irClass )
+  {
+    List<String> interfaces = new ArrayList<String>();
+    for( IRType iface : irClass.getInterfaces() )
+    {
+      interfaces.add( iface.getSlashName() );
+    }
+    return new TypeInfo( irClass.getSuperType() == null ? null : irClass.getSuperType().getSlashName(),
+                         interfaces, (irClass.getModifiers() & Opcodes.ACC_INTERFACE) != 0 );
+  }
+
+  private TypeInfo makeTypeInfo( String internalName )
+  {
+    IType type = resolve( internalName );
+    if( type == null )
+    {
+      throw new IllegalStateException( "Cannot resolve " + internalName + " to compute stack map frames for " + _irClass.getName() );
+    }
+    List<String> interfaces = new ArrayList<String>();
+    for( IType iface : type.getInterfaces() )
+    {
+      interfaces.add( getSlashName( iface ) );
+    }
+    IType supertype = type.getSupertype();
+    String strSuperName = supertype != null
+                          ? getSlashName( supertype )
+                          : type.isInterface() || internalName.equals( OBJECT ) ? null : OBJECT;
+    return new TypeInfo( strSuperName, interfaces, type.isInterface() );
+  }
+
+  private static String getSlashName( IType type )
+  {
+    return IRTypeResolver.getDescriptor( type ).getSlashName();
+  }
+
+  /*
+   * Inner classes are named with a '$' in bytecode and a '.' in the type system
+   */
+  private static IType resolve( String internalName )
+  {
+    String name = internalName.replace( '/', '.' );
+    IType type = TypeSystem.getByFullNameIfValid( name.replace( '$', '.' ) );
+    if( type == null && name.indexOf( '$' ) >= 0 )
+    {
+      type = TypeSystem.getByFullNameIfValid( name );
+    }
+    return type;
+  }
+
+  private static class TypeInfo
+  {
+    private final String _strSuperName;
+    private final List<String> _interfaces;
+    private final boolean _bInterface;
+
+    TypeInfo( String strSuperName, List<String> interfaces, boolean bInterface )
+    {
+      _strSuperName = strSuperName;
+      _interfaces = interfaces;
+      _bInterface = bInterface;
+    }
+  }
+}
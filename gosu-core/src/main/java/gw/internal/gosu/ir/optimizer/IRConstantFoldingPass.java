@@ -0,0 +1,372 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRType;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCharacterLiteral;
+import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRConditionalOrExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRNegationExpression;
+import gw.lang.ir.expression.IRNotExpression;
+import gw.lang.ir.expression.IRNumericLiteral;
+import gw.lang.ir.expression.IRPrimitiveTypeConversion;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.expression.IRTernaryExpression;
+
+/**
+ * Evaluates operations on primitive literals at compile time, following the JVM's rules
+ * for overflow, shifts and floating point.  Integer division and remainder by zero are
+ * left alone so they still throw at runtime.  Conditional and/or and the ternary operator
+ * are reduced when their condition is a literal, dropping only the operand that would
+ * never be evaluated.
+ */
+public class IRConstantFoldingPass extends IROptimizerPass {
+
+  public IRConstantFoldingPass() {
+    super("constantFolding");
+  }
+
+  @Override
+  protected IRExpression rewriteExpression(IRExpression expression) {
+    if (expression instanceof IRArithmeticExpression) {
+      return foldArithmetic((IRArithmeticExpression) expression);
+    } else if (expression instanceof IRNegationExpression) {
+      return foldNegation((IRNegationExpression) expression);
+    } else if (expression instanceof IRNotExpression) {
+      return foldNot((IRNotExpression) expression);
+    } else if (expression instanceof IRPrimitiveTypeConversion) {
+      return foldConversion((IRPrimitiveTypeConversion) expression);
+    } else if (expression instanceof IRRelationalExpression) {
+      return foldRelational((IRRelationalExpression) expression);
+    } else if (expression instanceof IREqualityExpression) {
+      return foldEquality((IREqualityExpression) expression);
+    } else if (expression instanceof IRConditionalAndExpression) {
+      return foldAnd((IRConditionalAndExpression) expression);
+    } else if (expression instanceof IRConditionalOrExpression) {
+      return foldOr((IRConditionalOrExpression) expression);
+    } else if (expression instanceof IRTernaryExpression) {
+      return foldTernary((IRTernaryExpression) expression);
+    }
+    return expression;
+  }
+
+  private IRExpression foldArithmetic(IRArithmeticExpression expression) {
+    IRType type = expression.getType();
+    Number lhs = getNumber(expression.getLhs(), type);
+    if (lhs == null || !(expression.getRhs() instanceof IRNumericLiteral)) {
+      return expression;
+    }
+    Number rhs = ((IRNumericLiteral) expression.getRhs()).getValue();
+    Number value = null;
+    switch (expression.getOp()) {
+      case ShiftLeft:
+      case ShiftRight:
+      case UnsignedShiftRight:
+        // The shift distance is always an int or a long, whatever the type being shifted
+        if (rhs instanceof Integer || rhs instanceof Long) {
+          value = shift(expression.getOp(), lhs, rhs.intValue());
+        }
+        break;
+      default:
+        if (rhs.getClass() == lhs.getClass()) {
+          value = compute(expression.getOp(), lhs, rhs);
+        }
+    }
+    return value == null ? expression : replaced(expression, new IRNumericLiteral(value));
+  }
+
+  private static Number shift(IRArithmeticExpression.Operation op, Number lhs, int distance) {
+    if (lhs instanceof Integer) {
+      int i = lhs.intValue();
+      switch (op) {
+        case ShiftLeft:
+          return i << distance;
+        case ShiftRight:
+          return i >> distance;
+        default:
+          return i >>> distance;
+      }
+    } else if (lhs instanceof Long) {
+      long l = lhs.longValue();
+      switch (op) {
+        case ShiftLeft:
+          return l << distance;
+        case ShiftRight:
+          return l >> distance;
+        default:
+          return l >>> distance;
+      }
+    }
+    return null;
+  }
+
+  private static Number compute(IRArithmeticExpression.Operation op, Number lhs, Number rhs) {
+    if (lhs instanceof Integer) {
+      int a = lhs.intValue();
+      int b = rhs.intValue();
+      switch (op) {
+        case Addition:
+          return a + b;
+        case Subtraction:
+          return a - b;
+        case Multiplication:
+          return a * b;
+        case Division:
+          return b == 0 ? null : a / b;
+        case Remainder:
+          return b == 0 ? null : a % b;
+        case BitwiseAnd:
+          return a & b;
+        case BitwiseOr:
+          return a | b;
+        case BitwiseXor:
+          return a ^ b;
+      }
+    } else if (lhs instanceof Long) {
+      long a = lhs.longValue();
+      long b = rhs.longValue();
+      switch (op) {
+        case Addition:
+          return a + b;
+        case Subtraction:
+          return a - b;
+        case Multiplication:
+          return a * b;
+        case Division:
+          return b == 0 ? null : a / b;
+        case Remainder:
+          return b == 0 ? null : a % b;
+        case BitwiseAnd:
+          return a & b;
+        case BitwiseOr:
+          return a | b;
+        case BitwiseXor:
+          return a ^ b;
+      }
+    } else if (lhs instanceof Float) {
+      float a = lhs.floatValue();
+      float b = rhs.floatValue();
+      switch (op) {
+        case Addition:
+          return a + b;
+        case Subtraction:
+          return a - b;
+        case Multiplication:
+          return a * b;
+        case Division:
+          return a / b;
+        case Remainder:
+          return a % b;
+      }
+    } else if (lhs instanceof Double) {
+      double a = lhs.doubleValue();
+      double b = rhs.doubleValue();
+      switch (op) {
+        case Addition:
+          return a + b;
+        case Subtraction:
+          return a - b;
+        case Multiplication:
+          return a * b;
+        case Division:
+          return a / b;
+        case Remainder:
+          return a % b;
+      }
+    }
+    return null;
+  }
+
+  private IRExpression foldNegation(IRNegationExpression expression) {
+    Number value = getNumber(expression.getRoot(), expression.getRoot().getType());
+    if (value instanceof Integer) {
+      return replaced(expression, new IRNumericLiteral(-value.intValue()));
+    } else if (value instanceof Long) {
+      return replaced(expression, new IRNumericLiteral(-value.longValue()));
+    } else if (value instanceof Float) {
+      return replaced(expression, new IRNumericLiteral(-value.floatValue()));
+    } else if (value instanceof Double) {
+      return replaced(expression, new IRNumericLiteral(-value.doubleValue()));
+    }
+    return expression;
+  }
+
+  private IRExpression foldNot(IRNotExpression expression) {
+    IRExpression root = expression.getRoot();
+    if (root instanceof IRBooleanLiteral) {
+      return replaced(expression, new IRBooleanLiteral(!((IRBooleanLiteral) root).getValue()));
+    }
+    Number value = getNumber(root, root.getType());
+    if (value instanceof Integer) {
+      return replaced(expression, new IRNumericLiteral(~value.intValue()));
+    } else if (value instanceof Long) {
+      return replaced(expression, new IRNumericLiteral(~value.longValue()));
+    }
+    return expression;
+  }
+
+  private IRExpression foldConversion(IRPrimitiveTypeConversion expression) {
+    Number value = getNumber(expression.getRoot(), expression.getFromType());
+    if (value == null) {
+      return expression;
+    }
+    IRType toType = expression.getToType();
+    Number converted;
+    if (toType.isInt()) {
+      converted = value.intValue();
+    } else if (toType.isLong()) {
+      converted = value.longValue();
+    } else if (toType.isFloat()) {
+      converted = value.floatValue();
+    } else if (toType.isDouble()) {
+      converted = value.doubleValue();
+    } else {
+      // The bytecode doesn't truncate conversions to byte, short or char, so neither do we
+      return expression;
+    }
+    return replaced(expression, new IRNumericLiteral(converted));
+  }
+
+  private IRExpression foldRelational(IRRelationalExpression expression) {
+    Number lhs = getNumber(expression.getLhs(), expression.getLhs().getType());
+    Number rhs = getNumber(expression.getRhs(), expression.getRhs().getType());
+    if (lhs == null || rhs == null || lhs.getClass() != rhs.getClass()) {
+      return expression;
+    }
+    boolean result;
+    if (lhs instanceof Float || lhs instanceof Double) {
+      // Comparisons with NaN are false, just like the bytecode would have it
+      double a = lhs.doubleValue();
+      double b = rhs.doubleValue();
+      switch (expression.getOp()) {
+        case GT:
+          result = a > b;
+          break;
+        case GTE:
+          result = a >= b;
+          break;
+        case LT:
+          result = a < b;
+          break;
+        default:
+          result = a <= b;
+      }
+    } else {
+      long a = lhs.longValue();
+      long b = rhs.longValue();
+      switch (expression.getOp()) {
+        case GT:
+          result = a > b;
+          break;
+        case GTE:
+          result = a >= b;
+          break;
+        case LT:
+          result = a < b;
+          break;
+        default:
+          result = a <= b;
+      }
+    }
+    return replaced(expression, new IRBooleanLiteral(result));
+  }
+
+  private IRExpression foldEquality(IREqualityExpression expression) {
+    IRExpression lhs = expression.getLhs();
+    IRExpression rhs = expression.getRhs();
+    Boolean equal = null;
+    if (lhs instanceof IRBooleanLiteral && rhs instanceof IRBooleanLiteral) {
+      equal = ((IRBooleanLiteral) lhs).getValue() == ((IRBooleanLiteral) rhs).getValue();
+    } else if (lhs instanceof IRCharacterLiteral && rhs instanceof IRCharacterLiteral) {
+      equal = ((IRCharacterLiteral) lhs).getValue() == ((IRCharacterLiteral) rhs).getValue();
+    } else {
+      Number a = getNumber(lhs, lhs.getType());
+      Number b = getNumber(rhs, rhs.getType());
+      if (a != null && b != null && a.getClass() == b.getClass()) {
+        if (a instanceof Float || a instanceof Double) {
+          // NaN != NaN and 0.0 == -0.0, which equals() on the boxes gets wrong
+          equal = a.doubleValue() == b.doubleValue();
+        } else {
+          equal = a.longValue() == b.longValue();
+        }
+      }
+    }
+    if (equal == null) {
+      return expression;
+    }
+    return replaced(expression, new IRBooleanLiteral(equal == expression.isEquals()));
+  }
+
+  private IRExpression foldAnd(IRConditionalAndExpression expression) {
+    if (expression.getLhs() instanceof IRBooleanLiteral) {
+      // true && x is x, false && x never evaluates x
+      if (((IRBooleanLiteral) expression.getLhs()).getValue()) {
+        rewritten();
+        return expression.getRhs();
+      }
+      return replaced(expression, new IRBooleanLiteral(false));
+    } else if (isBooleanLiteral(expression.getRhs(), true)) {
+      rewritten();
+      return expression.getLhs();
+    }
+    return expression;
+  }
+
+  private IRExpression foldOr(IRConditionalOrExpression expression) {
+    if (expression.getLhs() instanceof IRBooleanLiteral) {
+      // false || x is x, true || x never evaluates x
+      if (!((IRBooleanLiteral) expression.getLhs()).getValue()) {
+        rewritten();
+        return expression.getRhs();
+      }
+      return replaced(expression, new IRBooleanLiteral(true));
+    } else if (isBooleanLiteral(expression.getRhs(), false)) {
+      rewritten();
+      return expression.getLhs();
+    }
+    return expression;
+  }
+
+  private IRExpression foldTernary(IRTernaryExpression expression) {
+    if (expression.getTest() instanceof IRBooleanLiteral) {
+      IRExpression value = ((IRBooleanLiteral) expression.getTest()).getValue()
+                           ? expression.getTrueValue()
+                           : expression.getFalseValue();
+      // Branches may be narrower than the result, and the parent may rely on the wider type
+      if (value.getType().equals(expression.getResultType())) {
+        rewritten();
+        return value;
+      }
+    }
+    return expression;
+  }
+
+  static boolean isBooleanLiteral(IRExpression expression, boolean value) {
+    return expression instanceof IRBooleanLiteral && ((IRBooleanLiteral) expression).getValue() == value;
+  }
+
+  /**
+   * @return the value of a numeric literal if its boxed type matches the given primitive type
+   */
+  private static Number getNumber(IRExpression expression, IRType type) {
+    if (!(expression instanceof IRNumericLiteral)) {
+      return null;
+    }
+    Number value = ((IRNumericLiteral) expression).getValue();
+    if ((value instanceof Integer && type.isInt()) ||
+        (value instanceof Long && type.isLong()) ||
+        (value instanceof Float && type.isFloat()) ||
+        (value instanceof Double && type.isDouble()) ||
+        (value instanceof Short && type.isShort()) ||
+        (value instanceof Byte && type.isByte())) {
+      return value;
+    }
+    return null;
+  }
+}
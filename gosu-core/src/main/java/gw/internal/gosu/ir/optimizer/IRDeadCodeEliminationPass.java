@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.statement.IRIfStatement;
+import gw.lang.ir.statement.IRNoOpStatement;
+import gw.lang.ir.statement.IRStatementList;
+import gw.lang.ir.statement.IRTerminalStatement;
+import gw.lang.ir.statement.IRWhileStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes code that can never run: the branch of an if statement its literal condition rules
+ * out, while loops whose condition is literally false, no-op statements, and statements
+ * following a return, throw, break or continue in the same statement list.
+ */
+public class IRDeadCodeEliminationPass extends IROptimizerPass {
+
+  public IRDeadCodeEliminationPass() {
+    super("deadCode");
+  }
+
+  @Override
+  protected IRStatement rewriteStatement(IRStatement statement) {
+    if (statement instanceof IRIfStatement) {
+      IRIfStatement ifStatement = (IRIfStatement) statement;
+      if (ifStatement.getExpression() instanceof IRBooleanLiteral) {
+        IRStatement branch = ((IRBooleanLiteral) ifStatement.getExpression()).getValue()
+                             ? ifStatement.getIfStatement()
+                             : ifStatement.getElseStatement();
+        if (branch == null) {
+          return replaced(ifStatement, new IRNoOpStatement());
+        }
+        rewritten();
+        return branch;
+      }
+    } else if (statement instanceof IRWhileStatement) {
+      if (IRConstantFoldingPass.isBooleanLiteral(((IRWhileStatement) statement).getLoopTest(), false)) {
+        return replaced(statement, new IRNoOpStatement());
+      }
+    } else if (statement instanceof IRStatementList) {
+      return rewriteStatementList((IRStatementList) statement);
+    }
+    return statement;
+  }
+
+  @Override
+  protected IRExpression rewriteExpression(IRExpression expression) {
+    if (expression instanceof IRCompositeExpression) {
+      // Eliminated null checks leave no-ops behind in composites, the last element is its value
+      IRCompositeExpression composite = (IRCompositeExpression) expression;
+      List<IRElement> elements = composite.getElements();
+      List<IRElement> newElements = new ArrayList<IRElement>(elements.size());
+      for (int i = 0; i < elements.size(); i++) {
+        if (!(elements.get(i) instanceof IRNoOpStatement) || i == elements.size() - 1) {
+          newElements.add(elements.get(i));
+        }
+      }
+      if (newElements.size() < elements.size()) {
+        rewritten();
+        return copyAttributes(composite, new IRCompositeExpression(newElements));
+      }
+    }
+    return expression;
+  }
+
+  private IRStatement rewriteStatementList(IRStatementList list) {
+    List<IRStatement> statements = list.getStatements();
+    List<IRStatement> newStatements = new ArrayList<IRStatement>(statements.size());
+    for (IRStatement statement : statements) {
+      if (!(statement instanceof IRNoOpStatement)) {
+        newStatements.add(statement);
+      }
+      if (statement instanceof IRTerminalStatement) {
+        // Nothing after this point in the list is reachable
+        break;
+      }
+    }
+    if (newStatements.size() == statements.size()) {
+      return list;
+    }
+    rewritten();
+    return copyAttributes(list, new IRStatementList(list.hasScope(), newStatements));
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRClassLiteral;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNewArrayExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.expression.IRNewMultiDimensionalArrayExpression;
+import gw.lang.ir.expression.IRNullLiteral;
+import gw.lang.ir.expression.IRStringLiteralExpression;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.parser.Keyword;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replaces comparisons with null that can't succeed by a literal.  Member access, enhancement
+ * calls and the like store their root in a temp variable and compare it with null before
+ * using it.  When the root is a <code>new</code> expression, a literal, <code>this</code> or
+ * a boxed primitive, the temp can never be null, so the comparison becomes a constant for
+ * the constant folding and dead code passes to get rid of.
+ */
+public class IRNullCheckEliminationPass extends IROptimizerPass {
+
+  private static final Set<String> BOX_TYPES = new HashSet<String>(Arrays.asList(
+    Boolean.class.getName(), Byte.class.getName(), Character.class.getName(), Short.class.getName(),
+    Integer.class.getName(), Long.class.getName(), Float.class.getName(), Double.class.getName()));
+
+  public IRNullCheckEliminationPass() {
+    super("nullChecks");
+  }
+
+  @Override
+  protected IRExpression rewriteExpression(IRExpression expression) {
+    if (expression instanceof IREqualityExpression) {
+      IREqualityExpression equality = (IREqualityExpression) expression;
+      IRExpression operand = getNullCheckedOperand(equality);
+      // The operand is dropped, so it must be free of side effects too
+      if (operand != null && (isConstant(operand) || isThis(operand))) {
+        return replaced(equality, new IRBooleanLiteral(!equality.isEquals()));
+      }
+    } else if (expression instanceof IRCompositeExpression) {
+      return rewriteComposite((IRCompositeExpression) expression);
+    }
+    return expression;
+  }
+
+  private IRExpression rewriteComposite(IRCompositeExpression composite) {
+    List<IRElement> elements = composite.getElements();
+    List<IRElement> newElements = null;
+    for (int i = 0; i < elements.size(); i++) {
+      IRElement element = elements.get(i);
+      if (!(element instanceof IRAssignmentStatement)) {
+        continue;
+      }
+      IRAssignmentStatement assignment = (IRAssignmentStatement) element;
+      IRSymbol symbol = assignment.getSymbol();
+      if (!symbol.isTemp() || !isNonNull(assignment.getValue()) || countAssignments(composite, symbol) != 1) {
+        continue;
+      }
+      // Every later use sees the value assigned here
+      TempNullCheckRewriter rewriter = new TempNullCheckRewriter(symbol);
+      for (int j = i + 1; j < elements.size(); j++) {
+        IRElement later = newElements == null ? elements.get(j) : newElements.get(j);
+        IRElement rewritten = later instanceof IRStatement
+                              ? rewriter.rewrite((IRStatement) later)
+                              : rewriter.rewrite((IRExpression) later);
+        if (rewritten != later) {
+          if (newElements == null) {
+            newElements = new ArrayList<IRElement>(elements);
+          }
+          newElements.set(j, rewritten);
+        }
+      }
+    }
+    return newElements == null ? composite : copyAttributes(composite, new IRCompositeExpression(newElements));
+  }
+
+  private static int countAssignments(IRElement root, final IRSymbol symbol) {
+    final int[] count = {0};
+    IRTreeRewriter counter = new IRTreeRewriter() {
+      @Override
+      protected IRStatement rewriteStatement(IRStatement statement) {
+        if (statement instanceof IRAssignmentStatement &&
+            ((IRAssignmentStatement) statement).getSymbol().getName().equals(symbol.getName())) {
+          count[0]++;
+        }
+        return statement;
+      }
+    };
+    counter.rewrite((IRExpression) root);
+    return count[0];
+  }
+
+  private static IRExpression getNullCheckedOperand(IREqualityExpression equality) {
+    if (equality.getRhs() instanceof IRNullLiteral) {
+      return equality.getLhs();
+    } else if (equality.getLhs() instanceof IRNullLiteral) {
+      return equality.getRhs();
+    }
+    return null;
+  }
+
+  private static boolean isConstant(IRExpression expression) {
+    return expression instanceof IRStringLiteralExpression || expression instanceof IRClassLiteral;
+  }
+
+  private static boolean isThis(IRExpression expression) {
+    return expression instanceof IRIdentifier &&
+           ((IRIdentifier) expression).getSymbol().getName().equals(Keyword.KW_this.getName());
+  }
+
+  private static boolean isNonNull(IRExpression expression) {
+    if (expression instanceof IRCastExpression) {
+      return isNonNull(((IRCastExpression) expression).getRoot());
+    }
+    return isConstant(expression) ||
+           isThis(expression) ||
+           expression instanceof IRNewExpression ||
+           expression instanceof IRNewArrayExpression ||
+           expression instanceof IRNewMultiDimensionalArrayExpression ||
+           isBoxing(expression);
+  }
+
+  private static boolean isBoxing(IRExpression expression) {
+    if (!(expression instanceof IRMethodCallExpression)) {
+      return false;
+    }
+    IRMethodCallExpression methodCall = (IRMethodCallExpression) expression;
+    return methodCall.getRoot() == null &&
+           methodCall.getName().equals("valueOf") &&
+           methodCall.getParameterTypes().size() == 1 &&
+           methodCall.getParameterTypes().get(0).isPrimitive() &&
+           BOX_TYPES.contains(methodCall.getOwnersType().getName());
+  }
+
+  private class TempNullCheckRewriter extends IRTreeRewriter {
+    private final IRSymbol _symbol;
+
+    TempNullCheckRewriter(IRSymbol symbol) {
+      _symbol = symbol;
+    }
+
+    @Override
+    protected IRExpression rewriteExpression(IRExpression expression) {
+      if (expression instanceof IREqualityExpression) {
+        IREqualityExpression equality = (IREqualityExpression) expression;
+        IRExpression operand = getNullCheckedOperand(equality);
+        if (operand instanceof IRIdentifier &&
+            ((IRIdentifier) operand).getSymbol().getName().equals(_symbol.getName())) {
+          return replaced(equality, new IRBooleanLiteral(!equality.isEquals()));
+        }
+      }
+      return expression;
+    }
+  }
+}
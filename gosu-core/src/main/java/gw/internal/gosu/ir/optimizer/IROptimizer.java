@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRClass;
+import gw.lang.reflect.gs.BytecodeOptions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs the IR tree of a class through a list of optimization passes before it is compiled
+ * to bytecode.  The optimizer is off unless {@link BytecodeOptions#isIROptimizerEnabled()},
+ * and each pass can be turned off on its own, see {@link IROptimizerPass}.
+ * <p>
+ * Passes run in order, once each.  The built-in ones are ordered so each leaves work for
+ * the next: null check elimination and string concatenation fusion produce literals,
+ * constant folding reduces conditions on literals, and dead code elimination drops the
+ * branches those conditions rule out.  More passes can be added with {@link #addPass}.
+ * <p>
+ * Temp variables are not coalesced.  IRCompilerScope gives each symbol name its own local
+ * slot per scope, so sharing slots would need a liveness analysis over IR symbols, and the
+ * JIT already reuses registers for locals that are not live at the same time.
+ */
+public class IROptimizer {
+  private static final List<IROptimizerPass> PASSES = new CopyOnWriteArrayList<IROptimizerPass>(Arrays.asList(
+    new IRNullCheckEliminationPass(),
+    new IRStringConcatFusionPass(),
+    new IRConstantFoldingPass(),
+    new IRDeadCodeEliminationPass()));
+
+  public static void optimize(IRClass irClass) {
+    for (IROptimizerPass pass : PASSES) {
+      if (pass.isEnabled()) {
+        pass.optimize(irClass);
+      }
+    }
+  }
+
+  public static List<IROptimizerPass> getPasses() {
+    return PASSES;
+  }
+
+  public static IROptimizerPass getPass(String name) {
+    for (IROptimizerPass pass : PASSES) {
+      if (pass.getName().equals(name)) {
+        return pass;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Adds a pass that runs after the existing ones.  Classes compiled earlier are not
+   * affected, so passes should be added before any Gosu class is compiled.
+   */
+  public static void addPass(IROptimizerPass pass) {
+    if (getPass(pass.getName()) != null) {
+      throw new IllegalArgumentException("A pass named " + pass.getName() + " already exists");
+    }
+    PASSES.add(pass);
+  }
+
+  /**
+   * @return the names of the enabled passes in the order they run, which identifies the
+   *   bytecode they produce
+   */
+  public static String getSignature() {
+    StringBuilder sb = new StringBuilder();
+    for (IROptimizerPass pass : PASSES) {
+      if (pass.isEnabled()) {
+        if (sb.length() > 0) {
+          sb.append(',');
+        }
+        sb.append(pass.getName());
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the rewrite counts of every pass, one per line
+   */
+  public static String getStatistics() {
+    StringBuilder sb = new StringBuilder();
+    for (IROptimizerPass pass : PASSES) {
+      sb.append(pass).append('\n');
+    }
+    return sb.toString();
+  }
+}
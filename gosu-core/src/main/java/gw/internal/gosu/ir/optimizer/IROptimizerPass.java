@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRClass;
+import gw.lang.ir.IRElement;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A rewrite of the IR tree that must not change what the compiled code does.  Each pass
+ * can be turned off with the system property <code>gosu.ir.optimizer.&lt;name&gt;=false</code>
+ * or with {@link #setEnabled(boolean)}, and counts the rewrites it made across all classes.
+ * Passes are shared by every compiling thread, so they must not keep per-class state.
+ */
+public abstract class IROptimizerPass extends IRTreeRewriter {
+  public static final String SYSTEM_PROP_PREFIX = "gosu.ir.optimizer.";
+
+  private final String _name;
+  private volatile boolean _enabled;
+  private final AtomicLong _rewrites = new AtomicLong();
+
+  protected IROptimizerPass(String name) {
+    _name = name;
+    _enabled = !"false".equalsIgnoreCase(System.getProperty(SYSTEM_PROP_PREFIX + name));
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  public boolean isEnabled() {
+    return _enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    _enabled = enabled;
+  }
+
+  /**
+   * @return the number of rewrites this pass made since it was created or last reset
+   */
+  public long getRewriteCount() {
+    return _rewrites.get();
+  }
+
+  public void resetRewriteCount() {
+    _rewrites.set(0);
+  }
+
+  public void optimize(IRClass irClass) {
+    rewriteClass(irClass);
+  }
+
+  /**
+   * Counts a rewrite and gives the replacement the line number of the element it replaces.
+   */
+  protected <T extends IRElement> T replaced(IRElement original, T replacement) {
+    _rewrites.incrementAndGet();
+    return copyAttributes(original, replacement);
+  }
+
+  /**
+   * Counts a rewrite that moved or dropped existing elements rather than building new ones.
+   */
+  protected void rewritten() {
+    _rewrites.incrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return _name + (_enabled ? "" : " (disabled)") + ": " + getRewriteCount() + " rewrites";
+  }
+}
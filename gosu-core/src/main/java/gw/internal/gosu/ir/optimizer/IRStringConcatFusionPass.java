@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRStringLiteralExpression;
+
+import java.util.Collections;
+
+/**
+ * Joins string literals appended one after another.  String concatenation is compiled to a
+ * chain of StringBuilder.append() calls, and while the compiler already joins literals that
+ * are next to each other in the source, earlier passes can turn other operands into literals.
+ * Since the rewrite works bottom-up, a run of literal appends such as
+ * <code>sb.append("a").append("b").append("c")</code> ends up as a single append.
+ */
+public class IRStringConcatFusionPass extends IROptimizerPass {
+
+  public IRStringConcatFusionPass() {
+    super("stringConcat");
+  }
+
+  @Override
+  protected IRExpression rewriteExpression(IRExpression expression) {
+    if (!isLiteralAppend(expression) || !isLiteralAppend(((IRMethodCallExpression) expression).getRoot())) {
+      return expression;
+    }
+    IRMethodCallExpression append = (IRMethodCallExpression) expression;
+    IRMethodCallExpression previousAppend = (IRMethodCallExpression) append.getRoot();
+    String value = getLiteral(previousAppend) + getLiteral(append);
+    return replaced(expression, new IRMethodCallExpression(append.getName(), append.getOwnersType(), append.isInterface(),
+                                                           append.getReturnType(), append.getParameterTypes(),
+                                                           previousAppend.getRoot(),
+                                                           Collections.<IRExpression>singletonList(new IRStringLiteralExpression(value))));
+  }
+
+  private static String getLiteral(IRMethodCallExpression append) {
+    return String.valueOf(((IRStringLiteralExpression) append.getArgs().get(0)).getValue());
+  }
+
+  private static boolean isLiteralAppend(IRExpression expression) {
+    if (!(expression instanceof IRMethodCallExpression)) {
+      return false;
+    }
+    IRMethodCallExpression methodCall = (IRMethodCallExpression) expression;
+    return methodCall.getRoot() != null &&
+           methodCall.getName().equals("append") &&
+           methodCall.getOwnersType().getName().equals(StringBuilder.class.getName()) &&
+           methodCall.getParameterTypes().size() == 1 &&
+           methodCall.getParameterTypes().get(0).getName().equals(String.class.getName()) &&
+           methodCall.getArgs().get(0) instanceof IRStringLiteralExpression;
+  }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.lang.ir.IRClass;
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRArrayLengthExpression;
+import gw.lang.ir.expression.IRArrayLoadExpression;
+import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRConditionalOrExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRFieldGetExpression;
+import gw.lang.ir.expression.IRInstanceOfExpression;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNegationExpression;
+import gw.lang.ir.expression.IRNewArrayExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.expression.IRNewMultiDimensionalArrayExpression;
+import gw.lang.ir.expression.IRNotExpression;
+import gw.lang.ir.expression.IRPrimitiveTypeConversion;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.expression.IRTernaryExpression;
+import gw.lang.ir.statement.IRArrayStoreStatement;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRCaseClause;
+import gw.lang.ir.statement.IRCatchClause;
+import gw.lang.ir.statement.IRDoWhileStatement;
+import gw.lang.ir.statement.IREvalStatement;
+import gw.lang.ir.statement.IRFieldSetStatement;
+import gw.lang.ir.statement.IRForEachStatement;
+import gw.lang.ir.statement.IRIfStatement;
+import gw.lang.ir.statement.IRMethodCallStatement;
+import gw.lang.ir.statement.IRMethodStatement;
+import gw.lang.ir.statement.IRMonitorLockAcquireStatement;
+import gw.lang.ir.statement.IRMonitorLockReleaseStatement;
+import gw.lang.ir.statement.IRReturnStatement;
+import gw.lang.ir.statement.IRStatementList;
+import gw.lang.ir.statement.IRSwitchStatement;
+import gw.lang.ir.statement.IRSyntheticStatement;
+import gw.lang.ir.statement.IRThrowStatement;
+import gw.lang.ir.statement.IRTryCatchFinallyStatement;
+import gw.lang.ir.statement.IRWhileStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Walks an IR tree bottom-up, giving subclasses a chance to replace each expression and
+ * statement after its children have been handled.  Most IR nodes can't be changed once
+ * built, so a node whose children were replaced is rebuilt with the new children, and its
+ * line number and implicit flag are carried over.  Nodes whose children didn't change are
+ * kept as is.
+ */
+public abstract class IRTreeRewriter {
+
+  public void rewriteClass(IRClass irClass) {
+    List<IRMethodStatement> methods = irClass.getMethods();
+    for (int i = 0; i < methods.size(); i++) {
+      IRMethodStatement method = methods.get(i);
+      IRStatement body = rewrite(method.getMethodBody());
+      if (body != method.getMethodBody()) {
+        IRMethodStatement newMethod = new IRMethodStatement(body, method.getName(), method.getModifiers(), method.getReturnType(), method.getParameters());
+        newMethod.setAnnotations(method.getAnnotations());
+        copyAttributes(method, newMethod);
+        methods.set(i, newMethod);
+      }
+    }
+  }
+
+  /**
+   * Called once the children of the expression have been rewritten.
+   *
+   * @return the expression to use in place of the given one
+   */
+  protected IRExpression rewriteExpression(IRExpression expression) {
+    return expression;
+  }
+
+  /**
+   * Called once the children of the statement have been rewritten.
+   *
+   * @return the statement to use in place of the given one
+   */
+  protected IRStatement rewriteStatement(IRStatement statement) {
+    return statement;
+  }
+
+  /**
+   * Gives the replacement of an element the line number of the element it replaces.
+   */
+  protected static <T extends IRElement> T copyAttributes(IRElement original, T replacement) {
+    if (original.isImplicit()) {
+      replacement.setImplicit(true);
+    } else if (replacement.getLineNumber() < 0) {
+      replacement.setLineNumber(original.getLineNumber());
+    }
+    if (original instanceof IRStatement && replacement instanceof IRStatement &&
+        ((IRStatement) replacement).getOriginalSourceStatement() == null) {
+      ((IRStatement) replacement).setOriginalSourceStatement(((IRStatement) original).getOriginalSourceStatement());
+    }
+    return replacement;
+  }
+
+  protected final IRExpression rewrite(IRExpression expression) {
+    if (expression == null) {
+      return null;
+    }
+    return rewriteExpression(rebuild(expression));
+  }
+
+  protected final IRStatement rewrite(IRStatement statement) {
+    if (statement == null) {
+      return null;
+    }
+    return rewriteStatement(rebuild(statement));
+  }
+
+  private IRElement rewrite(IRElement element) {
+    if (element instanceof IRStatement) {
+      return rewrite((IRStatement) element);
+    } else {
+      return rewrite((IRExpression) element);
+    }
+  }
+
+  private List<IRExpression> rewriteExpressions(List<IRExpression> expressions) {
+    List<IRExpression> result = null;
+    for (int i = 0; i < expressions.size(); i++) {
+      IRExpression expression = expressions.get(i);
+      IRExpression newExpression = rewrite(expression);
+      if (newExpression != expression && result == null) {
+        result = new ArrayList<IRExpression>(expressions.subList(0, i));
+      }
+      if (result != null) {
+        result.add(newExpression);
+      }
+    }
+    return result == null ? expressions : result;
+  }
+
+  private List<IRStatement> rewriteStatements(List<IRStatement> statements) {
+    List<IRStatement> result = null;
+    for (int i = 0; i < statements.size(); i++) {
+      IRStatement statement = statements.get(i);
+      IRStatement newStatement = rewrite(statement);
+      if (newStatement != statement && result == null) {
+        result = new ArrayList<IRStatement>(statements.subList(0, i));
+      }
+      if (result != null) {
+        result.add(newStatement);
+      }
+    }
+    return result == null ? statements : result;
+  }
+
+  private IRExpression rebuild(IRExpression expression) {
+    IRExpression result = expression;
+    if (expression instanceof IRArithmeticExpression) {
+      IRArithmeticExpression arithmetic = (IRArithmeticExpression) expression;
+      IRExpression lhs = rewrite(arithmetic.getLhs());
+      IRExpression rhs = rewrite(arithmetic.getRhs());
+      if (lhs != arithmetic.getLhs() || rhs != arithmetic.getRhs()) {
+        result = new IRArithmeticExpression(arithmetic.getType(), lhs, rhs, arithmetic.getOp());
+      }
+    } else if (expression instanceof IRArrayLengthExpression) {
+      IRArrayLengthExpression arrayLength = (IRArrayLengthExpression) expression;
+      IRExpression root = rewrite(arrayLength.getRoot());
+      if (root != arrayLength.getRoot()) {
+        result = new IRArrayLengthExpression(root);
+      }
+    } else if (expression instanceof IRArrayLoadExpression) {
+      IRArrayLoadExpression arrayLoad = (IRArrayLoadExpression) expression;
+      IRExpression root = rewrite(arrayLoad.getRoot());
+      IRExpression index = rewrite(arrayLoad.getIndex());
+      if (root != arrayLoad.getRoot() || index != arrayLoad.getIndex()) {
+        result = new IRArrayLoadExpression(root, index, arrayLoad.getComponentType());
+      }
+    } else if (expression instanceof IRCastExpression) {
+      IRCastExpression cast = (IRCastExpression) expression;
+      IRExpression root = rewrite(cast.getRoot());
+      if (root != cast.getRoot()) {
+        result = new IRCastExpression(root, cast.getType());
+      }
+    } else if (expression instanceof IRCompositeExpression) {
+      IRCompositeExpression composite = (IRCompositeExpression) expression;
+      List<IRElement> elements = null;
+      for (int i = 0; i < composite.getElements().size(); i++) {
+        IRElement element = composite.getElements().get(i);
+        IRElement newElement = rewrite(element);
+        if (newElement != element && elements == null) {
+          elements = new ArrayList<IRElement>(composite.getElements().subList(0, i));
+        }
+        if (elements != null) {
+          elements.add(newElement);
+        }
+      }
+      if (elements != null) {
+        result = new IRCompositeExpression(elements);
+      }
+    } else if (expression instanceof IRConditionalAndExpression) {
+      IRConditionalAndExpression and = (IRConditionalAndExpression) expression;
+      IRExpression lhs = rewrite(and.getLhs());
+      IRExpression rhs = rewrite(and.getRhs());
+      if (lhs != and.getLhs() || rhs != and.getRhs()) {
+        result = new IRConditionalAndExpression(lhs, rhs);
+      }
+    } else if (expression instanceof IRConditionalOrExpression) {
+      IRConditionalOrExpression or = (IRConditionalOrExpression) expression;
+      IRExpression lhs = rewrite(or.getLhs());
+      IRExpression rhs = rewrite(or.getRhs());
+      if (lhs != or.getLhs() || rhs != or.getRhs()) {
+        result = new IRConditionalOrExpression(lhs, rhs);
+      }
+    } else if (expression instanceof IREqualityExpression) {
+      IREqualityExpression equality = (IREqualityExpression) expression;
+      IRExpression lhs = rewrite(equality.getLhs());
+      IRExpression rhs = rewrite(equality.getRhs());
+      if (lhs != equality.getLhs() || rhs != equality.getRhs()) {
+        result = new IREqualityExpression(lhs, rhs, equality.isEquals());
+      }
+    } else if (expression instanceof IRFieldGetExpression) {
+      IRFieldGetExpression fieldGet = (IRFieldGetExpression) expression;
+      IRExpression lhs = rewrite(fieldGet.getLhs());
+      if (lhs != fieldGet.getLhs()) {
+        result = new IRFieldGetExpression(lhs, fieldGet.getName(), fieldGet.getFieldType(), fieldGet.getOwnersType());
+      }
+    } else if (expression instanceof IRInstanceOfExpression) {
+      IRInstanceOfExpression instanceOf = (IRInstanceOfExpression) expression;
+      IRExpression root = rewrite(instanceOf.getRoot());
+      if (root != instanceOf.getRoot()) {
+        result = new IRInstanceOfExpression(root, instanceOf.getTestType());
+      }
+    } else if (expression instanceof IRMethodCallExpression) {
+      IRMethodCallExpression methodCall = (IRMethodCallExpression) expression;
+      IRExpression root = rewrite(methodCall.getRoot());
+      List<IRExpression> args = rewriteExpressions(methodCall.getArgs());
+      if (root != methodCall.getRoot() || args != methodCall.getArgs()) {
+        IRMethodCallExpression newMethodCall = new IRMethodCallExpression(methodCall.getName(), methodCall.getOwnersType(), methodCall.isInterface(),
+                                                                          methodCall.getReturnType(), methodCall.getParameterTypes(), root, args);
+        newMethodCall.setSpecial(methodCall.isSpecial());
+        result = newMethodCall;
+      }
+    } else if (expression instanceof IRNegationExpression) {
+      IRNegationExpression negation = (IRNegationExpression) expression;
+      IRExpression root = rewrite(negation.getRoot());
+      if (root != negation.getRoot()) {
+        result = new IRNegationExpression(root);
+      }
+    } else if (expression instanceof IRNewArrayExpression) {
+      IRNewArrayExpression newArray = (IRNewArrayExpression) expression;
+      IRExpression size = rewrite(newArray.getSizeExpression());
+      if (size != newArray.getSizeExpression()) {
+        result = new IRNewArrayExpression(newArray.getComponentType(), size);
+      }
+    } else if (expression instanceof IRNewExpression) {
+      IRNewExpression newExpression = (IRNewExpression) expression;
+      List<IRExpression> args = rewriteExpressions(newExpression.getArgs());
+      if (args != newExpression.getArgs()) {
+        result = new IRNewExpression(newExpression.getOwnersType(), newExpression.getParameterTypes(), args);
+      }
+    } else if (expression instanceof IRNewMultiDimensionalArrayExpression) {
+      IRNewMultiDimensionalArrayExpression newArray = (IRNewMultiDimensionalArrayExpression) expression;
+      List<IRExpression> sizes = rewriteExpressions(newArray.getSizeExpressions());
+      if (sizes != newArray.getSizeExpressions()) {
+        result = new IRNewMultiDimensionalArrayExpression(newArray.getResultType(), sizes);
+      }
+    } else if (expression instanceof IRNotExpression) {
+      IRNotExpression not = (IRNotExpression) expression;
+      IRExpression root = rewrite(not.getRoot());
+      if (root != not.getRoot()) {
+        result = new IRNotExpression(root);
+      }
+    } else if (expression instanceof IRPrimitiveTypeConversion) {
+      IRPrimitiveTypeConversion conversion = (IRPrimitiveTypeConversion) expression;
+      IRExpression root = rewrite(conversion.getRoot());
+      if (root != conversion.getRoot()) {
+        result = new IRPrimitiveTypeConversion(root, conversion.getFromType(), conversion.getToType());
+      }
+    } else if (expression instanceof IRRelationalExpression) {
+      IRRelationalExpression relational = (IRRelationalExpression) expression;
+      IRExpression lhs = rewrite(relational.getLhs());
+      IRExpression rhs = rewrite(relational.getRhs());
+      if (lhs != relational.getLhs() || rhs != relational.getRhs()) {
+        result = new IRRelationalExpression(lhs, rhs, relational.getOp());
+      }
+    } else if (expression instanceof IRTernaryExpression) {
+      IRTernaryExpression ternary = (IRTernaryExpression) expression;
+      IRExpression test = rewrite(ternary.getTest());
+      IRExpression trueValue = rewrite(ternary.getTrueValue());
+      IRExpression falseValue = rewrite(ternary.getFalseValue());
+      if (test != ternary.getTest() || trueValue != ternary.getTrueValue() || falseValue != ternary.getFalseValue()) {
+        result = new IRTernaryExpression(test, trueValue, falseValue, ternary.getResultType());
+      }
+    }
+    // Literals, identifiers and no-ops have no children
+
+    return result == expression ? expression : copyAttributes(expression, result);
+  }
+
+  private IRStatement rebuild(IRStatement statement) {
+    IRStatement result = statement;
+    if (statement instanceof IRArrayStoreStatement) {
+      IRArrayStoreStatement arrayStore = (IRArrayStoreStatement) statement;
+      IRExpression target = rewrite(arrayStore.getTarget());
+      IRExpression index = rewrite(arrayStore.getIndex());
+      IRExpression value = rewrite(arrayStore.getValue());
+      if (target != arrayStore.getTarget() || index != arrayStore.getIndex() || value != arrayStore.getValue()) {
+        result = new IRArrayStoreStatement(target, index, value, arrayStore.getComponentType());
+      }
+    } else if (statement instanceof IRAssignmentStatement) {
+      IRAssignmentStatement assignment = (IRAssignmentStatement) statement;
+      IRExpression value = rewrite(assignment.getValue());
+      if (value != assignment.getValue()) {
+        result = new IRAssignmentStatement(assignment.getSymbol(), value);
+      }
+    } else if (statement instanceof IRDoWhileStatement) {
+      // Loops can be changed in place
+      IRDoWhileStatement doWhile = (IRDoWhileStatement) statement;
+      doWhile.setLoopTest(rewrite(doWhile.getLoopTest()));
+      doWhile.setBody(rewrite(doWhile.getBody()));
+    } else if (statement instanceof IRWhileStatement) {
+      IRWhileStatement whileStatement = (IRWhileStatement) statement;
+      whileStatement.setLoopTest(rewrite(whileStatement.getLoopTest()));
+      whileStatement.setBody(rewrite(whileStatement.getBody()));
+    } else if (statement instanceof IRForEachStatement) {
+      IRForEachStatement forEach = (IRForEachStatement) statement;
+      replaceAll(forEach, forEach.getInitializers());
+      forEach.setLoopTest(rewrite(forEach.getLoopTest()));
+      replaceAll(forEach, forEach.getIncrementors());
+      forEach.setBody(rewrite(forEach.getBody()));
+    } else if (statement instanceof IREvalStatement) {
+      IREvalStatement eval = (IREvalStatement) statement;
+      IRExpression expression = rewrite(eval.getExpression());
+      if (expression != eval.getExpression()) {
+        result = new IREvalStatement(expression);
+      }
+    } else if (statement instanceof IRFieldSetStatement) {
+      IRFieldSetStatement fieldSet = (IRFieldSetStatement) statement;
+      IRExpression lhs = rewrite(fieldSet.getLhs());
+      IRExpression rhs = rewrite(fieldSet.getRhs());
+      if (lhs != fieldSet.getLhs() || rhs != fieldSet.getRhs()) {
+        result = new IRFieldSetStatement(lhs, rhs, fieldSet.getName(), fieldSet.getFieldType(), fieldSet.getOwnersType());
+      }
+    } else if (statement instanceof IRIfStatement) {
+      IRIfStatement ifStatement = (IRIfStatement) statement;
+      IRExpression expression = rewrite(ifStatement.getExpression());
+      IRStatement ifBranch = rewrite(ifStatement.getIfStatement());
+      IRStatement elseBranch = rewrite(ifStatement.getElseStatement());
+      if (expression != ifStatement.getExpression() || ifBranch != ifStatement.getIfStatement() || elseBranch != ifStatement.getElseStatement()) {
+        result = new IRIfStatement(expression, ifBranch, elseBranch);
+      }
+    } else if (statement instanceof IRMethodCallStatement) {
+      IRMethodCallStatement methodCall = (IRMethodCallStatement) statement;
+      IRExpression expression = rewrite(methodCall.getExpression());
+      if (expression != methodCall.getExpression()) {
+        result = new IRMethodCallStatement(expression);
+      }
+    } else if (statement instanceof IRMonitorLockAcquireStatement) {
+      IRMonitorLockAcquireStatement acquire = (IRMonitorLockAcquireStatement) statement;
+      IRExpression monitored = rewrite(acquire.getMonitoredObject());
+      if (monitored != acquire.getMonitoredObject()) {
+        result = new IRMonitorLockAcquireStatement(monitored);
+      }
+    } else if (statement instanceof IRMonitorLockReleaseStatement) {
+      IRMonitorLockReleaseStatement release = (IRMonitorLockReleaseStatement) statement;
+      IRExpression monitored = rewrite(release.getMonitoredObject());
+      if (monitored != release.getMonitoredObject()) {
+        result = new IRMonitorLockReleaseStatement(monitored);
+      }
+    } else if (statement instanceof IRReturnStatement) {
+      IRReturnStatement returnStatement = (IRReturnStatement) statement;
+      IRStatement tempVarAssignment = rewrite(returnStatement.getTempVarAssignment());
+      IRExpression value = rewrite(returnStatement.getReturnValue());
+      if (tempVarAssignment != returnStatement.getTempVarAssignment() || value != returnStatement.getReturnValue()) {
+        result = new IRReturnStatement(tempVarAssignment, value);
+      }
+    } else if (statement instanceof IRStatementList) {
+      IRStatementList list = (IRStatementList) statement;
+      List<IRStatement> statements = rewriteStatements(list.getStatements());
+      if (statements != list.getStatements()) {
+        result = new IRStatementList(list.hasScope(), statements);
+      }
+    } else if (statement instanceof IRSwitchStatement) {
+      IRSwitchStatement switchStatement = (IRSwitchStatement) statement;
+      IRStatement init = rewrite(switchStatement.getInit());
+      boolean bChanged = init != switchStatement.getInit();
+      List<IRCaseClause> cases = new ArrayList<IRCaseClause>(switchStatement.getCases().size());
+      for (IRCaseClause caseClause : switchStatement.getCases()) {
+        IRExpression condition = rewrite(caseClause.getCondition());
+        List<IRStatement> statements = rewriteStatements(caseClause.getStatements());
+        if (condition != caseClause.getCondition() || statements != caseClause.getStatements()) {
+          bChanged = true;
+          caseClause = new IRCaseClause(condition, statements);
+        }
+        cases.add(caseClause);
+      }
+      List<IRStatement> defaultStatements = rewriteStatements(switchStatement.getDefaultStatements());
+      if (bChanged || defaultStatements != switchStatement.getDefaultStatements()) {
+        result = new IRSwitchStatement(init, cases, defaultStatements);
+      }
+    } else if (statement instanceof IRSyntheticStatement) {
+      IRSyntheticStatement synthetic = (IRSyntheticStatement) statement;
+      IRExpression expression = rewrite(synthetic.getExpression());
+      if (expression != synthetic.getExpression()) {
+        result = new IRSyntheticStatement(expression);
+      }
+    } else if (statement instanceof IRThrowStatement) {
+      IRThrowStatement throwStatement = (IRThrowStatement) statement;
+      IRExpression exception = rewrite(throwStatement.getException());
+      if (exception != throwStatement.getException()) {
+        result = new IRThrowStatement(exception);
+      }
+    } else if (statement instanceof IRTryCatchFinallyStatement) {
+      IRTryCatchFinallyStatement tryStatement = (IRTryCatchFinallyStatement) statement;
+      IRStatement tryBody = rewrite(tryStatement.getTryBody());
+      boolean bChanged = tryBody != tryStatement.getTryBody();
+      List<IRCatchClause> catches = new ArrayList<IRCatchClause>(tryStatement.getCatchStatements().size());
+      for (IRCatchClause catchClause : tryStatement.getCatchStatements()) {
+        IRStatement body = rewrite(catchClause.getBody());
+        if (body != catchClause.getBody()) {
+          bChanged = true;
+          catchClause = new IRCatchClause(catchClause.getIdentifier(), body);
+        }
+        catches.add(catchClause);
+      }
+      IRStatement finallyBody = rewrite(tryStatement.getFinallyBody());
+      if (bChanged || finallyBody != tryStatement.getFinallyBody()) {
+        result = new IRTryCatchFinallyStatement(tryBody, catches, finallyBody);
+      }
+    }
+    // Field declarations, breaks, continues and no-ops have no children
+
+    return result == statement ? statement : copyAttributes(statement, result);
+  }
+
+  private void replaceAll(IRStatement parent, List<IRStatement> statements) {
+    for (int i = 0; i < statements.size(); i++) {
+      IRStatement newStatement = rewrite(statements.get(i));
+      if (newStatement != statements.get(i)) {
+        statements.set(i, newStatement);
+        newStatement.setParent(parent);
+      }
+    }
+  }
+}
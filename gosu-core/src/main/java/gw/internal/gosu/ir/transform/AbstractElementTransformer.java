@@ -39,6 +39,7 @@ import gw.internal.gosu.parser.expressions.BlockType;
 import gw.internal.gosu.parser.fragments.GosuFragment;
 import gw.internal.gosu.parser.types.FunctionLiteralType;
 import gw.internal.gosu.runtime.GosuRuntimeMethods;
+import gw.internal.gosu.runtime.TypeConstant;
 import gw.lang.ir.IRElement;
 import gw.lang.ir.IRExpression;
 import gw.lang.ir.IRStatement;
@@ -51,6 +52,7 @@ import gw.lang.ir.expression.IRArrayLengthExpression;
 import gw.lang.ir.expression.IRArrayLoadExpression;
 import gw.lang.ir.expression.IRBooleanLiteral;
 import gw.lang.ir.expression.IRCastExpression;
+import gw.lang.ir.expression.IRConditionalAndExpression;
 import gw.lang.ir.expression.IRCharacterLiteral;
 import gw.lang.ir.expression.IRClassLiteral;
 import gw.lang.ir.expression.IRCompositeExpression;
@@ -146,11 +148,13 @@ public abstract class AbstractElementTransformer<T extends IParsedElement>
   public static final String ENHANCEMENT_TYPE_PARAM_PREFIX = "etypeparam$";
   public static final String TYPE_PARAM_PREFIX = "typeparam$";
   public static final String ENUM_PARAM_PREFIX = "enum$";
+  public static final String TYPE_CONSTANT_PREFIX = "type$";
   public static final Type OBJECT_TYPE = Type.getType( Object.class );
   public static final String ENHANCEMENT_THIS_REF = "$that$";
 
   private TopLevelTransformationContext _cc;
   private T _parsedElement;
+  private boolean _bCompilingTypeConstant;
 
   public AbstractElementTransformer( TopLevelTransformationContext cc, T parsedElem )
   {
@@ -473,7 +477,113 @@ public abstract class AbstractElementTransformer<T extends IParsedElement>
     return pushType( type, false );
   }
 
+  /**
+   * Types that don't depend on type variables are looked up once and cached in a
+   * static field of the class being compiled, so type literals and parameterized types
+   * such as <code>new ArrayList&lt;Foo&gt;()</code> don't resolve names each time they run.
+   * The field holds the type and the refresh checksum read before its lookup together in one
+   * immutable {@link TypeConstant}, and the type is looked up again after any type is
+   * refreshed.  Threads can race to fill the field, in which case the type is just looked up
+   * more than once.
+   */
   public IRExpression pushType( IType type, boolean bKeepLiteralType )
+  {
+    if( _bCompilingTypeConstant || _cc() == null || !isConstantType( type ) )
+    {
+      return pushTypeUncached( type, bKeepLiteralType );
+    }
+
+    IRExpression lookup;
+    _bCompilingTypeConstant = true;
+    try
+    {
+      lookup = pushTypeUncached( type, bKeepLiteralType );
+    }
+    finally
+    {
+      _bCompilingTypeConstant = false;
+    }
+    if( !lookup.getType().equals( IRTypeConstants.ITYPE ) )
+    {
+      return lookup;
+    }
+    int iIndex = _cc().getTypeConstantIndex( type, bKeepLiteralType );
+    if( iIndex < 0 )
+    {
+      return lookup;
+    }
+
+    // TypeConstant temp = type$N;
+    // temp != null && temp.isCurrent()
+    //   ? temp.getType()
+    //   : (type$N = temp = new TypeConstant( TypeSystem.getSingleRefreshChecksum(), <lookup> )).getType()
+    IRType owner = _cc().getIRTypeForCurrentClass();
+    IRType constantType = getDescriptor( TypeConstant.class );
+    String strField = TYPE_CONSTANT_PREFIX + iIndex;
+    IRSymbol temp = _cc().makeAndIndexTempSymbol( constantType );
+    IRExpression isCached =
+      new IRConditionalAndExpression( buildNotEquals( identifier( temp ), pushNull() ),
+                                      callMethod( TypeConstant.class, "isCurrent", new Class[0], identifier( temp ), Collections.<IRExpression>emptyList() ) );
+    IRExpression newConstant = buildNewExpression( TypeConstant.class, new Class[]{int.class, IType.class},
+                                                   exprList( getRefreshChecksum(), lookup ) );
+    IRExpression cache = buildComposite( buildAssignment( temp, newConstant ),
+                                         buildFieldSet( owner, strField, constantType, null, identifier( temp ) ),
+                                         identifier( temp ) );
+    return callMethod( TypeConstant.class, "getType", new Class[0],
+                       buildComposite( buildAssignment( temp, buildFieldGet( owner, strField, constantType, null ) ),
+                                       buildTernary( isCached, identifier( temp ), cache, constantType ) ),
+                       Collections.<IRExpression>emptyList() );
+  }
+
+  private IRExpression getRefreshChecksum()
+  {
+    return callStaticMethod( TypeSystem.class, "getSingleRefreshChecksum", new Class[0], Collections.<IRExpression>emptyList() );
+  }
+
+  /**
+   * @return true if the runtime type is known at compile time, i.e. it doesn't depend on type
+   *   variables, and is looked up rather than built from parts like function types are
+   */
+  private static boolean isConstantType( IType type )
+  {
+    if( type instanceof TypeVariableType || type instanceof TypeVariableArrayType ||
+        type instanceof IFunctionType || type instanceof FunctionLiteralType )
+    {
+      return false;
+    }
+    if( type.isArray() )
+    {
+      return isConstantType( type.getComponentType() );
+    }
+    if( type instanceof MetaType )
+    {
+      return isConstantType( ((MetaType)type).getType() );
+    }
+    if( type instanceof CompoundType )
+    {
+      for( IType componentType : ((CompoundType)type).getTypes() )
+      {
+        if( !isConstantType( componentType ) )
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+    if( type.isParameterizedType() )
+    {
+      for( IType typeParam : type.getTypeParameters() )
+      {
+        if( !isConstantType( typeParam ) )
+        {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private IRExpression pushTypeUncached( IType type, boolean bKeepLiteralType )
   {
     IType genType = TypeLord.getPureGenericType( type );
 
@@ -1264,6 +1374,55 @@ public abstract class AbstractElementTransformer<T extends IParsedElement>
     }
   }
 
+  /**
+   * Appends a value to a StringBuilder the way string concatenation converts it to a String.
+   * Primitives go through GosuRuntimeMethods.append(), which skips boxing them when the
+   * standard coercion manager is installed, while other objects go through the coercion
+   * manager like they do at runtime.
+   *
+   * @return the call to append(), which evaluates to the StringBuilder
+   */
+  protected IRExpression appendToStringBuilder( IRExpression sb, IType type, IRExpression value )
+  {
+    Class paramType;
+    if( type == JavaTypes.pBOOLEAN() )
+    {
+      paramType = boolean.class;
+    }
+    else if( type == JavaTypes.pCHAR() )
+    {
+      paramType = char.class;
+    }
+    else if( type == JavaTypes.pLONG() )
+    {
+      paramType = long.class;
+    }
+    else if( type == JavaTypes.pFLOAT() )
+    {
+      paramType = float.class;
+    }
+    else if( type == JavaTypes.pDOUBLE() )
+    {
+      paramType = double.class;
+    }
+    else if( type == JavaTypes.pINT() || type == JavaTypes.pSHORT() || type == JavaTypes.pBYTE() )
+    {
+      paramType = int.class;
+      value = numberConvert( type, JavaTypes.pINT(), value );
+    }
+    else
+    {
+      if( type != JavaTypes.STRING() )
+      {
+        value = callMethod( ICoercionManager.class, "makeStringFrom", new Class[]{Object.class},
+                            callStaticMethod( CommonServices.class, "getCoercionManager", new Class[0], Collections.<IRExpression>emptyList() ),
+                            Collections.singletonList( value ) );
+      }
+      return callMethod( StringBuilder.class, "append", new Class[]{String.class}, sb, exprList( value ) );
+    }
+    return callStaticMethod( GosuRuntimeMethods.class, "append", new Class[]{StringBuilder.class, paramType}, exprList( sb, value ) );
+  }
+
   protected IRExpression pushParamTypes( IParameterInfo[] parameters )
   {
     if( parameters.length == 0 )
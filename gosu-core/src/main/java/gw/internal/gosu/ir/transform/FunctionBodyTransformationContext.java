@@ -6,6 +6,7 @@ package gw.internal.gosu.ir.transform;
 
 import gw.internal.gosu.parser.DynamicFunctionSymbol;
 import gw.internal.gosu.parser.TypeVariableType;
+import gw.internal.gosu.template.TemplateGenerator;
 import gw.lang.ir.IRSymbol;
 import gw.lang.ir.IRType;
 import gw.lang.parser.Keyword;
@@ -22,6 +23,8 @@ public class FunctionBodyTransformationContext
 
   private Stack<IRScope> _scopes;
   private ConstructorState _constructorState;
+  private IRScope _templateOutputScope;
+  private IRSymbol _templateOutputSymbol;
 
   protected TopLevelTransformationContext _context;
   private boolean _isStatic;
@@ -67,6 +70,45 @@ public class FunctionBodyTransformationContext
     return symbol;
   }
 
+  /**
+   * Lets template content printed from here on go through a local holding the writer,
+   * which is declared in the current scope, the scope of the function body.
+   */
+  public void beginTemplateOutput()
+  {
+    _templateOutputScope = _scopes.peek();
+  }
+
+  /**
+   * @return the local holding the template writer if any content was printed since
+   *   {@link #beginTemplateOutput()}, the caller must assign it before the body runs
+   */
+  public IRSymbol endTemplateOutput()
+  {
+    IRSymbol symbol = _templateOutputSymbol;
+    _templateOutputScope = null;
+    _templateOutputSymbol = null;
+    return symbol;
+  }
+
+  /**
+   * @return the local holding the template writer, or null if the code being compiled
+   *   isn't part of a function body
+   */
+  public IRSymbol getTemplateOutputSymbol()
+  {
+    if( _templateOutputScope == null )
+    {
+      return null;
+    }
+    if( _templateOutputSymbol == null )
+    {
+      _templateOutputSymbol = new IRSymbol( TEMP_VAR_PREFIX + _tempVarCount++, AbstractElementTransformer.getDescriptor( TemplateGenerator.WriterEscaperPair.class ), true );
+      _templateOutputScope.addSymbol( _templateOutputSymbol );
+    }
+    return _templateOutputSymbol;
+  }
+
   public String makeTempSymbolName( )
   {
     String strName = TEMP_VAR_PREFIX + _tempVarCount;
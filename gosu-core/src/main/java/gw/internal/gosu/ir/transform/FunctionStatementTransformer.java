@@ -29,6 +29,7 @@ import gw.internal.gosu.parser.statements.MethodCallStatement;
 import gw.internal.gosu.parser.statements.ReturnStatement;
 import gw.internal.gosu.parser.statements.SyntheticFunctionStatement;
 import gw.internal.gosu.parser.statements.ThrowStatement;
+import gw.internal.gosu.template.TemplateGenerator;
 import gw.lang.parser.IFunctionSymbol;
 import gw.lang.parser.IParseTree;
 import gw.lang.parser.IParsedElement;
@@ -71,13 +72,28 @@ public class FunctionStatementTransformer extends AbstractElementTransformer<Fun
     assignCapturedParamIndexes( statements );
     compileConstructorInitializers( statements );
     Statement statement = (Statement)_dfs.getValueDirectly();
-    if( statement instanceof SyntheticFunctionStatement )
+    int iBodyStart = statements.size();
+    IRSymbol templateOutput;
+    _cc().beginTemplateOutput();
+    try
     {
-      statements.add( SyntheticFunctionStatementTransformer.compile( _dfs, _cc(), (SyntheticFunctionStatement)statement ) );
+      if( statement instanceof SyntheticFunctionStatement )
+      {
+        statements.add( SyntheticFunctionStatementTransformer.compile( _dfs, _cc(), (SyntheticFunctionStatement)statement ) );
+      }
+      else
+      {
+        statements.add( StatementTransformer.compile( _cc(), statement ) );
+      }
     }
-    else
+    finally
+    {
+      templateOutput = _cc().endTemplateOutput();
+    }
+    if( templateOutput != null )
     {
-      statements.add( StatementTransformer.compile( _cc(), statement ) );
+      // The body prints template content, load the current writer once instead of on every print
+      statements.add( iBodyStart, buildAssignment( templateOutput, callStaticMethod( TemplateGenerator.class, "getWriterEscaperPair", new Class[0], Collections.<IRExpression>emptyList() ) ) );
     }
     handleImplicitReturns( statement, statements );
     IRStatementList functionBody = new IRStatementList( false, statements );
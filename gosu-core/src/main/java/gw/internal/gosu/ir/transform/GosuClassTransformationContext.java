@@ -112,6 +112,11 @@ public class GosuClassTransformationContext extends TransformationContextBase {
     return false;
   }
 
+  @Override
+  public int getTypeConstantIndex( IType type, boolean bKeepLiteralType ) {
+    return _classTransformer.getTypeConstantIndex( type, bKeepLiteralType );
+  }
+
   // ---------------------------------- Private helper methods
 
   private void maybeIndexSourceCode() {
@@ -38,6 +38,7 @@ import gw.internal.gosu.parser.statements.ClassStatement;
 import gw.internal.gosu.parser.statements.StatementList;
 import gw.internal.gosu.parser.statements.VarStatement;
 import gw.internal.gosu.runtime.GosuRuntimeMethods;
+import gw.internal.gosu.runtime.TypeConstant;
 import gw.lang.ir.IRAnnotation;
 import gw.lang.ir.IRClass;
 import gw.lang.ir.IRExpression;
@@ -82,6 +83,7 @@ import gw.lang.reflect.java.IJavaMethodInfo;
 import gw.lang.reflect.java.IJavaType;
 import gw.lang.reflect.java.JavaTypes;
 import gw.util.GosuExceptionUtil;
+import gw.util.Pair;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -90,6 +92,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -105,6 +108,8 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
   private EnumOrdinalCounter _enumCounter;
   private IRClass _irClass;
   private GosuClassTransformationContext _context;
+  // Types cached in static fields of the class, see AbstractElementTransformer.pushType()
+  private Map<Pair<IType, Boolean>, Integer> _typeConstants;
 
   public static IRClass compile( IGosuClassInternal gsClass )
   {
@@ -136,6 +141,11 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
     }
 
     _irClass = new IRClass();
+    if( !_gsClass.isInterface() )
+    {
+      // Interface fields can't be assigned outside the static initializer
+      _typeConstants = new LinkedHashMap<Pair<IType, Boolean>, Integer>();
+    }
 
     compileClassHeader();
 
@@ -151,11 +161,45 @@ public class GosuClassTransformer extends AbstractElementTransformer<ClassStatem
 
     compileMethods();
 
+    addTypeConstantFields();
+
     addAnnotations();
 
     return _irClass;
   }
 
+  int getTypeConstantIndex( IType type, boolean bKeepLiteralType )
+  {
+    if( _typeConstants == null )
+    {
+      return -1;
+    }
+    Pair<IType, Boolean> key = Pair.make( type, bKeepLiteralType );
+    Integer index = _typeConstants.get( key );
+    if( index == null )
+    {
+      index = _typeConstants.size();
+      _typeConstants.put( key, index );
+    }
+    return index;
+  }
+
+  private void addTypeConstantFields()
+  {
+    if( _typeConstants == null )
+    {
+      return;
+    }
+    int iModifiers = Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_VOLATILE;
+    iModifiers |= (BytecodeOptions.isSingleServingLoader() ? Opcodes.ACC_PUBLIC : Opcodes.ACC_PRIVATE);
+    for( int i = 0; i < _typeConstants.size(); i++ )
+    {
+      _irClass.addField( new IRFieldDecl( iModifiers, TYPE_CONSTANT_PREFIX + i, getDescriptor( TypeConstant.class ), null ) );
+    }
+    // Anything compiled from here on has no field to cache its types in
+    _typeConstants = null;
+  }
+
   public IRClass compileInterfaceMethodsClass()
   {
     if( getGosuClass().isInterface() )
@@ -98,6 +98,12 @@ public class GosuFragmentTransformationContext extends TransformationContextBase
     return true;
   }
 
+  @Override
+  public int getTypeConstantIndex(IType type, boolean bKeepLiteralType) {
+    // Fragments are evaluated once, there is nothing to gain from caching
+    return -1;
+  }
+
   // --------------------- Overrides of methods that reference the underlying context
 
   @Override
@@ -84,10 +84,19 @@ public interface TopLevelTransformationContext {
 
   String makeTempSymbolName();
 
+  void beginTemplateOutput();
+
+  IRSymbol endTemplateOutput();
+
+  IRSymbol getTemplateOutputSymbol();
+
   boolean isBlockInvoke();
 
   boolean isFragmentEvaluation();
 
+  // The index of the static fields caching the type in the class being compiled, or -1 if types aren't cached
+  int getTypeConstantIndex( IType type, boolean bKeepLiteralType );
+
   IRStatement compile( IStatement stmt );
 
   IRSymbol createSymbol(String name, IRType type);
@@ -149,6 +149,21 @@ public abstract class TransformationContextBase implements TopLevelTransformatio
     return _bodyContext.makeTempSymbolName();
   }
 
+  @Override
+  public void beginTemplateOutput() {
+    _bodyContext.beginTemplateOutput();
+  }
+
+  @Override
+  public IRSymbol endTemplateOutput() {
+    return _bodyContext.endTemplateOutput();
+  }
+
+  @Override
+  public IRSymbol getTemplateOutputSymbol() {
+    return _bodyContext.getTemplateOutputSymbol();
+  }
+
   @Override
   public boolean isBlockInvoke() {
     return _bodyContext.isBlockInvoke();
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.transform.expression;
+
+import gw.internal.gosu.ir.transform.ExpressionTransformer;
+import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
+import gw.internal.gosu.parser.ParserBase;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRNotExpression;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.parser.expressions.IConditionalExpression;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.java.JavaTypes;
+
+import java.math.BigDecimal;
+
+/**
+ * Compiles comparisons between operands whose types are known well enough to avoid calling
+ * into the Gosu runtime, such as a boxed number with a primitive one or a BigDecimal with an
+ * int.  The generated code gives the same answers as the runtime's evaluate() methods: null
+ * operands make relational operators false and are only equal to each other, and numbers
+ * are compared as the wider of the two types.
+ */
+public abstract class AbstractComparisonTransformer<T extends IConditionalExpression> extends AbstractExpressionTransformer<T>
+{
+  protected AbstractComparisonTransformer( TopLevelTransformationContext cc, T expr )
+  {
+    super( cc, expr );
+  }
+
+  /**
+   * @return the primitive type both numeric operands are compared as, or null if one of them
+   *   needs the runtime, e.g. Character, BigInteger or a dimension
+   */
+  protected static IType getStaticNumericComparisonType( IType lhsType, IType rhsType )
+  {
+    if( getPrimitiveNumericType( lhsType ) == null || getPrimitiveNumericType( rhsType ) == null )
+    {
+      return null;
+    }
+    return getPrimitiveNumericType( ParserBase.resolveType( lhsType, '>', rhsType ) );
+  }
+
+  /**
+   * @return true if one operand is a BigDecimal and the other is a BigDecimal or an integral
+   *   number, which converts to BigDecimal exactly
+   */
+  protected static boolean isStaticBigDecimalComparison( IType lhsType, IType rhsType )
+  {
+    return (lhsType == JavaTypes.BIG_DECIMAL() && (rhsType == JavaTypes.BIG_DECIMAL() || isIntegral( rhsType ))) ||
+           (rhsType == JavaTypes.BIG_DECIMAL() && isIntegral( lhsType ));
+  }
+
+  /**
+   * Compares the operands as the given primitive type.
+   *
+   * @param op the relational operator, or null for equality
+   */
+  protected IRExpression compareNumbersStatically( IType type, IRRelationalExpression.Operation op )
+  {
+    IType lhsType = _expr().getLHS().getType();
+    IType rhsType = _expr().getRHS().getType();
+    IRSymbol lhsTemp = _cc().makeAndIndexTempSymbol( getDescriptor( lhsType ) );
+    IRSymbol rhsTemp = _cc().makeAndIndexTempSymbol( getDescriptor( rhsType ) );
+    IRExpression lhs = toPrimitive( lhsType, type, identifier( lhsTemp ) );
+    IRExpression rhs = toPrimitive( rhsType, type, identifier( rhsTemp ) );
+
+    IRExpression comparison;
+    if( type == JavaTypes.pDOUBLE() )
+    {
+      // Same as Double.compareTo(), which the runtime uses: NaN equals NaN and -0.0 is less than 0.0
+      comparison = compareToZero( callStaticMethod( Double.class, "compare", new Class[]{double.class, double.class}, exprList( lhs, rhs ) ), op );
+    }
+    else if( type == JavaTypes.pFLOAT() )
+    {
+      // The runtime compares floats as (lhs > rhs ? 1 : lhs < rhs ? -1 : 0), so NaN equals anything
+      if( op == null )
+      {
+        comparison = new IRConditionalAndExpression( new IRNotExpression( buildRelational( lhs, rhs, IRRelationalExpression.Operation.GT ) ),
+                                                     new IRNotExpression( buildRelational( toPrimitive( lhsType, type, identifier( lhsTemp ) ),
+                                                                                           toPrimitive( rhsType, type, identifier( rhsTemp ) ),
+                                                                                           IRRelationalExpression.Operation.LT ) ) );
+      }
+      else if( op == IRRelationalExpression.Operation.GTE )
+      {
+        comparison = new IRNotExpression( buildRelational( lhs, rhs, IRRelationalExpression.Operation.LT ) );
+      }
+      else if( op == IRRelationalExpression.Operation.LTE )
+      {
+        comparison = new IRNotExpression( buildRelational( lhs, rhs, IRRelationalExpression.Operation.GT ) );
+      }
+      else
+      {
+        comparison = buildRelational( lhs, rhs, op );
+      }
+    }
+    else if( op == null )
+    {
+      comparison = buildEquals( lhs, rhs );
+    }
+    else
+    {
+      comparison = buildRelational( lhs, rhs, op );
+    }
+    return buildComposite( buildAssignment( lhsTemp, ExpressionTransformer.compile( _expr().getLHS(), _cc() ) ),
+                           buildAssignment( rhsTemp, ExpressionTransformer.compile( _expr().getRHS(), _cc() ) ),
+                           guardAgainstNull( lhsType, lhsTemp, rhsType, rhsTemp, comparison, op == null ) );
+  }
+
+  /**
+   * Compares the operands with BigDecimal.compareTo(), the integral side being converted
+   * like the runtime does.
+   *
+   * @param op the relational operator, or null for equality
+   */
+  protected IRExpression compareBigDecimalsStatically( IRRelationalExpression.Operation op )
+  {
+    IType lhsType = _expr().getLHS().getType();
+    IType rhsType = _expr().getRHS().getType();
+    IRSymbol lhsTemp = _cc().makeAndIndexTempSymbol( getDescriptor( lhsType ) );
+    IRSymbol rhsTemp = _cc().makeAndIndexTempSymbol( getDescriptor( rhsType ) );
+    IRExpression callCompareTo = callMethod( BigDecimal.class, "compareTo", new Class[]{BigDecimal.class},
+                                             toBigDecimal( lhsType, identifier( lhsTemp ) ),
+                                             exprList( toBigDecimal( rhsType, identifier( rhsTemp ) ) ) );
+    return buildComposite( buildAssignment( lhsTemp, ExpressionTransformer.compile( _expr().getLHS(), _cc() ) ),
+                           buildAssignment( rhsTemp, ExpressionTransformer.compile( _expr().getRHS(), _cc() ) ),
+                           guardAgainstNull( lhsType, lhsTemp, rhsType, rhsTemp, compareToZero( callCompareTo, op ), op == null ) );
+  }
+
+  protected IRExpression compareToZero( IRExpression compareResult, IRRelationalExpression.Operation op )
+  {
+    return op == null
+           ? buildEquals( compareResult, pushConstant( 0 ) )
+           : buildRelational( compareResult, pushConstant( 0 ), op );
+  }
+
+  private IRExpression guardAgainstNull( IType lhsType, IRSymbol lhsTemp, IType rhsType, IRSymbol rhsTemp, IRExpression comparison, boolean bEquality )
+  {
+    boolean bLhsNullable = !lhsType.isPrimitive();
+    boolean bRhsNullable = !rhsType.isPrimitive();
+    if( bRhsNullable )
+    {
+      comparison = new IRConditionalAndExpression( buildNotEquals( identifier( rhsTemp ), nullLiteral() ), comparison );
+    }
+    if( bLhsNullable )
+    {
+      comparison = new IRConditionalAndExpression( buildNotEquals( identifier( lhsTemp ), nullLiteral() ), comparison );
+    }
+    if( bEquality && bLhsNullable && bRhsNullable )
+    {
+      // Two nulls are equal
+      comparison = buildTernary( buildEquals( identifier( lhsTemp ), nullLiteral() ),
+                                 buildEquals( identifier( rhsTemp ), nullLiteral() ),
+                                 comparison,
+                                 getDescriptor( JavaTypes.pBOOLEAN() ) );
+    }
+    return comparison;
+  }
+
+  private IRExpression toPrimitive( IType fromType, IType toType, IRExpression value )
+  {
+    IType primitiveType = getPrimitiveNumericType( fromType );
+    if( !fromType.isPrimitive() )
+    {
+      value = unboxValueToType( primitiveType, value );
+    }
+    return numberConvert( primitiveType, toType, value );
+  }
+
+  private IRExpression toBigDecimal( IType fromType, IRExpression value )
+  {
+    if( fromType == JavaTypes.BIG_DECIMAL() )
+    {
+      return value;
+    }
+    return callStaticMethod( BigDecimal.class, "valueOf", new Class[]{long.class},
+                             exprList( toPrimitive( fromType, JavaTypes.pLONG(), value ) ) );
+  }
+
+  private static IRRelationalExpression buildRelational( IRExpression lhs, IRExpression rhs, IRRelationalExpression.Operation op )
+  {
+    return new IRRelationalExpression( lhs, rhs, op );
+  }
+
+  private static boolean isIntegral( IType type )
+  {
+    IType primitiveType = getPrimitiveNumericType( type );
+    return primitiveType == JavaTypes.pBYTE() ||
+           primitiveType == JavaTypes.pSHORT() ||
+           primitiveType == JavaTypes.pINT() ||
+           primitiveType == JavaTypes.pLONG();
+  }
+
+  private static IType getPrimitiveNumericType( IType type )
+  {
+    IType primitiveType = type.isPrimitive() ? type : TypeSystem.getPrimitiveType( type );
+    if( primitiveType == JavaTypes.pBYTE() ||
+        primitiveType == JavaTypes.pSHORT() ||
+        primitiveType == JavaTypes.pINT() ||
+        primitiveType == JavaTypes.pLONG() ||
+        primitiveType == JavaTypes.pFLOAT() ||
+        primitiveType == JavaTypes.pDOUBLE() )
+    {
+      return primitiveType;
+    }
+    return null;
+  }
+}
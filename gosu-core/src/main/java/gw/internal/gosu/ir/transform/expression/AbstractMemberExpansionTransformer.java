@@ -74,6 +74,13 @@ public abstract class AbstractMemberExpansionTransformer<T extends IMemberAccess
         // This is like calling root.map(\r -> r.Bar)
         return compileExpansionDirectlyToArray( rootType, rootComponentType, arrayType, compType );
       }
+      else if(isArrayOrCollection( rootType ) && !isArrayOrCollection( rootComponentType ) && isFlattenableArray( propertyType, compType ))
+      {
+        // This is like calling root.flatMap(\r -> r.Bars) where the size of the result is known before it is created.
+        // A nested expansion such as a*.B*.C gets here once per level, each level producing one presized array; the
+        // levels are not fused into a single loop.
+        return compileExpansionFlattenedToArray( rootType, rootComponentType, arrayType, compType, propertyType );
+      }
       else
       {
         // This is like calling root.flatMap(\r -> r.Bar)
@@ -91,6 +98,13 @@ public abstract class AbstractMemberExpansionTransformer<T extends IMemberAccess
     return type.isArray() || JavaTypes.COLLECTION().isAssignableFrom( type );
   }
 
+  private static boolean isFlattenableArray( IType propertyType, IType resultCompType ) {
+    return propertyType.isArray() &&
+           getDescriptor( propertyType ).isArray() &&
+           !propertyType.getComponentType().isPrimitive() &&
+           !resultCompType.isPrimitive();
+  }
+
   protected IRExpression compileExpansionWithNoReturnValue( IType rootType, IType rootComponentType, IType resultType, IType resultCompType ) {
     // Evaluate the root and assign it to a temp variable
     IRSymbol tempRoot = _cc().makeAndIndexTempSymbol( getDescriptor( rootType ) );
@@ -192,6 +206,94 @@ public abstract class AbstractMemberExpansionTransformer<T extends IMemberAccess
     return forLoop;
   }
 
+  /**
+   * If this method is being called, it means we're expanding a one-dimensional array or collection, with a right hand side
+   * that evaluates to an array of objects.  Rather than collecting the elements in an ArrayList and copying them out again,
+   * we keep the arrays the right hand side evaluates to, add up their lengths, and copy them into a result array of exactly
+   * that size.  A null root or a null array from the right hand side contributes no elements, same as with the ArrayList.
+   * The overall result of the expansion looks like the following composite:
+   *
+   *   temp_root = root
+   *   temp_parts = new Bar[temp_root == null ? 0 : temp_root.length][]
+   *   temp_total = 0
+   *   for (a in temp_root index i) {
+   *     temp_part = (Bar[]) a.Bars
+   *     temp_parts[i] = temp_part
+   *     if (temp_part != null) {
+   *       temp_total = temp_total + temp_part.length
+   *     }
+   *   }
+   *   temp_array = new Bar[temp_total]
+   *   temp_pos = 0
+   *   for (p in temp_parts) {
+   *     if (p != null) {
+   *       System.arraycopy( p, 0, temp_array, temp_pos, p.length )
+   *       temp_pos = temp_pos + p.length
+   *     }
+   *   }
+   *   temp_array
+   */
+  protected IRExpression compileExpansionFlattenedToArray( IType rootType, IType rootComponentType, IType resultType, IType resultCompType, IType propertyType ) {
+    // Evaluate the root and assign it to a temp variable
+    IRSymbol tempRoot = _cc().makeAndIndexTempSymbol( getDescriptor( rootType ) );
+    IRStatement tempRootAssignment = buildAssignment( tempRoot, ExpressionTransformer.compile( _expr().getRootExpression(), _cc() ) );
+
+    // Keep the array from each element of the root, counting their elements along the way
+    IRSymbol tempParts = _cc().makeAndIndexTempSymbol( getDescriptor( propertyType.getArrayType() ) );
+    IRStatement partsCreation = buildAssignment( tempParts, newArray( getDescriptor( propertyType ),
+                                                                      buildNullCheckTernary( identifier( tempRoot ),
+                                                                                             numericLiteral( 0 ),
+                                                                                             createArrayLengthExpression( rootType, tempRoot ) ) ) );
+    IRSymbol tempTotal = _cc().makeAndIndexTempSymbol( getDescriptor( JavaTypes.pINT() ) );
+    IRStatement totalInit = buildAssignment( tempTotal, numericLiteral( 0 ) );
+    IRForEachStatement partsLoop = createArrayPartsLoop( rootType, rootComponentType, resultCompType, propertyType, tempRoot, tempParts, tempTotal );
+
+    // Create the result array, now that its size is known, and copy the parts into it
+    IType arrayComponentType = getMoreSpecificType( resultCompType, resultType.getComponentType() );
+    IRSymbol resultArray = _cc().makeAndIndexTempSymbol( getDescriptor( arrayComponentType.getArrayType() ) );
+    IRStatement arrayCreation = buildAssignment( resultArray, newArray( getDescriptor( arrayComponentType ), identifier( tempTotal ) ) );
+    IRSymbol tempPos = _cc().makeAndIndexTempSymbol( getDescriptor( JavaTypes.pINT() ) );
+    IRStatement posInit = buildAssignment( tempPos, numericLiteral( 0 ) );
+    IRForEachStatement copyLoop = createArrayCopyLoop( propertyType, tempParts, resultArray, tempPos );
+
+    return buildComposite( tempRootAssignment, partsCreation, totalInit, partsLoop, arrayCreation, posInit, copyLoop,
+                           checkCast( _expr().getType(), identifier( resultArray ) ) );
+  }
+
+  private IRForEachStatement createArrayPartsLoop( IType rootType, IType rootComponentType, IType resultCompType, IType propertyType,
+                                                   IRSymbol tempRoot, IRSymbol tempParts, IRSymbol tempTotal ) {
+    Symbol loopIdentifier = new Symbol( _cc().makeTempSymbolName(), rootComponentType, null );
+    Symbol loopIndex = new Symbol( _cc().makeTempSymbolName(), JavaTypes.pINT(), null );
+    IRForEachStatement forLoop = ForEachStatementTransformer.makeLoop( _cc(), identifier( tempRoot ), rootType, loopIdentifier, loopIndex );
+    IRSymbol irLoopIdentifier = _cc().getSymbol( loopIdentifier.getName() );
+    IRSymbol irLoopIndex = _cc().getSymbol( loopIndex.getName() );
+    IRSymbol tempPart = _cc().makeAndIndexTempSymbol( getDescriptor( propertyType ) );
+    // The part is kept in a local of the property's type, which is more specific than what an erased getter returns
+    IRExpression part = checkCast( propertyType, createIterationExpr( rootComponentType, irLoopIdentifier.getName(), rootComponentType, resultCompType ) );
+    forLoop.setBody( new IRStatementList( false,
+                                          buildAssignment( tempPart, part ),
+                                          buildArrayStore( identifier( tempParts ), identifier( irLoopIndex ), identifier( tempPart ), getDescriptor( propertyType ) ),
+                                          buildIf( buildNotEquals( identifier( tempPart ), nullLiteral() ),
+                                                   buildAssignment( tempTotal, buildAddition( identifier( tempTotal ), buildArrayLength( identifier( tempPart ) ) ) ) ) ) );
+    return forLoop;
+  }
+
+  private IRForEachStatement createArrayCopyLoop( IType propertyType, IRSymbol tempParts, IRSymbol resultArray, IRSymbol tempPos ) {
+    Symbol loopIdentifier = new Symbol( _cc().makeTempSymbolName(), propertyType, null );
+    IRForEachStatement forLoop = ForEachStatementTransformer.makeLoop( _cc(), identifier( tempParts ), propertyType.getArrayType(), loopIdentifier, null );
+    IRSymbol irLoopIdentifier = _cc().getSymbol( loopIdentifier.getName() );
+    IRExpression copy = callStaticMethod( System.class, "arraycopy", new Class[]{Object.class, int.class, Object.class, int.class, int.class},
+                                          exprList( identifier( irLoopIdentifier ), numericLiteral( 0 ),
+                                                    identifier( resultArray ), identifier( tempPos ),
+                                                    buildArrayLength( identifier( irLoopIdentifier ) ) ) );
+    forLoop.setBody( new IRStatementList( false,
+                                          buildIf( buildNotEquals( identifier( irLoopIdentifier ), nullLiteral() ),
+                                                   new IRStatementList( false,
+                                                                        buildMethodCall( copy ),
+                                                                        buildAssignment( tempPos, buildAddition( identifier( tempPos ), buildArrayLength( identifier( irLoopIdentifier ) ) ) ) ) ) ) );
+    return forLoop;
+  }
+
   /**
    * This method will compile the expansion using an ArrayList to collect temporary results.  This is appropriate if the right-hand-side
    * is a Collection or array, if the root is an Iterable or Iterator or other object whose size can't easily be determined up-front,
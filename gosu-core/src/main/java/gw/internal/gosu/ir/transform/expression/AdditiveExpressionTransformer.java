@@ -6,14 +6,26 @@ package gw.internal.gosu.ir.transform.expression;
 
 import gw.config.CommonServices;
 import gw.internal.gosu.parser.BeanAccess;
+import gw.internal.gosu.parser.ParenthesizedExpression;
 import gw.internal.gosu.parser.expressions.AdditiveExpression;
 import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRTypeConstants;
 import gw.internal.gosu.ir.nodes.IRMethodFactory;
 import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCharacterLiteral;
+import gw.lang.ir.expression.IRNumericLiteral;
+import gw.lang.ir.expression.IRStringLiteralExpression;
 import gw.internal.gosu.ir.transform.ExpressionTransformer;
 import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
+import gw.lang.parser.IExpression;
 import gw.lang.reflect.IMethodInfo;
 import gw.lang.reflect.IType;
+import gw.lang.reflect.java.JavaTypes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  */
@@ -47,11 +59,10 @@ public class AdditiveExpressionTransformer extends AbstractExpressionTransformer
       {
         return simpleAddition( );
       }
-//## todo: handle concatenation more efficiently
-//      else if( isConcatenation() )
-//      {
-//
-//      }
+      else if( isConcatenation( _expr() ) )
+      {
+        return concatenation();
+      }
       else
       {
         return complexAddition( bNumeric );
@@ -76,6 +87,140 @@ public class AdditiveExpressionTransformer extends AbstractExpressionTransformer
     return new IRArithmeticExpression(getDescriptor( type ), lhs, rhs, _expr().isAdditive() ? IRArithmeticExpression.Operation.Addition : IRArithmeticExpression.Operation.Subtraction );
   }
 
+  /**
+   * Compiles a chain of string concatenations, e.g. <code>"Total: " + count + " of " + max</code>,
+   * to appends on a single StringBuilder, sized for the literal text plus some room for
+   * each of the other operands.  Adjacent literals are joined here, so a chain of only
+   * literals becomes one literal.
+   */
+  private IRExpression concatenation()
+  {
+    List<IExpression> operands = new ArrayList<IExpression>();
+    addConcatenatedOperands( _expr(), operands );
+
+    List<IType> types = new ArrayList<IType>();
+    List<IRExpression> values = new ArrayList<IRExpression>();
+    StringBuilder constant = null;
+    int iCapacity = 0;
+    for( IExpression operand : operands )
+    {
+      IRExpression value = ExpressionTransformer.compile( operand, _cc() );
+      String strConstant = getConstantString( operand.getType(), value );
+      if( strConstant != null )
+      {
+        if( constant == null )
+        {
+          constant = new StringBuilder();
+        }
+        constant.append( strConstant );
+        iCapacity += strConstant.length();
+        continue;
+      }
+      if( constant != null )
+      {
+        types.add( JavaTypes.STRING() );
+        values.add( pushConstant( constant.toString() ) );
+        constant = null;
+      }
+      types.add( operand.getType() );
+      values.add( value );
+      iCapacity += 16;
+    }
+    if( values.isEmpty() )
+    {
+      return pushConstant( constant == null ? "" : constant.toString() );
+    }
+    if( constant != null )
+    {
+      types.add( JavaTypes.STRING() );
+      values.add( pushConstant( constant.toString() ) );
+    }
+
+    IRExpression sb = buildNewExpression( getDescriptor( StringBuilder.class ), Collections.singletonList( IRTypeConstants.pINT ),
+                                          exprList( pushConstant( iCapacity ) ) );
+    for( int i = 0; i < values.size(); i++ )
+    {
+      sb = appendToStringBuilder( sb, types.get( i ), values.get( i ) );
+    }
+    return callMethod( StringBuilder.class, "toString", new Class[0], sb, Collections.<IRExpression>emptyList() );
+  }
+
+  private static void addConcatenatedOperands( IExpression expr, List<IExpression> operands )
+  {
+    while( expr instanceof ParenthesizedExpression )
+    {
+      expr = ((ParenthesizedExpression)expr).getExpression();
+    }
+    if( isConcatenation( expr ) )
+    {
+      addConcatenatedOperands( ((AdditiveExpression)expr).getLHS(), operands );
+      addConcatenatedOperands( ((AdditiveExpression)expr).getRHS(), operands );
+    }
+    else
+    {
+      operands.add( expr );
+    }
+  }
+
+  /**
+   * @return the text a literal operand contributes to the concatenation, or null if the
+   *   operand isn't a literal.  Other than strings, literals are converted by the coercion
+   *   manager, as they would be at runtime.
+   */
+  private static String getConstantString( IType type, IRExpression value )
+  {
+    if( value instanceof IRStringLiteralExpression )
+    {
+      return String.valueOf( ((IRStringLiteralExpression)value).getValue() );
+    }
+    Object literal = null;
+    if( value instanceof IRCharacterLiteral && type == JavaTypes.pCHAR() )
+    {
+      literal = ((IRCharacterLiteral)value).getValue();
+    }
+    else if( value instanceof IRBooleanLiteral && type == JavaTypes.pBOOLEAN() )
+    {
+      literal = ((IRBooleanLiteral)value).getValue();
+    }
+    else if( value instanceof IRNumericLiteral )
+    {
+      Number number = ((IRNumericLiteral)value).getValue();
+      if( type == JavaTypes.pINT() )
+      {
+        literal = number.intValue();
+      }
+      else if( type == JavaTypes.pSHORT() )
+      {
+        literal = number.shortValue();
+      }
+      else if( type == JavaTypes.pBYTE() )
+      {
+        literal = number.byteValue();
+      }
+      else if( type == JavaTypes.pLONG() )
+      {
+        literal = number.longValue();
+      }
+      else if( type == JavaTypes.pFLOAT() )
+      {
+        literal = number.floatValue();
+      }
+      else if( type == JavaTypes.pDOUBLE() )
+      {
+        literal = number.doubleValue();
+      }
+    }
+    return literal == null ? null : CommonServices.getCoercionManager().makeStringFrom( literal );
+  }
+
+  private static boolean isConcatenation( IExpression expr )
+  {
+    return expr instanceof AdditiveExpression &&
+           ((AdditiveExpression)expr).isAdditive() &&
+           ((AdditiveExpression)expr).getOverride() == null &&
+           expr.getType() == JavaTypes.STRING();
+  }
+
   private IRExpression complexAddition( boolean bNumeric )
   {
 
@@ -28,7 +28,7 @@ import java.util.List;
 
 /**
  */
-public class EqualityExpressionTransformer extends AbstractExpressionTransformer<EqualityExpression>
+public class EqualityExpressionTransformer extends AbstractComparisonTransformer<EqualityExpression>
 {
   public static IRExpression compile( TopLevelTransformationContext cc, EqualityExpression expr )
   {
@@ -65,6 +65,16 @@ public class EqualityExpressionTransformer extends AbstractExpressionTransformer
       }
       return compareWithEquals();
     }
+    else if( getStaticNumericComparisonType( lhsType, rhsType ) != null )
+    {
+      IRExpression theExpr = compareNumbersStatically( getStaticNumericComparisonType( lhsType, rhsType ), null );
+      return _expr().isEquals() ? theExpr : new IRNotExpression( theExpr );
+    }
+    else if( isStaticBigDecimalComparison( lhsType, rhsType ) )
+    {
+      IRExpression theExpr = compareBigDecimalsStatically( null );
+      return _expr().isEquals() ? theExpr : new IRNotExpression( theExpr );
+    }
     //## todo: maybe do a quick identity compare, if same we can avoid calling into gs runtime
 //    else if( !lhsType.isPrimitive() && !rhsType.isPrimitive() )
 //    {
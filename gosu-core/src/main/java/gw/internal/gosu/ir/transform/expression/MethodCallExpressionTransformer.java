@@ -26,6 +26,7 @@ import gw.internal.gosu.ir.nodes.IRMethod;
 import gw.lang.parser.IExpression;
 import gw.lang.parser.IFunctionSymbol;
 import gw.lang.parser.StandardSymbolTable;
+import gw.lang.parser.expressions.ITypeAsExpression;
 import gw.lang.reflect.IAttributedFeatureInfo;
 import gw.lang.reflect.IMethodInfo;
 import gw.lang.reflect.IRelativeTypeInfo;
@@ -59,7 +60,12 @@ public class MethodCallExpressionTransformer extends AbstractExpressionTransform
   {
     IFunctionSymbol symbol = _expr().getFunctionSymbol();
 
-    if( _cc().isExternalSymbol( symbol.getName() ) )
+    if( symbol == TemplateGenerator.PRINT_CONTENT_SYMBOL.get() )
+    {
+      // Checked before external symbols so template output skips the reflective external symbol call
+      return callPrintContent();
+    }
+    else if( _cc().isExternalSymbol( symbol.getName() ) )
     {
       return callExternalProgramSymbol(symbol);
     }
@@ -72,10 +78,6 @@ public class MethodCallExpressionTransformer extends AbstractExpressionTransform
       // 'Global' static function call e.g., print()
       return callGlobalStaticFunction(symbol);
     }
-    else if( symbol == TemplateGenerator.PRINT_CONTENT_SYMBOL.get() )
-    {
-      return callPrintContent();
-    }
     else
     {
       throw new UnsupportedOperationException( "Don't know how to compile symbol: " + symbol.getType() );
@@ -230,10 +232,29 @@ public class MethodCallExpressionTransformer extends AbstractExpressionTransform
   }
 
   private IRExpression callPrintContent() {
-    IRSymbol currentTemplate = TemplateStringLiteralTransformer.getCurrentTemplateSymbol();
-    return callMethod( StringBuilder.class, "append", new Class[]{Object.class},
-            identifier( currentTemplate ),
-            exprList( ExpressionTransformer.compile( _expr().getArgs()[0], _cc() ) ) );
+    if( TemplateStringLiteralTransformer.hasCurrentTemplateSymbol() )
+    {
+      IRSymbol currentTemplate = TemplateStringLiteralTransformer.getCurrentTemplateSymbol();
+      IExpression content = _expr().getArgs()[0];
+      if( content instanceof ITypeAsExpression && content.getType() == JavaTypes.STRING() &&
+          ((ITypeAsExpression)content).getLHS().getType() != JavaTypes.pVOID() &&
+          ((ITypeAsExpression)content).getLHS().getType().isPrimitive() )
+      {
+        // A primitive in ${} is appended as it is instead of being boxed and coerced to a String
+        content = ((ITypeAsExpression)content).getLHS();
+      }
+      return appendToStringBuilder( identifier( currentTemplate ), content.getType(), ExpressionTransformer.compile( content, _cc() ) );
+    }
+
+    Class[] paramTypes = {String.class, boolean.class};
+    IRMethod method = IRMethodFactory.createIRMethod( TemplateGenerator.WriterEscaperPair.class, "print", paramTypes );
+    List<IRExpression> args = pushArguments( method );
+    IRSymbol templateOutput = _cc().getTemplateOutputSymbol();
+    if( templateOutput != null )
+    {
+      return callMethod( method, identifier( templateOutput ), args );
+    }
+    return callStaticMethod( TemplateGenerator.class, TemplateGenerator.PRINT_METHOD, paramTypes, args );
   }
 
   private IRExpression castIfReturnTypeDerivedFromTypeVariable( DynamicFunctionSymbol dfs, IRExpression root )
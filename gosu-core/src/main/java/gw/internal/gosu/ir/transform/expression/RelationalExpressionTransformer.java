@@ -13,6 +13,7 @@ import gw.internal.gosu.ir.transform.TopLevelTransformationContext;
 import gw.lang.ir.IRExpression;
 import gw.lang.ir.IRSymbol;
 import gw.lang.ir.expression.IRConditionalAndExpression;
+import gw.lang.ir.expression.IRConditionalOrExpression;
 import gw.lang.ir.expression.IRRelationalExpression;
 import gw.lang.ir.statement.IRAssignmentStatement;
 import gw.lang.parser.GosuParserTypes;
@@ -28,7 +29,7 @@ import java.util.List;
 
 /**
  */
-public class RelationalExpressionTransformer extends AbstractExpressionTransformer<RelationalExpression>
+public class RelationalExpressionTransformer extends AbstractComparisonTransformer<RelationalExpression>
 {
   public static IRExpression compile( TopLevelTransformationContext cc, RelationalExpression expr )
   {
@@ -53,6 +54,23 @@ public class RelationalExpressionTransformer extends AbstractExpressionTransform
     {
       return compareWithCompareTo();
     }
+    else if( getStaticNumericComparisonType( lhsType, rhsType ) != null )
+    {
+      return compareNumbersStatically( getStaticNumericComparisonType( lhsType, rhsType ),
+                                       IRRelationalExpression.Operation.get( _expr().getOperator() ) );
+    }
+    else if( isStaticBigDecimalComparison( lhsType, rhsType ) )
+    {
+      return compareBigDecimalsStatically( IRRelationalExpression.Operation.get( _expr().getOperator() ) );
+    }
+    else if( lhsType == GosuParserTypes.DATETIME_TYPE() && JavaTypes.DATE().isAssignableFrom( rhsType ) )
+    {
+      return compareDates();
+    }
+    else if( isComparableBean( lhsType, rhsType ) )
+    {
+      return compareWithCompareTo();
+    }
     else
     {
       return compareDynamically();
@@ -82,6 +100,66 @@ public class RelationalExpressionTransformer extends AbstractExpressionTransform
                            theExpr );
   }
 
+  private IRExpression compareDates()
+  {
+    // Generates following code, calling the same Date methods as evaluate():
+    // Date lhs = <lhs-expr>
+    // Date rhs = <rhs-expr>
+    // (lhs != null && rhs != null && lhs.[after( rhs ), before( rhs ), compareTo( rhs ) >= 0, before( rhs ) || equals( rhs )])
+
+    IRSymbol lhsTemp = _cc().makeAndIndexTempSymbol( getDescriptor( JavaTypes.DATE() ) );
+    IRAssignmentStatement tempLhsAssignment = buildAssignment( lhsTemp, ExpressionTransformer.compile( _expr().getLHS(), _cc() ) );
+    IRSymbol rhsTemp = _cc().makeAndIndexTempSymbol( getDescriptor( JavaTypes.DATE() ) );
+    IRAssignmentStatement tempRhsAssignment = buildAssignment( rhsTemp, ExpressionTransformer.compile( _expr().getRHS(), _cc() ) );
+    IRExpression comparison;
+    IRRelationalExpression.Operation op = IRRelationalExpression.Operation.get( _expr().getOperator() );
+    if( op == IRRelationalExpression.Operation.GT )
+    {
+      comparison = callDateMethod( "after", lhsTemp, rhsTemp );
+    }
+    else if( op == IRRelationalExpression.Operation.LT )
+    {
+      comparison = callDateMethod( "before", lhsTemp, rhsTemp );
+    }
+    else if( op == IRRelationalExpression.Operation.GTE )
+    {
+      comparison = compareToZero( callDateMethod( "compareTo", lhsTemp, rhsTemp ), op );
+    }
+    else
+    {
+      comparison = new IRConditionalOrExpression( callDateMethod( "before", lhsTemp, rhsTemp ),
+                                                  callMethod( Object.class, "equals", new Class[]{Object.class},
+                                                              identifier( lhsTemp ),
+                                                              Collections.singletonList( (IRExpression)identifier( rhsTemp ) ) ) );
+    }
+    IRExpression theExpr = new IRConditionalAndExpression( buildNotEquals( identifier( lhsTemp ), nullLiteral() ),
+                                                           new IRConditionalAndExpression( buildNotEquals( identifier( rhsTemp ), nullLiteral() ),
+                                                                                           comparison ) );
+    return buildComposite( tempLhsAssignment,
+                           tempRhsAssignment,
+                           theExpr );
+  }
+
+  private IRExpression callDateMethod( String strMethod, IRSymbol lhsTemp, IRSymbol rhsTemp )
+  {
+    return callMethod( Date.class, strMethod, new Class[]{Date.class},
+                       identifier( lhsTemp ),
+                       Collections.singletonList( (IRExpression)identifier( rhsTemp ) ) );
+  }
+
+  /**
+   * @return true if evaluate() would compare the operands with Comparable.compareTo()
+   */
+  private static boolean isComparableBean( IType lhsType, IType rhsType )
+  {
+    return !BeanAccess.isNumericType( lhsType ) &&
+           lhsType != GosuParserTypes.DATETIME_TYPE() &&
+           BeanAccess.isBeanType( lhsType ) &&
+           BeanAccess.isBeanType( rhsType ) &&
+           lhsType.isAssignableFrom( rhsType ) &&
+           JavaTypes.COMPARABLE().isAssignableFrom( lhsType );
+  }
+
   private IRExpression comparePrimitives()
   {
     // Get the upper bound type
@@ -90,6 +90,11 @@ public class TemplateStringLiteralTransformer extends AbstractExpressionTransfor
     return symbolStack;
   }
 
+  public static boolean hasCurrentTemplateSymbol()
+  {
+    return !getThreadLocalStack().isEmpty();
+  }
+
   public static IRSymbol getCurrentTemplateSymbol()
   {
     return getThreadLocalStack().peek();
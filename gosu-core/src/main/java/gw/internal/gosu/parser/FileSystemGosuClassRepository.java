@@ -23,6 +23,7 @@ import gw.lang.reflect.gs.StringSourceFileHandle;
 import gw.lang.reflect.gs.TypeName;
 import gw.lang.reflect.module.IModule;
 import gw.util.DynamicArray;
+import gw.util.cache.FqnBloomFilter;
 import gw.util.cache.FqnCache;
 import gw.util.Pair;
 import gw.util.StreamUtil;
@@ -33,6 +34,7 @@ import java.io.Reader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -55,6 +57,8 @@ public class FileSystemGosuClassRepository implements IFileSystemGosuClassReposi
   private List<ClassPathEntry> _sourcePath;
   private PackageToClassPathEntryTreeMap _rootNode;
   private Set<String> _allTypeNames;
+  // Every type name under the source path, read without locking to rule out misses before consulting the miss caches
+  private volatile FqnBloomFilter _knownTypes;
 
   public FileSystemGosuClassRepository( IModule module, IDirectory[] classpath, String[] allowableExtensions, boolean includeCoreResources )
   {
@@ -225,6 +229,9 @@ public class FileSystemGosuClassRepository implements IFileSystemGosuClassReposi
               _allTypeNames.add(type);
             }
           }
+          if (_knownTypes != null) {
+            _knownTypes = _knownTypes.with(Arrays.asList(request.types), _allTypeNames);
+          }
         } else if (request.kind == RefreshKind.DELETION) {
           if (_allTypeNames != null) {
             for (String type : request.types) {
@@ -241,6 +248,7 @@ public class FileSystemGosuClassRepository implements IFileSystemGosuClassReposi
       _missCaches.clear();
       _rootNode = null;
       _allTypeNames = null;
+      _knownTypes = null;
     }
   }
 
@@ -390,6 +398,11 @@ public class FileSystemGosuClassRepository implements IFileSystemGosuClassReposi
 
   private ClassFileInfo findFileInfoOnDisk( String strQualifiedClassName, String[] extensions )
   {
+    if( isKnownMiss( strQualifiedClassName, extensions ) )
+    {
+      return null;
+    }
+
     if( inMissCache( strQualifiedClassName, extensions ) )
     {
       return null;
@@ -428,6 +441,56 @@ public class FileSystemGosuClassRepository implements IFileSystemGosuClassReposi
     return i < 0 ? "" : strQualifiedClassName.substring(0, i);
   }
 
+  /**
+   * A name is a known miss if neither it nor any of its enclosing names is a
+   * file under the source path. Deleted types may linger in the filter, which
+   * only sends the lookup on to the miss caches.
+   */
+  private boolean isKnownMiss( String strQualifiedClassName, String[] extensions )
+  {
+    if( strQualifiedClassName == null ||
+        strQualifiedClassName.indexOf( '<' ) >= 0 || strQualifiedClassName.indexOf( '[' ) >= 0 ||
+        !isSubsetOfExtensions( extensions ) )
+    {
+      return false;
+    }
+    return !getKnownTypes().mightContainNameOrEnclosingName( strQualifiedClassName );
+  }
+
+  private boolean isSubsetOfExtensions( String[] extensions )
+  {
+    outer:
+    for( String extension : extensions )
+    {
+      for( String knownExtension : _extensions )
+      {
+        if( knownExtension.equals( extension ) )
+        {
+          continue outer;
+        }
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private FqnBloomFilter getKnownTypes()
+  {
+    FqnBloomFilter knownTypes = _knownTypes;
+    if( knownTypes == null )
+    {
+      synchronized( _missCaches )
+      {
+        knownTypes = _knownTypes;
+        if( knownTypes == null )
+        {
+          _knownTypes = knownTypes = FqnBloomFilter.build( getAllTypeNames() );
+        }
+      }
+    }
+    return knownTypes;
+  }
+
   private boolean inMissCache(String strQualifiedClassName, String[] extensions)
   {
     synchronized( _missCaches )
@@ -484,6 +547,8 @@ public class FileSystemGosuClassRepository implements IFileSystemGosuClassReposi
       {
         _sourcePath.add( new ClassPathEntry( resourceRootDir, false ) );
       }
+      // The package tree, the miss caches and the filter of known types all predate the new roots
+      reset();
     }
   }
 
@@ -2272,7 +2272,8 @@ public class GosuClass extends AbstractType implements IGosuClassInternal
     GosuParser parser = getOrCreateParser(symbolTable);
     ISource source = _sourceFileHandle.getSource();
     parser.setScript(source);
-    _parseInfo.updateSource(source.getSource());
+    // Fingerprint the text the parser already read rather than reading the file again
+    _parseInfo.updateSource(parser.getScript());
     if (CommonServices.getPlatformHelper().isInIDE()) {
       parser.setThrowParseExceptionForWarnings(true);
       parser.setDontOptimizeStatementLists(true);
@@ -9,6 +9,7 @@ import gw.internal.gosu.parser.expressions.Identifier;
 import gw.internal.gosu.parser.expressions.MethodCallExpression;
 import gw.internal.gosu.parser.statements.ClassFileStatement;
 import gw.internal.gosu.parser.statements.ClassStatement;
+import gw.internal.gosu.parser.statements.FunctionStatement;
 import gw.internal.gosu.parser.statements.MethodCallStatement;
 import gw.internal.gosu.parser.statements.NoOpStatement;
 import gw.internal.gosu.parser.statements.VarStatement;
@@ -58,6 +59,9 @@ public class GosuClassParseInfo {
   transient private Symbol _thisSymbol;
   transient private Map<CaseInsensitiveCharSequence, ICapturedSymbol> _capturedSymbols;
   transient private long _sourceFingerprint;
+  transient private int _iFunctionsModCount;
+  transient private FunctionsByNameOffset _staticFunctionsByNameOffset;
+  transient private FunctionsByNameOffset _memberFunctionsByNameOffset;
 
   transient private BlockExpression _block;
 
@@ -101,10 +105,62 @@ public class GosuClassParseInfo {
     else
     {
       // Remove duplicates. Remain consistent with how non-static functions are maintained (i.e., Map.put() replaces duplicate)
-      _listStaticFunctions.remove( function );
+      int iIndex = _listStaticFunctions.indexOf( function );
+      if( iIndex >= 0 && _listStaticFunctions.remove( iIndex ) == function )
+      {
+        // Only moved to the end, as when the definitions phase adds what the declarations phase did
+        _listStaticFunctions.add( function );
+        return;
+      }
     }
 
     _listStaticFunctions.add( function );
+    _iFunctionsModCount++;
+  }
+
+  /**
+   * Finds the function declared with its name at the given offset, the way the definitions phase
+   * matches a function's body to the symbol the declarations phase made for it.  Generated classes
+   * can declare thousands of functions, so rather than scanning them for every body the lookup goes
+   * through an index, rebuilt when functions are added and checked against the declaration it finds.
+   */
+  public DynamicFunctionSymbol getFunctionDeclaredAt( int iNameOffset, boolean bStatic )
+  {
+    Collection<DynamicFunctionSymbol> functions = bStatic ? _listStaticFunctions : _mapMemberFunctions.values();
+    FunctionsByNameOffset index = bStatic ? _staticFunctionsByNameOffset : _memberFunctionsByNameOffset;
+    if( index == null || index._iModCount != _iFunctionsModCount )
+    {
+      index = new FunctionsByNameOffset( functions, _iFunctionsModCount );
+      if( bStatic )
+      {
+        _staticFunctionsByNameOffset = index;
+      }
+      else
+      {
+        _memberFunctionsByNameOffset = index;
+      }
+    }
+    DynamicFunctionSymbol dfs = index._map.get( iNameOffset );
+    if( dfs != null && getNameOffset( dfs ) == iNameOffset )
+    {
+      return dfs;
+    }
+    // A declaration statement was assigned or moved since the index was built
+    for( DynamicFunctionSymbol csr : functions )
+    {
+      if( getNameOffset( csr ) == iNameOffset )
+      {
+        index._map.put( iNameOffset, csr );
+        return csr;
+      }
+    }
+    return null;
+  }
+
+  private static int getNameOffset( DynamicFunctionSymbol dfs )
+  {
+    FunctionStatement funcStmt = dfs.getDeclFunctionStmt();
+    return funcStmt == null ? -1 : funcStmt.getNameOffset( (CaseInsensitiveCharSequence)null );
   }
 
   private void clearDebugInfoOnFunctions( Collection<DynamicFunctionSymbol> mapFunctions )
@@ -166,7 +222,10 @@ public class GosuClassParseInfo {
       //noinspection unchecked
       _mapMemberFunctions = new LinkedHashMap(2);
     }
-    _mapMemberFunctions.put( function.getCaseInsensitiveName(), function );
+    if( _mapMemberFunctions.put( function.getCaseInsensitiveName(), function ) != function )
+    {
+      _iFunctionsModCount++;
+    }
     CaseInsensitiveCharSequence superGenericName = function.getSuperGenericName();
     if( superGenericName != null )
     {
@@ -188,7 +247,10 @@ public class GosuClassParseInfo {
       // f = new Foo()
       // f.foo( new Fred() ) // if we don't have the superDfs mapped, it will throw an npe because it can't find foo( T ) on Foo
       //
-      _mapMemberFunctions.put( superGenericName, function );
+      if( _mapMemberFunctions.put( superGenericName, function ) != function )
+      {
+        _iFunctionsModCount++;
+      }
     }
   }
 
@@ -553,4 +615,25 @@ public class GosuClassParseInfo {
   public long getSourceFingerprint() {
     return _sourceFingerprint;
   }
+
+  private static class FunctionsByNameOffset
+  {
+    private final Map<Integer, DynamicFunctionSymbol> _map;
+    private final int _iModCount;
+
+    FunctionsByNameOffset( Collection<DynamicFunctionSymbol> functions, int iModCount )
+    {
+      _map = new HashMap<Integer, DynamicFunctionSymbol>( functions.size() * 2 );
+      for( DynamicFunctionSymbol dfs : functions )
+      {
+        int iNameOffset = getNameOffset( dfs );
+        // The first one wins, same as a scan would find
+        if( iNameOffset >= 0 && !_map.containsKey( iNameOffset ) )
+        {
+          _map.put( iNameOffset, dfs );
+        }
+      }
+      _iModCount = iModCount;
+    }
+  }
 }
@@ -10254,6 +10254,20 @@ public final class GosuParser extends ParserBase implements IGosuParser
         }
       }
       verify(e, match(null, ')'), Res.MSG_EXPECTING_RIGHTPAREN_FUNCTION_DEF);
+    } else if (match(null, "cache")) {
+      // The key and optional time to live are evaluated by the template generator, here they are only verified
+      verify(e, match(null, '('), Res.MSG_EXPECTING_LEFTPAREN_FUNCTION_DEF);
+      parseExpression();
+      popExpression();
+      if (match(null, ',')) {
+        parseExpression();
+        popExpression();
+      }
+      verify(e, match(null, ')'), Res.MSG_EXPECTING_RIGHTPAREN_FUNCTION_DEF);
+    } else if (match(null, "endcache")) {
+      // Balance is checked by the template generator
+    } else if (match(null, "flush")) {
+      // Flushes the template's writer, emitted by the template generator
     } else {
       advanceToNextTokenSilently();
       e.addParseException(new ParseException(makeFullParserState(), Res.MSG_BAD_TEMPLATE_DIRECTIVE));
@@ -11184,18 +11198,7 @@ public final class GosuParser extends ParserBase implements IGosuParser
       return null;
     }
 
-    Collection<DynamicFunctionSymbol> functions = Modifier.isStatic( iModifiers )
-                                                  ? gsClass.getParseInfo().getStaticFunctions()
-                                                  : gsClass.getParseInfo().getMemberFunctions().values();
-    for( DynamicFunctionSymbol dfs : functions )
-    {
-      FunctionStatement funcStmt = dfs.getDeclFunctionStmt();
-      if( funcStmt != null && funcStmt.getNameOffset( (CaseInsensitiveCharSequence)null ) == iOffsetName )
-      {
-        return dfs;
-      }
-    }
-    return null;
+    return gsClass.getParseInfo().getFunctionDeclaredAt( iOffsetName, Modifier.isStatic( iModifiers ) );
   }
 
   boolean isDeclarationKeyword( String strFunctionName )
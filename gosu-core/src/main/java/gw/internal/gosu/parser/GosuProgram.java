@@ -39,7 +39,9 @@ public class GosuProgram extends GosuClass implements IGosuProgramInternal
   private IType _expectedReturnType;
   private boolean _bGenRootExprAccess;
   private ITokenizerInstructor _tokenizerInstructor;
-  private IProgramInstance _sharedInstance;
+  private volatile IProgramInstance _sharedInstance;
+  // Backing class known to have instance fields, saves reflecting on it for every evaluation
+  private volatile Class _unsharableClass;
   private boolean _anonymous;
   private boolean _throwaway;
   private boolean _bStatementsOnly;
@@ -356,10 +358,11 @@ public class GosuProgram extends GosuClass implements IGosuProgramInternal
 
   @Override
   public IProgramInstance getProgramInstance() {
-    if (_sharedInstance != null) {
-      return _sharedInstance;
+    IProgramInstance sharedInstance = _sharedInstance;
+    if (sharedInstance != null) {
+      return sharedInstance;
     } else {
-      if (canShareProgramInstances()) {
+      if (_unsharableClass != getBackingClass() && canShareProgramInstances()) {
         TypeSystem.lock();
         try {
           if (_sharedInstance == null) {
@@ -405,10 +408,12 @@ public class GosuProgram extends GosuClass implements IGosuProgramInternal
   {
     // Note we check for existence of member fields from the Class and not the GosuClass
     // to avoid parsing the GosuClass at runtime.  This method is only called at runtime.
-    for( Field f : getBackingClass().getDeclaredFields() )
+    Class backingClass = getBackingClass();
+    for( Field f : backingClass.getDeclaredFields() )
     {
       if( !Modifier.isStatic( f.getModifiers() ) )
       {
+        _unsharableClass = backingClass;
         return false;
       }
     }
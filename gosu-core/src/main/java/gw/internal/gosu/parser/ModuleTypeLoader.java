@@ -20,28 +20,32 @@ import gw.lang.reflect.RefreshRequest;
 import gw.lang.reflect.RefreshKind;
 import gw.lang.reflect.TypeSystem;
 import gw.lang.reflect.gs.GosuClassTypeLoader;
+import gw.lang.reflect.gs.IFileSystemGosuClassRepository;
 import gw.lang.reflect.gs.IGosuClass;
 import gw.lang.reflect.gs.IGosuClassRepository;
 import gw.lang.reflect.gs.IGosuObject;
+import gw.lang.reflect.gs.ISourceFileHandle;
 import gw.lang.reflect.gs.TypeName;
 import gw.lang.reflect.module.IClassPath;
 import gw.lang.reflect.module.IModule;
-import gw.util.CaseInsensitiveHashMap;
 import gw.util.GosuClassUtil;
 import gw.util.Pair;
 import gw.util.Predicate;
 import gw.util.cache.FqnCacheNode;
 import gw.util.cache.WeakFqnCache;
+import gw.util.concurrent.ConcurrentCaseInsensitiveHashMap;
+import gw.util.fingerprint.FP64;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  */
@@ -81,11 +85,13 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
   }
 
   private void initMaps() {
-    _globalStack = new ArrayList<ITypeLoader>();
-    _loadersByPrefix = new HashMap<String, ITypeLoader>();
+    // Cache hits are looked up without the type system lock, so these must be safe for concurrent readers.
+    // Misses still load under the lock.
+    _globalStack = new CopyOnWriteArrayList<ITypeLoader>();
+    _loadersByPrefix = new ConcurrentHashMap<String, ITypeLoader>();
     _typesByName = new WeakFqnCache<IType>();
-    _namespaceTypesByName = new HashMap<String, IType>();
-    _typesByCaseInsensitiveName = new CaseInsensitiveHashMap<String, IType>();
+    _namespaceTypesByName = new ConcurrentHashMap<String, IType>();
+    _typesByCaseInsensitiveName = new ConcurrentCaseInsensitiveHashMap<String, IType>();
   }
 
   public ModuleTypeLoader( IModule module, DefaultTypeLoader defaultTypeLoader)
@@ -702,7 +708,7 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
       }
       _typesByName.add( name, type );
       ITypeLoader typeLoader = pair.getSecond();
-      if( typeLoader != null && !typeLoader.isCaseSensitive() )
+      if( type != null && typeLoader != null && !typeLoader.isCaseSensitive() )
       {
         _typesByCaseInsensitiveName.put( name, type);
       }
@@ -809,11 +815,12 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     }
   }
   private void _refreshFile(IFile file, RefreshKind kind) {
+    SourceFingerprint fingerprint = kind == RefreshKind.MODIFICATION ? new SourceFingerprint() : null;
     for (ITypeLoader typeLoader : _globalStack) {
       if (typeLoader.handlesFile(file)) {
         String[] types = typeLoader.getTypesForFile(file);
         typeLoader.refreshedFile(file, types, kind);
-        if (types != null && types.length != 0) {
+        if (types != null && types.length != 0 && !(fingerprint != null && isUnchangedSource(file, types, fingerprint))) {
           RefreshRequest refreshRequest = new RefreshRequest(file, types, getModule(), kind, true);
           TypeLoaderAccess.instance().refreshTypes(refreshRequest);
         }
@@ -821,6 +828,48 @@ public class ModuleTypeLoader implements ITypeLoaderStackInternal {
     }
   }
 
+  /**
+   * File watchers report a file as modified when it is saved without changes, touched, or
+   * checked out again with the same content.  Refreshing its types then throws away their
+   * parse trees and bytecode for nothing, so the types are left alone if every one of them
+   * was parsed from exactly what the file holds now.
+   */
+  private boolean isUnchangedSource(IFile file, String[] types, SourceFingerprint fingerprint) {
+    for (String typeName : types) {
+      ITypeRef type = _typeRefFactory.get(typeName);
+      if (!(type instanceof IGosuClass) || ((AbstractTypeRef)type).isStale()) {
+        return false;
+      }
+      IGosuClass gsClass = (IGosuClass)type;
+      long lFingerprint = gsClass.getSourceFingerprint();
+      ISourceFileHandle sfh = gsClass.getSourceFileHandle();
+      if (lFingerprint == 0 || !(sfh instanceof IFileSystemGosuClassRepository.IFileSystemSourceFileHandle) ||
+          !file.equals(sfh.getFile()) || fingerprint.get(sfh) != lFingerprint) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The fingerprint of a modified file's current content, read at most once however many
+   * types and type loaders the file has.
+   */
+  private static class SourceFingerprint {
+    private boolean _bRead;
+    private long _lFingerprint;
+
+    long get(ISourceFileHandle sfh) {
+      if (!_bRead) {
+        // Read the same way as when the class was parsed
+        String source = sfh.getSource().getSource();
+        _lFingerprint = source == null ? 0 : new FP64(source).getRawFingerprint();
+        _bRead = true;
+      }
+      return _lFingerprint;
+    }
+  }
+
   public List<IFile> findOldFiles() {
     List<IFile> combined = new ArrayList<IFile>();
 //    for( IModule module: _module.getModuleTraversalList() ) {
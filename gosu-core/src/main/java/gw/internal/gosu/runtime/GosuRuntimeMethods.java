@@ -4,8 +4,11 @@
 
 package gw.internal.gosu.runtime;
 
+import gw.config.CommonServices;
 import gw.internal.gosu.ir.transform.AbstractElementTransformer;
 import gw.internal.gosu.parser.TypeLord;
+import gw.lang.parser.ICoercionManager;
+import gw.lang.parser.StandardCoercionManager;
 import gw.lang.reflect.IMethodInfo;
 import gw.lang.reflect.IPropertyInfo;
 import gw.lang.reflect.IRelativeTypeInfo;
@@ -157,6 +160,53 @@ public class GosuRuntimeMethods {
     return type;
   }
 
+  /**
+   * Appends a primitive operand of a string concatenation. The standard coercion manager
+   * converts with toString(), which append() gives without boxing. A replacement manager
+   * may format values its own way, so it converts them as it does any other operand.
+   */
+  public static StringBuilder append( StringBuilder sb, boolean value )
+  {
+    ICoercionManager coercionMgr = CommonServices.getCoercionManager();
+    return isStandard( coercionMgr ) ? sb.append( value ) : sb.append( coercionMgr.makeStringFrom( value ) );
+  }
+
+  public static StringBuilder append( StringBuilder sb, char value )
+  {
+    ICoercionManager coercionMgr = CommonServices.getCoercionManager();
+    return isStandard( coercionMgr ) ? sb.append( value ) : sb.append( coercionMgr.makeStringFrom( value ) );
+  }
+
+  public static StringBuilder append( StringBuilder sb, int value )
+  {
+    ICoercionManager coercionMgr = CommonServices.getCoercionManager();
+    return isStandard( coercionMgr ) ? sb.append( value ) : sb.append( coercionMgr.makeStringFrom( value ) );
+  }
+
+  public static StringBuilder append( StringBuilder sb, long value )
+  {
+    ICoercionManager coercionMgr = CommonServices.getCoercionManager();
+    return isStandard( coercionMgr ) ? sb.append( value ) : sb.append( coercionMgr.makeStringFrom( value ) );
+  }
+
+  public static StringBuilder append( StringBuilder sb, float value )
+  {
+    ICoercionManager coercionMgr = CommonServices.getCoercionManager();
+    return isStandard( coercionMgr ) ? sb.append( value ) : sb.append( coercionMgr.makeStringFrom( value ) );
+  }
+
+  public static StringBuilder append( StringBuilder sb, double value )
+  {
+    ICoercionManager coercionMgr = CommonServices.getCoercionManager();
+    return isStandard( coercionMgr ) ? sb.append( value ) : sb.append( coercionMgr.makeStringFrom( value ) );
+  }
+
+  private static boolean isStandard( ICoercionManager coercionMgr )
+  {
+    // Exactly the standard class, a subclass may override makeStringFrom()
+    return coercionMgr.getClass() == StandardCoercionManager.class;
+  }
+
   public static void invokeUnlockOrDisposeOrCloseMethod( Object o )
   {
     if( o != null )
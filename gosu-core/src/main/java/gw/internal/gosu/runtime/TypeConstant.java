@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.runtime;
+
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+
+/**
+ * A type looked up by compiled code, together with the refresh checksum in effect before the
+ * lookup.  Compiled classes keep one of these per constant type in a volatile static field, so
+ * a thread reading the field sees either no value or a type paired with its own checksum.
+ */
+public final class TypeConstant {
+
+  private final int _iChecksum;
+  private final IType _type;
+
+  /**
+   * @param iChecksum the value of {@link TypeSystem#getSingleRefreshChecksum()} read before
+   *   <code>type</code> was looked up
+   */
+  public TypeConstant( int iChecksum, IType type )
+  {
+    _iChecksum = iChecksum;
+    _type = type;
+  }
+
+  public IType getType()
+  {
+    return _type;
+  }
+
+  /**
+   * @return true if no type has been refreshed since this type was looked up
+   */
+  public boolean isCurrent()
+  {
+    return _iChecksum == TypeSystem.getSingleRefreshChecksum();
+  }
+}
@@ -26,6 +26,7 @@ import gw.lang.reflect.java.JavaTypes;
 import java.io.StringReader;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class GosuTemplateType extends GosuProgram implements IGosuTemplateInternal
@@ -120,7 +121,7 @@ public class GosuTemplateType extends GosuProgram implements IGosuTemplateIntern
           TemplateRenderFunctionSymbol forwardFs;
           try
           {
-            forwardFs = new TemplateRenderFunctionSymbol( pThis, symTable, dfs, mi, this, getParameterTypes( "render".equals( strMethodName ) ) );
+            forwardFs = new TemplateRenderFunctionSymbol( pThis, symTable, dfs, mi, this, getParameterTypes( getLeadingParameterTypes( mi ) ) );
           }
           finally
           {
@@ -135,13 +136,35 @@ public class GosuTemplateType extends GosuProgram implements IGosuTemplateIntern
 
   public IType[] getParameterTypes( boolean bWithWriter )
   {
-    ITemplateGenerator templateGenerator = getTemplateGenerator();
-    List<ISymbol> params = templateGenerator.getParameters();
-    List<IType> paramTypes = new ArrayList<IType>();
-    if( bWithWriter )
+    return getParameterTypes( bWithWriter
+                              ? Collections.<IType>singletonList( JavaTypes.getJreType( Writer.class ) )
+                              : Collections.<IType>emptyList() );
+  }
+
+  /**
+   * The renderer's parameters between the template type and the template
+   * arguments, e.g. the Writer of render() or the OutputStream and Charset of
+   * renderToStream(), lead the template's own parameters in the entry point.
+   */
+  private static List<IType> getLeadingParameterTypes( IMethodInfo rendererMethod )
+  {
+    IParameterInfo[] params = rendererMethod.getParameters();
+    int iEnd = params.length > 1 && params[params.length - 1].getFeatureType().isArray()
+               ? params.length - 1
+               : params.length;
+    List<IType> leadingTypes = new ArrayList<IType>();
+    for( int i = 1; i < iEnd; i++ )
     {
-      paramTypes.add( JavaTypes.getJreType( Writer.class ) );
+      leadingTypes.add( params[i].getFeatureType() );
     }
+    return leadingTypes;
+  }
+
+  private IType[] getParameterTypes( List<IType> leadingTypes )
+  {
+    ITemplateGenerator templateGenerator = getTemplateGenerator();
+    List<ISymbol> params = templateGenerator.getParameters();
+    List<IType> paramTypes = new ArrayList<IType>( leadingTypes );
     for( int i = 0; i < params.size(); i++ )
     {
       ISymbol symbol = params.get( i );
@@ -51,8 +51,14 @@ import gw.util.CaseInsensitiveHashMap;
 import gw.util.concurrent.LockingLazyVar;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +69,8 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Collection;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A template generator employing Gosu.
@@ -119,18 +127,25 @@ public class TemplateGenerator implements ITemplateGenerator
   }
     
   private static ThreadLocal<Stack<WriterEscaperPair>> g_writerEscaperPair = new ThreadLocal<Stack<WriterEscaperPair>>();
+  private static final AtomicInteger g_iAnonymousTemplates = new AtomicInteger();
 
   private String _fqn;
   private String _scriptStr;
   private List<ISymbol> _params = new ArrayList<ISymbol>();
 
-  private Program _program;
-  private ISymbolTable _compileTimeSymbolTable;
+  // Published last, after _compileTimeSymbolTable, so renders can read both without locking
+  private volatile Program _program;
+  private volatile ISymbolTable _compileTimeSymbolTable;
+  private volatile List<String> _staticChunks = Collections.emptyList();
+  private final ConcurrentHashMap<Charset, Map<String, byte[]>> _encodedChunks = new ConcurrentHashMap<Charset, Map<String, byte[]>>();
   private IType _supertype;
   private boolean _useStudioEditorParser;
   private boolean _disableAlternative;
   private boolean _hasOwnSymbolScope;
   private ContextInferenceManager _ctxInferenceMgr;
+  private String _strSectionIdPrefix;
+  private int _iCacheSections;
+  private int _iOpenCacheSections;
 
   /**
    * Generates a template of any format having embedded Gosu.
@@ -183,7 +198,11 @@ public class TemplateGenerator implements ITemplateGenerator
     return _program;
   }
 
-  private static WriterEscaperPair getWriterEscaperPair()
+  /**
+   * For internal use only!! Compiled templates load this once per method and
+   * print through it directly.
+   */
+  public static WriterEscaperPair getWriterEscaperPair()
   {
     Stack stack = g_writerEscaperPair.get();
     if( stack != null && stack.size() > 0 )
@@ -200,6 +219,10 @@ public class TemplateGenerator implements ITemplateGenerator
     {
       g_writerEscaperPair.set( stack = new Stack<WriterEscaperPair>() );
     }
+    else if( stack.size() > 0 )
+    {
+      pair.inheritCaptures( stack.peek() );
+    }
     stack.push( pair );
   }
 
@@ -233,6 +256,51 @@ public class TemplateGenerator implements ITemplateGenerator
    * @throws TemplateParseException
    */
   public void execute( Writer writer, StringEscaper escaper, ISymbolTable symTable) throws TemplateParseException
+  {
+    execute( new WriterEscaperPair( writer, escaper ), symTable );
+  }
+
+  /**
+   * Renders to bytes. Static template text is encoded once per charset and
+   * written as is, only expression output is encoded per render. Scriptlets
+   * that write to a writer should use {@link #getEncodingWriter}.
+   *
+   * @throws TemplateParseException
+   */
+  public void execute( OutputStream out, Charset charset, StringEscaper escaper, ISymbolTable symTable ) throws TemplateParseException
+  {
+    EncodingWriter writer = new EncodingWriter( out, charset );
+    boolean bRendered = false;
+    try
+    {
+      executeEncoded( writer, escaper, symTable );
+      bRendered = true;
+    }
+    finally
+    {
+      writer.finish( bRendered );
+    }
+  }
+
+  /**
+   * Renders through an encoding writer the caller also hands to scriptlets, so the
+   * writer's pending output and pre-encoded template text stay in order.
+   */
+  void executeEncoded( EncodingWriter writer, StringEscaper escaper, ISymbolTable symTable ) throws TemplateParseException
+  {
+    execute( new OutputStreamEscaperPair( this, writer, escaper ), symTable );
+  }
+
+  /**
+   * @return a writer that encodes straight to the stream without buffering, so
+   *   what it writes stays in order with pre-encoded template text
+   */
+  public static Writer getEncodingWriter( OutputStream out, Charset charset )
+  {
+    return new EncodingWriter( out, charset );
+  }
+
+  private void execute( WriterEscaperPair pair, ISymbolTable symTable ) throws TemplateParseException
   {
     symTable.pushScope();
     String strCompiledSource = null;
@@ -242,26 +310,34 @@ public class TemplateGenerator implements ITemplateGenerator
       if(_supertype != null) {
         symTable.putSymbol(new Symbol("this", _supertype, null));
       }
-      pushWriterEscaperPair( new WriterEscaperPair(writer, escaper) );
+      pushWriterEscaperPair( pair );
       try
       {
-        synchronized (this) {
-          if( _program == null )
-          {
-            List<TemplateParseException> exceptions = new ArrayList<TemplateParseException>();
-            strCompiledSource = transformTemplate(_scriptStr, exceptions);
-            if (!exceptions.isEmpty()) {
-              throw exceptions.get(0);
-            }
-            _program = compile( strCompiledSource, symTable, new HashMap<CaseInsensitiveCharSequence, Set<IFunctionSymbol>>(), null, null, null );
-            if( _fqn == null )
+        Program program = _program;
+        if( program == null )
+        {
+          synchronized (this) {
+            program = _program;
+            if( program == null )
             {
-              _program.getGosuProgram().setThrowaway( true );
+              List<TemplateParseException> exceptions = new ArrayList<TemplateParseException>();
+              List<String> staticChunks = new ArrayList<String>();
+              strCompiledSource = transformTemplate(_scriptStr, exceptions, staticChunks);
+              if (!exceptions.isEmpty()) {
+                throw exceptions.get(0);
+              }
+              program = compile( strCompiledSource, symTable, new HashMap<CaseInsensitiveCharSequence, Set<IFunctionSymbol>>(), null, null, null );
+              if( _fqn == null )
+              {
+                program.getGosuProgram().setThrowaway( true );
+              }
+              _compileTimeSymbolTable = symTable.copy();
+              _staticChunks = staticChunks;
+              _program = program;
             }
-            _compileTimeSymbolTable = symTable.copy();
           }
         }
-        _program.evaluate(extractExternalSymbols( _compileTimeSymbolTable, symTable ));
+        program.evaluate(extractExternalSymbols( _compileTimeSymbolTable, symTable ));
       }
       finally
       {
@@ -297,7 +373,8 @@ public class TemplateGenerator implements ITemplateGenerator
         if( _program == null )
         {
           List<TemplateParseException> exceptions = new ArrayList<TemplateParseException>();
-          strCompiledSource = transformTemplate(_scriptStr, exceptions);
+          List<String> staticChunks = new ArrayList<String>();
+          strCompiledSource = transformTemplate(_scriptStr, exceptions, staticChunks);
           if (!exceptions.isEmpty()) {
             throw exceptions.get(0);
           }
@@ -305,8 +382,10 @@ public class TemplateGenerator implements ITemplateGenerator
             Symbol s = new Symbol( param.getName(), param.getType(), null );
             symTable.putSymbol(s);
           }
-          _program = compile( strCompiledSource, symTable, dfsDeclByName, typeUsesMap, blocks, ctxInferenceMgr );
+          Program program = compile( strCompiledSource, symTable, dfsDeclByName, typeUsesMap, blocks, ctxInferenceMgr );
           _compileTimeSymbolTable = symTable.copy();
+          _staticChunks = staticChunks;
+          _program = program;
         }
       }
 
@@ -497,14 +576,19 @@ public class TemplateGenerator implements ITemplateGenerator
 
   public List<TemplateParseException> getTemplateSyntaxProblems() {
     List<TemplateParseException> exceptions = new ArrayList<TemplateParseException>();
-    transformTemplate(_scriptStr, exceptions);
+    // The transform resets the params and cache section counts compiling reads
+    synchronized (this) {
+      transformTemplate(_scriptStr, exceptions, null);
+    }
     return exceptions;
   }
 
   @SuppressWarnings("ThrowableInstanceNeverThrown")
-  private String transformTemplate(String strSource, List<TemplateParseException> exceptions)
+  private String transformTemplate(String strSource, List<TemplateParseException> exceptions, List<String> staticChunks)
   {
     _params.clear();
+    _iCacheSections = 0;
+    _iOpenCacheSections = 0;
     StringBuilder strTarget = new StringBuilder(strSource.length());
     strSource = strip( strSource, COMMENT_BEGIN, COMMENT_END );
     int iIndex = 0;
@@ -515,11 +599,11 @@ public class TemplateGenerator implements ITemplateGenerator
       if( iIndex2 >= 0 || altIndex2 >= 0 ) {
         if (iIndex2 >= 0 && (altIndex2 < 0 || iIndex2 < altIndex2)) {
           if (iIndex2 > 0 && strSource.charAt(iIndex2 - 1) == '\\') {
-            addText(strTarget, strSource.substring(iIndex, iIndex2 - 1));
-            addText(strTarget, SCRIPTLET_BEGIN.substring(0, 1));
+            addText(strTarget, strSource.substring(iIndex, iIndex2 - 1), staticChunks);
+            addText(strTarget, SCRIPTLET_BEGIN.substring(0, 1), staticChunks);
             iIndex = iIndex2 + 1;
           } else {
-            addText(strTarget, strSource.substring(iIndex, iIndex2));
+            addText(strTarget, strSource.substring(iIndex, iIndex2), staticChunks);
             iIndex = iIndex2 + SCRIPTLET_BEGIN_LEN;
             if (iIndex < strSource.length()) {
               boolean bExpression = strSource.charAt(iIndex) == EXPRESSION_SUFFIX;
@@ -542,7 +626,7 @@ public class TemplateGenerator implements ITemplateGenerator
                 try {
                   int iLineNumber = GosuStringUtil.getLineNumberForIndex(strSource, iIndex);
                   int iColumn = getColumnForIndex(strSource, iIndex);
-                  processDirective(strScript, iLineNumber, iColumn, iIndex);
+                  processDirective(strTarget, strScript, iLineNumber, iColumn, iIndex);
                 } catch (TemplateParseException e) {
                   exceptions.add(e);
                 }
@@ -554,16 +638,16 @@ public class TemplateGenerator implements ITemplateGenerator
             iIndex = iIndex2 + SCRIPTLET_END_LEN;
           }
         } else if (_disableAlternative && altIndex2 > 0 && strSource.charAt(altIndex2 - 1) != '\\') {
-          addText(strTarget, strSource.substring(iIndex, altIndex2 - 1));
-          addText(strTarget, "\\" + ALTERNATE_EXPRESSION_BEGIN.substring(0, 1));
+          addText(strTarget, strSource.substring(iIndex, altIndex2 - 1), staticChunks);
+          addText(strTarget, "\\" + ALTERNATE_EXPRESSION_BEGIN.substring(0, 1), staticChunks);
           iIndex = altIndex2 + 1;
         } else {
           if (altIndex2 > 0 && strSource.charAt(altIndex2 - 1) == '\\') {
-            addText(strTarget, strSource.substring(iIndex, altIndex2 - 1));
-            addText(strTarget, ALTERNATE_EXPRESSION_BEGIN.substring(0, 1));
+            addText(strTarget, strSource.substring(iIndex, altIndex2 - 1), staticChunks);
+            addText(strTarget, ALTERNATE_EXPRESSION_BEGIN.substring(0, 1), staticChunks);
             iIndex = altIndex2 + 1;
           } else {
-            addText(strTarget, strSource.substring(iIndex, altIndex2));
+            addText(strTarget, strSource.substring(iIndex, altIndex2), staticChunks);
             iIndex = altIndex2 + ALTERNATE_EXPRESSION_BEGIN_LEN;
 
             altIndex2 = strSource.indexOf(ALTERNATE_EXPRESSION_END, iIndex);
@@ -596,17 +680,40 @@ public class TemplateGenerator implements ITemplateGenerator
       }
       else
       {
-        addText( strTarget, strSource.substring( iIndex ) );
+        addText( strTarget, strSource.substring( iIndex ), staticChunks );
         break;
       }
     }
 
+    if (_iOpenCacheSections > 0) {
+      int iLineNumber = GosuStringUtil.getLineNumberForIndex(strSource, strSource.length() - 1);
+      int iColumn = getColumnForIndex(strSource, strSource.length() - 1);
+      exceptions.add(new TemplateParseException(Res.MSG_TEMPLATE_UNBALANCED_CACHE_DIRECTIVE, iLineNumber, iColumn, strSource.length(), "endcache"));
+    }
     return strTarget.toString();
   }
 
-  private void processDirective(String strScript, int lineNumber, int column, int offset) throws TemplateParseException {
+  private void processDirective(StringBuilder strTarget, String strScript, int lineNumber, int column, int offset) throws TemplateParseException {
     strScript = strScript.trim();
-    if(strScript.startsWith("params")) {
+    if(isDirective(strScript, "endcache")) {
+      if (_iOpenCacheSections == 0) {
+        throw new TemplateParseException(Res.MSG_TEMPLATE_UNBALANCED_CACHE_DIRECTIVE, lineNumber, column, offset, "cache");
+      }
+      _iOpenCacheSections--;
+      addCacheSectionEnd(strTarget);
+    } else if(isDirective(strScript, "cache")) {
+      int iOpeningParen = strScript.indexOf( "(" );
+      int iClosingParen = strScript.lastIndexOf( ")" );
+      if( iOpeningParen < 0 || iClosingParen < iOpeningParen ||
+          strScript.substring( "cache".length(), iOpeningParen ).trim().length() > 0 ||
+          strScript.substring( iOpeningParen + 1, iClosingParen ).trim().length() == 0 ) {
+        throw new TemplateParseException(Res.MSG_TEMPLATE_UNKNOWN_DIRECTIVE, lineNumber, column, offset, strScript);
+      }
+      _iOpenCacheSections++;
+      addCacheSectionBegin(strTarget, strScript.substring(iOpeningParen + 1, iClosingParen));
+    } else if(strScript.equals("flush")) {
+      addFlush(strTarget);
+    } else if(strScript.startsWith("params")) {
       if(!_params.isEmpty()) {
         throw new TemplateParseException(Res.MSG_TEMPLATE_MULTIPLE_PARAMS, lineNumber, column, offset);
       }
@@ -653,6 +760,10 @@ public class TemplateGenerator implements ITemplateGenerator
     }
   }
 
+  private static boolean isDirective(String strScript, String strName) {
+    return strScript.startsWith(strName) &&
+           (strScript.length() == strName.length() || !Character.isJavaIdentifierPart(strScript.charAt(strName.length())));
+  }
 
   private String strip( String strSource, String strBeginDelim, String strEndDelim )
   {
@@ -681,13 +792,50 @@ public class TemplateGenerator implements ITemplateGenerator
     return strTarget;
   }
 
-  private void addText( StringBuilder strTarget, String strText ) {
+  private void addText( StringBuilder strTarget, String strText, List<String> staticChunks ) {
     if (!GosuStringUtil.isEmpty(strText)) {
+      if (staticChunks != null) {
+        staticChunks.add(strText);
+      }
       strText = escapeForGosuStringLiteral(strText);
       strTarget.append(PRINT_METHOD).append("((\"").append(strText).append("\") as String, false)\r\n");
     }
   }
 
+  /**
+   * A cached section compiles to a block that only runs when the section isn't
+   * cached. The directive's arguments are passed to TemplateSectionCache.begin()
+   * as is, so the optional time to live picks the overload.
+   */
+  private void addCacheSectionBegin( StringBuilder strTarget, String strArgs )
+  {
+    if( _strSectionIdPrefix == null )
+    {
+      _strSectionIdPrefix = _fqn != null ? _fqn : "<template " + g_iAnonymousTemplates.incrementAndGet() + ">";
+    }
+    String strSectionId = escapeForGosuStringLiteral( _strSectionIdPrefix + "#" + _iCacheSections++ );
+    strTarget.append("if( ").append(TemplateSectionCache.class.getName()).append(".begin( \"").append(strSectionId).append("\", ").append(strArgs).append(" ) ) {\r\n")
+      .append("try {\r\n");
+  }
+
+  private void addCacheSectionEnd( StringBuilder strTarget )
+  {
+    strTarget.append(TemplateSectionCache.class.getName()).append(".commit()\r\n")
+      .append("} finally {\r\n")
+      .append(TemplateSectionCache.class.getName()).append(".end()\r\n")
+      .append("}\r\n")
+      .append("}\r\n");
+  }
+
+  /**
+   * Output rendered so far is sent on to the template's writer at a flush
+   * directive, e.g. so a client can start on the head of a page while the rest renders.
+   */
+  private void addFlush( StringBuilder strTarget )
+  {
+    strTarget.append(TemplateGenerator.class.getName()).append(".flushContent()\r\n");
+  }
+
   private void addExpression( StringBuilder strTarget, String strExpression )
   {
     strTarget.append(PRINT_METHOD).append("((").append(strExpression).append(") as String, true)\r\n");
@@ -729,23 +877,15 @@ public class TemplateGenerator implements ITemplateGenerator
    */
   public static void printContent( String strContent , boolean escape )
   {
-    try
-    {
-      WriterEscaperPair pair = getWriterEscaperPair();
-      Writer writer = pair._writer;
-
-      if (escape && pair._esc != null) {
-        strContent = pair._esc.escape(strContent);
-      } else if (pair._esc instanceof IEscapesAllContent) {
-        strContent = ((IEscapesAllContent)pair._esc).escapeBody(strContent);
-      }
+    getWriterEscaperPair().print( strContent, escape );
+  }
 
-      writer.write( strContent == null ? "null" : strContent );
-    }
-    catch( IOException e )
-    {
-      throw new RuntimeException( e );
-    }
+  /**
+   * For internal use only!!
+   */
+  public static void flushContent()
+  {
+    getWriterEscaperPair().flush();
   }
 
   public void setDisableAlternative(boolean disableAlternative) {
@@ -757,13 +897,368 @@ public class TemplateGenerator implements ITemplateGenerator
     _ctxInferenceMgr = ctxInferenceMgr.copy();
   }
 
-  private static class WriterEscaperPair{
-    Writer _writer;
-    StringEscaper _esc;
+  /**
+   * For internal use only!!
+   */
+  public static class WriterEscaperPair{
+    private final Writer _writer;
+    private final StringEscaper _esc;
+    private final IEscapesAllContent _bodyEsc;
+    // Cached sections being rendered, innermost last.  Shared with nested templates rendering to the same sink
+    private List<TemplateSectionCache.SectionCapture> _captures;
     public WriterEscaperPair(Writer writer, StringEscaper esc) {
       _writer = writer;
       _esc = esc;
+      _bodyEsc = esc instanceof IEscapesAllContent ? (IEscapesAllContent)esc : null;
+    }
+
+    public void print( String strContent, boolean escape )
+    {
+      try
+      {
+        write( escape( strContent, escape ) );
+      }
+      catch( IOException e )
+      {
+        throw new RuntimeException( e );
+      }
+    }
+
+    String escape( String strContent, boolean escape )
+    {
+      if (escape && _esc != null) {
+        strContent = _esc.escape(strContent);
+      } else if (_bodyEsc != null) {
+        strContent = _bodyEsc.escapeBody(strContent);
+      }
+      return strContent == null ? "null" : strContent;
+    }
+
+    boolean escapesBody()
+    {
+      return _bodyEsc != null;
+    }
+
+    void write( String strContent ) throws IOException
+    {
+      _writer.write( strContent );
+      if( _captures != null )
+      {
+        for( int i = 0; i < _captures.size(); i++ )
+        {
+          _captures.get( i ).append( strContent );
+        }
+      }
+    }
+
+    public void flush()
+    {
+      try
+      {
+        _writer.flush();
+      }
+      catch( IOException e )
+      {
+        throw new RuntimeException( e );
+      }
+    }
+
+    final void captureBytes( byte[] bytes, Charset charset )
+    {
+      if( _captures != null )
+      {
+        for( int i = 0; i < _captures.size(); i++ )
+        {
+          _captures.get( i ).append( bytes, charset );
+        }
+      }
+    }
+
+    void writeCached( TemplateSectionCache.CachedSection section )
+    {
+      try
+      {
+        write( section.getText() );
+      }
+      catch( IOException e )
+      {
+        throw new RuntimeException( e );
+      }
+    }
+
+    final void startCapture( TemplateSectionCache.SectionCapture capture )
+    {
+      if( _captures == null )
+      {
+        _captures = new ArrayList<TemplateSectionCache.SectionCapture>( 2 );
+      }
+      _captures.add( capture );
+    }
+
+    final TemplateSectionCache.SectionCapture peekCapture()
+    {
+      return _captures.get( _captures.size() - 1 );
+    }
+
+    final void endCapture()
+    {
+      _captures.remove( _captures.size() - 1 );
+    }
+
+    /**
+     * @return the charset captured output is kept in, null to keep it as text
+     */
+    Charset getCaptureCharset()
+    {
+      return null;
+    }
+
+    final Class getEscaperClass()
+    {
+      return _esc == null ? null : _esc.getClass();
+    }
+
+    /**
+     * @return where output finally goes, seen through an encoding writer
+     */
+    Object getSink()
+    {
+      return _writer instanceof EncodingWriter ? ((EncodingWriter)_writer)._out : _writer;
+    }
+
+    /**
+     * A template rendered from a cached section of another template to the same
+     * sink is part of that section's output.
+     */
+    final void inheritCaptures( WriterEscaperPair outer )
+    {
+      if( outer._captures != null && !outer._captures.isEmpty() && outer.getSink() == getSink() )
+      {
+        _captures = outer._captures;
+      }
+    }
+  }
+
+  private static final class OutputStreamEscaperPair extends WriterEscaperPair {
+    private final TemplateGenerator _template;
+    private final EncodingWriter _encodingWriter;
+    private Map<String, byte[]> _encodedChunks;
+
+    OutputStreamEscaperPair( TemplateGenerator template, EncodingWriter writer, StringEscaper esc ) {
+      super( writer, esc );
+      _template = template;
+      _encodingWriter = writer;
+    }
+
+    @Override
+    public void print( String strContent, boolean escape )
+    {
+      // Raw bytes can't complete a surrogate the writer holds back, that text goes through the encoder
+      if( !escape && !escapesBody() && !_encodingWriter.isMidCharacter() )
+      {
+        if( _encodedChunks == null )
+        {
+          // Looked up here rather than in the constructor because the template may not be compiled yet
+          _encodedChunks = _template.getEncodedChunks( _encodingWriter._charset );
+        }
+        byte[] bytes = _encodedChunks.get( strContent );
+        if( bytes != null )
+        {
+          try
+          {
+            _encodingWriter.writeEncoded( bytes );
+          }
+          catch( IOException e )
+          {
+            throw new RuntimeException( e );
+          }
+          captureBytes( bytes, _encodingWriter._charset );
+          return;
+        }
+      }
+      super.print( strContent, escape );
+    }
+
+    @Override
+    void writeCached( TemplateSectionCache.CachedSection section )
+    {
+      if( _encodingWriter.isMidCharacter() )
+      {
+        super.writeCached( section );
+        return;
+      }
+      try
+      {
+        byte[] bytes = section.getBytes( _encodingWriter._charset );
+        _encodingWriter.writeEncoded( bytes );
+        captureBytes( bytes, _encodingWriter._charset );
+      }
+      catch( IOException e )
+      {
+        throw new RuntimeException( e );
+      }
+    }
+
+    @Override
+    Charset getCaptureCharset()
+    {
+      return _encodingWriter._charset;
+    }
+  }
+
+  /**
+   * Encodes with one encoder across writes, so a surrogate pair split between two
+   * writes is still encoded as one character.  Only a trailing high surrogate is held
+   * back until the next write; everything else goes to the stream right away.
+   */
+  static final class EncodingWriter extends Writer {
+    private final OutputStream _out;
+    private final Charset _charset;
+    private final CharsetEncoder _encoder;
+    private final ByteBuffer _bytes = ByteBuffer.allocate( 1024 );
+    private CharBuffer _leftover;
+
+    EncodingWriter( OutputStream out, Charset charset ) {
+      _out = out;
+      _charset = charset;
+      _encoder = charset.newEncoder()
+        .onMalformedInput( CodingErrorAction.REPLACE )
+        .onUnmappableCharacter( CodingErrorAction.REPLACE );
+    }
+
+    @Override
+    public void write( char[] cbuf, int off, int len ) throws IOException
+    {
+      encode( CharBuffer.wrap( cbuf, off, len ), false );
+    }
+
+    @Override
+    public void write( String str, int off, int len ) throws IOException
+    {
+      encode( CharBuffer.wrap( str, off, off + len ), false );
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+      _out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      finish();
+      _out.close();
+    }
+
+    /**
+     * Encodes whatever is held back and flushes, leaving the stream open
+     */
+    void finish() throws IOException
+    {
+      encode( CharBuffer.allocate( 0 ), true );
+      _out.flush();
+    }
+
+    /**
+     * Finishes after a render. A failure here is only reported if the render
+     * itself succeeded, so it doesn't hide the render's own exception.
+     */
+    void finish( boolean bRendered )
+    {
+      try
+      {
+        finish();
+      }
+      catch( IOException e )
+      {
+        if( bRendered )
+        {
+          throw new RuntimeException( e );
+        }
+      }
+    }
+
+    /**
+     * @return true if a high surrogate is held back waiting for the rest of its character
+     */
+    boolean isMidCharacter()
+    {
+      return _leftover != null;
+    }
+
+    void writeEncoded( byte[] bytes ) throws IOException
+    {
+      _out.write( bytes );
+    }
+
+    private void encode( CharBuffer chars, boolean bEndOfInput ) throws IOException
+    {
+      if( _leftover != null )
+      {
+        CharBuffer joined = CharBuffer.allocate( _leftover.remaining() + chars.remaining() );
+        joined.put( _leftover ).put( chars ).flip();
+        chars = joined;
+        _leftover = null;
+      }
+      // Errors are replaced, so the encoder only stops when the buffer is full or the input runs out
+      while( _encoder.encode( chars, _bytes, bEndOfInput ).isOverflow() )
+      {
+        drain();
+      }
+      if( bEndOfInput )
+      {
+        while( _encoder.flush( _bytes ).isOverflow() )
+        {
+          drain();
+        }
+        _encoder.reset();
+      }
+      else if( chars.hasRemaining() )
+      {
+        _leftover = CharBuffer.allocate( chars.remaining() );
+        _leftover.put( chars ).flip();
+      }
+      drain();
+    }
+
+    private void drain() throws IOException
+    {
+      _out.write( _bytes.array(), 0, _bytes.position() );
+      _bytes.clear();
+    }
+  }
+
+  /**
+   * Static text keyed by the string the compiled template prints it with. The
+   * strings are constants in the generated class, which the JVM interns, so the
+   * keys are interned too: lookups hit cached hash codes and String.equals()
+   * returns on its identity check.
+   */
+  private Map<String, byte[]> getEncodedChunks( Charset charset )
+  {
+    Map<String, byte[]> encodedChunks = _encodedChunks.get( charset );
+    if( encodedChunks == null )
+    {
+      List<String> staticChunks = _staticChunks;
+      encodedChunks = new HashMap<String, byte[]>( staticChunks.size() * 2 );
+      for( String chunk : staticChunks )
+      {
+        // A chunk that starts or ends inside a surrogate pair is encoded with its neighbors instead
+        if( chunk.length() > 0 &&
+            !Character.isLowSurrogate( chunk.charAt( 0 ) ) &&
+            !Character.isHighSurrogate( chunk.charAt( chunk.length() - 1 ) ) )
+        {
+          encodedChunks.put( chunk.intern(), chunk.getBytes( charset ) );
+        }
+      }
+      Map<String, byte[]> existing = _encodedChunks.putIfAbsent( charset, encodedChunks );
+      if( existing != null )
+      {
+        encodedChunks = existing;
+      }
     }
+    return encodedChunks;
   }
 
   public boolean isValid() {
@@ -18,8 +18,12 @@ import gw.lang.reflect.gs.ITemplateType;
 import gw.lang.reflect.java.JavaTypes;
 import gw.util.Stack;
 
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.List;
 
 /**
@@ -45,6 +49,39 @@ public abstract class TemplateRenderer
   };
 
   public static void render( ITemplateType type, Writer writer, Object[] args )
+  {
+    writeTemplate( type, writer, null, args );
+  }
+
+  /**
+   * Renders to a byte stream. Static template text is encoded once per charset
+   * instead of on every render.
+   */
+  public static void renderToStream( ITemplateType type, OutputStream out, Charset charset, Object[] args )
+  {
+    TemplateGenerator.EncodingWriter writer = new TemplateGenerator.EncodingWriter( out, charset );
+    boolean bRendered = false;
+    try
+    {
+      writeTemplate( type, writer, writer, args );
+      bRendered = true;
+    }
+    finally
+    {
+      writer.finish( bRendered );
+    }
+  }
+
+  /**
+   * Renders to a channel, see {@link #renderToStream}.
+   */
+  public static void renderToChannel( ITemplateType type, WritableByteChannel channel, Charset charset, Object[] args )
+  {
+    renderToStream( type, Channels.newOutputStream( channel ), charset, args );
+  }
+
+  // Not named render*, every method with that prefix becomes an entry point on template types
+  private static void writeTemplate( ITemplateType type, Writer writer, TemplateGenerator.EncodingWriter encodingWriter, Object[] args )
   {
     ISymbolTable symbolTable;
     symbolTable = new StandardSymbolTable();
@@ -67,7 +104,14 @@ public abstract class TemplateRenderer
       CompiledGosuClassSymbolTable.instance().pushCompileTimeSymbolTable( symbolTable );
       try
       {
-        templateGenerator.execute( writer, currentObserver.getEscaper(), CompiledGosuClassSymbolTable.instance() );
+        if( encodingWriter != null && templateGenerator instanceof TemplateGenerator )
+        {
+          ((TemplateGenerator)templateGenerator).executeEncoded( encodingWriter, currentObserver.getEscaper(), CompiledGosuClassSymbolTable.instance() );
+        }
+        else
+        {
+          templateGenerator.execute( writer, currentObserver.getEscaper(), CompiledGosuClassSymbolTable.instance() );
+        }
       }
       catch( TemplateParseException e )
       {
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.template;
+
+import gw.lang.reflect.AbstractTypeSystemListener;
+import gw.lang.reflect.ITypeLoaderListener;
+import gw.lang.reflect.RefreshRequest;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.TypeSystemShutdownListener;
+import gw.util.concurrent.Cache;
+import gw.util.concurrent.LockingLazyVar;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Memoizes the output of template sections marked with the cache directive:
+ * <pre>
+ *   &lt;%@ cache( product.Id ) %&gt; ... &lt;%@ endcache %&gt;
+ *   &lt;%@ cache( user.Locale, 300 ) %&gt; ... &lt;%@ endcache %&gt;
+ * </pre>
+ * The first argument is the key, the section renders once per distinct key
+ * (and escaper) and is replayed from the cache afterwards. The optional second
+ * argument is a time to live in seconds, without it entries live until they
+ * are evicted or the type system is refreshed.
+ * <p/>
+ * A section is a block of its own, so variables declared inside it are not
+ * visible after the endcache directive. Only output printed by the template,
+ * or by templates it renders to the same writer, is cached. Text written
+ * directly to the writer from a scriptlet is not.
+ * <p/>
+ * The cache holds at most {@link #SIZE_PROPERTY} entries, 1000 by default.
+ */
+public class TemplateSectionCache
+{
+  public static final String SIZE_PROPERTY = "gosu.template.sectioncache.size";
+  private static final int DEFAULT_SIZE = 1000;
+
+  private static final ITypeLoaderListener INVALIDATOR = new AbstractTypeSystemListener() {
+    @Override
+    public void refreshedTypes( RefreshRequest request )
+    {
+      clear();
+    }
+
+    @Override
+    public void refreshed()
+    {
+      clear();
+    }
+  };
+
+  // Each key maps to a slot that holds the section once it has rendered
+  private static final LockingLazyVar<Cache<SectionKey, AtomicReference<CachedSection>>> CACHE = new LockingLazyVar<Cache<SectionKey, AtomicReference<CachedSection>>>() {
+    protected Cache<SectionKey, AtomicReference<CachedSection>> init() {
+      // Held strongly by INVALIDATOR above
+      TypeSystem.addTypeLoaderListenerAsWeakRef( INVALIDATOR );
+      return new Cache<SectionKey, AtomicReference<CachedSection>>( "Template Section Cache", Integer.getInteger( SIZE_PROPERTY, DEFAULT_SIZE ),
+                                                                    new Cache.MissHandler<SectionKey, AtomicReference<CachedSection>>() {
+                                                                      public AtomicReference<CachedSection> load( SectionKey key ) {
+                                                                        return new AtomicReference<CachedSection>();
+                                                                      }
+                                                                    } );
+    }
+  };
+  static
+  {
+    TypeSystem.addShutdownListener( new TypeSystemShutdownListener() {
+      public void shutdown() {
+        CACHE.clear();
+      }
+    } );
+  }
+
+  private TemplateSectionCache()
+  {
+  }
+
+  /**
+   * For internal use only!!
+   */
+  public static boolean begin( String strSectionId, Object key )
+  {
+    return begin( strSectionId, key, 0 );
+  }
+
+  /**
+   * For internal use only!! Writes the cached output of the section and returns
+   * false, or starts capturing the output of the section and returns true.
+   */
+  public static boolean begin( String strSectionId, Object key, long lTtlSeconds )
+  {
+    TemplateGenerator.WriterEscaperPair pair = TemplateGenerator.getWriterEscaperPair();
+    AtomicReference<CachedSection> slot = CACHE.get().get( new SectionKey( strSectionId, key, pair.getEscaperClass() ) );
+    CachedSection section = slot.get();
+    long lNow = System.currentTimeMillis();
+    if( section != null && !section.isExpired( lNow ) )
+    {
+      pair.writeCached( section );
+      return false;
+    }
+    long lExpires = lTtlSeconds > 0 ? lNow + lTtlSeconds * 1000 : 0;
+    pair.startCapture( new SectionCapture( slot, lExpires, pair.getCaptureCharset() ) );
+    return true;
+  }
+
+  /**
+   * For internal use only!! Stores the output captured since the matching
+   * {@link #begin}. Not called when the section completes abruptly.
+   */
+  public static void commit()
+  {
+    // A clear() since begin() dropped the slot from the cache, so a stale section stored here is never read
+    SectionCapture capture = TemplateGenerator.getWriterEscaperPair().peekCapture();
+    capture._slot.set( capture.toCachedSection() );
+  }
+
+  /**
+   * For internal use only!!
+   */
+  public static void end()
+  {
+    TemplateGenerator.getWriterEscaperPair().endCapture();
+  }
+
+  /**
+   * Discards all cached sections. Called whenever types are refreshed.
+   */
+  public static void clear()
+  {
+    if( CACHE.isLoaded() )
+    {
+      CACHE.get().clear();
+    }
+  }
+
+  private static final class SectionKey
+  {
+    private final String _strSectionId;
+    private final Object _key;
+    private final Class _escaperClass;
+    private final int _iHash;
+
+    SectionKey( String strSectionId, Object key, Class escaperClass )
+    {
+      _strSectionId = strSectionId;
+      _key = key;
+      _escaperClass = escaperClass;
+      int iHash = strSectionId.hashCode();
+      iHash = 31 * iHash + (key == null ? 0 : key.hashCode());
+      _iHash = 31 * iHash + (escaperClass == null ? 0 : escaperClass.hashCode());
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return _iHash;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+      if( this == o )
+      {
+        return true;
+      }
+      if( !(o instanceof SectionKey) )
+      {
+        return false;
+      }
+      SectionKey that = (SectionKey)o;
+      return _iHash == that._iHash &&
+             _strSectionId.equals( that._strSectionId ) &&
+             _escaperClass == that._escaperClass &&
+             (_key == null ? that._key == null : _key.equals( that._key ));
+    }
+  }
+
+  /**
+   * The output of a section, kept in the form it was rendered in: text when it
+   * was rendered to a writer, bytes when it was rendered to a stream.
+   */
+  static final class CachedSection
+  {
+    private final String _strText;
+    private final byte[] _bytes;
+    private final Charset _charset;
+    private final long _lExpires;
+
+    private CachedSection( String strText, byte[] bytes, Charset charset, long lExpires )
+    {
+      _strText = strText;
+      _bytes = bytes;
+      _charset = charset;
+      _lExpires = lExpires;
+    }
+
+    boolean isExpired( long lNow )
+    {
+      return _lExpires != 0 && lNow >= _lExpires;
+    }
+
+    String getText()
+    {
+      return _strText != null ? _strText : new String( _bytes, _charset );
+    }
+
+    byte[] getBytes( Charset charset )
+    {
+      return _bytes != null && _charset.equals( charset ) ? _bytes : getText().getBytes( charset );
+    }
+  }
+
+  /**
+   * Collects the output of a section while it renders. Output arrives as text or
+   * as already encoded bytes and is kept as text, or as bytes in the charset of
+   * the stream the section renders to.
+   */
+  static final class SectionCapture
+  {
+    private final AtomicReference<CachedSection> _slot;
+    private final long _lExpires;
+    private final Charset _charset;
+    private final StringBuilder _text;
+    private final ByteArrayOutputStream _bytes;
+
+    private SectionCapture( AtomicReference<CachedSection> slot, long lExpires, Charset charset )
+    {
+      _slot = slot;
+      _lExpires = lExpires;
+      _charset = charset;
+      _text = charset == null ? new StringBuilder() : null;
+      _bytes = charset == null ? null : new ByteArrayOutputStream();
+    }
+
+    void append( String strContent )
+    {
+      if( _text != null )
+      {
+        _text.append( strContent );
+      }
+      else
+      {
+        byte[] bytes = strContent.getBytes( _charset );
+        _bytes.write( bytes, 0, bytes.length );
+      }
+    }
+
+    void append( byte[] bytes, Charset charset )
+    {
+      if( _text != null )
+      {
+        _text.append( new String( bytes, charset ) );
+      }
+      else if( _charset.equals( charset ) )
+      {
+        _bytes.write( bytes, 0, bytes.length );
+      }
+      else
+      {
+        append( new String( bytes, charset ) );
+      }
+    }
+
+    CachedSection toCachedSection()
+    {
+      return _text != null
+             ? new CachedSection( _text.toString(), null, null, _lExpires )
+             : new CachedSection( null, _bytes.toByteArray(), _charset, _lExpires );
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu;
+
+import gw.lang.Gosu;
+import gw.lang.parser.GosuParserFactory;
+import gw.lang.parser.ParserOptions;
+import gw.lang.parser.StandardSymbolTable;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.util.GosuExceptionUtil;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+/**
+ * Starts Gosu once for the tests in this module, with the test classes directory on the
+ * classpath so the Gosu sources under src/test/resources can be loaded by name.
+ */
+public class GosuTestUtil
+{
+  private static boolean g_bInitialized;
+
+  private GosuTestUtil()
+  {
+  }
+
+  public static synchronized void initGosu()
+  {
+    if( g_bInitialized )
+    {
+      return;
+    }
+    try
+    {
+      File testClasses = new File( GosuTestUtil.class.getProtectionDomain().getCodeSource().getLocation().toURI() );
+      Gosu.init( Collections.singletonList( testClasses ) );
+    }
+    catch( Exception e )
+    {
+      throw GosuExceptionUtil.forceThrow( e );
+    }
+    g_bInitialized = true;
+  }
+
+  /**
+   * @return the value of a Gosu program, e.g. <code>return 1 + 1</code>
+   */
+  public static Object eval( String strProgram )
+  {
+    initGosu();
+    try
+    {
+      return GosuParserFactory.createProgramParser()
+        .parseProgramOnly( strProgram, new StandardSymbolTable( true ), new ParserOptions() )
+        .evaluate();
+    }
+    catch( Exception e )
+    {
+      throw GosuExceptionUtil.forceThrow( e );
+    }
+  }
+
+  /**
+   * Compiles and loads a Gosu class, then calls one of its static, no-argument functions.
+   */
+  public static Object invokeStatic( String strGosuClass, String strFunction )
+  {
+    Class cls = getBackingClass( strGosuClass );
+    try
+    {
+      Method method = cls.getMethod( strFunction );
+      return method.invoke( null );
+    }
+    catch( InvocationTargetException e )
+    {
+      throw GosuExceptionUtil.forceThrow( e.getCause() );
+    }
+    catch( Exception e )
+    {
+      throw GosuExceptionUtil.forceThrow( e );
+    }
+  }
+
+  public static Class getBackingClass( String strGosuClass )
+  {
+    initGosu();
+    IType type = TypeSystem.getByFullName( strGosuClass );
+    return ((IGosuClass)type).getBackingClass();
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.reflect.gs.ClassLoadingProfile;
+import gw.lang.reflect.gs.TypeWarmer;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+public class ClassLoadingProfileTest extends Assert {
+
+  private static final String PROFILED_CLASS = "gw.internal.gosu.compiler.ProfiledClass";
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void recordsDefinedClasses() throws IOException {
+    ClassLoadingProfile.Recorder recorder = ClassLoadingProfile.startRecording();
+    try {
+      assertEquals("run", GosuTestUtil.invokeStatic(PROFILED_CLASS, "run"));
+    } finally {
+      recorder.stop();
+    }
+    assertTrue(recorder.getTypeNames().contains(PROFILED_CLASS));
+
+    File profile = File.createTempFile("classloading", ".gsprofile");
+    try {
+      recorder.write(profile);
+      assertEquals(recorder.getTypeNames(), TypeWarmer.readTypeNames(profile));
+    } finally {
+      profile.delete();
+    }
+  }
+
+  @Test
+  public void stoppedRecorderRecordsNothing() {
+    ClassLoadingProfile.Recorder recorder = ClassLoadingProfile.startRecording();
+    recorder.stop();
+    GosuTestUtil.getBackingClass("gw.internal.gosu.compiler.CacheBase");
+    assertEquals(Collections.<String>emptyList(), recorder.getTypeNames());
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.compiler;
+
+import gw.fs.IFile;
+import gw.internal.gosu.GosuTestUtil;
+import gw.internal.gosu.ir.TransformingCompiler;
+import gw.internal.gosu.ir.transform.AbstractElementTransformer;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.util.StreamUtil;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class GosuClassBytecodeCacheTest extends Assert {
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  private static final String DEP = "gw.internal.gosu.compiler.CacheDep";
+  private static final String DEPENDENT = "gw.internal.gosu.compiler.CacheDependent";
+
+  @Test
+  public void readsReferencedClassesAndMethods() throws IOException {
+    Set<String> names = new LinkedHashSet<String>();
+    Set<String> methods = new LinkedHashSet<String>();
+    Set<String> strings = new LinkedHashSet<String>();
+    assertFalse(GosuClassBytecodeCache.readReferences(getClassBytes(Caller.class), names, methods, strings));
+    assertTrue(names.contains("gw/internal/gosu/ir/transform/AbstractElementTransformer"));
+    assertTrue(names.contains("java/lang/reflect/Field"));
+    assertTrue(methods.contains("gw/internal/gosu/ir/transform/AbstractElementTransformer.getDeclaredField"));
+    assertTrue(strings.contains("x"));
+  }
+
+  @Test
+  public void annotationConstantsAreReported() throws IOException {
+    Set<String> names = new LinkedHashSet<String>();
+    assertTrue(GosuClassBytecodeCache.readReferences(getClassBytes(Annotated.class), names,
+                                                     new LinkedHashSet<String>(), new LinkedHashSet<String>()));
+    assertTrue(names.contains("gw/internal/gosu/compiler/GosuClassBytecodeCacheTest$Marker"));
+    assertNull(GosuClassBytecodeCache.findDependencies(getClassBytes(Annotated.class)));
+  }
+
+  @Test
+  public void typeLookedUpByNameIsADependency() {
+    Map<String, Byte> deps = GosuClassBytecodeCache.findDependencies(compile("gw.internal.gosu.compiler.CacheTypeByName"));
+    assertNotNull(deps);
+    assertTrue(deps.containsKey("gw/internal/gosu/compiler/CacheBase"));
+  }
+
+  @Test
+  public void storedEntryLoads() throws IOException {
+    GosuClassBytecodeCache cache = newCache();
+    IGosuClass gsClass = getClass("gw.internal.gosu.compiler.CacheLeaf");
+    byte[] bytes = compile(gsClass);
+    assertNull(cache.load(gsClass, ""));
+    cache.store(gsClass, "", bytes);
+    assertTrue(Arrays.equals(bytes, cache.load(gsClass, "")));
+    assertNull(cache.load(gsClass, "$other"));
+  }
+
+  @Test
+  public void sourceChangeInvalidatesEntry() throws IOException {
+    GosuClassBytecodeCache cache = newCache();
+    IGosuClass gsClass = getClass(DEP);
+    cache.store(gsClass, "", compile(gsClass));
+    IFile file = gsClass.getSourceFileHandle().getFile();
+    byte[] original = read(file.toJavaFile());
+    try {
+      edit(file, original);
+      assertNull(cache.load(getClass(DEP), ""));
+    } finally {
+      restore(file, original);
+    }
+    assertNotNull(cache.load(getClass(DEP), ""));
+  }
+
+  @Test
+  public void dependencyChangeInvalidatesEntry() throws IOException {
+    GosuClassBytecodeCache cache = newCache();
+    IGosuClass gsClass = getClass(DEPENDENT);
+    cache.store(gsClass, "", compile(gsClass));
+    assertNotNull(cache.load(gsClass, ""));
+    IFile file = getClass(DEP).getSourceFileHandle().getFile();
+    byte[] original = read(file.toJavaFile());
+    try {
+      edit(file, original);
+      assertNull(cache.load(getClass(DEPENDENT), ""));
+    } finally {
+      restore(file, original);
+    }
+    assertNotNull(cache.load(getClass(DEPENDENT), ""));
+  }
+
+  @Test
+  public void truncatedEntryIsIgnored() throws IOException {
+    GosuClassBytecodeCache cache = newCache();
+    IGosuClass gsClass = getClass("gw.internal.gosu.compiler.CacheBase");
+    byte[] bytes = compile(gsClass);
+    cache.store(gsClass, "", bytes);
+    File entry = cache.getFile(gsClass, "");
+    RandomAccessFile raf = new RandomAccessFile(entry, "rw");
+    try {
+      raf.setLength(raf.length() / 2);
+    } finally {
+      raf.close();
+    }
+    assertNull(cache.load(gsClass, ""));
+
+    cache.store(gsClass, "", bytes);
+    assertTrue(Arrays.equals(bytes, cache.load(gsClass, "")));
+  }
+
+  @Test
+  public void corruptEntryIsIgnored() throws IOException {
+    GosuClassBytecodeCache cache = newCache();
+    IGosuClass gsClass = getClass("gw.internal.gosu.compiler.CacheBase");
+    cache.store(gsClass, "", compile(gsClass));
+    File entry = cache.getFile(gsClass, "");
+    byte[] content = read(entry);
+    // The last byte of the class file, just before the trailing fingerprint
+    content[content.length - 9] ^= 0xFF;
+    write(entry, content);
+    assertNull(cache.load(gsClass, ""));
+
+    write(entry, "not a cache entry".getBytes("UTF-8"));
+    assertNull(cache.load(gsClass, ""));
+  }
+
+  @Test
+  public void racingWritersLeaveOneWholeEntry() throws Exception {
+    final GosuClassBytecodeCache cache = newCache();
+    final IGosuClass gsClass = getClass("gw.internal.gosu.compiler.CacheMiddle");
+    final byte[] bytes = compile(gsClass);
+    final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    Thread[] threads = new Thread[3];
+    for (int i = 0; i < threads.length; i++) {
+      final boolean bReader = i == 0;
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            for (int j = 0; j < 50; j++) {
+              if (bReader) {
+                byte[] loaded = cache.load(gsClass, "");
+                if (loaded != null && !Arrays.equals(bytes, loaded)) {
+                  throw new AssertionError("Read a partial entry");
+                }
+              } else {
+                cache.store(gsClass, "", bytes);
+              }
+            }
+          } catch (Throwable t) {
+            errors.add(t);
+          }
+        }
+      };
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.emptyList(), errors);
+    assertTrue(Arrays.equals(bytes, cache.load(gsClass, "")));
+    for (File file : cache.getFile(gsClass, "").getParentFile().listFiles()) {
+      assertFalse(file.getName(), file.getName().endsWith(".tmp"));
+    }
+  }
+
+  @Test
+  public void stateFreeHelpersAreCacheable() throws IOException {
+    assertNotNull(GosuClassBytecodeCache.findDependencies(getClassBytes(Caller.class)));
+  }
+
+  @Test
+  public void dependenciesIncludeSupertypeChain() {
+    IGosuClass leaf = (IGosuClass) TypeSystem.getByFullName("gw.internal.gosu.compiler.CacheLeaf");
+    Map<String, Byte> deps = GosuClassBytecodeCache.findDependencies(TransformingCompiler.compileClass(leaf, false));
+    assertNotNull(deps);
+    assertTrue(deps.containsKey("gw/internal/gosu/compiler/CacheMiddle"));
+    assertTrue(deps.containsKey("gw/internal/gosu/compiler/CacheBase"));
+  }
+
+  private static GosuClassBytecodeCache newCache() throws IOException {
+    File dir = File.createTempFile("bytecodecache", "");
+    dir.delete();
+    dir.mkdirs();
+    dir.deleteOnExit();
+    return new GosuClassBytecodeCache(dir);
+  }
+
+  private static IGosuClass getClass(String strName) {
+    return (IGosuClass) TypeSystem.getByFullName(strName);
+  }
+
+  private static byte[] compile(String strName) {
+    return compile(getClass(strName));
+  }
+
+  private static byte[] compile(IGosuClass gsClass) {
+    return TransformingCompiler.compileClass(gsClass, false);
+  }
+
+  private static void edit(IFile file, byte[] original) throws IOException {
+    write(file.toJavaFile(), new String(original, "UTF-8").replace("\"original\"", "\"changed\"").getBytes("UTF-8"));
+    TypeSystem.refreshed(file);
+  }
+
+  private static void restore(IFile file, byte[] original) throws IOException {
+    write(file.toJavaFile(), original);
+    TypeSystem.refreshed(file);
+  }
+
+  private static byte[] read(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      return StreamUtil.getContent(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void write(File file, byte[] content) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    } finally {
+      out.close();
+    }
+  }
+
+  private static byte[] getClassBytes(Class cls) throws IOException {
+    InputStream in = cls.getClassLoader().getResourceAsStream(cls.getName().replace('.', '/') + ".class");
+    try {
+      return StreamUtil.getContent(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  static class Caller {
+    Field get() {
+      return AbstractElementTransformer.getDeclaredField(Caller.class, "x");
+    }
+  }
+
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface Marker {
+    String value();
+  }
+
+  @Marker("copied at compile time")
+  static class Annotated {
+  }
+}
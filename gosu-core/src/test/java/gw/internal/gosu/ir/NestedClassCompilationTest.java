@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.reflect.TypeSystem;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Compiles a class whose inner and block classes carry annotations and use array types,
+ * which the bytecode compiler resolves through the type system.
+ */
+public class NestedClassCompilationTest extends Assert {
+
+  private static final String CLASS_NAME = "gw.internal.gosu.ir.NestedClassesWithAnnotations";
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void compilesAndRunsNestedClasses() {
+    assertEquals("2:3", GosuTestUtil.invokeStatic(CLASS_NAME, "run"));
+  }
+
+  @Test
+  public void keepsAnnotationsOfNestedClasses() {
+    assertTrue(TypeSystem.getByFullName(CLASS_NAME + ".Names").getTypeInfo().hasAnnotation(TypeSystem.get(Deprecated.class)));
+    assertNotNull(TypeSystem.getByFullName(CLASS_NAME + ".Names").getTypeInfo()
+                    .getConstructor(TypeSystem.get(String[].class))
+                    .getAnnotation(TypeSystem.get(ConstructorProperties.class)));
+  }
+}
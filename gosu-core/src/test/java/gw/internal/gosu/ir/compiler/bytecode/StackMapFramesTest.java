@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.compiler.bytecode;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.internal.gosu.ir.TransformingCompiler;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.IGosuClass;
+import junit.framework.Assert;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compiles a class whose methods merge different types where branches join, targeting a
+ * class file version the JVM only loads with valid stack map frames.
+ */
+public class StackMapFramesTest extends Assert {
+
+  private static final String BRANCHY = "gw.internal.gosu.ir.compiler.bytecode.BranchyClass";
+
+  private static int g_iVersion;
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+    g_iVersion = BytecodeOptions.getClassFileVersion();
+    BytecodeOptions.setClassFileVersion(BytecodeOptions.JAVA_7);
+  }
+
+  @AfterClass
+  public static void restore() {
+    BytecodeOptions.setClassFileVersion(g_iVersion);
+  }
+
+  @Test
+  public void loadsAndRunsWithComputedFrames() {
+    assertEquals("1:1:leftrightbase:ab:24", GosuTestUtil.invokeStatic(BRANCHY, "run"));
+  }
+
+  @Test
+  public void targetsRequestedVersion() {
+    byte[] bytes = TransformingCompiler.compileClass((IGosuClass) TypeSystem.getByFullName(BRANCHY), false);
+    int iMajor = ((bytes[6] & 0xFF) << 8) | (bytes[7] & 0xFF);
+    assertEquals(BytecodeOptions.JAVA_7, iMajor);
+  }
+}
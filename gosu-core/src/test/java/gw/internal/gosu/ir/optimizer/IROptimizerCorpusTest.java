@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.internal.gosu.ir.TransformingCompiler;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.BytecodeOptions;
+import gw.lang.reflect.gs.IGosuClass;
+import junit.framework.Assert;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compiles a small corpus with and without the optimizer.  The optimized class must behave
+ * the same and be smaller.  Run time is not asserted since timings in a unit test run are
+ * too noisy to compare.
+ */
+public class IROptimizerCorpusTest extends Assert {
+
+  private static final String CORPUS = "gw.internal.gosu.ir.optimizer.OptimizerCorpus";
+
+  private static boolean g_bWasEnabled;
+
+  @BeforeClass
+  public static void init() {
+    g_bWasEnabled = BytecodeOptions.isIROptimizerEnabled();
+    // The corpus is loaded from optimized bytecode
+    BytecodeOptions.setIROptimizerEnabled(true);
+    GosuTestUtil.getBackingClass(CORPUS);
+  }
+
+  @AfterClass
+  public static void restore() {
+    BytecodeOptions.setIROptimizerEnabled(g_bWasEnabled);
+  }
+
+  @Test
+  public void optimizedCorpusBehavesTheSame() {
+    assertEquals(7, GosuTestUtil.invokeStatic(CORPUS, "arithmetic"));
+    assertEquals("abc", GosuTestUtil.invokeStatic(CORPUS, "concatenation"));
+    assertEquals(Boolean.TRUE, GosuTestUtil.invokeStatic(CORPUS, "nullSafeAccess"));
+    assertEquals("reachable", GosuTestUtil.invokeStatic(CORPUS, "literalBranches"));
+    assertEquals(700, GosuTestUtil.invokeStatic(CORPUS, "loop"));
+  }
+
+  @Test
+  public void optimizedCorpusIsSmaller() {
+    IGosuClass corpus = (IGosuClass) TypeSystem.getByFullName(CORPUS);
+    assertTrue(corpus.isValid());
+    try {
+      BytecodeOptions.setIROptimizerEnabled(false);
+      int iPlain = TransformingCompiler.compileClass(corpus, false).length;
+      BytecodeOptions.setIROptimizerEnabled(true);
+      int iOptimized = TransformingCompiler.compileClass(corpus, false).length;
+      assertTrue("optimized " + iOptimized + " bytes, unoptimized " + iPlain, iOptimized < iPlain);
+    } finally {
+      BytecodeOptions.setIROptimizerEnabled(true);
+    }
+  }
+}
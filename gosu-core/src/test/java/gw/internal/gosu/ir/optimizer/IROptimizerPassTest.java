@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.optimizer;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.GosuShop;
+import gw.lang.ir.IRElement;
+import gw.lang.ir.IRExpression;
+import gw.lang.ir.IRStatement;
+import gw.lang.ir.IRSymbol;
+import gw.lang.ir.IRType;
+import gw.lang.ir.IRTypeConstants;
+import gw.lang.ir.expression.IRArithmeticExpression;
+import gw.lang.ir.expression.IRBooleanLiteral;
+import gw.lang.ir.expression.IRCompositeExpression;
+import gw.lang.ir.expression.IREqualityExpression;
+import gw.lang.ir.expression.IRIdentifier;
+import gw.lang.ir.expression.IRMethodCallExpression;
+import gw.lang.ir.expression.IRNewExpression;
+import gw.lang.ir.expression.IRNullLiteral;
+import gw.lang.ir.expression.IRNumericLiteral;
+import gw.lang.ir.expression.IRRelationalExpression;
+import gw.lang.ir.expression.IRStringLiteralExpression;
+import gw.lang.ir.expression.IRTernaryExpression;
+import gw.lang.ir.statement.IRAssignmentStatement;
+import gw.lang.ir.statement.IRIfStatement;
+import gw.lang.ir.statement.IRReturnStatement;
+import gw.lang.ir.statement.IRStatementList;
+import gw.lang.ir.statement.IRThrowStatement;
+import gw.lang.ir.statement.IRWhileStatement;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class IROptimizerPassTest extends Assert {
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void foldsIntArithmetic() {
+    IRConstantFoldingPass pass = new IRConstantFoldingPass();
+    IRExpression sum = new IRArithmeticExpression(IRTypeConstants.pINT,
+                                                  new IRArithmeticExpression(IRTypeConstants.pINT, literal(2), literal(3), IRArithmeticExpression.Operation.Multiplication),
+                                                  literal(1), IRArithmeticExpression.Operation.Addition);
+    IRExpression folded = pass.rewrite(sum);
+    assertEquals(7, ((IRNumericLiteral) folded).getValue());
+    assertEquals(2, pass.getRewriteCount());
+  }
+
+  @Test
+  public void foldsWithJvmOverflow() {
+    IRExpression sum = new IRArithmeticExpression(IRTypeConstants.pINT, literal(Integer.MAX_VALUE), literal(1), IRArithmeticExpression.Operation.Addition);
+    assertEquals(Integer.MIN_VALUE, ((IRNumericLiteral) new IRConstantFoldingPass().rewrite(sum)).getValue());
+  }
+
+  @Test
+  public void leavesDivisionByZero() {
+    IRExpression quotient = new IRArithmeticExpression(IRTypeConstants.pINT, literal(1), literal(0), IRArithmeticExpression.Operation.Division);
+    IRConstantFoldingPass pass = new IRConstantFoldingPass();
+    assertSame(quotient, pass.rewrite(quotient));
+    assertEquals(0, pass.getRewriteCount());
+  }
+
+  @Test
+  public void foldsRelationalAndTernary() {
+    IRExpression ternary = new IRTernaryExpression(new IRRelationalExpression(literal(1), literal(2), IRRelationalExpression.Operation.LT),
+                                                   new IRStringLiteralExpression("yes"), new IRStringLiteralExpression("no"),
+                                                   IRTypeConstants.STRING);
+    assertEquals("yes", ((IRStringLiteralExpression) new IRConstantFoldingPass().rewrite(ternary)).getValue());
+  }
+
+  @Test
+  public void dropsBranchRuledOutByLiteral() {
+    IRStatement then = new IRReturnStatement(null, literal(1));
+    IRStatement otherwise = new IRReturnStatement(null, literal(2));
+    IRStatement result = new IRDeadCodeEliminationPass().rewrite(new IRIfStatement(new IRBooleanLiteral(false), then, otherwise));
+    assertSame(otherwise, result);
+  }
+
+  @Test
+  public void dropsWhileFalseAndUnreachableStatements() {
+    IRWhileStatement loop = new IRWhileStatement();
+    loop.setLoopTest(new IRBooleanLiteral(false));
+    loop.setBody(new IRReturnStatement(null, literal(0)));
+    IRStatement ret = new IRReturnStatement(null, literal(1));
+    IRStatementList list = new IRStatementList(true,
+                                               loop,
+                                               ret,
+                                               new IRThrowStatement(new IRNullLiteral()));
+    IRStatementList result = (IRStatementList) new IRDeadCodeEliminationPass().rewrite(list);
+    assertEquals(Collections.singletonList(ret), result.getStatements());
+    assertTrue(result.hasScope());
+  }
+
+  @Test
+  public void removesNullCheckOfNewInstance() {
+    IRSymbol temp = new IRSymbol("temp$0", IRTypeConstants.OBJECT, true);
+    IRExpression composite = new IRCompositeExpression(
+      new IRAssignmentStatement(temp, new IRNewExpression(IRTypeConstants.OBJECT, Collections.<IRType>emptyList(), Collections.<IRExpression>emptyList())),
+      new IREqualityExpression(new IRIdentifier(temp), new IRNullLiteral(), true));
+    IRElement check = ((IRCompositeExpression) new IRNullCheckEliminationPass().rewrite(composite)).getElements().get(1);
+    assertFalse(((IRBooleanLiteral) check).getValue());
+  }
+
+  @Test
+  public void keepsNullCheckOfReassignedTemp() {
+    IRSymbol temp = new IRSymbol("temp$0", IRTypeConstants.OBJECT, true);
+    IRExpression composite = new IRCompositeExpression(
+      new IRAssignmentStatement(temp, new IRNewExpression(IRTypeConstants.OBJECT, Collections.<IRType>emptyList(), Collections.<IRExpression>emptyList())),
+      new IRAssignmentStatement(temp, new IRNullLiteral()),
+      new IREqualityExpression(new IRIdentifier(temp), new IRNullLiteral(), true));
+    assertSame(composite, new IRNullCheckEliminationPass().rewrite(composite));
+  }
+
+  @Test
+  public void fusesLiteralAppends() {
+    IRExpression sb = new IRNewExpression(getDescriptor(StringBuilder.class), Collections.<IRType>emptyList(), Collections.<IRExpression>emptyList());
+    IRExpression chain = append(append(append(sb, "a"), "b"), "c");
+    IRMethodCallExpression fused = (IRMethodCallExpression) new IRStringConcatFusionPass().rewrite(chain);
+    assertEquals("abc", ((IRStringLiteralExpression) fused.getArgs().get(0)).getValue());
+    assertSame(sb, fused.getRoot());
+  }
+
+  @Test
+  public void disabledPassIsLeftOutOfSignature() {
+    IROptimizerPass pass = IROptimizer.getPass("deadCode");
+    assertTrue(IROptimizer.getSignature().contains("deadCode"));
+    pass.setEnabled(false);
+    try {
+      assertFalse(IROptimizer.getSignature().contains("deadCode"));
+    } finally {
+      pass.setEnabled(true);
+    }
+  }
+
+  private static IRExpression append(IRExpression root, String value) {
+    return new IRMethodCallExpression("append", getDescriptor(StringBuilder.class), false, getDescriptor(StringBuilder.class),
+                                      Arrays.asList(IRTypeConstants.STRING), root,
+                                      Collections.<IRExpression>singletonList(new IRStringLiteralExpression(value)));
+  }
+
+  private static IRNumericLiteral literal(int value) {
+    return new IRNumericLiteral(value);
+  }
+
+  private static IRType getDescriptor(Class cls) {
+    return GosuShop.getIRTypeResolver().getDescriptor(cls);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.transform.expression;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.lang.reflect.java.JavaTypes;
+import gw.util.GosuExceptionUtil;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Comparisons compiled for statically known operand types must give the same answers as the
+ * runtime evaluate() methods they replace.
+ */
+public class ComparisonTransformerTest extends Assert {
+
+  private static final String CLASS_NAME = "gw.internal.gosu.ir.transform.expression.ComparisonOperands";
+  private static final String[] OPERATORS = {"<", "<=", ">", ">="};
+  private static final String[] PREFIXES = {"lt", "le", "gt", "ge"};
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void boxedAndPrimitiveFloats() {
+    Object[] values = {null, Float.NaN, -0.0f, 0.0f, 1.5f, Float.NEGATIVE_INFINITY};
+    assertMatchesRuntime("FloatPrim", JavaTypes.FLOAT(), JavaTypes.pFLOAT(), values, values);
+  }
+
+  @Test
+  public void primitiveAndBoxedDoubles() {
+    Object[] values = {null, Double.NaN, -0.0, 0.0, 1.5, Double.POSITIVE_INFINITY};
+    assertMatchesRuntime("DoubleBoxed", JavaTypes.pDOUBLE(), JavaTypes.DOUBLE(), values, values);
+  }
+
+  @Test
+  public void floatsWidenedToDoubles() {
+    Object[] floats = {null, Float.NaN, -0.0f, 0.0f, 0.1f, 1.5f};
+    Object[] doubles = {null, Double.NaN, -0.0, 0.0, 0.1, 1.5};
+    assertMatchesRuntime("FloatDouble", JavaTypes.pFLOAT(), JavaTypes.DOUBLE(), floats, doubles);
+    assertMatchesRuntime("DoubleFloat", JavaTypes.DOUBLE(), JavaTypes.pFLOAT(), doubles, floats);
+  }
+
+  @Test
+  public void mixedIntegralWidths() {
+    assertMatchesRuntime("IntegerLong", JavaTypes.INTEGER(), JavaTypes.pLONG(),
+                         new Object[]{null, -1, 0, Integer.MAX_VALUE},
+                         new Object[]{-1L, 0L, (long)Integer.MAX_VALUE + 1});
+    assertMatchesRuntime("ByteShort", JavaTypes.BYTE(), JavaTypes.SHORT(),
+                         new Object[]{null, (byte)-1, (byte)1, Byte.MAX_VALUE},
+                         new Object[]{null, (short)-1, (short)1, (short)300});
+    assertMatchesRuntime("LongFloat", JavaTypes.pLONG(), JavaTypes.FLOAT(),
+                         new Object[]{1L, Long.MAX_VALUE, Long.MAX_VALUE - 1},
+                         new Object[]{null, 1.0f, (float)Long.MAX_VALUE, Float.NaN});
+  }
+
+  @Test
+  public void bigDecimalsAndIntegralNumbers() {
+    Object[] bigDecimals = {null, new BigDecimal("1"), new BigDecimal("1.00"), new BigDecimal("1.5"), new BigDecimal("-2")};
+    assertMatchesRuntime("BigDecimalInt", JavaTypes.BIG_DECIMAL(), JavaTypes.pINT(), bigDecimals, new Object[]{-2, 0, 1, 2});
+    assertMatchesRuntime("IntegerBigDecimal", JavaTypes.INTEGER(), JavaTypes.BIG_DECIMAL(), new Object[]{null, -2, 1, 2}, bigDecimals);
+  }
+
+  @Test
+  public void datesBeforeAndAfter() {
+    Object[] dates = {null, new Date(1000), new Date(2000)};
+    Object[] sqlDates = {null, new java.sql.Date(1000), new java.sql.Date(1500), new java.sql.Date(2000)};
+    assertMatchesRuntime("Date", JavaTypes.DATE(), JavaTypes.getJreType(java.sql.Date.class), dates, sqlDates);
+  }
+
+  @Test
+  public void comparableBeans() throws Exception {
+    IType versionType = TypeSystem.getByFullName(CLASS_NAME + ".Version");
+    IType releaseType = TypeSystem.getByFullName(CLASS_NAME + ".Release");
+    Class<?> versionClass = ((IGosuClass)versionType).getBackingClass();
+    Class<?> releaseClass = ((IGosuClass)releaseType).getBackingClass();
+    Object[] versions = {null,
+                         versionClass.getConstructor(int.class).newInstance(1),
+                         releaseClass.getConstructor(int.class).newInstance(2)};
+    Object[] releases = {null,
+                         releaseClass.getConstructor(int.class).newInstance(1),
+                         releaseClass.getConstructor(int.class).newInstance(3)};
+    assertMatchesRuntime("Bean", versionType, releaseType, versions, releases);
+  }
+
+  private static void assertMatchesRuntime(String strOperands, IType lhsType, IType rhsType, Object[] lhsValues, Object[] rhsValues) {
+    for (Object lhs : lhsValues) {
+      if (lhs == null && lhsType.isPrimitive()) {
+        continue;
+      }
+      for (Object rhs : rhsValues) {
+        if (rhs == null && rhsType.isPrimitive()) {
+          continue;
+        }
+        String strCase = lhsType.getName() + " " + lhs + " and " + rhsType.getName() + " " + rhs;
+        assertEquals("== on " + strCase,
+                     EqualityExpressionTransformer.evaluate(lhs, lhsType, true, rhs, rhsType),
+                     invoke("eq" + strOperands, lhs, rhs));
+        assertEquals("!= on " + strCase,
+                     EqualityExpressionTransformer.evaluate(lhs, lhsType, false, rhs, rhsType),
+                     invoke("ne" + strOperands, lhs, rhs));
+        for (int i = 0; i < OPERATORS.length; i++) {
+          assertEquals(OPERATORS[i] + " on " + strCase,
+                       RelationalExpressionTransformer.evaluate(lhs, lhsType, OPERATORS[i], rhs, rhsType),
+                       invoke(PREFIXES[i] + strOperands, lhs, rhs));
+        }
+      }
+    }
+  }
+
+  private static boolean invoke(String strFunction, Object lhs, Object rhs) {
+    for (Method method : GosuTestUtil.getBackingClass(CLASS_NAME).getMethods()) {
+      if (method.getName().equals(strFunction)) {
+        try {
+          return (Boolean)method.invoke(null, lhs, rhs);
+        } catch (InvocationTargetException e) {
+          throw GosuExceptionUtil.forceThrow(e.getCause());
+        } catch (Exception e) {
+          throw GosuExceptionUtil.forceThrow(e);
+        }
+      }
+    }
+    throw new IllegalArgumentException("No function " + strFunction + " in " + CLASS_NAME + ": " +
+                                       Arrays.asList(GosuTestUtil.getBackingClass(CLASS_NAME).getMethods()));
+  }
+}
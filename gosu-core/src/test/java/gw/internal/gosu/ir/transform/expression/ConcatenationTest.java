@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.transform.expression;
+
+import gw.config.CommonServices;
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.parser.ICoercionManager;
+import gw.lang.parser.StandardCoercionManager;
+import gw.util.GosuExceptionUtil;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * String concatenation is compiled to appends on one StringBuilder, and must read the same
+ * as converting each operand with the coercion manager.
+ */
+public class ConcatenationTest extends Assert {
+
+  private static final String CLASS_NAME = "gw.internal.gosu.ir.transform.expression.Concatenations";
+  private static final Object[] PRIMITIVES = {true, 'z', (byte)-1, (short)300, 3, 10000000000L, 0.1f, 1.0 / 3};
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void nullOperands() {
+    assertEquals("nullx", GosuTestUtil.invokeStatic(CLASS_NAME, "nullOnTheLeft"));
+    assertEquals("xnull", GosuTestUtil.invokeStatic(CLASS_NAME, "nullOnTheRight"));
+    assertEquals("nullnull", GosuTestUtil.invokeStatic(CLASS_NAME, "nullsOnBothSides"));
+  }
+
+  @Test
+  public void literalsAreFoldedAsTheyWouldConvert() {
+    assertEquals("a" + 'c' + true + false + 1.5f + 0.1f + 2.5 + 10L, GosuTestUtil.invokeStatic(CLASS_NAME, "foldedLiterals"));
+  }
+
+  @Test
+  public void additionBeforeTheFirstStringIsNumeric() {
+    assertEquals("3x", GosuTestUtil.invokeStatic(CLASS_NAME, "numbersBeforeTheString"));
+    assertEquals("x12", GosuTestUtil.invokeStatic(CLASS_NAME, "numbersAfterTheString"));
+  }
+
+  @Test
+  public void parenthesizedSubChains() {
+    assertEquals("a3b2cs2d", invoke("parenthesizedChains", 2, "s"));
+  }
+
+  @Test
+  public void primitivesReadAsTheirBoxedValues() {
+    String expected = "true|z|-1|300|3|10000000000|0.1|" + (1.0 / 3);
+    assertEquals(expected, invoke("primitives", PRIMITIVES));
+    assertEquals(expected, invoke("template", PRIMITIVES));
+  }
+
+  @Test
+  public void nullInTemplate() {
+    assertEquals("[null]", GosuTestUtil.invokeStatic(CLASS_NAME, "nullInTemplate"));
+  }
+
+  @Test
+  public void primitivesGoThroughAReplacementCoercionManager() {
+    // Compile before replacing the coercion manager, the conversion is decided when the code runs
+    GosuTestUtil.getBackingClass(CLASS_NAME);
+    ICoercionManager standard = CommonServices.getCoercionManager();
+    CommonServices.getKernel().redefineService_Privileged(ICoercionManager.class, new StandardCoercionManager() {
+      @Override
+      public String makeStringFrom(Object obj) {
+        return obj instanceof Number ? "#" + obj : super.makeStringFrom(obj);
+      }
+    });
+    try {
+      String expected = "true|z|#-1|#300|#3|#10000000000|#0.1|#" + (1.0 / 3);
+      assertEquals(expected, invoke("primitives", PRIMITIVES));
+      assertEquals(expected, invoke("template", PRIMITIVES));
+    }
+    finally {
+      CommonServices.getKernel().redefineService_Privileged(ICoercionManager.class, standard);
+    }
+  }
+
+  private static Object invoke(String strFunction, Object... args) {
+    for (Method method : GosuTestUtil.getBackingClass(CLASS_NAME).getMethods()) {
+      if (method.getName().equals(strFunction)) {
+        try {
+          return method.invoke(null, args);
+        } catch (InvocationTargetException e) {
+          throw GosuExceptionUtil.forceThrow(e.getCause());
+        } catch (Exception e) {
+          throw GosuExceptionUtil.forceThrow(e);
+        }
+      }
+    }
+    throw new IllegalArgumentException("No function " + strFunction + " in " + CLASS_NAME);
+  }
+}
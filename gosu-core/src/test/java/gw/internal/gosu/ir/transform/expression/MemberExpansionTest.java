@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.ir.transform.expression;
+
+import gw.internal.gosu.GosuTestUtil;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Expansions whose property is an array are flattened straight into a presized array.
+ */
+public class MemberExpansionTest extends Assert {
+
+  private static final String CLASS_NAME = "gw.internal.gosu.ir.transform.expression.MemberExpansions";
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void flattensGenericArrayPropertyOfCollection() {
+    String[] items = (String[])GosuTestUtil.invokeStatic(CLASS_NAME, "flattenGenericCollection");
+    assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(items));
+  }
+
+  @Test
+  public void flattensNestedExpansionOverGenericCollection() {
+    String[] items = (String[])GosuTestUtil.invokeStatic(CLASS_NAME, "flattenNested");
+    assertEquals(Arrays.asList("a", "b", "c", "d"), Arrays.asList(items));
+  }
+
+  @Test
+  public void flattensNullRootToEmptyArray() {
+    String[] items = (String[])GosuTestUtil.invokeStatic(CLASS_NAME, "flattenNull");
+    assertEquals(0, items.length);
+  }
+}
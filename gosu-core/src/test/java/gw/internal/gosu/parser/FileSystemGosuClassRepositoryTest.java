@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.config.CommonServices;
+import gw.fs.IDirectory;
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.reflect.RefreshKind;
+import gw.lang.reflect.RefreshRequest;
+import gw.lang.reflect.TypeSystem;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+public class FileSystemGosuClassRepositoryTest extends Assert {
+
+  private static final String[] EXTENSIONS = {".gs"};
+
+  private File _root;
+  private FileSystemGosuClassRepository _repository;
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Before
+  public void createRepository() throws IOException {
+    _root = newDir();
+    writeClass(_root, "repo.Existing");
+    _repository = new FileSystemGosuClassRepository(TypeSystem.getGlobalModule(), new IDirectory[] {getDir(_root)},
+                                                    EXTENSIONS, false);
+  }
+
+  @Test
+  public void findsOnlyExistingClasses() {
+    assertNotNull(_repository.findClass("repo.Existing", EXTENSIONS));
+    assertNull(_repository.findClass("repo.Missing", EXTENSIONS));
+    assertNull(_repository.findClass("other.Missing", EXTENSIONS));
+  }
+
+  @Test
+  public void createdClassIsFoundAfterTheFilterIsBuilt() throws IOException {
+    // Builds the filter without the new name
+    assertNull(_repository.findClass("repo.Added", EXTENSIONS));
+
+    writeClass(_root, "repo.Added");
+    _repository.typesRefreshed(new RefreshRequest(null, new String[] {"repo.Added"}, TypeSystem.getGlobalModule(),
+                                                  RefreshKind.CREATION, false));
+    assertNotNull(_repository.findClass("repo.Added", EXTENSIONS));
+  }
+
+  @Test
+  public void manyCreatedClassesResizeTheFilter() throws IOException {
+    assertNull(_repository.findClass("repo.Added0", EXTENSIONS));
+    for (int i = 0; i < 200; i++) {
+      writeClass(_root, "repo.Added" + i);
+      _repository.typesRefreshed(new RefreshRequest(null, new String[] {"repo.Added" + i}, TypeSystem.getGlobalModule(),
+                                                    RefreshKind.CREATION, false));
+    }
+    for (int i = 0; i < 200; i++) {
+      assertNotNull("repo.Added" + i, _repository.findClass("repo.Added" + i, EXTENSIONS));
+    }
+  }
+
+  @Test
+  public void resetRebuildsTheFilter() throws IOException {
+    assertNull(_repository.findClass("repo.Unannounced", EXTENSIONS));
+
+    // Written without a creation event, only a full refresh picks it up
+    writeClass(_root, "repo.Unannounced");
+    _repository.typesRefreshed(null);
+    assertNotNull(_repository.findClass("repo.Unannounced", EXTENSIONS));
+  }
+
+  @Test
+  public void addedSourceRootRebuildsTheFilter() throws IOException {
+    assertNull(_repository.findClass("more.Extra", EXTENSIONS));
+
+    File moreRoot = newDir();
+    writeClass(moreRoot, "more.Extra");
+    _repository.addResourcesToClassPath(Collections.singletonList(getDir(moreRoot)));
+    assertNotNull(_repository.findClass("more.Extra", EXTENSIONS));
+    assertNotNull(_repository.findClass("repo.Existing", EXTENSIONS));
+  }
+
+  private static IDirectory getDir(File dir) {
+    return CommonServices.getFileSystem().getIDirectory(dir);
+  }
+
+  private static File newDir() throws IOException {
+    File dir = File.createTempFile("gsrepo", "");
+    dir.delete();
+    dir.mkdirs();
+    dir.deleteOnExit();
+    return dir;
+  }
+
+  private static void writeClass(File root, String strName) throws IOException {
+    int iDot = strName.lastIndexOf('.');
+    File pkg = new File(root, strName.substring(0, iDot).replace('.', File.separatorChar));
+    pkg.mkdirs();
+    String strRelativeName = strName.substring(iDot + 1);
+    FileOutputStream out = new FileOutputStream(new File(pkg, strRelativeName + ".gs"));
+    try {
+      out.write(("package " + strName.substring(0, iDot) + "\n\nclass " + strRelativeName + "\n{\n}\n").getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    getDir(pkg).clearCaches();
+    getDir(root).clearCaches();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.parser.CaseInsensitiveCharSequence;
+import gw.lang.reflect.TypeSystem;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The definitions phase matches each function body to the declaration made for it through
+ * GosuClassParseInfo.getFunctionDeclaredAt(), so a wrong match shows up as the wrong body.
+ */
+public class FunctionDeclaredAtTest extends Assert {
+
+  private static final String NAME = "gw.internal.gosu.parser.DeclaredFunctions";
+  private static final String INNER_NAME = NAME + ".Inner";
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void overloadsKeepTheirOwnBodies() throws Exception {
+    Object instance = newInstance();
+    Class<?> cls = instance.getClass();
+    assertEquals("over()", cls.getMethod("over").invoke(instance));
+    assertEquals("over(int 3)", cls.getMethod("over", int.class).invoke(instance, 3));
+    assertEquals("over(String s)", cls.getMethod("over", String.class).invoke(instance, "s"));
+  }
+
+  @Test
+  public void staticAndInstanceFunctionsWithTheSameName() throws Exception {
+    Object instance = newInstance();
+    Class<?> cls = instance.getClass();
+    assertEquals("static both()", cls.getMethod("both").invoke(null));
+    assertEquals("instance both(s) on x", cls.getMethod("both", String.class).invoke(instance, "s"));
+  }
+
+  @Test
+  public void propertyAccessorsKeepTheirOwnBodies() throws Exception {
+    Object instance = newInstance();
+    Class<?> cls = instance.getClass();
+    assertEquals("get x", cls.getMethod("getName").invoke(instance));
+    cls.getMethod("setName", String.class).invoke(instance, "y");
+    assertEquals("get set y", cls.getMethod("getName").invoke(instance));
+    assertEquals("static get", cls.getMethod("getStaticName").invoke(null));
+  }
+
+  @Test
+  public void innerClassFunctionsKeepTheirOwnBodies() throws Exception {
+    Class<?> cls = GosuTestUtil.getBackingClass(INNER_NAME);
+    Object instance = cls.newInstance();
+    assertEquals("Inner.over()", cls.getMethod("over").invoke(instance));
+    assertEquals("Inner.over(int 3)", cls.getMethod("over", int.class).invoke(instance, 3));
+    assertEquals("Inner.both()", cls.getMethod("both").invoke(null));
+  }
+
+  @Test
+  public void everyDeclarationIsFoundAtItsNameOffset() {
+    for (String strName : new String[]{NAME, INNER_NAME}) {
+      GosuClassParseInfo parseInfo = compile(strName).getParseInfo();
+      List<DynamicFunctionSymbol> declared = new ArrayList<DynamicFunctionSymbol>();
+      for (DynamicFunctionSymbol dfs : parseInfo.getStaticFunctions()) {
+        if (dfs.getDeclFunctionStmt() != null) {
+          assertSame(dfs.getName(), dfs, parseInfo.getFunctionDeclaredAt(getNameOffset(dfs), true));
+          assertNotSame(dfs.getName(), dfs, parseInfo.getFunctionDeclaredAt(getNameOffset(dfs), false));
+          declared.add(dfs);
+        }
+      }
+      for (DynamicFunctionSymbol dfs : parseInfo.getMemberFunctions().values()) {
+        if (dfs.getDeclFunctionStmt() != null) {
+          assertSame(dfs.getName(), dfs, parseInfo.getFunctionDeclaredAt(getNameOffset(dfs), false));
+          assertNull(dfs.getName(), parseInfo.getFunctionDeclaredAt(getNameOffset(dfs), true));
+          declared.add(dfs);
+        }
+      }
+      assertFalse(strName, declared.isEmpty());
+    }
+  }
+
+  @Test
+  public void innerClassDeclarationsAreNotFoundInTheOuterClass() {
+    GosuClassParseInfo outer = compile(NAME).getParseInfo();
+    GosuClassParseInfo inner = compile(INNER_NAME).getParseInfo();
+    for (DynamicFunctionSymbol dfs : inner.getMemberFunctions().values()) {
+      if (dfs.getDeclFunctionStmt() != null) {
+        assertNull(dfs.getName(), outer.getFunctionDeclaredAt(getNameOffset(dfs), false));
+      }
+    }
+    for (DynamicFunctionSymbol dfs : inner.getStaticFunctions()) {
+      if (dfs.getDeclFunctionStmt() != null) {
+        assertNull(dfs.getName(), outer.getFunctionDeclaredAt(getNameOffset(dfs), true));
+      }
+    }
+  }
+
+  @Test
+  public void unknownOffsetIsNotFound() {
+    GosuClassParseInfo parseInfo = compile(NAME).getParseInfo();
+    assertNull(parseInfo.getFunctionDeclaredAt(0, false));
+    assertNull(parseInfo.getFunctionDeclaredAt(0, true));
+    assertNull(parseInfo.getFunctionDeclaredAt(Integer.MAX_VALUE, false));
+  }
+
+  private static Object newInstance() throws Exception {
+    return GosuTestUtil.getBackingClass(NAME).getConstructor(String.class).newInstance("x");
+  }
+
+  private static IGosuClassInternal compile(String strName) {
+    IGosuClassInternal gsClass = (IGosuClassInternal)TypeSystem.getByFullName(strName);
+    assertTrue(gsClass.isValid());
+    return gsClass;
+  }
+
+  private static int getNameOffset(DynamicFunctionSymbol dfs) {
+    return dfs.getDeclFunctionStmt().getNameOffset((CaseInsensitiveCharSequence)null);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.parser;
+
+import gw.fs.IFile;
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.reflect.TypeSystem;
+import gw.lang.reflect.gs.IGosuClass;
+import gw.util.StreamUtil;
+import gw.util.fingerprint.FP64;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class UnchangedSourceRefreshTest extends Assert {
+
+  private static final String NAME = "gw.internal.gosu.parser.RefreshedSource";
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void fingerprintMatchesParsedSource() {
+    IGosuClass gsClass = compile();
+    String source = gsClass.getSourceFileHandle().getSource().getSource();
+    assertEquals(new FP64(source).getRawFingerprint(), gsClass.getSourceFingerprint());
+  }
+
+  @Test
+  public void modificationWithSameContentKeepsTheClass() {
+    IGosuClass gsClass = compile();
+    TypeSystem.refreshed(gsClass.getSourceFileHandle().getFile());
+    assertFalse(((AbstractTypeRef)gsClass).isStale());
+  }
+
+  @Test
+  public void modificationWithNewContentRefreshesTheClass() throws IOException {
+    IGosuClass gsClass = compile();
+    IFile file = gsClass.getSourceFileHandle().getFile();
+    File javaFile = file.toJavaFile();
+    byte[] original = StreamUtil.getContent(new FileInputStream(javaFile));
+    try {
+      write(javaFile, new String(original, "UTF-8").replace("\"original\"", "\"changed\"").getBytes("UTF-8"));
+      TypeSystem.refreshed(file);
+      assertTrue(((AbstractTypeRef)gsClass).isStale());
+      assertEquals("changed", GosuTestUtil.invokeStatic(NAME, "value"));
+    }
+    finally {
+      write(javaFile, original);
+      TypeSystem.refreshed(file);
+    }
+  }
+
+  private static IGosuClass compile() {
+    IGosuClass gsClass = (IGosuClass)TypeSystem.getByFullName(NAME);
+    assertTrue(gsClass.isValid());
+    return gsClass;
+  }
+
+  private static void write(File file, byte[] content) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content);
+    }
+    finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.runtime;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.reflect.IType;
+import gw.lang.reflect.TypeSystem;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class TypeConstantTest extends Assert {
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void isStaleAfterRefresh() {
+    IType type = TypeSystem.get(String.class);
+    TypeConstant constant = new TypeConstant(TypeSystem.getSingleRefreshChecksum(), type);
+    assertSame(type, constant.getType());
+    assertTrue(constant.isCurrent());
+
+    TypeSystem.refresh(false);
+    assertFalse(constant.isCurrent());
+  }
+
+  @Test
+  public void cachedTypeLiteralSurvivesRefresh() {
+    Object before = GosuTestUtil.invokeStatic("gw.internal.gosu.runtime.TypeConstants", "listOfString");
+    assertEquals(TypeSystem.get(ArrayList.class).getParameterizedType(TypeSystem.get(String.class)), before);
+    TypeSystem.refresh(false);
+    Object after = GosuTestUtil.invokeStatic("gw.internal.gosu.runtime.TypeConstants", "listOfString");
+    assertEquals(TypeSystem.get(ArrayList.class).getParameterizedType(TypeSystem.get(String.class)), after);
+  }
+}
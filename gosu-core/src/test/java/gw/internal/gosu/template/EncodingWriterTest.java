@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.template;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.parser.StandardSymbolTable;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+public class EncodingWriterTest extends Assert {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String SMILEY = "😀";
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void encodesSurrogatePairSplitAcrossWrites() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = TemplateGenerator.getEncodingWriter(out, UTF_8);
+    writer.write("a" + SMILEY.charAt(0));
+    writer.write(new char[]{SMILEY.charAt(1), 'b'}, 0, 2);
+    writer.close();
+    assertTrue(Arrays.equals(("a" + SMILEY + "b").getBytes(UTF_8), out.toByteArray()));
+  }
+
+  @Test
+  public void replacesUnpairedSurrogateOnClose() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = TemplateGenerator.getEncodingWriter(out, UTF_8);
+    writer.write("a" + SMILEY.charAt(0));
+    writer.flush();
+    assertEquals("a", new String(out.toByteArray(), UTF_8));
+    writer.close();
+    assertEquals("a?", new String(out.toByteArray(), UTF_8));
+  }
+
+  @Test
+  public void encodesTextLongerThanBuffer() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append("é").append(SMILEY);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = TemplateGenerator.getEncodingWriter(out, UTF_8);
+    writer.write(sb.toString());
+    writer.close();
+    assertEquals(sb.toString(), new String(out.toByteArray(), UTF_8));
+  }
+
+  @Test
+  public void rendersTemplateToStream() throws Exception {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader("café ${\"" + SMILEY + "\"} café"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    template.execute(out, UTF_8, null, new StandardSymbolTable(true));
+    assertEquals("café " + SMILEY + " café", new String(out.toByteArray(), UTF_8));
+  }
+
+  @Test
+  public void encodesSurrogatePairSplitBetweenExpressionAndStaticText() throws Exception {
+    String source = "${\"a" + SMILEY.charAt(0) + "\"}" + SMILEY.charAt(1) + " tail " + SMILEY;
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader(source));
+    for (int i = 0; i < 2; i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      template.execute(out, UTF_8, null, new StandardSymbolTable(true));
+      assertTrue(Arrays.equals(("a" + SMILEY + " tail " + SMILEY).getBytes(UTF_8), out.toByteArray()));
+    }
+  }
+
+  @Test
+  public void renderedStreamIsCompleteWithoutClosing() throws Exception {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader("x${\"" + SMILEY.charAt(0) + "\"}"));
+    final boolean[] closed = {false};
+    ByteArrayOutputStream out = new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        closed[0] = true;
+      }
+    };
+    template.execute(out, UTF_8, null, new StandardSymbolTable(true));
+    assertEquals("x?", new String(out.toByteArray(), UTF_8));
+    assertFalse(closed[0]);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.template;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.parser.StandardSymbolTable;
+import gw.lang.parser.template.TemplateParseException;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Template content printed from nested scopes, blocks and nested renders, which
+ * compile to prints through a writer local loaded at function entry.
+ */
+public class TemplateOutputTest extends Assert {
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void printsFromNestedScopes() throws TemplateParseException {
+    assertEquals("0,1,2", render("<% for( i in 0..|3 ) { if( i > 0 ) { %>,<% } %>${i}<% } %>"));
+  }
+
+  @Test
+  public void printsFromBlocks() throws TemplateParseException {
+    assertEquals("[b][b]", render("<% var f = \\ -> { %>[b]<% }\nf()\nf() %>"));
+  }
+
+  @Test
+  public void rendersTheSameTemplateTwice() throws TemplateParseException {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader("<% for( i in 0..|2 ) { %>${i}<% } %>"));
+    assertEquals("01", render(template));
+    assertEquals("01", render(template));
+  }
+
+  @Test
+  public void printsFromATemplateRenderedInsideAnother() throws TemplateParseException {
+    assertEquals("[<0,1>]", render("[${gw.internal.gosu.template.TemplateOutputTest.renderInner()}]"));
+  }
+
+  public static String renderInner() throws TemplateParseException {
+    // Prints to its own writer while the outer template's writer is current
+    return render("<<% for( i in 0..|2 ) { if( i > 0 ) { %>,<% } %>${i}<% } %>>");
+  }
+
+  @Test
+  public void threadsRacingToCompileOneTemplate() throws Exception {
+    for (int iRound = 0; iRound < 10; iRound++) {
+      final TemplateGenerator template = TemplateGenerator.getTemplate(
+        new StringReader("<% for( i in 0..|3 ) { %>${i}<% } %>-" + iRound));
+      final String strExpected = "012-" + iRound;
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+      Thread[] threads = new Thread[2];
+      for (int i = 0; i < threads.length; i++) {
+        threads[i] = new Thread() {
+          public void run() {
+            try {
+              start.await();
+              for (int j = 0; j < 20; j++) {
+                assertEquals(strExpected, render(template));
+              }
+            } catch (Throwable t) {
+              errors.add(t);
+            }
+          }
+        };
+        threads[i].start();
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertEquals(Collections.emptyList(), errors);
+    }
+  }
+
+  private static String render(String strTemplate) throws TemplateParseException {
+    return render(TemplateGenerator.getTemplate(new StringReader(strTemplate)));
+  }
+
+  private static String render(TemplateGenerator template) throws TemplateParseException {
+    StringWriter writer = new StringWriter();
+    template.execute(writer, new StandardSymbolTable(true));
+    return writer.toString();
+  }
+}
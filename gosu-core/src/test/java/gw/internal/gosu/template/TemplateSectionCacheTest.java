@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.internal.gosu.template;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.parser.StandardSymbolTable;
+import gw.lang.parser.resources.Res;
+import gw.lang.parser.template.TemplateParseException;
+import junit.framework.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TemplateSectionCacheTest extends Assert {
+
+  public static final AtomicInteger RENDERS = new AtomicInteger();
+
+  private static final String COUNT = "${" + TemplateSectionCacheTest.class.getName() + ".RENDERS.incrementAndGet()}";
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Before
+  public void reset() {
+    TemplateSectionCache.clear();
+    RENDERS.set(0);
+  }
+
+  @Test
+  public void replaysCachedSection() throws TemplateParseException {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader("[<%@ cache( \"key\" ) %>" + COUNT + "<%@ endcache %>]"));
+    assertEquals("[1]", render(template));
+    assertEquals("[1]", render(template));
+    assertEquals(1, RENDERS.get());
+  }
+
+  @Test
+  public void rendersEachKeyOnce() throws TemplateParseException {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader("<% for( i in 0..|4 ) { %><%@ cache( i % 2 ) %>" + COUNT + "<%@ endcache %><% } %>"));
+    assertEquals("1212", render(template));
+    assertEquals(2, RENDERS.get());
+  }
+
+  @Test
+  public void clearDropsCachedSections() throws TemplateParseException {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader("<%@ cache( \"key\" ) %>" + COUNT + "<%@ endcache %>"));
+    assertEquals("1", render(template));
+    TemplateSectionCache.clear();
+    assertEquals("2", render(template));
+    assertEquals("2", render(template));
+  }
+
+  @Test
+  public void expiredSectionRendersAgain() throws Exception {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader("<%@ cache( \"key\", 1 ) %>" + COUNT + "<%@ endcache %>"));
+    assertEquals("1", render(template));
+    Thread.sleep(1100);
+    assertEquals("2", render(template));
+  }
+
+  @Test
+  public void abruptSectionIsNotCached() throws TemplateParseException {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader(
+      "<%@ cache( \"key\" ) %>" + COUNT + "<% if( " + TemplateSectionCacheTest.class.getName() + ".RENDERS.get() == 1 ) { throw \"fail\" } %><%@ endcache %>"));
+    try {
+      render(template);
+      fail("Expected the first render to fail");
+    } catch (RuntimeException e) {
+      // expected
+    }
+    assertEquals("2", render(template));
+    assertEquals("2", render(template));
+  }
+
+  @Test
+  public void directiveNamesMustMatchExactly() {
+    TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader("<%@ cache( \"key\" ) %>x<%@ endcachefoo %>"));
+    List<TemplateParseException> problems = template.getTemplateSyntaxProblems();
+    assertEquals(2, problems.size());
+    assertEquals(Res.get(Res.MSG_TEMPLATE_UNKNOWN_DIRECTIVE, "endcachefoo"), problems.get(0).getMessage());
+    assertEquals(Res.get(Res.MSG_TEMPLATE_UNBALANCED_CACHE_DIRECTIVE, "endcache"), problems.get(1).getMessage());
+
+    template = TemplateGenerator.getTemplate(new StringReader("<%@ cachefoo( \"key\" ) %>"));
+    problems = template.getTemplateSyntaxProblems();
+    assertEquals(1, problems.size());
+    assertEquals(Res.get(Res.MSG_TEMPLATE_UNKNOWN_DIRECTIVE, "cachefoo( \"key\" )"), problems.get(0).getMessage());
+  }
+
+  @Test
+  public void syntaxChecksDoNotDisturbARacingCompile() throws Exception {
+    for (int iRound = 0; iRound < 10; iRound++) {
+      final TemplateGenerator template = TemplateGenerator.getTemplate(new StringReader(
+        "<%@ cache( \"a\" ) %>a<%@ endcache %><%@ cache( \"b\" ) %>b<%@ endcache %>"));
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Object> problems = Collections.synchronizedList(new ArrayList<Object>());
+      Thread checker = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < 20; i++) {
+              problems.addAll(template.getTemplateSyntaxProblems());
+            }
+          } catch (Throwable t) {
+            problems.add(t);
+          }
+        }
+      };
+      checker.start();
+      start.countDown();
+      assertEquals("ab", render(template));
+      checker.join();
+      assertEquals(Collections.emptyList(), problems);
+      assertEquals("ab", render(template));
+    }
+  }
+
+  private static String render(TemplateGenerator template) throws TemplateParseException {
+    StringWriter writer = new StringWriter();
+    template.execute(writer, new StandardSymbolTable(true));
+    return writer.toString();
+  }
+}
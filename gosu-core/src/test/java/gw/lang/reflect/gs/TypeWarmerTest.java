@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.lang.reflect.gs;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.reflect.TypeSystem;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TypeWarmerTest extends Assert {
+
+  private static final String PACKAGE = "gw.lang.reflect.gs.";
+
+  @BeforeClass
+  public static void init() {
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void supertypesFinishBeforeSubtypes() {
+    TypeWarmUpReport report = new TypeWarmer(TypeSystem.getCurrentModule(), 4)
+      .warmUp(names("WarmLeaf", "WarmMiddle", "WarmNamed", "WarmBase"));
+
+    List<String> order = completionOrder(report);
+    assertEquals(4, order.size());
+    assertTrue(order.toString(), order.indexOf(PACKAGE + "WarmBase") < order.indexOf(PACKAGE + "WarmMiddle"));
+    assertTrue(order.toString(), order.indexOf(PACKAGE + "WarmMiddle") < order.indexOf(PACKAGE + "WarmLeaf"));
+    assertTrue(order.toString(), order.indexOf(PACKAGE + "WarmNamed") < order.indexOf(PACKAGE + "WarmLeaf"));
+    assertTrue(report.getFailures().isEmpty());
+    assertTrue(report.getUnresolved().isEmpty());
+  }
+
+  @Test
+  public void duplicateNamesWarmTheClassOnce() {
+    TypeWarmUpReport report = new TypeWarmer(TypeSystem.getCurrentModule(), 2)
+      .warmUp(names("WarmBase", "WarmBase"));
+    assertEquals(Collections.singletonList(PACKAGE + "WarmBase"), completionOrder(report));
+  }
+
+  @Test
+  public void failingTypeIsReported() {
+    TypeWarmUpReport report = new TypeWarmer(TypeSystem.getCurrentModule(), 2)
+      .warmUp(names("WarmBroken", "WarmBase"));
+
+    assertEquals(2, report.getTimings().size());
+    assertEquals(1, report.getFailures().size());
+    TypeWarmUpReport.Timing failure = report.getFailures().get(0);
+    assertEquals(PACKAGE + "WarmBroken", failure.getTypeName());
+    assertNotNull(failure.getError());
+  }
+
+  @Test
+  public void unknownTypeIsUnresolved() {
+    TypeWarmUpReport report = new TypeWarmer(TypeSystem.getCurrentModule(), 1)
+      .warmUp(names("WarmDoesNotExist"));
+    assertEquals(Collections.singletonList(PACKAGE + "WarmDoesNotExist"), report.getUnresolved());
+    assertTrue(report.getTimings().isEmpty());
+  }
+
+  @Test
+  public void cyclesLoseTheirOrderingButKeepTheRest() {
+    TypeWarmer.Node root = new TypeWarmer.Node(null);
+    TypeWarmer.Node a = new TypeWarmer.Node(null);
+    TypeWarmer.Node b = new TypeWarmer.Node(null);
+    TypeWarmer.Node c = new TypeWarmer.Node(null);
+    TypeWarmer.Node leaf = new TypeWarmer.Node(null);
+    a._deps.add(root);
+    a._deps.add(c);
+    b._deps.add(a);
+    c._deps.add(b);
+    leaf._deps.add(a);
+
+    TypeWarmer.breakCycles(Arrays.asList(root, a, b, c, leaf));
+
+    assertTrue(root._deps.isEmpty());
+    assertEquals(Collections.singleton(root), a._deps);
+    assertTrue(b._deps.isEmpty());
+    assertTrue(c._deps.isEmpty());
+    assertEquals(Collections.singleton(a), leaf._deps);
+  }
+
+  @Test
+  public void interruptedWarmUpShutsDownWithoutRejectingDependents() throws InterruptedException {
+    final List<Throwable> uncaught = Collections.synchronizedList(new ArrayList<Throwable>());
+    Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+    Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+      public void uncaughtException(Thread t, Throwable e) {
+        uncaught.add(e);
+      }
+    });
+    List<String> names = names("WarmStop4", "WarmStop3", "WarmStop2", "WarmStop1");
+    for (String name : names) {
+      // Resolve the headers up front so only the worker threads see the interrupt
+      TypeSystem.getByFullName(name).getSupertype();
+    }
+    try {
+      Thread.currentThread().interrupt();
+      new TypeWarmer(TypeSystem.getCurrentModule(), 2).warmUp(names);
+      assertTrue(Thread.interrupted());
+      awaitWarmerThreads();
+    }
+    finally {
+      Thread.interrupted();
+      Thread.setDefaultUncaughtExceptionHandler(handler);
+    }
+    assertEquals(Collections.emptyList(), uncaught);
+  }
+
+  private static List<String> names(String... simpleNames) {
+    List<String> names = new ArrayList<String>();
+    for (String name : simpleNames) {
+      names.add(PACKAGE + name);
+    }
+    return names;
+  }
+
+  private static List<String> completionOrder(TypeWarmUpReport report) {
+    List<String> order = new ArrayList<String>();
+    for (TypeWarmUpReport.Timing timing : report.getTimings()) {
+      order.add(timing.getTypeName());
+    }
+    return order;
+  }
+
+  private static void awaitWarmerThreads() throws InterruptedException {
+    long lDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (System.nanoTime() < lDeadline) {
+      boolean bRunning = false;
+      for (Thread thread : Thread.getAllStackTraces().keySet()) {
+        bRunning |= thread.getName().startsWith("Gosu Type Warmer") && thread.isAlive();
+      }
+      if (!bRunning) {
+        return;
+      }
+      Thread.sleep(10);
+    }
+    fail("Warm-up threads did not stop after shutdown");
+  }
+}
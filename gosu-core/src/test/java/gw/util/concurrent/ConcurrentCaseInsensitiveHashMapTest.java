@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.concurrent;
+
+import gw.internal.gosu.GosuTestUtil;
+import gw.lang.parser.CaseInsensitiveCharSequence;
+import junit.framework.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentCaseInsensitiveHashMapTest extends Assert {
+
+  @BeforeClass
+  public static void init() {
+    // Whether keys ignore case depends on the language level
+    GosuTestUtil.initGosu();
+  }
+
+  @Test
+  public void keysCompareLikeCaseInsensitiveCharSequence() {
+    ConcurrentCaseInsensitiveHashMap<CharSequence, Integer> map = new ConcurrentCaseInsensitiveHashMap<CharSequence, Integer>();
+    map.put("gw.lang.Foo", 1);
+    for (String probe : new String[] {"gw.lang.Foo", "GW.LANG.FOO", "gw.lang.foo"}) {
+      boolean bMatches = CaseInsensitiveCharSequence.equalsIgnoreCase("gw.lang.Foo", probe);
+      assertEquals(probe, bMatches, map.containsKey(probe));
+      assertEquals(probe, bMatches ? Integer.valueOf(1) : null, map.get(probe));
+      assertEquals(probe, bMatches, map.containsKey(CaseInsensitiveCharSequence.get(probe)));
+    }
+    assertNull(map.get("gw.lang.Bar"));
+    assertNull(map.get(42));
+    assertEquals(Integer.valueOf(1), map.remove(CaseInsensitiveCharSequence.get("gw.lang.Foo")));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void replacingKeepsTheFirstKey() {
+    ConcurrentCaseInsensitiveHashMap<CharSequence, Integer> map = new ConcurrentCaseInsensitiveHashMap<CharSequence, Integer>();
+    CaseInsensitiveCharSequence first = CaseInsensitiveCharSequence.get("Foo");
+    map.put(first, 1);
+    assertEquals(Integer.valueOf(1), map.put("Foo", 2));
+    assertEquals(1, map.size());
+    Map.Entry<CharSequence, Integer> entry = map.entrySet().iterator().next();
+    assertSame(first, entry.getKey());
+    assertEquals(Integer.valueOf(2), entry.getValue());
+  }
+
+  @Test
+  public void putIfAbsentKeepsTheFirstValue() {
+    ConcurrentCaseInsensitiveHashMap<String, Integer> map = new ConcurrentCaseInsensitiveHashMap<String, Integer>();
+    assertNull(map.putIfAbsent("foo", 1));
+    assertEquals(Integer.valueOf(1), map.putIfAbsent(new String("foo"), 2));
+    assertEquals(Integer.valueOf(1), map.get("foo"));
+  }
+
+  @Test
+  public void entrySetWritesThrough() {
+    ConcurrentCaseInsensitiveHashMap<String, Integer> map = new ConcurrentCaseInsensitiveHashMap<String, Integer>();
+    map.put("a", 1);
+    map.put("b", 2);
+    for (Map.Entry<String, Integer> entry : map.entrySet()) {
+      entry.setValue(entry.getValue() * 10);
+    }
+    assertEquals(Integer.valueOf(10), map.get("a"));
+    assertEquals(Integer.valueOf(20), map.get("b"));
+    map.entrySet().clear();
+    assertTrue(map.isEmpty());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void rejectsNullKeys() {
+    new ConcurrentCaseInsensitiveHashMap<String, Integer>().put(null, 1);
+  }
+
+  @Test
+  public void concurrentPutIfAbsentHasOneWinnerPerKey() throws InterruptedException {
+    final ConcurrentCaseInsensitiveHashMap<CharSequence, Integer> map = new ConcurrentCaseInsensitiveHashMap<CharSequence, Integer>();
+    final int iKeys = 1000;
+    final AtomicInteger winners = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      final boolean bCharSequenceKeys = i % 2 == 0;
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            start.await();
+            for (int j = 0; j < iKeys; j++) {
+              // Half the threads use a different key type for the same name
+              CharSequence key = bCharSequenceKeys ? CaseInsensitiveCharSequence.get("type" + j) : "type" + j;
+              if (map.putIfAbsent(key, j) == null) {
+                winners.incrementAndGet();
+              }
+              if (!Integer.valueOf(j).equals(map.get("type" + j))) {
+                throw new AssertionError("Lost type" + j);
+              }
+            }
+          } catch (Throwable t) {
+            errors.add(t);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.emptyList(), errors);
+    assertEquals(iKeys, winners.get());
+    assertEquals(iKeys, map.size());
+  }
+}
@@ -0,0 +1,9 @@
+package gw.internal.gosu.compiler
+
+class CacheBase
+{
+  function name() : String
+  {
+    return "base"
+  }
+}
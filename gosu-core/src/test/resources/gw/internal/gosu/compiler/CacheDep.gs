@@ -0,0 +1,9 @@
+package gw.internal.gosu.compiler
+
+class CacheDep
+{
+  static function value() : String
+  {
+    return "original"
+  }
+}
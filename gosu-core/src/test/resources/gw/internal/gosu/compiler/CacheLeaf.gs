@@ -0,0 +1,9 @@
+package gw.internal.gosu.compiler
+
+class CacheLeaf extends CacheMiddle
+{
+  override function name() : String
+  {
+    return "leaf"
+  }
+}
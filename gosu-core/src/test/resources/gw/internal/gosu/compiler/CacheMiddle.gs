@@ -0,0 +1,5 @@
+package gw.internal.gosu.compiler
+
+class CacheMiddle extends CacheBase
+{
+}
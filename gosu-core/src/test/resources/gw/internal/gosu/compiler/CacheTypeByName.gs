@@ -0,0 +1,9 @@
+package gw.internal.gosu.compiler
+
+class CacheTypeByName
+{
+  static function type() : Type
+  {
+    return CacheBase
+  }
+}
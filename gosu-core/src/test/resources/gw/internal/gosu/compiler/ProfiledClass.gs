@@ -0,0 +1,9 @@
+package gw.internal.gosu.compiler
+
+class ProfiledClass
+{
+  static function run() : String
+  {
+    return "run"
+  }
+}
@@ -0,0 +1,40 @@
+package gw.internal.gosu.ir
+
+uses java.beans.ConstructorProperties
+
+class NestedClassesWithAnnotations
+{
+  @Deprecated
+  static class Names
+  {
+    var _names : String[]
+
+    @ConstructorProperties( {"names"} )
+    construct( names : String[] )
+    {
+      _names = names
+    }
+
+    @Deprecated
+    function getNames() : String[]
+    {
+      return _names
+    }
+  }
+
+  static class Grid
+  {
+    function cells() : int[][]
+    {
+      return new int[2][3]
+    }
+  }
+
+  static function run() : String
+  {
+    var count = \ names : String[] -> names.length
+    var names = new Names( {"a", "b"} )
+    var grid = new Grid()
+    return count( names.getNames() ) + ":" + grid.cells()[1].length
+  }
+}
@@ -0,0 +1,92 @@
+package gw.internal.gosu.ir.compiler.bytecode
+
+uses java.util.ArrayList
+uses java.util.LinkedList
+uses java.util.List
+
+class BranchyClass
+{
+  static class Base
+  {
+    function name() : String
+    {
+      return "base"
+    }
+  }
+
+  static class Left extends Base
+  {
+    override function name() : String
+    {
+      return "left"
+    }
+  }
+
+  static class Right extends Base
+  {
+    override function name() : String
+    {
+      return "right"
+    }
+  }
+
+  static function pickList( b : boolean ) : int
+  {
+    var list : List<String> = b ? new ArrayList<String>() : new LinkedList<String>()
+    list.add( "x" )
+    return list.size()
+  }
+
+  static function pickInner( i : int ) : String
+  {
+    var o : Base
+    if( i > 0 )
+    {
+      o = new Left()
+    }
+    else if( i < 0 )
+    {
+      o = new Right()
+    }
+    else
+    {
+      o = new Base()
+    }
+    return o.name()
+  }
+
+  static function pickBlock( b : boolean ) : String
+  {
+    var f = b ? \ -> "a" : \ -> "b"
+    return f()
+  }
+
+  static function catchAndLoop( n : int ) : int
+  {
+    var total = 0
+    for( i in 0..|n )
+    {
+      try
+      {
+        if( i % 2 == 0 )
+        {
+          throw new IllegalStateException()
+        }
+        total += i
+      }
+      catch( e : IllegalStateException )
+      {
+        total += 10
+      }
+    }
+    return total
+  }
+
+  static function run() : String
+  {
+    return pickList( true ) + ":" + pickList( false ) + ":" +
+           pickInner( 1 ) + pickInner( -1 ) + pickInner( 0 ) + ":" +
+           pickBlock( true ) + pickBlock( false ) + ":" +
+           catchAndLoop( 4 )
+  }
+}
@@ -0,0 +1,49 @@
+package gw.internal.gosu.ir.optimizer
+
+uses java.util.ArrayList
+
+class OptimizerCorpus
+{
+  static function arithmetic() : int
+  {
+    return 2 * 3 + 1
+  }
+
+  static function concatenation() : String
+  {
+    return "a" + "b" + "c"
+  }
+
+  static function nullSafeAccess() : boolean
+  {
+    return new ArrayList<String>().Empty and "abc".Empty == false
+  }
+
+  static function literalBranches() : String
+  {
+    var result = ""
+    if( 1 > 2 )
+    {
+      result = "unreachable"
+    }
+    else
+    {
+      result = "reachable"
+    }
+    while( false )
+    {
+      result = "unreachable"
+    }
+    return result
+  }
+
+  static function loop() : int
+  {
+    var total = 0
+    for( i in 0..|100 )
+    {
+      total += 2 * 3 + new StringBuilder( "x" ).length()
+    }
+    return total
+  }
+}
@@ -0,0 +1,363 @@
+package gw.internal.gosu.ir.transform.expression
+
+uses java.math.BigDecimal
+uses java.util.Date
+
+/**
+ * Each function compares its operands with one operator, e.g. ltFloatDouble() is a float < Double.
+ */
+class ComparisonOperands
+{
+  static class Version implements Comparable<Version>
+  {
+    var _iNumber : int as Number
+
+    construct( iNumber : int )
+    {
+      _iNumber = iNumber
+    }
+
+    override function compareTo( other : Version ) : int
+    {
+      return _iNumber - other.Number
+    }
+  }
+
+  static class Release extends Version
+  {
+    construct( iNumber : int )
+    {
+      super( iNumber )
+    }
+  }
+
+  static function eqFloatPrim( a : Float, b : float ) : boolean
+  {
+    return a == b
+  }
+
+  static function neFloatPrim( a : Float, b : float ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltFloatPrim( a : Float, b : float ) : boolean
+  {
+    return a < b
+  }
+
+  static function leFloatPrim( a : Float, b : float ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtFloatPrim( a : Float, b : float ) : boolean
+  {
+    return a > b
+  }
+
+  static function geFloatPrim( a : Float, b : float ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqDoubleBoxed( a : double, b : Double ) : boolean
+  {
+    return a == b
+  }
+
+  static function neDoubleBoxed( a : double, b : Double ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltDoubleBoxed( a : double, b : Double ) : boolean
+  {
+    return a < b
+  }
+
+  static function leDoubleBoxed( a : double, b : Double ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtDoubleBoxed( a : double, b : Double ) : boolean
+  {
+    return a > b
+  }
+
+  static function geDoubleBoxed( a : double, b : Double ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqFloatDouble( a : float, b : Double ) : boolean
+  {
+    return a == b
+  }
+
+  static function neFloatDouble( a : float, b : Double ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltFloatDouble( a : float, b : Double ) : boolean
+  {
+    return a < b
+  }
+
+  static function leFloatDouble( a : float, b : Double ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtFloatDouble( a : float, b : Double ) : boolean
+  {
+    return a > b
+  }
+
+  static function geFloatDouble( a : float, b : Double ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqDoubleFloat( a : Double, b : float ) : boolean
+  {
+    return a == b
+  }
+
+  static function neDoubleFloat( a : Double, b : float ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltDoubleFloat( a : Double, b : float ) : boolean
+  {
+    return a < b
+  }
+
+  static function leDoubleFloat( a : Double, b : float ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtDoubleFloat( a : Double, b : float ) : boolean
+  {
+    return a > b
+  }
+
+  static function geDoubleFloat( a : Double, b : float ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqIntegerLong( a : Integer, b : long ) : boolean
+  {
+    return a == b
+  }
+
+  static function neIntegerLong( a : Integer, b : long ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltIntegerLong( a : Integer, b : long ) : boolean
+  {
+    return a < b
+  }
+
+  static function leIntegerLong( a : Integer, b : long ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtIntegerLong( a : Integer, b : long ) : boolean
+  {
+    return a > b
+  }
+
+  static function geIntegerLong( a : Integer, b : long ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqByteShort( a : Byte, b : Short ) : boolean
+  {
+    return a == b
+  }
+
+  static function neByteShort( a : Byte, b : Short ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltByteShort( a : Byte, b : Short ) : boolean
+  {
+    return a < b
+  }
+
+  static function leByteShort( a : Byte, b : Short ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtByteShort( a : Byte, b : Short ) : boolean
+  {
+    return a > b
+  }
+
+  static function geByteShort( a : Byte, b : Short ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqLongFloat( a : long, b : Float ) : boolean
+  {
+    return a == b
+  }
+
+  static function neLongFloat( a : long, b : Float ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltLongFloat( a : long, b : Float ) : boolean
+  {
+    return a < b
+  }
+
+  static function leLongFloat( a : long, b : Float ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtLongFloat( a : long, b : Float ) : boolean
+  {
+    return a > b
+  }
+
+  static function geLongFloat( a : long, b : Float ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqBigDecimalInt( a : BigDecimal, b : int ) : boolean
+  {
+    return a == b
+  }
+
+  static function neBigDecimalInt( a : BigDecimal, b : int ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltBigDecimalInt( a : BigDecimal, b : int ) : boolean
+  {
+    return a < b
+  }
+
+  static function leBigDecimalInt( a : BigDecimal, b : int ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtBigDecimalInt( a : BigDecimal, b : int ) : boolean
+  {
+    return a > b
+  }
+
+  static function geBigDecimalInt( a : BigDecimal, b : int ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqIntegerBigDecimal( a : Integer, b : BigDecimal ) : boolean
+  {
+    return a == b
+  }
+
+  static function neIntegerBigDecimal( a : Integer, b : BigDecimal ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltIntegerBigDecimal( a : Integer, b : BigDecimal ) : boolean
+  {
+    return a < b
+  }
+
+  static function leIntegerBigDecimal( a : Integer, b : BigDecimal ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtIntegerBigDecimal( a : Integer, b : BigDecimal ) : boolean
+  {
+    return a > b
+  }
+
+  static function geIntegerBigDecimal( a : Integer, b : BigDecimal ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqDate( a : Date, b : java.sql.Date ) : boolean
+  {
+    return a == b
+  }
+
+  static function neDate( a : Date, b : java.sql.Date ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltDate( a : Date, b : java.sql.Date ) : boolean
+  {
+    return a < b
+  }
+
+  static function leDate( a : Date, b : java.sql.Date ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtDate( a : Date, b : java.sql.Date ) : boolean
+  {
+    return a > b
+  }
+
+  static function geDate( a : Date, b : java.sql.Date ) : boolean
+  {
+    return a >= b
+  }
+
+  static function eqBean( a : Version, b : Release ) : boolean
+  {
+    return a == b
+  }
+
+  static function neBean( a : Version, b : Release ) : boolean
+  {
+    return a != b
+  }
+
+  static function ltBean( a : Version, b : Release ) : boolean
+  {
+    return a < b
+  }
+
+  static function leBean( a : Version, b : Release ) : boolean
+  {
+    return a <= b
+  }
+
+  static function gtBean( a : Version, b : Release ) : boolean
+  {
+    return a > b
+  }
+
+  static function geBean( a : Version, b : Release ) : boolean
+  {
+    return a >= b
+  }
+}
@@ -0,0 +1,59 @@
+package gw.internal.gosu.ir.transform.expression
+
+class Concatenations
+{
+  static function nullOnTheLeft() : String
+  {
+    var s : String = null
+    return s + "x"
+  }
+
+  static function nullOnTheRight() : String
+  {
+    var o : Object = null
+    return "x" + o
+  }
+
+  static function nullsOnBothSides() : String
+  {
+    var s : String = null
+    var o : Object = null
+    return s + o
+  }
+
+  static function foldedLiterals() : String
+  {
+    return "a" + 'c' + true + false + 1.5f + 0.1f + 2.5 + 10L
+  }
+
+  static function numbersBeforeTheString() : String
+  {
+    return 1 + 2 + "x"
+  }
+
+  static function numbersAfterTheString() : String
+  {
+    return "x" + 1 + 2
+  }
+
+  static function parenthesizedChains( i : int, s : String ) : String
+  {
+    return "a" + (i + 1) + ("b" + i + 'c') + (s + (i + "d"))
+  }
+
+  static function primitives( b : boolean, c : char, by : byte, sh : short, i : int, l : long, f : float, d : double ) : String
+  {
+    return "" + b + "|" + c + "|" + by + "|" + sh + "|" + i + "|" + l + "|" + f + "|" + d
+  }
+
+  static function template( b : boolean, c : char, by : byte, sh : short, i : int, l : long, f : float, d : double ) : String
+  {
+    return "${b}|${c}|${by}|${sh}|${i}|${l}|${f}|${d}"
+  }
+
+  static function nullInTemplate() : String
+  {
+    var n : Integer = null
+    return "[${n}]"
+  }
+}
@@ -0,0 +1,52 @@
+package gw.internal.gosu.ir.transform.expression
+
+uses java.util.ArrayList
+uses java.util.List
+
+class MemberExpansions
+{
+  static class Box<T>
+  {
+    var _items : T[] as Items
+
+    construct( items : T[] )
+    {
+      _items = items
+    }
+  }
+
+  static class Shelf
+  {
+    var _boxes : List<Box<String>> as Boxes
+
+    construct( boxes : List<Box<String>> )
+    {
+      _boxes = boxes
+    }
+  }
+
+  static function flattenGenericCollection() : String[]
+  {
+    var boxes = new ArrayList<Box<String>>()
+    boxes.add( new Box<String>( {"a", "b"} ) )
+    boxes.add( null )
+    boxes.add( new Box<String>( null ) )
+    boxes.add( new Box<String>( {"c"} ) )
+    return boxes*.Items
+  }
+
+  static function flattenNested() : String[]
+  {
+    var shelves = new ArrayList<Shelf>()
+    shelves.add( new Shelf( {new Box<String>( {"a"} ), new Box<String>( {"b", "c"} )} ) )
+    shelves.add( new Shelf( {} ) )
+    shelves.add( new Shelf( {new Box<String>( {"d"} )} ) )
+    return shelves*.Boxes*.Items
+  }
+
+  static function flattenNull() : String[]
+  {
+    var boxes : List<Box<String>> = null
+    return boxes*.Items
+  }
+}
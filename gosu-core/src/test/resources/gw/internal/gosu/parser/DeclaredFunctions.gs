@@ -0,0 +1,69 @@
+package gw.internal.gosu.parser
+
+class DeclaredFunctions
+{
+  var _strName : String
+
+  construct( strName : String )
+  {
+    _strName = strName
+  }
+
+  function over() : String
+  {
+    return "over()"
+  }
+
+  function over( i : int ) : String
+  {
+    return "over(int " + i + ")"
+  }
+
+  function over( s : String ) : String
+  {
+    return "over(String " + s + ")"
+  }
+
+  static function both() : String
+  {
+    return "static both()"
+  }
+
+  function both( s : String ) : String
+  {
+    return "instance both(" + s + ") on " + _strName
+  }
+
+  property get Name() : String
+  {
+    return "get " + _strName
+  }
+
+  property set Name( strName : String )
+  {
+    _strName = "set " + strName
+  }
+
+  static property get StaticName() : String
+  {
+    return "static get"
+  }
+
+  static class Inner
+  {
+    function over() : String
+    {
+      return "Inner.over()"
+    }
+
+    function over( i : int ) : String
+    {
+      return "Inner.over(int " + i + ")"
+    }
+
+    static function both() : String
+    {
+      return "Inner.both()"
+    }
+  }
+}
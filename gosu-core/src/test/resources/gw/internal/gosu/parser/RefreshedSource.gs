@@ -0,0 +1,9 @@
+package gw.internal.gosu.parser
+
+class RefreshedSource
+{
+  static function value() : String
+  {
+    return "original"
+  }
+}
@@ -0,0 +1,11 @@
+package gw.internal.gosu.runtime
+
+uses java.util.ArrayList
+
+class TypeConstants
+{
+  static function listOfString() : Type
+  {
+    return ArrayList<String>
+  }
+}
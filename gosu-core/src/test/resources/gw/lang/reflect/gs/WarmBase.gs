@@ -0,0 +1,9 @@
+package gw.lang.reflect.gs
+
+class WarmBase
+{
+  function name() : String
+  {
+    return "base"
+  }
+}
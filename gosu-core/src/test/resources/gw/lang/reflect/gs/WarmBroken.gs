@@ -0,0 +1,9 @@
+package gw.lang.reflect.gs
+
+class WarmBroken
+{
+  function name() : String
+  {
+    return undefinedSymbol
+  }
+}
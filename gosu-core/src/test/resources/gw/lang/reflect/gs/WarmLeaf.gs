@@ -0,0 +1,9 @@
+package gw.lang.reflect.gs
+
+class WarmLeaf extends WarmMiddle implements WarmNamed
+{
+  override function name() : String
+  {
+    return "leaf"
+  }
+}
@@ -0,0 +1,9 @@
+package gw.lang.reflect.gs
+
+class WarmMiddle extends WarmBase
+{
+  override function name() : String
+  {
+    return "middle"
+  }
+}
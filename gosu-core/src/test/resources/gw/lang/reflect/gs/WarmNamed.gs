@@ -0,0 +1,6 @@
+package gw.lang.reflect.gs
+
+interface WarmNamed
+{
+  function name() : String
+}
@@ -0,0 +1,5 @@
+package gw.lang.reflect.gs
+
+class WarmStop4 extends WarmStop3
+{
+}
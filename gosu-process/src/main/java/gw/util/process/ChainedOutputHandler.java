@@ -14,7 +14,7 @@ import java.util.List;
 /**
  */
 class ChainedOutputHandler implements OutputHandler, Closeable {
-  private static final OutputHandler NULL_OUTPUT_HANDLER = new OutputHandler() {
+  static final OutputHandler NULL_OUTPUT_HANDLER = new OutputHandler() {
     public void handleLine(String line) {}
   };
   private List<OutputHandler> _handlers = new ArrayList<OutputHandler>();
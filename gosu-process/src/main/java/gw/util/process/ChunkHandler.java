@@ -0,0 +1,18 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+/**
+ * Receives a process' output as raw bytes, in the chunks it is read in, without
+ * splitting it into lines or decoding it.
+ */
+public interface ChunkHandler {
+  /**
+   * @param bytes a buffer that is reused once this call returns
+   * @param offset the offset of the chunk in the buffer
+   * @param length the length of the chunk
+   */
+  void handleChunk( byte[] bytes, int offset, int length );
+}
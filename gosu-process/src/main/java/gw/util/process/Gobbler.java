@@ -10,36 +10,84 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.List;
 
 /**
+ * Copies a process stream to either line handlers or chunk handlers.
  */
-class Gobbler extends Thread {
+class Gobbler implements Runnable {
+  private static final int CHUNK_SIZE = 8192;
+
   private final InputStream _streamToGobble;
   private final OutputHandler _outputHandler;
+  private final List<ChunkHandler> _chunkHandlers;
   private final String _gobblerCharset;
 
   Gobbler( InputStream streamToGobble, OutputHandler outputHandler, String charSet )
   {
     _streamToGobble = streamToGobble;
     _outputHandler = outputHandler;
+    _chunkHandlers = null;
     _gobblerCharset = charSet;
   }
 
+  Gobbler( InputStream streamToGobble, List<ChunkHandler> chunkHandlers )
+  {
+    _streamToGobble = streamToGobble;
+    _outputHandler = null;
+    _chunkHandlers = chunkHandlers;
+    _gobblerCharset = null;
+  }
+
   @Override
   public void run()
   {
     try
     {
-      Reader inputStreamReader = StreamUtil.getInputStreamReader(_streamToGobble, _gobblerCharset);
-      BufferedReader br = new BufferedReader(inputStreamReader);
+      if (_chunkHandlers != null) {
+        gobbleChunks();
+      } else {
+        gobbleLines();
+      }
+    } catch (IOException ioe) {
+      //ignore
+    } catch (RuntimeException e) {
+      // A failing handler only ever stopped its own gobbler thread, the process still ran to completion.
+      // Report it the same way and keep draining, so the process doesn't block on a full pipe.
+      e.printStackTrace();
+      discardRest();
+    }
+  }
 
-      String line;
-      while( (line = br.readLine()) != null ) {
-        _outputHandler.handleLine(line);
+  private void discardRest() {
+    byte[] buffer = new byte[CHUNK_SIZE];
+    try {
+      while( _streamToGobble.read(buffer) != -1 ) {
+        // discard
       }
     } catch (IOException ioe) {
       //ignore
     }
   }
 
+  private void gobbleLines() throws IOException {
+    Reader inputStreamReader = StreamUtil.getInputStreamReader(_streamToGobble, _gobblerCharset);
+    BufferedReader br = new BufferedReader(inputStreamReader);
+
+    String line;
+    while( (line = br.readLine()) != null ) {
+      _outputHandler.handleLine(line);
+    }
+  }
+
+  private void gobbleChunks() throws IOException {
+    byte[] buffer = new byte[CHUNK_SIZE];
+    int count;
+    while( (count = _streamToGobble.read(buffer)) != -1 ) {
+      for (ChunkHandler handler : _chunkHandlers) {
+        handler.handleChunk(buffer, 0, count);
+      }
+    }
+  }
+
 }
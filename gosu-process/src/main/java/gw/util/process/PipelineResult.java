@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of one execution of a {@link ProcessPipeline}, with a result for
+ * each stage in pipeline order.
+ */
+public class PipelineResult {
+  private final List<ProcessResult> _stageResults;
+  private final boolean _timedOut;
+
+  PipelineResult(List<ProcessResult> stageResults, boolean timedOut) {
+    _stageResults = Collections.unmodifiableList(new ArrayList<ProcessResult>(stageResults));
+    _timedOut = timedOut;
+  }
+
+  public List<ProcessResult> getStageResults() {
+    return _stageResults;
+  }
+
+  /**
+   * @return the exit code of each stage, null for stages that never completed
+   */
+  public List<Integer> getExitCodes() {
+    List<Integer> exitCodes = new ArrayList<Integer>(_stageResults.size());
+    for (ProcessResult result : _stageResults) {
+      exitCodes.add(result.getExitCode());
+    }
+    return exitCodes;
+  }
+
+  /**
+   * @return the exit code of the last stage, like a shell reports for a pipeline
+   */
+  public Integer getExitCode() {
+    return _stageResults.get(_stageResults.size() - 1).getExitCode();
+  }
+
+  /**
+   * @return the buffered output of the last stage, or null if nothing was to be buffered
+   */
+  public String getBuffer() {
+    return _stageResults.get(_stageResults.size() - 1).getBuffer();
+  }
+
+  /**
+   * @return true if the pipeline ran past its timeout and was destroyed
+   */
+  public boolean isTimedOut() {
+    return _timedOut;
+  }
+
+  /**
+   * @return true if every stage exited with 0
+   */
+  public boolean isSuccessful() {
+    for (ProcessResult result : _stageResults) {
+      Integer exitCode = result.getExitCode();
+      if (exitCode == null || exitCode != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
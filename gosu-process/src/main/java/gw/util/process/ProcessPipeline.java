@@ -0,0 +1,251 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import gw.util.StreamUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>Runs processes with each one's stdout connected to the next one's stdin, like
+ * <code>a | b | c</code> in a shell.  Output streams from one process to the next through
+ * a fixed-size buffer and is never held as a whole, and a slow stage slows the stages
+ * before it down.</p>
+ *
+ * <p>Each stage is configured with its own {@link ProcessRunner}.  The first stage reads
+ * its {@link ProcessRunner#input(String) input}, every stage's stderr goes to its own
+ * handlers and buffer, and the last stage's stdout goes to its stdout handlers and buffer.
+ * The stdout handlers, buffers and echo of the other stages are bypassed.</p>
+ *
+ * <p>
+ * <b>Example Usage:</b>
+ * <pre>
+ *   var result = new ProcessPipeline( new ProcessRunner( {"cat", "big.log"} ),
+ *                                     new ProcessRunner( {"grep", "ERROR"} ),
+ *                                     new ProcessRunner( {"wc", "-l"} ).withStdOutBuffered() )
+ *                  .withTimeout( 1, TimeUnit.MINUTES )
+ *                  .exec()
+ *   print( result.Buffer + " errors, exit codes " + result.ExitCodes )
+ * </pre>
+ * </p>
+ */
+public class ProcessPipeline {
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final List<ProcessRunner> _stages = new ArrayList<ProcessRunner>();
+  private long _timeoutMillis;
+  private int _bufferSize = DEFAULT_BUFFER_SIZE;
+
+  public ProcessPipeline(ProcessRunner... stages) {
+    _stages.addAll(Arrays.asList(stages));
+  }
+
+  /**
+   * Adds a stage reading the output of the current last stage.
+   *
+   * @param stage the process to add
+   * @return this object for chaining
+   */
+  public ProcessPipeline pipe(ProcessRunner stage) {
+    _stages.add(stage);
+    return this;
+  }
+
+  /**
+   * Destroys every stage still running once the pipeline has run for the given time.
+   * Stages that didn't complete have a null exit code, and the result reports it timed
+   * out.  There is no timeout by default.
+   *
+   * @param timeout the time the whole pipeline may run
+   * @param unit the unit of the timeout
+   * @return this object for chaining
+   */
+  public ProcessPipeline withTimeout(long timeout, TimeUnit unit) {
+    _timeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
+  /**
+   * Sets the size of the buffer between two stages, 64K by default.
+   *
+   * @param bufferSize the buffer size in bytes
+   * @return this object for chaining
+   */
+  public ProcessPipeline withBufferSize(int bufferSize) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+    }
+    _bufferSize = bufferSize;
+    return this;
+  }
+
+  /**
+   * Runs the pipeline and blocks until every stage has exited.  Interrupting the calling
+   * thread destroys every stage.
+   *
+   * @return the result of each stage
+   */
+  public PipelineResult exec() {
+    return prepare().run();
+  }
+
+  /**
+   * Runs the pipeline like {@link ProcessRunner#execAsync()} runs a single process.
+   *
+   * @return the future result of each stage
+   */
+  public Future<PipelineResult> execAsync() {
+    return execAsync(ProcessThreads.RUNNERS);
+  }
+
+  /**
+   * Runs the pipeline, waiting for it on the given executor.
+   *
+   * @param executor where to wait for the pipeline
+   * @return the future result of each stage
+   */
+  public Future<PipelineResult> execAsync(Executor executor) {
+    final Execution execution = prepare();
+    FutureTask<PipelineResult> future = new FutureTask<PipelineResult>(new Callable<PipelineResult>() {
+      public PipelineResult call() {
+        return execution.run();
+      }
+    });
+    executor.execute(future);
+    return future;
+  }
+
+  private Execution prepare() {
+    if (_stages.isEmpty()) {
+      throw new IllegalStateException("A pipeline needs at least one stage");
+    }
+    List<ProcessRunner.Execution> stages = new ArrayList<ProcessRunner.Execution>(_stages.size());
+    for (ProcessRunner stage : _stages) {
+      stages.add(stage.prepare());
+    }
+    return new Execution(stages, _timeoutMillis, _bufferSize);
+  }
+
+  private static class Execution {
+    private final List<ProcessRunner.Execution> _stages;
+    private final long _timeoutMillis;
+    private final int _bufferSize;
+    private final List<Process> _processes = new ArrayList<Process>();
+    private final AtomicBoolean _timedOut = new AtomicBoolean();
+    // Stages destroyed while still running, guarded by this
+    private final List<Process> _destroyed = new ArrayList<Process>();
+
+    Execution(List<ProcessRunner.Execution> stages, long timeoutMillis, int bufferSize) {
+      _stages = stages;
+      _timeoutMillis = timeoutMillis;
+      _bufferSize = bufferSize;
+    }
+
+    PipelineResult run() {
+      List<Future<?>> pumps = new ArrayList<Future<?>>();
+      ScheduledFuture<?> reaper = null;
+      Integer[] exitCodes = new Integer[_stages.size()];
+      try {
+        try {
+          for (ProcessRunner.Execution stage : _stages) {
+            _processes.add(stage.start());
+          }
+        } catch (IOException e) {
+          destroyAll();
+          throw new RuntimeException(e);
+        }
+        if (_timeoutMillis > 0) {
+          reaper = ProcessThreads.REAPER.schedule(new Runnable() {
+            public void run() {
+              _timedOut.set(true);
+              destroyAll();
+            }
+          }, _timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        startPumps(pumps);
+        for (int i = 0; i < _processes.size(); i++) {
+          exitCodes[i] = _processes.get(i).waitFor();
+        }
+        for (Future<?> pump : pumps) {
+          pump.get();
+        }
+      } catch (InterruptedException e) {
+        destroyAll();
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        destroyAll();
+        throw new RuntimeException(e.getCause());
+      } finally {
+        if (reaper != null) {
+          reaper.cancel(false);
+        }
+        for (ProcessRunner.Execution stage : _stages) {
+          stage.closeHandlers();
+        }
+      }
+      List<ProcessResult> results = new ArrayList<ProcessResult>(_stages.size());
+      for (int i = 0; i < _stages.size(); i++) {
+        // A destroyed stage exits with whatever code the platform gives a killed process, report that it didn't complete
+        results.add(_stages.get(i).finish(i < _processes.size() && isDestroyed(_processes.get(i)) ? null : exitCodes[i]));
+      }
+      return new PipelineResult(results, _timedOut.get());
+    }
+
+    private void startPumps(List<Future<?>> pumps) {
+      int last = _processes.size() - 1;
+      final ProcessRunner.Execution first = _stages.get(0);
+      final Process firstProcess = _processes.get(0);
+      if (first.hasInput()) {
+        pumps.add(ProcessThreads.PUMPS.submit(new Callable<Object>() {
+          public Object call() {
+            try {
+              first.feedInput(firstProcess);
+            } catch (IOException e) {
+              // The first stage exited or closed its stdin before reading all its input, e.g. head.  A shell doesn't report that either.
+            }
+            return null;
+          }
+        }));
+      }
+      for (int i = 0; i <= last; i++) {
+        Process process = _processes.get(i);
+        if (i < last) {
+          pumps.add(ProcessThreads.PUMPS.submit(new StreamPipe(process.getInputStream(), _processes.get(i + 1).getOutputStream(), _bufferSize)));
+        } else {
+          pumps.add(ProcessThreads.PUMPS.submit(_stages.get(i).getStdOutGobbler(process)));
+        }
+        pumps.add(ProcessThreads.PUMPS.submit(_stages.get(i).getStdErrGobbler(process)));
+      }
+    }
+
+    private synchronized void destroyAll() {
+      for (Process process : _processes) {
+        try {
+          process.exitValue();
+        } catch (IllegalThreadStateException e) {
+          _destroyed.add(process);
+          process.destroy();
+          // Unblocks pumps on platforms where destroy() leaves the streams open
+          StreamUtil.closeNoThrow(process.getOutputStream());
+        }
+      }
+    }
+
+    private synchronized boolean isDestroyed(Process process) {
+      return _destroyed.contains(process);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+/**
+ * The outcome of one execution of a {@link ProcessRunner}.
+ */
+public class ProcessResult {
+  private final String _command;
+  private final Integer _exitCode;
+  private final String _buffer;
+
+  ProcessResult(String command, Integer exitCode, String buffer) {
+    _command = command;
+    _exitCode = exitCode;
+    _buffer = buffer;
+  }
+
+  /**
+   * @return the command as returned by {@link ProcessRunner#getRawCmdStr()}
+   */
+  public String getCommand() {
+    return _command;
+  }
+
+  /**
+   * @return the exit code, or null if the process never completed
+   * @see ProcessRunner#getExitCode()
+   */
+  public Integer getExitCode() {
+    return _exitCode;
+  }
+
+  /**
+   * @return the buffered output, or null if nothing was to be buffered
+   * @see ProcessRunner#getBuffer()
+   */
+  public String getBuffer() {
+    return _buffer;
+  }
+
+  @Override
+  public String toString() {
+    return _command + " exited with " + _exitCode;
+  }
+}
@@ -9,6 +9,7 @@ import gw.util.StreamUtil;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
@@ -16,13 +17,17 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 public class ProcessRunner {
 
   private final List<String> _rawCmd = new ArrayList<String>();
 
-  private OutputBuffer _buffer = null;
-  private Integer _exitCode = null;
+  private ProcessResult _result = null;
 
   // properties set by builders:
   private boolean _withCMD;
@@ -34,6 +39,8 @@ public class ProcessRunner {
   private boolean _bufferStdErr;
   private List<OutputHandler> _stdOutHandlers = new ArrayList<OutputHandler>();
   private List<OutputHandler> _stdErrHandlers = new ArrayList<OutputHandler>();
+  private List<ChunkHandler> _stdOutChunkHandlers = new ArrayList<ChunkHandler>();
+  private List<ChunkHandler> _stdErrChunkHandlers = new ArrayList<ChunkHandler>();
   private String _charset = "UTF-8";
 
   public static String exec(String... command) {
@@ -61,6 +68,9 @@ public class ProcessRunner {
    *
    * <p>This method blocks on the execution of the command.</p>
    *
+   * <p>An exception thrown by an output handler is printed and the rest of that stream is
+   * discarded; the process still runs to completion and its exit code is reported.</p>
+   *
    * <p>
    * <b>Example Usages:</b>
    * <pre>
@@ -74,6 +84,47 @@ public class ProcessRunner {
    */
   public ProcessRunner exec()
   {
+    _result = prepare().run(false);
+    return this;
+  }
+
+  /**
+   * <p>Executes the given command like {@link #exec()}, but on a shared, bounded pool of
+   * threads, and returns right away.  Output is pumped by shared threads as well rather
+   * than by threads started for each process.  Results are reported by the returned future
+   * only; {@link #getExitCode()} and {@link #getBuffer()} are not updated.</p>
+   *
+   * <p>The command and handlers are captured when this is called, so this runner may be
+   * changed or executed again right away.  Cancelling the future with interruption
+   * destroys the process.</p>
+   *
+   * @return the future result of the execution
+   */
+  public Future<ProcessResult> execAsync()
+  {
+    return execAsync(ProcessThreads.RUNNERS);
+  }
+
+  /**
+   * <p>Executes the given command like {@link #execAsync()}, waiting for it on the given
+   * executor.</p>
+   *
+   * @param executor where to wait for the process
+   * @return the future result of the execution
+   */
+  public Future<ProcessResult> execAsync(Executor executor)
+  {
+    final Execution execution = prepare();
+    FutureTask<ProcessResult> future = new FutureTask<ProcessResult>(new Callable<ProcessResult>() {
+      public ProcessResult call() {
+        return execution.run(true);
+      }
+    });
+    executor.execute(future);
+    return future;
+  }
+
+  Execution prepare() {
     List<String> command = new ArrayList<String>();
     if (OSPlatform.isWindows() && _withCMD) {
       command.add("CMD.EXE");
@@ -94,83 +145,161 @@ public class ProcessRunner {
       }
     }
 
-    ChainedOutputHandler stdOut = new ChainedOutputHandler();
-    ChainedOutputHandler stdErr = new ChainedOutputHandler();
+    Execution execution = new Execution(pb, getRawCmdStr(), _input, _charset);
     if (_bufferStdOut || _bufferStdErr) {
-      _buffer = new OutputBuffer();
+      execution._buffer = new OutputBuffer();
       if (_bufferStdOut) {
-        stdOut.add(_buffer);
+        execution._stdOut.add(execution._buffer);
       }
       if (_bufferStdErr) {
-        stdErr.add(_buffer);
+        execution._stdErr.add(execution._buffer);
       }
     }
-    EchoOutputEmitter echo = null;
     if (_echo) {
-      echo = new EchoOutputEmitter(getRawCmdStr(), System.out, System.err);
-      stdOut.add(echo.getStdOutHandler());
-      stdErr.add(echo.getStdErrHandler());
+      execution._echo = new EchoOutputEmitter(execution._rawCmdStr, System.out, System.err);
+      execution._stdOut.add(execution._echo.getStdOutHandler());
+      execution._stdErr.add(execution._echo.getStdErrHandler());
     }
     for (OutputHandler handler : _stdOutHandlers) {
-      stdOut.add(handler);
+      execution._stdOut.add(handler);
     }
     for (OutputHandler handler : _stdErrHandlers) {
-      stdErr.add(handler);
+      execution._stdErr.add(handler);
+    }
+    execution._stdOutChunks.addAll(_stdOutChunkHandlers);
+    execution._stdErrChunks.addAll(_stdErrChunkHandlers);
+    if (!execution._stdOutChunks.isEmpty() && execution._stdOut.maybeReduce() != ChainedOutputHandler.NULL_OUTPUT_HANDLER ||
+        !execution._stdErrChunks.isEmpty() && execution._stdErr.maybeReduce() != ChainedOutputHandler.NULL_OUTPUT_HANDLER) {
+      throw new IllegalStateException("A stream's output goes either to chunk handlers or to line handlers, buffers and echo, not both");
     }
+    return execution;
+  }
 
-    try {
-      Process process = pb.start();
-      feedInput(process, _input, _charset);
-      if (echo != null) {
-        echo.processStarted();
+  /**
+   * Everything needed to run the process once, independent of later changes to the runner.
+   */
+  static class Execution {
+    private final ProcessBuilder _pb;
+    private final String _rawCmdStr;
+    private final String _input;
+    private final String _charset;
+    private final ChainedOutputHandler _stdOut = new ChainedOutputHandler();
+    private final ChainedOutputHandler _stdErr = new ChainedOutputHandler();
+    private final List<ChunkHandler> _stdOutChunks = new ArrayList<ChunkHandler>();
+    private final List<ChunkHandler> _stdErrChunks = new ArrayList<ChunkHandler>();
+    private OutputBuffer _buffer;
+    private EchoOutputEmitter _echo;
+
+    Execution(ProcessBuilder pb, String rawCmdStr, String input, String charset) {
+      _pb = pb;
+      _rawCmdStr = rawCmdStr;
+      _input = input;
+      _charset = charset;
+    }
+
+    ProcessResult run(boolean destroyOnInterrupt) {
+      Integer exitCode = null;
+      try {
+        Process process = start();
+        feedInput(process);
+        exitCode = nomNomNom(process, getStdOutGobbler(process), getStdErrGobbler(process), destroyOnInterrupt);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      } finally {
+        closeHandlers();
       }
-      _exitCode = nomNomNom(process, stdOut.maybeReduce(), stdErr.maybeReduce(), _charset);
-      if (echo != null) {
-        echo.processFinished();
+      return finish(exitCode);
+    }
+
+    Process start() throws IOException {
+      Process process = _pb.start();
+      if (_echo != null) {
+        _echo.processStarted();
       }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    } finally {
+      return process;
+    }
+
+    void feedInput(Process process) throws IOException {
+      ProcessRunner.feedInput(process, _input, _charset);
+    }
+
+    boolean hasInput() {
+      return _input != null;
+    }
+
+    Gobbler getStdOutGobbler(Process process) {
+      return makeGobbler(process.getInputStream(), _stdOut, _stdOutChunks);
+    }
+
+    Gobbler getStdErrGobbler(Process process) {
+      return makeGobbler(process.getErrorStream(), _stdErr, _stdErrChunks);
+    }
+
+    void closeHandlers() {
       try {
-        StreamUtil.close(stdOut, stdErr);
+        StreamUtil.close(_stdOut, _stdErr);
       } catch (IOException e) {
         e.printStackTrace();
       }
     }
-    return this;
+
+    ProcessResult finish(Integer exitCode) {
+      if (_echo != null) {
+        _echo.processFinished();
+      }
+      return new ProcessResult(_rawCmdStr, exitCode, _buffer == null ? null : _buffer.toString());
+    }
+
+    private Gobbler makeGobbler(InputStream stream, ChainedOutputHandler lines, List<ChunkHandler> chunks) {
+      return chunks.isEmpty() ? new Gobbler(stream, lines.maybeReduce(), _charset) : new Gobbler(stream, chunks);
+    }
   }
 
   private static void feedInput(Process process, String input, String charset) throws IOException {
     Writer inputEmitter = null;
+    boolean written = false;
     try {
       if (input != null) {
         inputEmitter = new OutputStreamWriter(process.getOutputStream(), charset);
         inputEmitter.write(input);
       }
+      written = true;
     } finally {
-      try {
-        StreamUtil.close(inputEmitter);
-      } catch (IOException e) {
-        e.printStackTrace();
+      if (!written) {
+        // The failed write is what gets reported, flushing the rest on close would only fail the same way
+        StreamUtil.closeNoThrow(inputEmitter);
+      } else {
+        try {
+          StreamUtil.close(inputEmitter);
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
       }
     }
   }
 
-  private static Integer nomNomNom(Process process, OutputHandler stdOut, OutputHandler stdErr, String charset) {
-    Gobbler outputGobbler = new Gobbler( process.getInputStream(), stdOut, charset );
-    Gobbler errorGobbler = new Gobbler( process.getErrorStream(), stdErr, charset );
-
-    // kick off the gobblers
-    errorGobbler.start();
-    outputGobbler.start();
-
+  private static Integer nomNomNom(Process process, Gobbler outputGobbler, Gobbler errorGobbler, boolean destroyOnInterrupt) {
+    // stderr goes to a pooled pump and stdout is pumped on this thread, unless an interrupt has to
+    // reach waitFor() to destroy the process; a blocked read can't be interrupted
+    Future<?> errorPump = ProcessThreads.PUMPS.submit(errorGobbler);
+    Future<?> outputPump = destroyOnInterrupt ? ProcessThreads.PUMPS.submit(outputGobbler) : null;
     try {
+      if (outputPump == null) {
+        outputGobbler.run();
+      }
       int exitCode = process.waitFor();
-      errorGobbler.join();
-      outputGobbler.join();
+      errorPump.get();
+      if (outputPump != null) {
+        outputPump.get();
+      }
       return exitCode;
     } catch (InterruptedException e) {
-      //ignore
+      if (destroyOnInterrupt) {
+        process.destroy();
+        Thread.currentThread().interrupt();
+      }
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
     } finally {
       try {
         StreamUtil.close(process.getErrorStream(), process.getInputStream());
@@ -211,7 +340,7 @@ public class ProcessRunner {
    * @return the buffer, or null if nothing was to be buffered
    */
   public String getBuffer() {
-    return _buffer == null ? null : _buffer.toString();
+    return _result == null ? null : _result.getBuffer();
   }
 
   /**
@@ -220,7 +349,7 @@ public class ProcessRunner {
    * @return the exit code, or null if the process never completed
    */
   public Integer getExitCode() {
-    return _exitCode;
+    return _result == null ? null : _result.getExitCode();
   }
 
   //=================================================================================
@@ -361,4 +490,35 @@ public class ProcessRunner {
     _stdOutHandlers.add(stdOutHandler);
     return this;
   }
+
+  /**
+   * Adds a handler to receive this process' stdout as raw bytes, without splitting it into lines
+   * or decoding it.  Handy for large or binary output.  Stdout can't have both chunk handlers and
+   * line handlers, a buffer or echo.
+   *
+   * This can be called multiple times in a chain to add multiple handlers.
+   *
+   * @param stdOutHandler handler that will be called with every chunk of output to stdout
+   * @return this object for chaining
+   */
+  public ProcessRunner withStdOutChunkHandler( ChunkHandler stdOutHandler )
+  {
+    _stdOutChunkHandlers.add(stdOutHandler);
+    return this;
+  }
+
+  /**
+   * Adds a handler to receive this process' stderr as raw bytes, without splitting it into lines
+   * or decoding it.  Stderr can't have both chunk handlers and line handlers, a buffer or echo.
+   *
+   * This can be called multiple times in a chain to add multiple handlers.
+   *
+   * @param stdErrHandler handler that will be called with every chunk of output to stderr
+   * @return this object for chaining
+   */
+  public ProcessRunner withStdErrChunkHandler( ChunkHandler stdErrHandler )
+  {
+    _stdErrChunkHandlers.add(stdErrHandler);
+    return this;
+  }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared daemon threads for running processes.  Pump threads copy a process'
+ * output to its handlers and are reused rather than started per process.
+ * Runner threads wait on asynchronously executed processes and are bounded, so
+ * at most {@link #RUNNERS_PROPERTY} asynchronous processes run at once and the
+ * rest queue.  The reaper destroys processes that run past their timeout.
+ */
+class ProcessThreads {
+  static final String RUNNERS_PROPERTY = "gosu.process.asyncThreads";
+
+  // Unbounded because a pump blocks for as long as its process runs, and queueing one would stall the process
+  static final ExecutorService PUMPS = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                                                              new SynchronousQueue<Runnable>(),
+                                                              new DaemonThreadFactory("Gosu Process Pump"));
+
+  static final ExecutorService RUNNERS = makeRunners();
+
+  // Enforces timeouts, the tasks only destroy processes and never block
+  static final ScheduledExecutorService REAPER = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("Gosu Process Reaper"));
+
+  private ProcessThreads() {
+  }
+
+  private static ExecutorService makeRunners() {
+    int threads = Integer.getInteger(RUNNERS_PROPERTY, Math.max(8, Runtime.getRuntime().availableProcessors() * 2));
+    ThreadPoolExecutor runners = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                                        new LinkedBlockingQueue<Runnable>(),
+                                                        new DaemonThreadFactory("Gosu Process Runner"));
+    runners.allowCoreThreadTimeOut(true);
+    return runners;
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+    private final String _name;
+    private final AtomicInteger _count = new AtomicInteger();
+
+    DaemonThreadFactory(String name) {
+      _name = name;
+    }
+
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, _name + "-" + _count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import gw.util.StreamUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Copies one process' stdout to the next one's stdin through a fixed-size
+ * buffer.  Reads block while the buffer is being written, so a slow consumer
+ * slows its producer down instead of output piling up in memory.
+ */
+class StreamPipe implements Runnable {
+  private final InputStream _from;
+  private final OutputStream _to;
+  private final int _bufferSize;
+
+  StreamPipe(InputStream from, OutputStream to, int bufferSize) {
+    _from = from;
+    _to = to;
+    _bufferSize = bufferSize;
+  }
+
+  @Override
+  public void run() {
+    byte[] buffer = new byte[_bufferSize];
+    try {
+      int count;
+      while ((count = _from.read(buffer)) != -1) {
+        _to.write(buffer, 0, count);
+        _to.flush();
+      }
+    } catch (IOException e) {
+      // The consumer exited early, e.g. head.  Closing our end below lets the producer fail its next write.
+    } finally {
+      StreamUtil.closeNoThrow(_to);
+      StreamUtil.closeNoThrow(_from);
+    }
+  }
+}
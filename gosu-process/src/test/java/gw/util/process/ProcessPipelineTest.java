@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import gw.util.OSPlatform;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class ProcessPipelineTest extends Assert {
+
+  @Test
+  public void pipesEachStageIntoTheNext() {
+    if (OSPlatform.isWindows()) {
+      return;
+    }
+    PipelineResult result = new ProcessPipeline(new ProcessRunner("cat").input("b\na\nb\n"),
+                                                new ProcessRunner("sort"),
+                                                new ProcessRunner("uniq").withStdOutBuffered())
+      .exec();
+    assertEquals("a\nb\n", result.getBuffer());
+    assertEquals(Arrays.asList(0, 0, 0), result.getExitCodes());
+    assertFalse(result.isTimedOut());
+  }
+
+  @Test
+  public void firstStageExitingBeforeReadingItsInputIsNotAnError() {
+    if (OSPlatform.isWindows()) {
+      return;
+    }
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      input.append("line ").append(i).append('\n');
+    }
+    PipelineResult result = new ProcessPipeline(new ProcessRunner("head", "-n", "1").input(input.toString()),
+                                                new ProcessRunner("cat").withStdOutBuffered())
+      .exec();
+    assertEquals("line 0\n", result.getBuffer());
+    assertEquals(Integer.valueOf(0), result.getExitCode());
+  }
+
+  @Test
+  public void timeoutDestroysRunningStages() {
+    if (OSPlatform.isWindows()) {
+      return;
+    }
+    PipelineResult result = new ProcessPipeline(new ProcessRunner("sleep", "30"),
+                                                new ProcessRunner("cat").withStdOutBuffered())
+      .withTimeout(200, TimeUnit.MILLISECONDS)
+      .exec();
+    assertTrue(result.isTimedOut());
+    assertNull(result.getStageResults().get(0).getExitCode());
+  }
+}
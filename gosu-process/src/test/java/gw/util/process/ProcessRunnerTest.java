@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012. Guidewire Software, Inc.
+ */
+
+package gw.util.process;
+
+import gw.util.OSPlatform;
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ProcessRunnerTest extends Assert {
+
+  @Test
+  public void execReportsExitCodeAndBuffer() {
+    if (OSPlatform.isWindows()) {
+      return;
+    }
+    ProcessRunner runner = new ProcessRunner("sh", "-c", "echo out; exit 3").withStdOutBuffered().exec();
+    assertEquals("out\n", runner.getBuffer());
+    assertEquals(Integer.valueOf(3), runner.getExitCode());
+  }
+
+  @Test
+  public void execReportsExitCodeWhenAHandlerFails() {
+    if (OSPlatform.isWindows()) {
+      return;
+    }
+    ProcessRunner runner = new ProcessRunner("sh", "-c", "i=0; while [ $i -lt 20000 ]; do echo line $i; i=$((i+1)); done; echo err >&2; exit 2")
+      .withStdErrBuffered()
+      .withStdOutHandler(new OutputHandler() {
+        public void handleLine(String line) {
+          throw new IllegalStateException("handler failed on " + line);
+        }
+      })
+      .exec();
+    assertEquals(Integer.valueOf(2), runner.getExitCode());
+    assertEquals("err\n", runner.getBuffer());
+  }
+
+  @Test
+  public void execAsyncReportsThroughTheFuture() throws Exception {
+    if (OSPlatform.isWindows()) {
+      return;
+    }
+    ProcessRunner runner = new ProcessRunner("cat").input("hello\n").withStdOutBuffered();
+    Future<ProcessResult> future = runner.execAsync();
+    ProcessResult result = future.get(30, TimeUnit.SECONDS);
+    assertEquals("hello\n", result.getBuffer());
+    assertEquals(Integer.valueOf(0), result.getExitCode());
+    assertNull(runner.getExitCode());
+  }
+
+  @Test
+  public void chunkHandlerReceivesRawBytes() {
+    if (OSPlatform.isWindows()) {
+      return;
+    }
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ProcessRunner("printf", "a\\000b")
+      .withStdOutChunkHandler(new ChunkHandler() {
+        public void handleChunk(byte[] bytes, int offset, int length) {
+          out.write(bytes, offset, length);
+        }
+      })
+      .exec();
+    assertEquals(3, out.size());
+    assertEquals(0, out.toByteArray()[1]);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void chunkAndLineHandlersOnTheSameStreamAreRejected() {
+    new ProcessRunner("true")
+      .withStdOutBuffered()
+      .withStdOutChunkHandler(new ChunkHandler() {
+        public void handleChunk(byte[] bytes, int offset, int length) {
+        }
+      })
+      .exec();
+  }
+}
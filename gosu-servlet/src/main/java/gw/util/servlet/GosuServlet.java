@@ -21,6 +21,12 @@ import java.util.List;
 import java.util.Properties;
 
 /**
+ * Renders the template a request's URI names.  The status and headers are set before
+ * rendering starts, so a page streams to the client in chunks as it renders: whenever
+ * the response buffer fills, and wherever the template has a <code>&lt;%@ flush %&gt;</code>
+ * directive, e.g. after the head of a page.  The <code>bufferSize</code> init parameter
+ * sets the size of the response buffer in bytes; smaller buffers send output sooner.
+ *
  *  Copyright 2010 Guidewire Software, Inc.
  */
 @SuppressWarnings("serial")
@@ -29,6 +35,20 @@ public class GosuServlet extends HttpServlet
   private static final String ENCODING = "UTF-8";
   private HashMap<ITemplateType, IMethodInfo> _renderMethodsMap = new HashMap<ITemplateType, IMethodInfo>();
   private boolean _bInit;
+  private int _iBufferSize;
+
+  @Override
+  public void init() throws ServletException {
+    String strBufferSize = getInitParameter( "bufferSize" );
+    if( strBufferSize != null ) {
+      try {
+        _iBufferSize = Integer.parseInt( strBufferSize.trim() );
+      }
+      catch( NumberFormatException e ) {
+        throw new ServletException( "Invalid bufferSize: " + strBufferSize, e );
+      }
+    }
+  }
 
   @Override
   protected void service( HttpServletRequest req, HttpServletResponse resp ) throws ServletException, IOException {
@@ -46,8 +66,12 @@ public class GosuServlet extends HttpServlet
       return;
     }
     ServletParams params = new ServletParams( req, resp, req.getSession(), req.getSession().getServletContext() );
-    renderTemplate( templateType, resp.getWriter(), params );
+    // Anything the template flushes commits the response, so the status has to be set first
     resp.setStatus( HttpServletResponse.SC_OK );
+    if( _iBufferSize > 0 ) {
+      resp.setBufferSize( _iBufferSize );
+    }
+    renderTemplate( templateType, resp.getWriter(), params );
   }
 
   private void renderTemplate( ITemplateType templateType, PrintWriter writer, ServletParams params ) {